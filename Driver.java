@@ -1,15 +1,27 @@
 import controller.*;
 import model.GameModel;
-import view.*;
+import model.MappedRoster;
+import model.ReplayArchive;
+import model.RosterStore;
+
+import java.io.File;
+import java.io.IOException;
 
 public class Driver {
     public static void main(String[] args) {
+    // "--mapped" keeps the characters in a memory-mapped roster file instead of a snapshot and journal
+    boolean mapped = args.length > 0 && args[0].equals("--mapped");
     javax.swing.SwingUtilities.invokeLater(() -> {
-        int player = 1;
-        MainMenuView view = new MainMenuView(player);
-        GameModel model = new GameModel();
-        new MainMenuController(view, model, player);
-        view.setVisible(true);  
+        GameModel model;
+        try {
+            model = new GameModel(mapped ? new MappedRoster(new File("roster.mapped"))
+                    : new RosterStore(new File("roster")));
+        } catch (IOException e) {
+            System.out.println("[Could not load saved characters: " + e.getMessage() + "]");
+            model = new GameModel();
+        }
+        model.setReplayArchive(new ReplayArchive(new File("replays.bin")));
+        new AppController(model).start();
     }); 
 }
 }   
\ No newline at end of file
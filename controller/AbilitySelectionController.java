@@ -42,7 +42,7 @@ public class AbilitySelectionController {
             }
 
             // Update character abilities
-            character.setAbilities(selectedAbilities.toArray(new Ability[0]));
+            model.setCharacterAbilities(isPlayer1 ? 1 : 2, character, selectedAbilities.toArray(new Ability[0]));
             
             JOptionPane.showMessageDialog(view,
                 "Abilities updated successfully!",
@@ -50,10 +50,7 @@ public class AbilitySelectionController {
                 JOptionPane.INFORMATION_MESSAGE);
 
             // Return to edit screen
-            view.dispose();
-            ActualEditCharacterView editView = new ActualEditCharacterView();
             new ActualEditCharacterController(model, character, isPlayer1, mainView);
-            editView.setVisible(true);
         });
 
         // Back button listener
@@ -64,10 +61,7 @@ public class AbilitySelectionController {
                 JOptionPane.YES_NO_OPTION);
                 
             if (confirm == JOptionPane.YES_OPTION) {
-                view.dispose();
-                ActualEditCharacterView editView = new ActualEditCharacterView();
                 new ActualEditCharacterController(model, character, isPlayer1, mainView);
-                editView.setVisible(true);
             }
         });
     }
@@ -25,24 +25,37 @@ public class ActualEditCharacterController {
         view.setTitle("Edit " + (isPlayer1 ? "Player 1" : "Player 2") + "'s Character: " + character.getName());
         
         setupListeners();
-        view.setVisible(true);
+        mainView.getRouter().showTemporary(view);
     }
 
     private void setupListeners() {
         // Edit Abilities listener
         view.setEditAbilitiesListener(e -> {
-            view.dispose();
             AbilitySelectionView abilityView = new AbilitySelectionView(character.getCharacterClass());
-            new AbilitySelectionController(model, character, isPlayer1, abilityView);
-            abilityView.setVisible(true);
+            new AbilitySelectionController(abilityView, model, character,
+                    model.getAbilitiesByClass(character.getCharacterClass()), isPlayer1, mainView);
+            mainView.getRouter().showTemporary(abilityView);
         });
 
         // Manage Equipment listener
         view.setManageMagicItemsListener(e -> {
-            view.dispose();
-            MagicItemManagementView magicView = new MagicItemManagementView();
-            new MagicItemController(model, character, isPlayer1);
-            magicView.setVisible(true);
+            new MagicItemController(model, character, isPlayer1, mainView);
+        });
+
+        // Rename listener
+        view.setRenameListener(e -> {
+            String newName = JOptionPane.showInputDialog(view, "Enter a new name:", character.getName());
+            if (newName == null) {
+                return;
+            }
+            newName = newName.trim();
+            if (newName.isEmpty()) {
+                JOptionPane.showMessageDialog(view, "Name cannot be empty.");
+            } else if (!model.renameCharacter(isPlayer1 ? 1 : 2, character, newName)) {
+                JOptionPane.showMessageDialog(view, "Name already exists.");
+            } else {
+                view.setTitle("Edit " + (isPlayer1 ? "Player 1" : "Player 2") + "'s Character: " + character.getName());
+            }
         });
 
         // View Details listener
@@ -85,8 +98,7 @@ public class ActualEditCharacterController {
             JOptionPane.YES_NO_OPTION);
             
         if (confirm == JOptionPane.YES_OPTION) {
-            view.dispose();
-            mainView.setVisible(true);
+            mainView.showScreen();
         }
     }
 }
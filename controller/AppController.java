@@ -0,0 +1,104 @@
+package controller;
+
+import model.GameModel;
+import view.*;
+
+/**
+ * The AppController class builds every main screen and its controller once
+ * and puts the screens in a single window. Controllers switch screens through
+ * the shared ScreenRouter instead of creating and disposing frames.
+ */
+public class AppController {
+
+    private GameModel model;
+    private ScreenRouter router;
+
+    private MainMenuController mainMenuController;
+    private CharacterListController characterListController;
+    private EditCharacterController editCharacterController;
+    private CharacterDeletionController characterDeletionController;
+    private CharacterSelectionController characterSelectionController;
+    private BattleController battleController;
+    private LeaderboardController leaderboardController;
+    private ReplayController replayController;
+
+    public AppController(GameModel model) {
+        this.model = model;
+        this.router = new ScreenRouter();
+
+        MainMenuView mainMenuView = new MainMenuView(1);
+        CharacterListView characterListView = new CharacterListView();
+        EditCharacterView editCharacterView = new EditCharacterView();
+        DeleteCharacterView deleteCharacterView = new DeleteCharacterView();
+        CharacterSelectionView characterSelectionView = new CharacterSelectionView();
+        BattleView battleView = new BattleView();
+        LeaderboardView leaderboardView = new LeaderboardView();
+        ReplayView replayView = new ReplayView();
+
+        router.register(ScreenRouter.MAIN_MENU, mainMenuView);
+        router.register(ScreenRouter.CHARACTER_LIST, characterListView);
+        router.register(ScreenRouter.EDIT_CHARACTER, editCharacterView);
+        router.register(ScreenRouter.DELETE_CHARACTER, deleteCharacterView);
+        router.register(ScreenRouter.CHARACTER_SELECTION, characterSelectionView);
+        router.register(ScreenRouter.BATTLE, battleView);
+        router.register(ScreenRouter.LEADERBOARD, leaderboardView);
+        router.register(ScreenRouter.REPLAY, replayView);
+
+        mainMenuController = new MainMenuController(mainMenuView, model, this);
+        characterListController = new CharacterListController(characterListView, model, mainMenuView);
+        editCharacterController = new EditCharacterController(editCharacterView, model, mainMenuView);
+        characterDeletionController = new CharacterDeletionController(deleteCharacterView, model, mainMenuView);
+        characterSelectionController = new CharacterSelectionController(characterSelectionView, model, mainMenuView, this);
+        battleController = new BattleController(model, battleView, this);
+        leaderboardController = new LeaderboardController(leaderboardView, model, mainMenuView, this);
+        replayController = new ReplayController(replayView, model, mainMenuView);
+    }
+
+    /**
+     * Shows the window on Player 1's main menu.
+     */
+    public void start() {
+        mainMenuController.open(1);
+        router.getWindow().setVisible(true);
+    }
+
+    public GameModel getModel() {
+        return model;
+    }
+
+    public ScreenRouter getRouter() {
+        return router;
+    }
+
+    public MainMenuController getMainMenuController() {
+        return mainMenuController;
+    }
+
+    public CharacterListController getCharacterListController() {
+        return characterListController;
+    }
+
+    public EditCharacterController getEditCharacterController() {
+        return editCharacterController;
+    }
+
+    public CharacterDeletionController getCharacterDeletionController() {
+        return characterDeletionController;
+    }
+
+    public CharacterSelectionController getCharacterSelectionController() {
+        return characterSelectionController;
+    }
+
+    public BattleController getBattleController() {
+        return battleController;
+    }
+
+    public LeaderboardController getLeaderboardController() {
+        return leaderboardController;
+    }
+
+    public ReplayController getReplayController() {
+        return replayController;
+    }
+}
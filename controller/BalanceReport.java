@@ -0,0 +1,140 @@
+package controller;
+
+import model.BalanceAggregator;
+import model.BattleResult;
+import model.BattleSimulator;
+import model.CharacterBuild;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The BalanceReport class simulates a large number of battles between random
+ * builds and writes a BalanceAggregator's summary of them as a CSV file.
+ *
+ * Simulator threads hand results to a single aggregating thread through a
+ * small bounded queue. When the aggregator falls behind the queue fills up and
+ * the simulators wait, so no more than QUEUE_CAPACITY results are ever held in
+ * memory, however many battles are run.
+ *
+ * Every battle is decided by the seed and its number, so a run can be
+ * repeated exactly with the same arguments.
+ *
+ * Run it with "java controller.BalanceReport [battles] [threads] [output.csv] [seed]".
+ */
+public class BalanceReport {
+    public static final int QUEUE_CAPACITY = 1024;
+
+    private final long battles;
+    private final int threads;
+    private final long seed;
+    private final AtomicLong producerWaits = new AtomicLong();
+
+    /**
+     * @param battles how many battles to simulate
+     * @param threads how many simulator threads to run
+     * @param seed the seed every battle is derived from
+     */
+    public BalanceReport(long battles, int threads, long seed) {
+        this.battles = battles;
+        this.threads = threads;
+        this.seed = seed;
+    }
+
+    /**
+     * Runs every battle and feeds the results to an aggregator.
+     *
+     * @param aggregator the aggregator to feed, only ever from the calling thread
+     * @throws InterruptedException if interrupted while waiting for results
+     */
+    public void run(BalanceAggregator aggregator) throws InterruptedException {
+        BlockingQueue<BattleResult> results = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        AtomicLong nextBattle = new AtomicLong();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+        Thread[] simulators = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            simulators[t] = new Thread(() -> {
+                try {
+                    long battle;
+                    while ((battle = nextBattle.getAndIncrement()) < battles) {
+                        BattleResult result = simulate(battle);
+                        if (!results.offer(result)) {
+                            producerWaits.incrementAndGet();
+                            results.put(result);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                }
+            }, "balance-simulator-" + t);
+            simulators[t].setDaemon(true);
+            simulators[t].start();
+        }
+
+        try {
+            for (long received = 0; received < battles; ) {
+                BattleResult result = results.poll(100, TimeUnit.MILLISECONDS);
+                if (result != null) {
+                    aggregator.accept(result);
+                    received++;
+                } else if (failure.get() != null) {
+                    throw failure.get();
+                }
+            }
+        } finally {
+            for (Thread simulator : simulators) {
+                simulator.interrupt();
+            }
+        }
+    }
+
+    /**
+     * Simulates one numbered battle between two random builds.
+     */
+    private BattleResult simulate(long battle) {
+        Random random = new Random(seed + battle * 0x9E3779B97F4A7C15L);
+        CharacterBuild first = BattleSimulator.randomBuild(random, "A");
+        CharacterBuild second = BattleSimulator.randomBuild(random, "B");
+        return BattleSimulator.simulate(first, second, random.nextLong());
+    }
+
+    /**
+     * Returns how many times a simulator found the queue full and had to wait.
+     */
+    public long getProducerWaits() {
+        return producerWaits.get();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        long battles = args.length > 0 ? Long.parseLong(args[0]) : 100000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        String output = args.length > 2 ? args[2] : "balance.csv";
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 1;
+
+        BalanceReport report = new BalanceReport(battles, threads, seed);
+        BalanceAggregator aggregator = new BalanceAggregator();
+        long start = System.nanoTime();
+        report.run(aggregator);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        try (Writer out = Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8)) {
+            aggregator.writeCsv(out);
+        }
+        System.out.printf("[Simulated %d battles on %d threads in %.1f s (%.0f battles/s), simulators waited %d times]%n",
+                aggregator.getResultCount(), threads, seconds, aggregator.getResultCount() / seconds,
+                report.getProducerWaits());
+        System.out.println("[Report written to " + output + "]");
+    }
+}
@@ -0,0 +1,109 @@
+package controller;
+
+import model.Ability;
+import model.AllAbilities;
+import model.CharacterBuild;
+import model.ComputerPlayer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The BattleClient class is a simple blocking client for a BattleServer. It
+ * can send single protocol lines, or play whole matches by itself with random
+ * legal moves, which makes it a stand-in for real players when trying out or
+ * loading a local server.
+ */
+public class BattleClient implements AutoCloseable {
+    private final Socket socket;
+    private final BufferedReader in;
+    private final Writer out;
+
+    /**
+     * Connects to a server on this machine.
+     *
+     * @param port the server's port
+     * @throws IOException if the server cannot be reached
+     */
+    public BattleClient(int port) throws IOException {
+        this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        this.socket.setTcpNoDelay(true);
+        this.in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+        this.out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Sends one line to the server.
+     */
+    public void send(String line) throws IOException {
+        out.write(line);
+        out.write('\n');
+        out.flush();
+    }
+
+    /**
+     * Waits for the next line from the server.
+     *
+     * @return the line, or null if the server closed the connection
+     */
+    public String readLine() throws IOException {
+        return in.readLine();
+    }
+
+    /**
+     * Joins a match with a build and plays it to the end, choosing a random
+     * legal move every round.
+     *
+     * @param build the character to play
+     * @param random the source of move choices
+     * @return the END line sent by the server
+     * @throws IOException if the connection fails or the server sends an error
+     */
+    public String playMatch(CharacterBuild build, Random random) throws IOException {
+        ComputerPlayer player = new ComputerPlayer(random);
+        int[] costs = abilityCosts(build);
+
+        send(BattleProtocol.join(build));
+        String line;
+        while ((line = readLine()) != null) {
+            if (line.startsWith(BattleProtocol.ROUND + " ")) {
+                // ROUND n hp ep items opponentHp opponentEp
+                int[] round = BattleProtocol.parseInts(line, 6);
+                int move = player.chooseMove(costs, round[2], round[3]);
+                int item = move == costs.length + 3 ? player.chooseItem(round[3]) : 0;
+                send(BattleProtocol.move(move, item));
+            } else if (line.startsWith(BattleProtocol.END + " ")) {
+                return line;
+            } else if (line.startsWith(BattleProtocol.ERR) || line.equals(BattleProtocol.ILLEGAL)) {
+                throw new IOException("Server refused: " + line);
+            }
+        }
+        throw new IOException("Server closed the connection");
+    }
+
+    /**
+     * Returns the EP cost of each ability of a build, in move order.
+     */
+    public static int[] abilityCosts(CharacterBuild build) {
+        List<Ability> allAbilities = AllAbilities.getAllAbilities();
+        int[] abilityIds = build.getAbilityIds();
+        int[] costs = new int[abilityIds.length];
+        for (int i = 0; i < abilityIds.length; i++) {
+            costs[i] = allAbilities.get(abilityIds[i]).getEpCost();
+        }
+        return costs;
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
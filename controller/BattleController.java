@@ -1,41 +1,50 @@
 package controller;
 
 import model.Ability;
+import model.Battle;
+import model.BattleReplay;
 import model.Character;
+import model.ComputerPlayer;
 import model.GameModel;
 import view.BattleView;
-import view.MainMenuView;
 
 import javax.swing.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.Arrays;
+import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
 public class BattleController {
 
     private GameModel model;
     private BattleView battleView;
+    private AppController app;
 
     private Character player1;
     private Character player2;
-
-    public BattleController(GameModel gameModel) {
+    // Headless, so turns follow the same rules (and statistics) as every other battle
+    private Battle battle;
+
+    // Auto-play: how often the screen is redrawn, and a cap so a stalled battle ends
+    private static final int FRAMES_PER_SECOND = 30;
+    private static final int MAX_AUTO_PLAY_ROUNDS = 100000;
+
+    private ComputerPlayer computerPlayer = new ComputerPlayer();
+    private AutoPlayWorker autoPlay;
+    private volatile boolean autoPlayRunning;
+    private volatile long autoPlayRoundsPerSecond;
+    private volatile TurnResult latestResult;
+    private TurnResult shownResult;
+    private Timer renderTimer;
+
+    public BattleController(GameModel gameModel, BattleView battleView, AppController app) {
         this.model = gameModel;
-        this.player1 = gameModel.getPlayer1Character();
-        this.player2 = gameModel.getPlayer2Character();
-
-        this.battleView = new BattleView();
-        initializeBattle();
-    }
-
-    private void initializeBattle() {
-        // Set move dropdowns
-        battleView.setPlayer1Moves(getAbilityNames(Arrays.asList(player1.getAbilities())));
-        battleView.setPlayer2Moves(getAbilityNames(Arrays.asList(player2.getAbilities())));
-
-        // Show initial stats
-        updateStats();
+        this.battleView = battleView;
+        this.app = app;
 
         // Confirm button logic
         battleView.addConfirmListener(new ActionListener() {
@@ -45,7 +54,69 @@ public class BattleController {
             }
         });
 
-        battleView.setVisible(true);
+        battleView.addExportLogListener(e -> exportLog(battleView));
+        battleView.addAutoPlayListener(e -> {
+            if (autoPlay == null) {
+                startAutoPlay();
+            } else {
+                stopAutoPlay();
+            }
+        });
+        battleView.addSpeedListener(e -> autoPlayRoundsPerSecond = roundsPerSecond(battleView.getSelectedSpeed()));
+
+        renderTimer = new Timer(1000 / FRAMES_PER_SECOND, e -> renderAutoPlay());
+    }
+
+    /**
+     * Asks where to save a battle screen's log and writes it there off the
+     * event thread, so a long log does not freeze the screen.
+     */
+    static void exportLog(BattleView view) {
+        File file = view.chooseExportFile();
+        if (file == null) {
+            return;
+        }
+        Callable<Void> export = view.exportBattleLog(file);
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                return export.call();
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    get();
+                } catch (InterruptedException | ExecutionException ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    JOptionPane.showMessageDialog(view, "Could not export the battle log: " + cause.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Starts a battle between the characters currently selected in the model,
+     * reusing the same battle screen for every battle.
+     */
+    public void startBattle() {
+        stopAutoPlay();
+        this.player1 = model.getPlayer1Character();
+        this.player2 = model.getPlayer2Character();
+        battle = new Battle(player1, player2, new Random().nextLong());
+        battle.setReplay(new BattleReplay());
+        battle.setReplayArchive(model.getReplayArchive());
+        battle.beginRound();
+
+        // Set move dropdowns
+        battleView.setPlayer1Moves(getMoveNames(player1));
+        battleView.setPlayer2Moves(getMoveNames(player2));
+        battleView.setBattleLog("");
+
+        // Show initial stats
+        updateStats();
+
+        battleView.showScreen();
     }
 
     private void updateStats() {
@@ -53,74 +124,268 @@ public class BattleController {
         battleView.setPlayer2Stats(player2.getName() + " - HP: " + player2.getHP() + " | EP: " + player2.getEP());
     }
 
+    private void showStats(TurnResult result) {
+        battleView.setPlayer1Stats(result.player1Name + " - HP: " + result.player1HP + " | EP: " + result.player1EP);
+        battleView.setPlayer2Stats(result.player2Name + " - HP: " + result.player2HP + " | EP: " + result.player2EP);
+    }
+
+    private void showResult(TurnResult result) {
+        showStats(result);
+        battleView.appendBattleLog(result.log);
+    }
+
     private void handleTurn() {
 
-        Ability move1 = findAbilityByName(player1.getAbilities(), battleView.getPlayer1SelectedMove());
-        Ability move2 = findAbilityByName(player2.getAbilities(), battleView.getPlayer2SelectedMove());
+        int move1 = findMove(player1, battleView.getPlayer1SelectedMove());
+        int move2 = findMove(player2, battleView.getPlayer2SelectedMove());
 
-        if (move1 == null || move2 == null) {
+        if (move1 == 0 || move2 == 0) {
             battleView.appendBattleLog("Error: One or both moves not found.\n");
             return;
         }
+
+        // Check both players before either move happens, so a rejected turn changes nothing
+        if (!battle.isLegalMove(player1, move1, 0) || !battle.isLegalMove(player2, move2, 0)) {
+            JOptionPane.showMessageDialog(battleView, "Pick a different move, you don't have enough EP.");
+            return; // STOP execution. Let the player choose again
+        }
+
+        // The characters are only touched by the worker until it is done
+        battleView.setConfirmEnabled(false);
+        new SwingWorker<TurnResult, Void>() {
+            @Override
+            protected TurnResult doInBackground() {
+                return resolveTurn(move1, move2);
+            }
+
+            @Override
+            protected void done() {
+                TurnResult result;
+                try {
+                    result = get();
+                } catch (Exception ex) {
+                    battleView.appendBattleLog("Error: The turn could not be resolved.\n");
+                    battleView.setConfirmEnabled(true);
+                    return;
+                }
+
+                showResult(result);
+                battleView.clearMoveSelection();
+                battleView.setConfirmEnabled(true);
+
+                if (result.battleOver) {
+                    declareWinner();
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Resolves both moves under the Battle rules and starts the next round.
+     * Runs on a background thread, so it must not touch the view; everything
+     * the view needs is returned in the TurnResult.
+     */
+    private TurnResult resolveTurn(int move1, int move2) {
         StringBuilder log = new StringBuilder();
+        log.append(player1.getName()).append(" used ").append(Battle.getMoveName(player1, move1)).append("\n");
+        log.append(player2.getName()).append(" used ").append(Battle.getMoveName(player2, move2)).append("\n");
+        int hp1 = player1.getHP();
+        int hp2 = player2.getHP();
+
+        boolean battleOver = battle.resolveRound(move1, 0, move2, 0);
+        describeHpChange(player1, hp1, log);
+        describeHpChange(player2, hp2, log);
+        if (!battleOver) {
+            battle.beginRound();
+        }
+        return new TurnResult(player1, player2, log.toString(), battleOver);
+    }
 
+    private static void describeHpChange(Character character, int hpBefore, StringBuilder log) {
+        int change = character.getHP() - hpBefore;
+        if (change < 0) {
+            log.append(character.getName()).append(" took ").append(-change).append(" damage\n");
+        } else if (change > 0) {
+            log.append(character.getName()).append(" healed ").append(change).append(" HP\n");
+        }
+    }
 
+    /**
+     * Converts an auto-play speed to rounds per second, where 0 means as fast as possible.
+     */
+    private static long roundsPerSecond(String speed) {
+        if ("10x".equals(speed)) {
+            return 10;
+        } else if ("Max".equals(speed)) {
+            return 0;
+        }
+        return 1;
+    }
 
-            boolean player1Valid = true;
-            boolean player2Valid = true;
+    /**
+     * Starts letting the computer play both characters. The battle runs on a
+     * worker thread at the selected speed. The stats are redrawn from the latest
+     * result at a fixed frame rate, and the log lines of every round are
+     * published to the Event Dispatch Thread in batches, no matter how many
+     * rounds were played since the last frame.
+     */
+    private void startAutoPlay() {
+        autoPlayRoundsPerSecond = roundsPerSecond(battleView.getSelectedSpeed());
+        autoPlayRunning = true;
+        latestResult = null;
+        shownResult = null;
+        battleView.setAutoPlaying(true);
+
+        autoPlay = new AutoPlayWorker(battle);
+        autoPlay.execute();
+        renderTimer.start();
+    }
 
-            // Player 1 turn
-            if (player1.getEP() >= move1.getEpCost()) {
-                player1.useEP(move1.getEpCost());
-                log.append(player1.getName()).append(" used ").append(move1.getName()).append("\n");
-                String p2DamageMessage = player2.takeDamage(move1.getDamage());
-                log.append(p2DamageMessage).append("\n");
-            } else {
-                player1Valid = false;
-                JOptionPane.showMessageDialog(null, "Pick a different ability, you don't have enough EP.");
-                return; // STOP execution. Let the player choose again
+    /**
+     * Stops auto-play and waits for the worker, so the characters are safe to
+     * use on the Event Dispatch Thread again.
+     */
+    private void stopAutoPlay() {
+        if (autoPlay == null) {
+            return;
+        }
+        AutoPlayWorker worker = autoPlay;
+        autoPlay = null;
+        autoPlayRunning = false;
+        worker.wake();
+        try {
+            worker.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            battleView.appendBattleLog("Error: Auto-play stopped: " + e.getCause());
+        }
+        renderTimer.stop();
+        renderAutoPlay();
+        battleView.setAutoPlaying(false);
+    }
 
-            }
+    /**
+     * Redraws the stats from the newest auto-play result. Called once per frame.
+     */
+    private void renderAutoPlay() {
+        TurnResult result = latestResult;
+        if (result == null || result == shownResult) {
+            return;
+        }
+        shownResult = result;
+        showStats(result);
+    }
 
-            // Player 2 turn
-            if (player2.getEP() >= move2.getEpCost()) {
-                player2.useEP(move2.getEpCost());
-                log.append(player2.getName()).append(" used ").append(move2.getName()).append("\n");
-                String p1DamageMessage = player1.takeDamage(move2.getDamage());
-                log.append(p1DamageMessage).append("\n");
-            } else {
-                player2Valid = false;
-                JOptionPane.showMessageDialog(null, "Pick a different ability, you don't have enough EP.");
-                return; // STOP execution. Let the player choose again
+    /**
+     * The AutoPlayWorker class plays one battle for both characters. Each
+     * round's log is published as it is played; SwingWorker hands the lines
+     * to process() in batches, so a fast battle appends to the log once per
+     * batch rather than once per round.
+     */
+    private class AutoPlayWorker extends SwingWorker<TurnResult, String> {
+        private final Battle playing;
+
+        AutoPlayWorker(Battle playing) {
+            this.playing = playing;
+        }
 
-            }
+        /**
+         * Cuts short the wait between rounds once autoPlayRunning is cleared.
+         */
+        synchronized void wake() {
+            notifyAll();
+        }
 
-            // Only update stats and log if both had a valid turn or game must proceed
-            if (player1Valid || player2Valid) {
-                updateStats();
-                battleView.appendBattleLog(log.toString());
-                battleView.clearMoveSelection();
+        @Override
+        protected TurnResult doInBackground() {
+            long nextRoundTime = System.nanoTime();
+            int rounds = 0;
+            TurnResult result = null;
+
+            while (autoPlayRunning) {
+                rounds++;
+                if (rounds > MAX_AUTO_PLAY_ROUNDS) {
+                    // Recorded and saved through Battle like any other result
+                    battle.endAsDraw();
+                    result = new TurnResult(player1, player2, "Neither side can win anymore.\n", true);
+                } else {
+                    int move1 = computerPlayer.chooseAbilityMove(player1, player2);
+                    int move2 = computerPlayer.chooseAbilityMove(player2, player1);
+                    result = resolveTurn(move1, move2);
+                }
+                publish(result.log);
+                latestResult = result;
+                if (result.battleOver) {
+                    return result;
+                }
+
+                long rate = autoPlayRoundsPerSecond;
+                if (rate > 0) {
+                    nextRoundTime += 1000000000L / rate;
+                    long delay = nextRoundTime - System.nanoTime();
+                    if (delay > 0) {
+                        try {
+                            synchronized (this) {
+                                if (autoPlayRunning) {
+                                    wait(delay / 1000000, (int) (delay % 1000000));
+                                }
+                            }
+                        } catch (InterruptedException e) {
+                            return result;
+                        }
+                    } else {
+                        // Fell behind (e.g. the speed changed); don't try to catch up
+                        nextRoundTime = System.nanoTime();
+                    }
+                }
             }
+            return result;
+        }
 
+        @Override
+        protected void process(List<String> logs) {
+            // Lines still on their way from a battle that was replaced
+            if (battle != playing) {
+                return;
+            }
+            StringBuilder text = new StringBuilder();
+            for (String log : logs) {
+                if (text.length() > 0) {
+                    text.append("\n");
+                }
+                text.append(log);
+            }
+            battleView.appendBattleLog(text.toString());
+        }
 
-        // Check if actual damage was possible before ending the game
-        boolean move1DidDamage = move1.getDamage() > 0;
-        boolean move2DidDamage = move2.getDamage() > 0;
-        boolean eitherMoveCouldDamage = move1DidDamage || move2DidDamage;
-
-        if ((player1.getHP() <= 0 || player2.getHP() <= 0) && eitherMoveCouldDamage) {
-            declareWinner();
+        /**
+         * Runs after every batch published before the battle ended, so the
+         * winner is announced below the last round.
+         */
+        @Override
+        protected void done() {
+            if (autoPlay != this) {
+                return;
+            }
+            TurnResult result = latestResult;
+            stopAutoPlay();
+            if (result != null && result.battleOver) {
+                declareWinner();
+            }
         }
     }
 
     private void declareWinner() {
         String winner;
-        if (player1.getHP() <= 0 && player2.getHP() <= 0) {
+        if ((player1.getHP() <= 0) == (player2.getHP() <= 0)) {
             winner = "It's a draw!";
         } else if (player1.getHP() <= 0) {
             winner = player2.getName() + " wins!";
+            model.recordWin(2, player2);
         } else {
             winner = player1.getName() + " wins!";
+            model.recordWin(1, player1);
         }
 
         battleView.appendBattleLog("\n" + winner);
@@ -138,16 +403,11 @@ public class BattleController {
             );
 
             if (choice == 0) {  // Rematch
-                player1.resetStats();
-                player2.resetStats();
-                new BattleController(model);  // reuse same characters
-                battleView.dispose();
+                startBattle();  // reuse same characters
 
             } else if (choice == 1) {  // Character Management
                 // back to Player 1 menu
-                MainMenuView menu = new MainMenuView(1);
-                new MainMenuController(menu, model, 1);
-                battleView.dispose();
+                app.getMainMenuController().open(1);
 
             } else {
                 System.exit(0);
@@ -155,24 +415,65 @@ public class BattleController {
 
     }
 
-    private String[] getAbilityNames(List<Ability> abilities) {
-        return abilities.stream().map(Ability::getName).toArray(String[]::new);
+    /**
+     * Returns the names of a character's moves, in Battle move order: its
+     * abilities, then Defend and Recharge.
+     */
+    private String[] getMoveNames(Character character) {
+        List<String> names = new ArrayList<>();
+        for (Ability ability : character.getAbilities()) {
+            names.add(ability.getName());
+        }
+        names.add(Battle.getMoveName(character, character.getAbilities().length + 1));
+        names.add(Battle.getMoveName(character, character.getAbilities().length + 2));
+        return names.toArray(new String[0]);
     }
 
-    private Ability findAbilityByName(Ability[] abilities, String selectedText) {
-        String abilityName = selectedText.split(" - ")[0];  // Get name only
-
-        for (Ability a : abilities) {
-            if (a.getName().equals(abilityName)) {
-                return a;
+    /**
+     * Returns the Battle move number of a move picked in a dropdown, or 0 if
+     * the character has no such move.
+     */
+    private int findMove(Character character, String selectedText) {
+        String moveName = selectedText.split(" - ")[0];  // Get name only
+        String[] names = getMoveNames(character);
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(moveName)) {
+                return i + 1;
             }
         }
-        return null;
+        return 0;
     }
 
 
 
     public void showBattleView() {
-        battleView.setVisible(true);
+        battleView.showScreen();
+    }
+
+    /**
+     * The TurnResult class is a read-only copy of what the battle screen shows
+     * after a turn. It is built on the worker thread and handed to the Event
+     * Dispatch Thread, so the view never reads a character while it changes.
+     */
+    static final class TurnResult {
+        final String player1Name;
+        final int player1HP;
+        final int player1EP;
+        final String player2Name;
+        final int player2HP;
+        final int player2EP;
+        final String log;
+        final boolean battleOver;
+
+        TurnResult(Character player1, Character player2, String log, boolean battleOver) {
+            this.player1Name = player1.getName();
+            this.player1HP = player1.getHP();
+            this.player1EP = player1.getEP();
+            this.player2Name = player2.getName();
+            this.player2HP = player2.getHP();
+            this.player2EP = player2.getEP();
+            this.log = log;
+            this.battleOver = battleOver;
+        }
     }
 }
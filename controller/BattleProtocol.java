@@ -0,0 +1,233 @@
+package controller;
+
+import model.AllAbilities;
+import model.AllMagicItems;
+import model.BuildId;
+import model.Character;
+import model.CharacterBuild;
+import model.MagicItem;
+import model.Race;
+
+/**
+ * The BattleProtocol class describes the text protocol spoken between a
+ * BattleServer and its clients, and builds and reads its messages.
+ *
+ * Every message is one line of ASCII text ending in '\n', with fields separated
+ * by single spaces. Characters are sent as ids (see CharacterBuild), so a whole
+ * move fits in a few bytes.
+ *
+ * Client to server:
+ *   JOIN race class abilities equipped inventory name
+ *       Asks for a match. abilities is a comma-separated list of ability ids,
+ *       equipped is an item id or -1, inventory is a comma-separated list of
+ *       item ids or "-", and the name is the rest of the line. The build must
+ *       be legal (see BuildId.isValid()).
+ *   MOVE move item
+ *       Plays a move in the current round, numbered as in Battle.resolveRound().
+ *   QUIT
+ *       Leaves the current match (the opponent wins) and closes the connection.
+ *
+ * Server to client:
+ *   WAIT                        waiting for an opponent
+ *   START match side seed name  a match started; side is 1 or 2
+ *   ROUND n hp ep items opponentHp opponentEp
+ *                               a round started; items is the number of
+ *                               single-use items left. The server waits for MOVE.
+ *   ILLEGAL                     the last MOVE was not legal; send another
+ *   END WIN|LOSS|DRAW rounds    the match ended; JOIN again to play another
+ *   ERR message                 the last line could not be used
+ */
+public class BattleProtocol {
+    public static final String JOIN = "JOIN";
+    public static final String MOVE = "MOVE";
+    public static final String QUIT = "QUIT";
+
+    public static final String WAIT = "WAIT";
+    public static final String START = "START";
+    public static final String ROUND = "ROUND";
+    public static final String ILLEGAL = "ILLEGAL";
+    public static final String END = "END";
+    public static final String ERR = "ERR";
+
+    public static final String WIN = "WIN";
+    public static final String LOSS = "LOSS";
+    public static final String DRAW = "DRAW";
+
+    // Longest line either side accepts
+    public static final int MAX_LINE_LENGTH = 256;
+
+    private BattleProtocol() {
+    }
+
+    /**
+     * Returns the JOIN line for a build.
+     *
+     * @param build the character to play
+     * @return the line, without the line break
+     */
+    public static String join(CharacterBuild build) {
+        StringBuilder line = new StringBuilder(JOIN);
+        line.append(' ').append(build.getRaceId()).append(' ').append(build.getClassId()).append(' ');
+        appendIds(line, build.getAbilityIds());
+        line.append(' ').append(build.getEquippedItemId()).append(' ');
+        appendIds(line, build.getInventoryIds());
+        line.append(' ').append(build.getName());
+        return line.toString();
+    }
+
+    private static void appendIds(StringBuilder line, int[] ids) {
+        if (ids.length == 0) {
+            line.append('-');
+            return;
+        }
+        for (int i = 0; i < ids.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append(ids[i]);
+        }
+    }
+
+    /**
+     * Reads the build from a JOIN line.
+     *
+     * @param line the line, without the line break
+     * @return the build
+     * @throws IllegalArgumentException if the line is not a valid JOIN line, or
+     *         the build is not legal: three different abilities of its class,
+     *         plus one from any class for a race with an extra slot, and a
+     *         passive item or none equipped
+     */
+    public static CharacterBuild parseJoin(String line) {
+        String[] fields = line.split(" ", 7);
+        if (fields.length != 7 || !fields[0].equals(JOIN) || fields[6].trim().isEmpty()) {
+            throw new IllegalArgumentException("Expected: JOIN race class abilities equipped inventory name");
+        }
+        int itemCount = AllMagicItems.getAllItems().size();
+        int raceId = parseId(fields[1], Race.show_race_array().length, "race");
+        int classId = parseId(fields[2], AllAbilities.CLASS_NAMES.length, "class");
+        int[] abilityIds = parseIds(fields[3], AllAbilities.getAllAbilities().size(), "ability");
+        int equippedItemId = parseId(fields[4], itemCount + 1, "item", -1);
+        int[] inventoryIds = parseIds(fields[5], itemCount, "item");
+        CharacterBuild build = new CharacterBuild(fields[6].trim(), raceId, classId, abilityIds, equippedItemId, inventoryIds);
+        if (!isLegal(build)) {
+            throw new IllegalArgumentException("Not a legal build: a " + Race.show_race_array()[raceId].getName()
+                    + " " + AllAbilities.CLASS_NAMES[classId] + " needs "
+                    + (Race.show_race_array()[raceId].hasExtraAbilitySlot() ? "3 different class abilities and 1 more"
+                            : "3 different class abilities")
+                    + ", and may only equip a passive item");
+        }
+        return build;
+    }
+
+    private static boolean isLegal(CharacterBuild build) {
+        try {
+            return BuildId.isValid(BuildId.of(build));
+        } catch (IllegalArgumentException e) {
+            return false; // more than one ability from outside the class, or repeated
+        }
+    }
+
+    private static int[] parseIds(String field, int limit, String what) {
+        if (field.equals("-")) {
+            return new int[0];
+        }
+        String[] parts = field.split(",");
+        int[] ids = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            ids[i] = parseId(parts[i], limit, what);
+        }
+        return ids;
+    }
+
+    private static int parseId(String field, int limit, String what) {
+        return parseId(field, limit, what, 0);
+    }
+
+    private static int parseId(String field, int limit, String what, int min) {
+        int id;
+        try {
+            id = Integer.parseInt(field);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + what + " id: " + field);
+        }
+        if (id < min || id >= limit) {
+            throw new IllegalArgumentException("Invalid " + what + " id: " + id);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the START line for one side of a match.
+     *
+     * @param matchId the match number
+     * @param side 1 or 2
+     * @param seed the battle seed
+     * @param opponentName the opponent's character name
+     */
+    public static String start(int matchId, int side, long seed, String opponentName) {
+        return START + " " + matchId + " " + side + " " + seed + " " + opponentName;
+    }
+
+    /**
+     * Returns the ROUND line telling one side the state at the start of a round.
+     *
+     * @param round the round number
+     * @param self the character receiving the line
+     * @param opponent the other character
+     */
+    public static String round(int round, Character self, Character opponent) {
+        int items = 0;
+        for (MagicItem item : self.getInventory()) {
+            if (item.isSingleUse()) {
+                items++;
+            }
+        }
+        return ROUND + " " + round + " " + self.getHP() + " " + self.getEP() + " " + items
+                + " " + opponent.getHP() + " " + opponent.getEP();
+    }
+
+    /**
+     * Returns the END line for one side of a finished match.
+     *
+     * @param winner the winning side (0 or 1), or -1 for a draw
+     * @param side the side receiving the line (0 or 1)
+     * @param rounds the number of rounds played
+     */
+    public static String end(int winner, int side, int rounds) {
+        String result = winner == -1 ? DRAW : winner == side ? WIN : LOSS;
+        return END + " " + result + " " + rounds;
+    }
+
+    /**
+     * Returns the MOVE line for a move.
+     */
+    public static String move(int move, int item) {
+        return MOVE + " " + move + " " + item;
+    }
+
+    /**
+     * Reads the numbers after the first word of a line, e.g. the move and item
+     * of a MOVE line or the stats of a ROUND line.
+     *
+     * @param line the line
+     * @param count how many numbers to read
+     * @return the numbers
+     * @throws IllegalArgumentException if the line has too few numbers
+     */
+    public static int[] parseInts(String line, int count) {
+        String[] fields = line.split(" ");
+        if (fields.length < count + 1) {
+            throw new IllegalArgumentException("Expected " + count + " numbers: " + line);
+        }
+        int[] values = new int[count];
+        try {
+            for (int i = 0; i < count; i++) {
+                values[i] = Integer.parseInt(fields[i + 1]);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Expected " + count + " numbers: " + line);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,639 @@
+package controller;
+
+import model.Battle;
+import model.Character;
+import model.CharacterBuild;
+import model.MatchmakingQueue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The BattleServer class hosts battles for clients connecting over a local TCP
+ * socket, using the BattleProtocol and the rules of the headless Battle.
+ *
+ * One thread owns a non-blocking Selector and does all socket reads and
+ * writes. Clients that send JOIN are paired by a MatchmakingQueue with
+ * opponents of a similar rating, a connection's rating being the matches it
+ * has won on this server. Pairs are made on whichever thread joins or sweeps
+ * the queue, and started on the I/O thread. Each match is a small state machine: when both moves of a round are in, one task
+ * resolves the round on a shared worker pool and sends the next ROUND. A match
+ * costs no thread while it waits for moves, so one server can hold thousands
+ * of matches at once.
+ *
+ * In THREAD_PER_MATCH mode each match instead runs as a BlockingMatch on its
+ * own thread (virtual when the Java version has them, see MatchThreads), and
+ * the I/O thread hands moves to it through a queue.
+ *
+ * Run it with "java controller.BattleServer [port] [pooled|threads]".
+ */
+public class BattleServer {
+    public static final int DEFAULT_PORT = 7777;
+
+    /**
+     * How matches are run.
+     */
+    public enum Mode {
+        // Rounds are resolved by tasks on a shared worker pool
+        POOLED,
+        // Each match runs on its own thread, waiting for moves in blocking style
+        THREAD_PER_MATCH
+    }
+
+    // A match still going after this many rounds is a draw
+    public static final int MAX_ROUNDS = 1000;
+
+    private static final int READ_BUFFER_SIZE = 1024;
+
+    private final int requestedPort;
+    private final int workerCount;
+    private final Mode mode;
+    private final Random seeds = new Random();
+
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private ExecutorService workers;
+    private ThreadFactory matchThreads;
+    private Thread ioThread;
+    private volatile boolean running;
+
+    // Connections with lines waiting to be written, filled by worker threads
+    private final Queue<Connection> pendingWrites = new ConcurrentLinkedQueue<>();
+
+    private final MatchmakingQueue matchmaking = new MatchmakingQueue();
+    // Pairs made by the queue, waiting for the I/O thread to start them
+    private final Queue<MatchmakingQueue.Ticket[]> pendingPairs = new ConcurrentLinkedQueue<>();
+
+    // Only used on the I/O thread
+    private final Map<MatchmakingQueue.Ticket, Connection> queued = new HashMap<>();
+    private int nextMatchId = 1;
+    private int nextConnectionId = 1;
+
+    // THREAD_PER_MATCH matches that have not ended, so stop() can end them
+    private final Set<ThreadMatch> threadMatches = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger activeMatches = new AtomicInteger();
+    private final AtomicLong finishedMatches = new AtomicLong();
+    private final AtomicInteger connections = new AtomicInteger();
+
+    /**
+     * Creates a server on a port, using one worker thread per processor.
+     *
+     * @param port the port to listen on, or 0 for any free port
+     */
+    public BattleServer(int port) {
+        this(port, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a server on a port.
+     *
+     * @param port the port to listen on, or 0 for any free port
+     * @param workerCount the number of threads that resolve rounds
+     */
+    public BattleServer(int port, int workerCount) {
+        this(port, workerCount, Mode.POOLED);
+    }
+
+    /**
+     * Creates a server on a port.
+     *
+     * @param port the port to listen on, or 0 for any free port
+     * @param workerCount the number of threads that resolve rounds in POOLED mode
+     * @param mode how matches are run
+     */
+    public BattleServer(int port, int workerCount, Mode mode) {
+        this.requestedPort = port;
+        this.workerCount = workerCount;
+        this.mode = mode;
+        matchmaking.addPairListener((first, second) -> {
+            pendingPairs.add(new MatchmakingQueue.Ticket[] {first, second});
+            selector.wakeup();
+        });
+    }
+
+    /**
+     * Opens the socket on the loopback address and starts the I/O thread.
+     *
+     * @throws IOException if the socket cannot be opened
+     */
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), requestedPort), 1024);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        AtomicInteger workerNumber = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount, r -> {
+            Thread thread = new Thread(r, "battle-server-worker-" + workerNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        matchThreads = MatchThreads.newFactory("battle-match-");
+
+        running = true;
+        matchmaking.start();
+        ioThread = new Thread(this::runSelector, "battle-server-io");
+        ioThread.setDaemon(true);
+        ioThread.start();
+        System.out.println("[Battle server listening on port " + getPort() + ", " + describeMode() + "]");
+    }
+
+    /**
+     * Closes every connection and stops the server. Matches still going on
+     * their own threads are interrupted and end in a draw.
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        matchmaking.stop();
+        selector.wakeup();
+        try {
+            ioThread.join();
+            // A match thread waits in take() for moves that will not come now
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            for (ThreadMatch match : threadMatches) {
+                match.thread.interrupt();
+            }
+            for (ThreadMatch match : threadMatches) {
+                long left = deadline - System.nanoTime();
+                if (left > 0) {
+                    TimeUnit.NANOSECONDS.timedJoin(match.thread, left);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workers.shutdown();
+        try {
+            workers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String describeMode() {
+        if (mode == Mode.POOLED) {
+            return workerCount + " worker threads";
+        }
+        return MatchThreads.isVirtualAvailable() ? "a virtual thread per match" : "a platform thread per match";
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Returns the port the server listens on.
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Returns the number of matches being played right now.
+     */
+    public int getActiveMatchCount() {
+        return activeMatches.get();
+    }
+
+    /**
+     * Returns the number of matches that have ended since the server started.
+     */
+    public long getFinishedMatchCount() {
+        return finishedMatches.get();
+    }
+
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    private void runSelector() {
+        try {
+            while (running) {
+                selector.select();
+                Connection connection;
+                while ((connection = pendingWrites.poll()) != null) {
+                    write(connection);
+                }
+                MatchmakingQueue.Ticket[] pair;
+                while ((pair = pendingPairs.poll()) != null) {
+                    startMatch(queued.remove(pair[0]), queued.remove(pair[1]));
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection target = (Connection) key.attachment();
+                    if (key.isReadable()) {
+                        read(target);
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        write(target);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("[Battle server stopped: " + e.getMessage() + "]");
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof Connection) {
+                    close((Connection) key.attachment());
+                }
+            }
+            try {
+                serverChannel.close();
+                selector.close();
+            } catch (IOException e) {
+                // Already stopping
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            Connection connection = new Connection(channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            connections.incrementAndGet();
+        }
+    }
+
+    private void read(Connection connection) {
+        int count;
+        try {
+            count = connection.channel.read(connection.readBuffer);
+        } catch (IOException e) {
+            count = -1;
+        }
+        if (count == -1) {
+            close(connection);
+            return;
+        }
+
+        ByteBuffer buffer = connection.readBuffer;
+        buffer.flip();
+        int lineStart = 0;
+        for (int i = buffer.position(); i < buffer.limit(); i++) {
+            if (buffer.get(i) == '\n') {
+                String line = new String(buffer.array(), lineStart, i - lineStart, StandardCharsets.US_ASCII);
+                lineStart = i + 1;
+                handleLine(connection, line.trim());
+                if (!connection.channel.isOpen()) {
+                    return;
+                }
+            }
+        }
+        buffer.position(lineStart);
+        buffer.compact();
+        if (buffer.position() > BattleProtocol.MAX_LINE_LENGTH) {
+            connection.send(BattleProtocol.ERR + " Line too long");
+            close(connection);
+        }
+    }
+
+    private void handleLine(Connection connection, String line) {
+        if (line.isEmpty()) {
+            return;
+        }
+        try {
+            if (line.startsWith(BattleProtocol.JOIN + " ")) {
+                join(connection, BattleProtocol.parseJoin(line));
+            } else if (line.startsWith(BattleProtocol.MOVE + " ")) {
+                int[] move = BattleProtocol.parseInts(line, 2);
+                MatchHandle match = connection.match;
+                if (match == null) {
+                    connection.send(BattleProtocol.ERR + " Not in a match");
+                } else {
+                    match.submitMove(connection, move[0], move[1]);
+                }
+            } else if (line.equals(BattleProtocol.QUIT)) {
+                close(connection);
+            } else {
+                connection.send(BattleProtocol.ERR + " Unknown command");
+            }
+        } catch (IllegalArgumentException e) {
+            connection.send(BattleProtocol.ERR + " " + e.getMessage());
+        }
+    }
+
+    private void join(Connection connection, CharacterBuild build) {
+        if (connection.match != null || connection.ticket != null) {
+            connection.send(BattleProtocol.ERR + " Already joined");
+            return;
+        }
+        connection.build = build;
+        enqueue(connection);
+    }
+
+    private void enqueue(Connection connection) {
+        MatchmakingQueue.Ticket ticket = matchmaking.join(connection.id, connection.build.toCharacter(),
+                connection.wins);
+        connection.ticket = ticket;
+        queued.put(ticket, connection);
+        if (ticket.getOpponent() == null) {
+            // A START that follows is sent by this thread too, so it never arrives first
+            connection.send(BattleProtocol.WAIT);
+        }
+    }
+
+    /**
+     * Starts a match between two connections the queue paired, the one that
+     * joined first as player 1.
+     */
+    private void startMatch(Connection first, Connection second) {
+        first.ticket = null;
+        second.ticket = null;
+        if (!first.channel.isOpen() || !second.channel.isOpen()) {
+            // One left while being paired; the other waits for someone else
+            for (Connection connection : new Connection[] {first, second}) {
+                if (connection.channel.isOpen()) {
+                    enqueue(connection);
+                }
+            }
+            return;
+        }
+        activeMatches.incrementAndGet();
+        if (mode == Mode.THREAD_PER_MATCH) {
+            ThreadMatch match = new ThreadMatch(nextMatchId++, first, second, seeds.nextLong());
+            threadMatches.add(match);
+            match.thread.start();
+        } else {
+            Match match = new Match(nextMatchId++, first, second, seeds.nextLong());
+            workers.execute(match::start);
+        }
+    }
+
+    private void write(Connection connection) {
+        connection.writeRequested.set(false);
+        if (!connection.channel.isOpen()) {
+            return;
+        }
+        try {
+            ByteBuffer buffer;
+            while ((buffer = connection.outbox.peek()) != null) {
+                connection.channel.write(buffer);
+                if (buffer.hasRemaining()) {
+                    // The socket is full; finish when it can take more
+                    connection.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+                connection.outbox.poll();
+            }
+            connection.key.interestOps(SelectionKey.OP_READ);
+        } catch (IOException e) {
+            close(connection);
+        }
+    }
+
+    private void close(Connection connection) {
+        // A ticket that was already paired is dealt with when its pair is started
+        if (connection.ticket != null && matchmaking.cancel(connection.ticket)) {
+            queued.remove(connection.ticket);
+            connection.ticket = null;
+        }
+        MatchHandle match = connection.match;
+        if (match != null) {
+            workers.execute(() -> match.forfeit(connection));
+        }
+        if (connection.channel.isOpen()) {
+            connections.decrementAndGet();
+            try {
+                connection.channel.close();
+            } catch (IOException e) {
+                // Nothing more to do with a broken connection
+            }
+        }
+    }
+
+    /**
+     * One client connection. Lines are queued in the outbox by any thread and
+     * written by the I/O thread.
+     */
+    private class Connection {
+        private final int id = nextConnectionId++;
+        private final SocketChannel channel;
+        private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        private final Queue<ByteBuffer> outbox = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean writeRequested = new AtomicBoolean();
+        private SelectionKey key;
+        private CharacterBuild build;
+        private MatchmakingQueue.Ticket ticket;
+        // Matches won on this server, the rating it is matched by
+        private volatile int wins;
+        private volatile MatchHandle match;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void send(String line) {
+            outbox.add(ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.US_ASCII)));
+            if (Thread.currentThread() == ioThread) {
+                write(this);
+            } else if (writeRequested.compareAndSet(false, true)) {
+                pendingWrites.add(this);
+                selector.wakeup();
+            }
+        }
+    }
+
+    /**
+     * What a connection's moves are handed to while it is in a match.
+     */
+    private interface MatchHandle {
+        void submitMove(Connection player, int move, int item);
+
+        void forfeit(Connection player);
+    }
+
+    /**
+     * One battle between two connections, run by a BlockingMatch on its own thread.
+     */
+    private class ThreadMatch implements MatchHandle, BlockingMatch.EndListener {
+        private final Connection[] players;
+        private final BlockingMatch match;
+        private final Thread thread;
+
+        ThreadMatch(int id, Connection player1, Connection player2, long seed) {
+            this.players = new Connection[] {player1, player2};
+            Battle battle = new Battle(player1.build.toCharacter(), player2.build.toCharacter(), seed);
+            this.match = new BlockingMatch(id, battle, player1::send, player2::send, this);
+            this.thread = matchThreads.newThread(match);
+            player1.match = this;
+            player2.match = this;
+        }
+
+        @Override
+        public void submitMove(Connection player, int move, int item) {
+            match.submitMove(player == players[0] ? 0 : 1, move, item);
+        }
+
+        @Override
+        public void forfeit(Connection player) {
+            match.forfeit(player == players[0] ? 0 : 1);
+        }
+
+        @Override
+        public void matchEnded(BlockingMatch match, int winner) {
+            threadMatches.remove(this);
+            if (winner >= 0) {
+                players[winner].wins++;
+            }
+            players[0].match = null;
+            players[1].match = null;
+            activeMatches.decrementAndGet();
+            finishedMatches.incrementAndGet();
+        }
+    }
+
+    /**
+     * One battle between two connections. Its methods are synchronized, so
+     * moves arriving on the I/O thread and rounds resolved on the workers never
+     * overlap.
+     */
+    private class Match implements MatchHandle {
+        private final int id;
+        private final Connection[] players;
+        private final Battle battle;
+        private final int[] moves = new int[2];
+        private final int[] items = new int[2];
+        private final boolean[] moved = new boolean[2];
+        private boolean awaitingMoves;
+        private boolean over;
+
+        Match(int id, Connection player1, Connection player2, long seed) {
+            this.id = id;
+            this.players = new Connection[] {player1, player2};
+            Character character1 = player1.build.toCharacter();
+            Character character2 = player2.build.toCharacter();
+            this.battle = new Battle(character1, character2, seed);
+            player1.match = this;
+            player2.match = this;
+        }
+
+        synchronized void start() {
+            if (over) {
+                return;
+            }
+            players[0].send(BattleProtocol.start(id, 1, battle.getSeed(), battle.getPlayer2().getName()));
+            players[1].send(BattleProtocol.start(id, 2, battle.getSeed(), battle.getPlayer1().getName()));
+            nextRound();
+        }
+
+        @Override
+        public synchronized void submitMove(Connection player, int move, int item) {
+            int side = player == players[0] ? 0 : 1;
+            if (over || !awaitingMoves || moved[side]) {
+                player.send(BattleProtocol.ERR + " Not your turn");
+                return;
+            }
+            Character character = side == 0 ? battle.getPlayer1() : battle.getPlayer2();
+            if (!battle.isLegalMove(character, move, item)) {
+                player.send(BattleProtocol.ILLEGAL);
+                return;
+            }
+            moves[side] = move;
+            items[side] = item;
+            moved[side] = true;
+            if (moved[0] && moved[1]) {
+                awaitingMoves = false;
+                workers.execute(this::resolveRound);
+            }
+        }
+
+        synchronized void resolveRound() {
+            if (over) {
+                return;
+            }
+            boolean battleOver = battle.resolveRound(moves[0], items[0], moves[1], items[1]);
+            if (battleOver || battle.getRound() >= MAX_ROUNDS) {
+                if (!battleOver) {
+                    battle.endAsDraw();
+                }
+                Character winner = battle.getWinner();
+                finish(winner == null ? -1 : winner == battle.getPlayer1() ? 0 : 1);
+            } else {
+                nextRound();
+            }
+        }
+
+        @Override
+        public synchronized void forfeit(Connection player) {
+            if (!over) {
+                finish(player == players[0] ? 1 : 0);
+            }
+        }
+
+        private void nextRound() {
+            battle.beginRound();
+            moved[0] = false;
+            moved[1] = false;
+            awaitingMoves = true;
+            players[0].send(BattleProtocol.round(battle.getRound(), battle.getPlayer1(), battle.getPlayer2()));
+            players[1].send(BattleProtocol.round(battle.getRound(), battle.getPlayer2(), battle.getPlayer1()));
+        }
+
+        /**
+         * Ends the match. winner is 0 or 1, or -1 for a draw.
+         */
+        private void finish(int winner) {
+            over = true;
+            if (winner >= 0) {
+                players[winner].wins++;
+            }
+            for (int side = 0; side < 2; side++) {
+                players[side].match = null;
+                players[side].send(BattleProtocol.end(winner, side, battle.getRound()));
+            }
+            activeMatches.decrementAndGet();
+            finishedMatches.incrementAndGet();
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        Mode mode = args.length > 1 && args[1].equals("threads") ? Mode.THREAD_PER_MATCH : Mode.POOLED;
+        BattleServer server = new BattleServer(port, Runtime.getRuntime().availableProcessors(), mode);
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        Thread.currentThread().join();
+    }
+}
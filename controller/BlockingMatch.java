@@ -0,0 +1,148 @@
+package controller;
+
+import model.Battle;
+import model.Character;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * The BlockingMatch class runs one battle on its own thread in the same
+ * blocking style as the console Battle loop: start a round, wait for both
+ * moves, resolve, repeat. Moves arrive through a blocking queue instead of a
+ * Scanner, so any thread (e.g. a network thread) can hand them in.
+ *
+ * Each match keeps a thread for its whole length, so it is meant to run on a
+ * virtual thread (see MatchThreads); on a platform-thread pool, a match that
+ * waits for a slow player holds a pool thread the whole time.
+ *
+ * Players are told about the match with the lines of the BattleProtocol.
+ */
+public class BlockingMatch implements Runnable {
+
+    /**
+     * The Player interface receives the protocol lines for one side.
+     */
+    public interface Player {
+        void send(String line);
+    }
+
+    /**
+     * The EndListener interface is told the result just before the END lines
+     * are sent, so the players can be freed for another match first.
+     */
+    public interface EndListener {
+        void matchEnded(BlockingMatch match, int winner);
+    }
+
+    // A move with this number means the player left the match
+    private static final int FORFEIT = -1;
+
+    private final int id;
+    private final Battle battle;
+    private final Player[] players;
+    private final BlockingQueue<int[]> moves = new LinkedBlockingQueue<>();
+    private final EndListener endListener;
+
+    /**
+     * Creates a match. It does not start until run() is called.
+     *
+     * @param id the match number sent in START lines
+     * @param battle the headless battle to play
+     * @param player1 receives the lines for player 1
+     * @param player2 receives the lines for player 2
+     * @param endListener told when the match ends, or null
+     */
+    public BlockingMatch(int id, Battle battle, Player player1, Player player2, EndListener endListener) {
+        this.id = id;
+        this.battle = battle;
+        this.players = new Player[] {player1, player2};
+        this.endListener = endListener;
+    }
+
+    public Battle getBattle() {
+        return battle;
+    }
+
+    /**
+     * Hands in a move for the current round. Never blocks.
+     *
+     * @param side 0 for player 1, 1 for player 2
+     * @param move the move, numbered as in Battle.resolveRound()
+     * @param item the single-use item for Use Magic Item, otherwise 0
+     */
+    public void submitMove(int side, int move, int item) {
+        moves.add(new int[] {side, move, item});
+    }
+
+    /**
+     * Ends the match with the other side as the winner. Never blocks.
+     *
+     * @param side the side leaving, 0 or 1
+     */
+    public void forfeit(int side) {
+        moves.add(new int[] {side, FORFEIT, 0});
+    }
+
+    @Override
+    public void run() {
+        int winner;
+        try {
+            winner = play();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            winner = -1;
+        }
+        if (endListener != null) {
+            endListener.matchEnded(this, winner);
+        }
+        for (int side = 0; side < 2; side++) {
+            players[side].send(BattleProtocol.end(winner, side, battle.getRound()));
+        }
+    }
+
+    /**
+     * Plays rounds until the battle is over, a player leaves or the round limit
+     * is reached.
+     *
+     * @return the winning side, or -1 for a draw
+     */
+    private int play() throws InterruptedException {
+        Character player1 = battle.getPlayer1();
+        Character player2 = battle.getPlayer2();
+        players[0].send(BattleProtocol.start(id, 1, battle.getSeed(), player2.getName()));
+        players[1].send(BattleProtocol.start(id, 2, battle.getSeed(), player1.getName()));
+
+        int[] chosen = new int[2];
+        int[] items = new int[2];
+        while (true) {
+            battle.beginRound();
+            players[0].send(BattleProtocol.round(battle.getRound(), player1, player2));
+            players[1].send(BattleProtocol.round(battle.getRound(), player2, player1));
+
+            boolean[] moved = new boolean[2];
+            while (!moved[0] || !moved[1]) {
+                int[] next = moves.take();
+                int side = next[0];
+                if (next[1] == FORFEIT) {
+                    return 1 - side;
+                }
+                if (moved[side]) {
+                    players[side].send(BattleProtocol.ERR + " Not your turn");
+                } else if (!battle.isLegalMove(side == 0 ? player1 : player2, next[1], next[2])) {
+                    players[side].send(BattleProtocol.ILLEGAL);
+                } else {
+                    chosen[side] = next[1];
+                    items[side] = next[2];
+                    moved[side] = true;
+                }
+            }
+
+            boolean over = battle.resolveRound(chosen[0], items[0], chosen[1], items[1]);
+            if (over || battle.getRound() >= BattleServer.MAX_ROUNDS) {
+                Character winner = battle.getWinner();
+                return winner == null ? -1 : winner == player1 ? 0 : 1;
+            }
+        }
+    }
+}
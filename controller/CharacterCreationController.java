@@ -10,7 +10,8 @@ import java.util.List;
 
 public class CharacterCreationController {
     private GameModel model;
-    private JFrame previousFrame;
+    private Screen previousScreen;
+    private ScreenRouter router;
 
     private CharacterNameInputView nameInputView;
     private RaceSelectionView raceSelectionView;
@@ -24,17 +25,17 @@ public class CharacterCreationController {
     private List<Ability> selectedAbilities = new ArrayList<>();
     private boolean isPlayer1; 
 
-    public CharacterCreationController(GameModel model, JFrame previousFrame, boolean isPlayer1) {
+    public CharacterCreationController(GameModel model, Screen previousScreen, boolean isPlayer1) {
         this.model = model;
-        this.previousFrame = previousFrame;
+        this.previousScreen = previousScreen;
+        this.router = previousScreen.getRouter();
         this.isPlayer1 = isPlayer1;
         showNameInputView();
     }
 
     private void showNameInputView() {
-        List<model.Character> currentList = model.getCharactersForPlayer(isPlayer1 ? 1 : 2);
         nameInputView = new CharacterNameInputView();
-        nameInputView.setVisible(true);
+        router.showTemporary(nameInputView);
         
 
         nameInputView.addNextButtonListener(e -> {
@@ -43,19 +44,18 @@ public class CharacterCreationController {
                 JOptionPane.showMessageDialog(nameInputView, "Name cannot be empty.");
                 return;
             }
-            if (model.isNameTaken(name, currentList )) {
+            if (model.isNameTaken(name, isPlayer1 ? 1 : 2)) {
                 JOptionPane.showMessageDialog(nameInputView, "Name already exists.");
                 return;
             }
             characterName = name;
-            nameInputView.dispose();
             showRaceSelectionView();
         });
     }
 
     private void showRaceSelectionView() {
         raceSelectionView = new RaceSelectionView();
-        raceSelectionView.setVisible(true);
+        router.showTemporary(raceSelectionView);
         raceSelectionView.addHumanButtonListener(e -> proceedWithRace(Race.HUMAN));
         raceSelectionView.addElfButtonListener(e -> proceedWithRace(Race.ELF));
         raceSelectionView.addDwarfButtonListener(e -> proceedWithRace(Race.DWARF));
@@ -64,13 +64,12 @@ public class CharacterCreationController {
 
     private void proceedWithRace(Race race) {
         selectedRace = race;
-        raceSelectionView.dispose();
         showClassSelectionView();
     }
 
     private void showClassSelectionView() {
         classSelectionView = new ClassSelectionView();
-        classSelectionView.setVisible(true);
+        router.showTemporary(classSelectionView);
         classSelectionView.addWarriorButtonListener(e -> proceedWithClass("Warrior"));
         classSelectionView.addRogueButtonListener(e -> proceedWithClass("Rogue"));
         classSelectionView.addMageButtonListener(e -> proceedWithClass("Mage"));
@@ -78,23 +77,21 @@ public class CharacterCreationController {
 
     private void proceedWithClass(String className) {
         selectedClass = className;
-        classSelectionView.dispose();
         showAbilitySelectionView();
     }
 
     private void showAbilitySelectionView() {
-        // List<Ability> classAbilities = model.getAllAbilities().getAbilitiesByClass(selectedClass);
         abilitySelectionView = new AbilitySelectionView(selectedClass);
-        abilitySelectionView.setVisible(true);
+        abilitySelectionView.setCurrentAbilities(model.getAbilitiesByClass(selectedClass));
+        router.showTemporary(abilitySelectionView);
 
         abilitySelectionView.addConfirmButtonListener(e -> {
-            List<Ability> chosen = abilitySelectionView.getSelectedAbilities(selectedClass);
+            List<Ability> chosen = abilitySelectionView.getSelectedAbilities();
             if (chosen.size() != 3) {
                 JOptionPane.showMessageDialog(abilitySelectionView, "Please select exactly 3 abilities.");
                 return;
             }
             selectedAbilities = chosen;
-            abilitySelectionView.dispose();
             createCharacter();
             showSuccessView();
         });
@@ -110,10 +107,9 @@ public class CharacterCreationController {
 
     private void showSuccessView() {
         successView = new CharacterCreationSuccessView();
-        successView.setVisible(true);
+        router.showTemporary(successView);
         successView.addDoneButtonListener(e -> {
-            successView.dispose();
-            previousFrame.setVisible(true);
+            previousScreen.showScreen();
         });
     }
 }
@@ -3,33 +3,41 @@ package controller;
 import model.Character;
 import model.GameModel;
 import view.DeleteCharacterView;
+import view.Screen;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.List;
 
-import javax.swing.JFrame;
-
 // import controller.MainMenuController.DeleteListener;
 
 public class CharacterDeletionController {
     private GameModel model;
     private DeleteCharacterView view;
-    private JFrame previousFrame;
+    private Screen previousScreen;
     private boolean isPlayer1;
 
-    public CharacterDeletionController(DeleteCharacterView view, GameModel model, JFrame previousFrame, boolean isPlayer1) {
+    public CharacterDeletionController(DeleteCharacterView view, GameModel model, Screen previousScreen) {
         this.model = model;
         this.view = view;
-        this.isPlayer1 = isPlayer1;
-        this.previousFrame = previousFrame;
+        this.previousScreen = previousScreen;
 
 
         // view.addBackButtonListener(new BackButtonListener());
         setupListeners();
         view.addDeleteCharacterListener(new DeleteListener());
+        model.addRosterListener(new RosterViewUpdater(view.getCharacterList(), () -> this.isPlayer1 ? 1 : 2));
+        view.getCharacterList().setSearchListener(new CharacterSearchHandler(model, view.getCharacterList(), () -> this.isPlayer1 ? 1 : 2));
+    }
 
+    /**
+     * Refreshes the list from the model and shows it for a player.
+     */
+    public void open(boolean isPlayer1) {
+        this.isPlayer1 = isPlayer1;
+        view.getCharacterList().clearSearch();
         updateCharacterList();
+        view.showScreen();
     }
 
     private void updateCharacterList() {
@@ -46,8 +54,7 @@ public class CharacterDeletionController {
         view.addBackButtonListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                view.dispose();
-                previousFrame.setVisible(true);
+                previousScreen.showScreen();
             }
         });
     }
@@ -56,8 +63,8 @@ public class CharacterDeletionController {
     private class DeleteListener implements DeleteCharacterView.DeleteCharacterListener {
         @Override
         public void onCharacterDelete(Character character) {
+            // The list drops the row itself when the model reports the removal
             model.deleteCharacter(isPlayer1 ? 1 : 2,character);
-            updateCharacterList();
         }
     }
 }
@@ -3,6 +3,7 @@ package controller;
 import model.GameModel;
 import model.Character;
 import view.CharacterListView;
+import view.Screen;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -13,28 +14,33 @@ import javax.swing.*;
 public class CharacterListController {
     private CharacterListView view;
     private GameModel model;
-    private JFrame previousFrame;
+    private Screen previousScreen;
     private boolean isPlayer1;
 
-    public CharacterListController(CharacterListView view, GameModel model, JFrame previousFrame, boolean isPlayer1) {
+    public CharacterListController(CharacterListView view, GameModel model, Screen previousScreen) {
         this.model = model;
         this.view = view;
-        this.previousFrame = previousFrame;
-        this.isPlayer1 = isPlayer1;
+        this.previousScreen = previousScreen;
         setupListeners();
+        model.addRosterListener(new RosterViewUpdater(view.getCharacterList(), () -> this.isPlayer1 ? 1 : 2));
+    }
+
+    /**
+     * Refreshes the list from the model and shows it for a player.
+     */
+    public void open(boolean isPlayer1) {
+        this.isPlayer1 = isPlayer1;
         setupView();
-       
+        view.showScreen();
     }
 
     private void setupView() {
-
-    System.out.println("[DEBUG] Loading characters for Player " + (isPlayer1 ? "1" : "2"));
-
         List<Character> characters = model.getCharactersForPlayer(isPlayer1 ? 1 : 2);
 
         if (characters.isEmpty()) {
             view.showNoCharacters();
         } else if (characters.size() == 1) {
+            view.showCharacterList(characters);
             view.showCharacterDetails(characters.get(0));
         } else {
             view.showCharacterList(characters);
@@ -45,8 +51,7 @@ public class CharacterListController {
         view.addBackButtonListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                view.dispose();
-                previousFrame.setVisible(true);
+                previousScreen.showScreen();
             }
         });
 
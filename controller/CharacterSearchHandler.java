@@ -0,0 +1,41 @@
+package controller;
+
+import model.GameModel;
+import model.Race;
+import view.CharacterListPanel;
+
+import java.util.function.IntSupplier;
+
+/**
+ * The CharacterSearchHandler class answers the search bar of a character list.
+ * With no search text or filters the whole roster is shown; otherwise the
+ * matches from the GameModel's search index are shown: the best ranked
+ * matches for search text, or every character that passes the filters when
+ * there is no text.
+ */
+public class CharacterSearchHandler implements CharacterListPanel.SearchListener {
+    private GameModel model;
+    private CharacterListPanel list;
+    private IntSupplier shownPlayer;
+
+    /**
+     * @param model the model to search
+     * @param list the list to show results in
+     * @param shownPlayer returns the player whose characters the list shows
+     */
+    public CharacterSearchHandler(GameModel model, CharacterListPanel list, IntSupplier shownPlayer) {
+        this.model = model;
+        this.list = list;
+        this.shownPlayer = shownPlayer;
+    }
+
+    @Override
+    public void onSearch(String query, Race race, String characterClass) {
+        int player = shownPlayer.getAsInt();
+        if (!list.isFiltering()) {
+            list.showCharacters(model.getCharactersForPlayer(player));
+        } else {
+            list.showCharacters(model.getSearchIndex().search(player, query, race, characterClass));
+        }
+    }
+}
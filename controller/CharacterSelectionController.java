@@ -3,7 +3,7 @@ package controller;
 import model.GameModel;
 import model.Character;
 import view.CharacterSelectionView;
-import view.MainMenuView;
+import view.Screen;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -14,18 +14,27 @@ import javax.swing.*;
 public class CharacterSelectionController {
     private CharacterSelectionView view;
     private GameModel model;
-    private JFrame previousFrame;
+    private Screen previousScreen;
+    private AppController app;
     private boolean isPlayer1;
 
-    public CharacterSelectionController(CharacterSelectionView view, GameModel model, JFrame previousFrame, boolean isPlayer1) {
+    public CharacterSelectionController(CharacterSelectionView view, GameModel model, Screen previousScreen, AppController app) {
         this.model = model;
         this.view = view;
-        this.previousFrame = previousFrame;
-        this.isPlayer1 = isPlayer1;
+        this.previousScreen = previousScreen;
+        this.app = app;
         setupListeners();
+        model.addRosterListener(new RosterViewUpdater(view.getCharacterList(), () -> this.isPlayer1 ? 1 : 2));
+        view.getCharacterList().setSearchListener(new CharacterSearchHandler(model, view.getCharacterList(), () -> this.isPlayer1 ? 1 : 2));
+    }
+
+    /**
+     * Refreshes the list from the model and shows it for a player.
+     */
+    public void open(boolean isPlayer1) {
+        this.isPlayer1 = isPlayer1;
+        view.getCharacterList().clearSearch();
         setupView();
-        
-        
     }
 
     private void setupView() {
@@ -37,15 +46,14 @@ public class CharacterSelectionController {
             view.showCharacterList(characters);
         }
 
-        view.setVisible(true);
+        view.showScreen();
     }
 
     private void setupListeners() {
         view.addBackButtonListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                view.dispose();
-                previousFrame.setVisible(true);
+                previousScreen.showScreen();
             }
         });
 
@@ -56,15 +64,12 @@ public class CharacterSelectionController {
                     model.setPlayer1Character(selectedCharacter);
 
                     // Move to Player 2 Main Menu
-                    view.dispose();
-                    MainMenuView player2Menu = new MainMenuView(2);
-                    new MainMenuController(player2Menu, model, 2);  // isPlayer1 = false
+                    app.getMainMenuController().open(2);
                 } else {
                     model.setPlayer2Character(selectedCharacter);
 
                     // Proceed to Battle
-                    view.dispose();
-                    new BattleController(model);
+                    app.getBattleController().startBattle();
                 }
             }
         });
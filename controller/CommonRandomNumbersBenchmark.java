@@ -0,0 +1,99 @@
+package controller;
+
+import model.BattleSimulator;
+import model.BuildId;
+import model.CharacterBuild;
+
+import java.util.Random;
+
+/**
+ * The CommonRandomNumbersBenchmark class measures how much common random
+ * numbers sharpen a comparison of two builds. For random triples of two
+ * different builds and an opponent, it estimates the first build's win rate
+ * minus the second's against the opponent many times over, from different
+ * seeds, in three ways:
+ *
+ *   - independent: each build plays its own battles (two winRate() calls)
+ *   - common: BattleSimulator.compareWinRates() with shared streams
+ *   - antithetic: the same, with each battle paired with its mirror image
+ *
+ * and prints the spread of each estimate across the seeds. A build is never
+ * compared with itself, which would give an exact 0 with common numbers.
+ *
+ * Run it with "java controller.CommonRandomNumbersBenchmark [pairs] [battles] [repeats] [seed]".
+ */
+public class CommonRandomNumbersBenchmark {
+    private static final String[] METHOD_NAMES = {"Independent", "Common", "Antithetic"};
+
+    public static void main(String[] args) {
+        int pairs = args.length > 0 ? Integer.parseInt(args[0]) : 12;
+        int battles = args.length > 1 ? Integer.parseInt(args[1]) : 400;
+        int repeats = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 1;
+        int policy = BattleSimulator.POLICY_RANDOM;
+
+        System.out.println("[" + pairs + " build pairs, " + battles + " battles per build, "
+                + repeats + " repeats]");
+        double[] spreadTotals = new double[METHOD_NAMES.length];
+        double reportedTotal = 0;
+        Random random = new Random(seed);
+        for (int p = 0; p < pairs; p++) {
+            CharacterBuild first = BattleSimulator.randomBuild(random, "A");
+            CharacterBuild second = BattleSimulator.randomBuild(random, "B");
+            CharacterBuild opponent = BattleSimulator.randomBuild(random, "C");
+            if (BuildId.of(first) == BuildId.of(second)) {
+                p--;
+                continue;
+            }
+
+            double[][] differences = new double[METHOD_NAMES.length][repeats];
+            double reported = 0;
+            for (int r = 0; r < repeats; r++) {
+                long repeatSeed = random.nextLong();
+                differences[0][r] = BattleSimulator.winRate(first, opponent, policy, battles, repeatSeed)
+                        - BattleSimulator.winRate(second, opponent, policy, battles, ~repeatSeed);
+                double[] common = BattleSimulator.compareWinRates(first, second, opponent, policy,
+                        battles, repeatSeed, false);
+                differences[1][r] = common[0];
+                reported += common[1];
+                differences[2][r] = BattleSimulator.compareWinRates(first, second, opponent, policy,
+                        battles, repeatSeed, true)[0];
+            }
+            reported /= repeats;
+            reportedTotal += reported;
+
+            StringBuilder line = new StringBuilder();
+            for (int m = 0; m < METHOD_NAMES.length; m++) {
+                double spread = standardDeviation(differences[m]);
+                spreadTotals[m] += spread;
+                line.append(String.format("  %.4f", spread));
+            }
+            System.out.printf("%s  (reported %.4f)  %s vs %s against %s%n", line, reported,
+                    BuildId.describe(BuildId.of(first)), BuildId.describe(BuildId.of(second)),
+                    BuildId.describe(BuildId.of(opponent)));
+        }
+
+        System.out.println("\n[Average standard error of the difference]");
+        for (int m = 0; m < METHOD_NAMES.length; m++) {
+            double spread = spreadTotals[m] / pairs;
+            // Battles needed scale with the variance
+            double relativeBattles = spread * spread / (spreadTotals[0] / pairs * spreadTotals[0] / pairs);
+            System.out.printf("  %-11s %.4f  (%.0f%% of the independent battles for the same error)%n",
+                    METHOD_NAMES[m], spread, 100 * relativeBattles);
+        }
+        System.out.printf("[compareWinRates() reported %.4f on average]%n", reportedTotal / pairs);
+    }
+
+    private static double standardDeviation(double[] values) {
+        double mean = 0;
+        for (double value : values) {
+            mean += value;
+        }
+        mean /= values.length;
+        double squares = 0;
+        for (double value : values) {
+            squares += (value - mean) * (value - mean);
+        }
+        return Math.sqrt(squares / (values.length - 1));
+    }
+}
@@ -14,45 +14,54 @@ public class EditCharacterController {
     private MainMenuView mainView;
     private boolean isPlayer1;
 
-    public EditCharacterController(EditCharacterView view, GameModel model, MainMenuView mainView, boolean isPlayer1) {
+    public EditCharacterController(EditCharacterView view, GameModel model, MainMenuView mainView) {
         this.view = view;
         this.model = model;
         this.mainView = mainView;
+
+        // Add back button listener
+        view.addBackButtonListener(e -> {
+            mainView.showScreen();
+        });
+
+        model.addRosterListener(new RosterViewUpdater(view.getCharacterList(), () -> this.isPlayer1 ? 1 : 2));
+        view.getCharacterList().setSearchListener(new CharacterSearchHandler(model, view.getCharacterList(), () -> this.isPlayer1 ? 1 : 2));
+    }
+
+    /**
+     * Refreshes the list from the model and shows it for a player.
+     */
+    public void open(boolean isPlayer1) {
         this.isPlayer1 = isPlayer1;
+        view.getCharacterList().clearSearch();
 
         List<Character> characters = model.getCharactersForPlayer(isPlayer1 ? 1 : 2);
 
         if (characters.isEmpty()) {
             view.showNoCharacters();
-            return;
+        } else {
+            view.showCharacterList(characters, new SelectListener());
         }
 
-        view.showCharacterList(characters, new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                String name = e.getActionCommand();
-                Character selected = model.getCharacterByName(name, isPlayer1 ? 1 : 2);
-
-                int result = JOptionPane.showConfirmDialog(
-                    view,
-                    "Do you want to edit " + selected.getName() + "?",
-                    "Edit Character",
-                    JOptionPane.YES_NO_OPTION
-                );
-
-                if (result == JOptionPane.YES_OPTION) {
-                    view.dispose();
-                    new ActualEditCharacterController(model, selected, isPlayer1, mainView);
-                }
-            }
-        });
+        view.showScreen();
+    }
 
-        // Add back button listener
-        view.addBackButtonListener(e -> {
-            view.dispose();
-            mainView.setVisible(true);
-        });
+    private class SelectListener implements ActionListener {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            String name = e.getActionCommand();
+            Character selected = model.getCharacterByName(name, isPlayer1 ? 1 : 2);
+
+            int result = JOptionPane.showConfirmDialog(
+                view,
+                "Do you want to edit " + selected.getName() + "?",
+                "Edit Character",
+                JOptionPane.YES_NO_OPTION
+            );
 
-        view.setVisible(true);
+            if (result == JOptionPane.YES_OPTION) {
+                new ActualEditCharacterController(model, selected, isPlayer1, mainView);
+            }
+        }
     }
 }
@@ -4,6 +4,7 @@ import model.Character;
 import model.GameModel;
 import model.MagicItem;
 import view.EquipItemView;
+import view.MagicItemManagementView;
 
 import javax.swing.*;
 import java.awt.event.ActionEvent;
@@ -14,18 +15,21 @@ public class EquipItemController {
     private GameModel model;
     private Character character;
     private EquipItemView view;
+    private boolean isPlayer1;
 
-    public EquipItemController(GameModel model, Character character) {
+    public EquipItemController(GameModel model, Character character, boolean isPlayer1, MagicItemManagementView previousView) {
         this.model = model;
         this.character = character;
+        this.isPlayer1 = isPlayer1;
 
         List<MagicItem> inventory = character.getInventory();
         if (inventory.isEmpty()) {
-            JOptionPane.showMessageDialog(null, "You have to win to get magic items!");
+            JOptionPane.showMessageDialog(previousView, "You have to win to get magic items!");
             return;
         }
 
         this.view = new EquipItemView(inventory);
+        previousView.getRouter().showTemporary(view);
 
         view.getConfirmButton().addActionListener(new ActionListener() {
             @Override
@@ -47,9 +51,9 @@ public class EquipItemController {
                 if (selectedItem == null) {
                     JOptionPane.showMessageDialog(view, "Please select an item to equip.");
                 } else {
-                    character.setEquippedItem(selectedItem);
+                    model.equipItem(isPlayer1 ? 1 : 2, character, selectedItem);
                     JOptionPane.showMessageDialog(view, "Equipped " + selectedItem.getName() + "!");
-                    view.dispose();
+                    previousView.getRouter().showTemporary(previousView);
                 }
             }
         });
@@ -0,0 +1,72 @@
+package controller;
+
+import model.GameModel;
+import model.Leaderboard;
+import view.LeaderboardView;
+import view.MainMenuView;
+import view.ScreenRouter;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The LeaderboardController class shows the model's Leaderboard and keeps it
+ * current while it is on screen.
+ *
+ * Results may be recorded much faster than the screen can redraw, so changes
+ * are coalesced: the first change after a redraw schedules one redraw on the
+ * event thread, and later changes before it runs are folded into it. The
+ * redraw reads a snapshot, so it never holds up the threads recording results.
+ */
+public class LeaderboardController {
+    // How many ranks are shown
+    public static final int SHOWN_RANKS = 100;
+
+    private LeaderboardView view;
+    private AppController app;
+    private Leaderboard leaderboard;
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+
+    public LeaderboardController(LeaderboardView view, GameModel model, MainMenuView mainMenuView, AppController app) {
+        this.view = view;
+        this.app = app;
+        this.leaderboard = model.getLeaderboard();
+
+        leaderboard.addChangeListener(this::scheduleRefresh);
+        view.addBackListener(e -> {
+            mainMenuView.showScreen();
+        });
+    }
+
+    /**
+     * Shows the leaderboard.
+     */
+    public void open() {
+        refresh();
+        view.showScreen();
+    }
+
+    private void scheduleRefresh() {
+        if (refreshPending.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(() -> {
+                refreshPending.set(false);
+                if (ScreenRouter.LEADERBOARD.equals(app.getRouter().getCurrentScreen())) {
+                    refresh();
+                }
+            });
+        }
+    }
+
+    private void refresh() {
+        Leaderboard.Snapshot snapshot = leaderboard.snapshot();
+        List<String> lines = new ArrayList<>();
+        int rank = 1;
+        for (Leaderboard.Entry entry : snapshot.top(SHOWN_RANKS)) {
+            lines.add(String.format("%4d.  %-20s  Player %-3d  %5d wins",
+                    rank++, entry.getName(), entry.getPlayer(), entry.getScore()));
+        }
+        view.showRanking(lines, snapshot.size());
+    }
+}
@@ -0,0 +1,470 @@
+package controller;
+
+import model.AllAbilities;
+import model.Battle;
+import model.CharacterBuild;
+import model.ComputerPlayer;
+import model.Race;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The LoadGenerator class finds out how many matches a host can sustain. It
+ * runs thousands of synthetic players for a while. Each player joins a match,
+ * answers every ROUND with a random legal move chosen by a ComputerPlayer, and
+ * joins again when the match ends.
+ *
+ * For every move it records the time from submitting the move to hearing that
+ * the round was resolved (the next ROUND or the END) in a LatencyHistogram,
+ * and at the end prints p50, p99, p999 and matches per second.
+ *
+ * Targets:
+ *   pooled   a BattleServer in POOLED mode, started in this process, over TCP
+ *   threads  a BattleServer in THREAD_PER_MATCH mode, started in this process, over TCP
+ *   local    BlockingMatch games on match threads, with no sockets at all
+ *   a number an already running BattleServer on that local port
+ *
+ * Over TCP all players share one selector thread, so the load generator
+ * itself needs very few threads.
+ *
+ * Run it with "java controller.LoadGenerator [target] [players] [seconds] [thinkMillis]".
+ */
+public class LoadGenerator {
+    // How long to wait for matches still going when the time is up
+    private static final long DRAIN_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final int players;
+    private final long durationNanos;
+    private final long thinkNanos;
+    private final Random random = new Random();
+    private final int[][] classAbilityIds;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLong matchesFinished = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private long elapsedNanos;
+
+    /**
+     * @param players the number of synthetic players (two per match)
+     * @param seconds how long to keep starting new matches
+     * @param thinkMillis how long each player waits before sending a move
+     */
+    public LoadGenerator(int players, int seconds, int thinkMillis) {
+        this.players = players;
+        this.durationNanos = TimeUnit.SECONDS.toNanos(seconds);
+        this.thinkNanos = TimeUnit.MILLISECONDS.toNanos(thinkMillis);
+
+        List<model.Ability> allAbilities = AllAbilities.getAllAbilities();
+        classAbilityIds = new int[AllAbilities.CLASS_NAMES.length][];
+        for (int c = 0; c < classAbilityIds.length; c++) {
+            List<model.Ability> abilities = AllAbilities.getAbilitiesByClass(AllAbilities.CLASS_NAMES[c]);
+            classAbilityIds[c] = new int[abilities.size()];
+            for (int i = 0; i < abilities.size(); i++) {
+                classAbilityIds[c][i] = CharacterBuild.abilityId(abilities.get(i));
+            }
+        }
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public long getMatchesFinished() {
+        return matchesFinished.get();
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+
+    /**
+     * Returns matches finished per second over the whole run.
+     */
+    public double getMatchesPerSecond() {
+        return elapsedNanos == 0 ? 0 : matchesFinished.get() / (elapsedNanos / 1e9);
+    }
+
+    /**
+     * Returns a random build: any race and class, and three different abilities of that
+     * class, or four for a race with an extra ability slot.
+     */
+    private CharacterBuild randomBuild(String name) {
+        int raceId = random.nextInt(Race.show_race_array().length);
+        int classId = random.nextInt(classAbilityIds.length);
+        int[] choices = classAbilityIds[classId].clone();
+        // A race with an extra slot fills it with a fourth ability of the class
+        int[] abilityIds = new int[Race.show_race_array()[raceId].hasExtraAbilitySlot() ? 4 : 3];
+        for (int i = 0; i < abilityIds.length; i++) {
+            int pick = i + random.nextInt(choices.length - i);
+            int swap = choices[i];
+            choices[i] = choices[pick];
+            choices[pick] = swap;
+            abilityIds[i] = choices[i];
+        }
+        return new CharacterBuild(name, raceId, classId, abilityIds, -1, new int[0]);
+    }
+
+    /**
+     * Plays against in-process BlockingMatch games on match threads (virtual
+     * when available). Half as many matches as players run at once.
+     */
+    public void runLocal() throws InterruptedException {
+        ThreadFactory matchThreads = MatchThreads.newFactory("load-match-");
+        ScheduledExecutorService thinking = Executors.newScheduledThreadPool(2, MatchThreads.newPlatformFactory("load-think-"));
+        int slots = Math.max(1, players / 2);
+        CountDownLatch slotsDone = new CountDownLatch(slots);
+        long start = System.nanoTime();
+        long deadline = start + durationNanos;
+        AtomicInteger nextId = new AtomicInteger(1);
+        AtomicLong lastEnd = new AtomicLong(start);
+
+        Runnable[] startMatch = new Runnable[1];
+        startMatch[0] = () -> {
+            Battle battle;
+            synchronized (random) {
+                battle = new Battle(randomBuild("Bot A").toCharacter(), randomBuild("Bot B").toCharacter(), random.nextLong());
+            }
+            LocalPlayer player1 = new LocalPlayer(0, thinking);
+            LocalPlayer player2 = new LocalPlayer(1, thinking);
+            BlockingMatch match = new BlockingMatch(nextId.getAndIncrement(), battle, player1, player2, (m, winner) -> {
+                matchesFinished.incrementAndGet();
+                lastEnd.accumulateAndGet(System.nanoTime(), Math::max);
+                if (System.nanoTime() < deadline) {
+                    startMatch[0].run();
+                } else {
+                    slotsDone.countDown();
+                }
+            });
+            player1.start(match, ComputerPlayer.abilityCosts(battle.getPlayer1()));
+            player2.start(match, ComputerPlayer.abilityCosts(battle.getPlayer2()));
+            matchThreads.newThread(match).start();
+        };
+        for (int i = 0; i < slots; i++) {
+            startMatch[0].run();
+        }
+        // Matches still going after the drain time are left to the daemon threads
+        slotsDone.await(durationNanos + DRAIN_NANOS, TimeUnit.NANOSECONDS);
+        elapsedNanos = lastEnd.get() - start;
+        thinking.shutdownNow();
+    }
+
+    /**
+     * A synthetic player of an in-process BlockingMatch.
+     */
+    private class LocalPlayer implements BlockingMatch.Player {
+        private final int side;
+        private final ScheduledExecutorService thinking;
+        private final ComputerPlayer computer = new ComputerPlayer(new Random(random.nextLong()));
+        private BlockingMatch match;
+        private int[] costs;
+        private volatile long submittedAt;
+
+        LocalPlayer(int side, ScheduledExecutorService thinking) {
+            this.side = side;
+            this.thinking = thinking;
+        }
+
+        void start(BlockingMatch match, int[] costs) {
+            this.match = match;
+            this.costs = costs;
+        }
+
+        @Override
+        public void send(String line) {
+            if (line.startsWith(BattleProtocol.ROUND + " ") || line.startsWith(BattleProtocol.END + " ")) {
+                if (submittedAt != 0) {
+                    latency.record(System.nanoTime() - submittedAt);
+                    submittedAt = 0;
+                }
+            }
+            if (line.startsWith(BattleProtocol.ROUND + " ")) {
+                int[] round = BattleProtocol.parseInts(line, 6);
+                int move = computer.chooseMove(costs, round[2], round[3]);
+                int item = move == costs.length + 3 ? computer.chooseItem(round[3]) : 0;
+                Runnable submit = () -> {
+                    submittedAt = System.nanoTime();
+                    match.submitMove(side, move, item);
+                };
+                if (thinkNanos > 0) {
+                    thinking.schedule(submit, thinkNanos, TimeUnit.NANOSECONDS);
+                } else {
+                    submit.run();
+                }
+            } else if (line.startsWith(BattleProtocol.ERR) || line.equals(BattleProtocol.ILLEGAL)) {
+                errors.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Plays against a BattleServer on a local port, with every player's
+     * connection handled by one selector on the calling thread.
+     *
+     * @param port the server's port
+     */
+    public void runSockets(int port) throws IOException {
+        Selector selector = Selector.open();
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+        List<SocketPlayer> all = new ArrayList<>();
+        for (int i = 0; i < players; i++) {
+            SocketChannel channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            channel.connect(address);
+            SocketPlayer player = new SocketPlayer(channel, randomBuild("Bot " + i));
+            player.key = channel.register(selector, SelectionKey.OP_CONNECT, player);
+            all.add(player);
+        }
+
+        // Moves waiting for the thinking time to pass, soonest first
+        PriorityQueue<SocketPlayer> thinking = new PriorityQueue<>((a, b) -> Long.compare(a.moveDueAt, b.moveDueAt));
+        long start = System.nanoTime();
+        long deadline = start + durationNanos;
+        int open = players;
+        long lastEnd = start;
+
+        while (open > 0) {
+            long now = System.nanoTime();
+            if (now > deadline + DRAIN_NANOS) {
+                break;
+            }
+            long waitMillis = 100;
+            if (!thinking.isEmpty()) {
+                waitMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(thinking.peek().moveDueAt - now));
+            }
+            selector.select(waitMillis);
+
+            now = System.nanoTime();
+            while (!thinking.isEmpty() && thinking.peek().moveDueAt <= now) {
+                thinking.poll().sendMove(now);
+            }
+
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                SocketPlayer player = (SocketPlayer) key.attachment();
+                try {
+                    if (key.isConnectable()) {
+                        player.channel.finishConnect();
+                        key.interestOps(SelectionKey.OP_READ);
+                        player.send(BattleProtocol.join(player.build));
+                        continue;
+                    }
+                    if (key.isWritable()) {
+                        player.flush();
+                    }
+                    if (key.isReadable() && !player.read(thinking, deadline)) {
+                        player.close();
+                    }
+                } catch (IOException e) {
+                    errors.incrementAndGet();
+                    player.close();
+                }
+            }
+
+            // Once the time is up, players not in a match stop
+            if (System.nanoTime() >= deadline) {
+                for (SocketPlayer player : all) {
+                    if (!player.inMatch) {
+                        player.close();
+                    }
+                }
+            }
+            open = 0;
+            for (SocketPlayer player : all) {
+                if (player.channel.isOpen()) {
+                    open++;
+                }
+                lastEnd = Math.max(lastEnd, player.lastEndAt);
+            }
+        }
+        for (SocketPlayer player : all) {
+            player.close();
+        }
+        selector.close();
+        elapsedNanos = lastEnd - start;
+    }
+
+    /**
+     * A synthetic player with its own connection to the server.
+     */
+    private class SocketPlayer {
+        private final SocketChannel channel;
+        private final CharacterBuild build;
+        private final int[] costs;
+        private final ComputerPlayer computer = new ComputerPlayer(new Random(random.nextLong()));
+        private final ByteBuffer readBuffer = ByteBuffer.allocate(1024);
+        private final Queue<ByteBuffer> outbox = new ArrayDeque<>();
+        private SelectionKey key;
+        private boolean inMatch;
+        private int side;
+        private long submittedAt;
+        private long moveDueAt;
+        private String pendingMove;
+        private long lastEndAt;
+
+        SocketPlayer(SocketChannel channel, CharacterBuild build) {
+            this.channel = channel;
+            this.build = build;
+            this.costs = BattleClient.abilityCosts(build);
+        }
+
+        /**
+         * Handles every complete line received.
+         *
+         * @return false if the server closed the connection or the player is done
+         */
+        boolean read(PriorityQueue<SocketPlayer> thinking, long deadline) throws IOException {
+            if (channel.read(readBuffer) == -1) {
+                if (inMatch) {
+                    errors.incrementAndGet();
+                }
+                return false;
+            }
+            readBuffer.flip();
+            int lineStart = 0;
+            for (int i = 0; i < readBuffer.limit(); i++) {
+                if (readBuffer.get(i) != '\n') {
+                    continue;
+                }
+                String line = new String(readBuffer.array(), lineStart, i - lineStart, StandardCharsets.US_ASCII);
+                lineStart = i + 1;
+                long now = System.nanoTime();
+                if (line.startsWith(BattleProtocol.START + " ")) {
+                    inMatch = true;
+                    side = BattleProtocol.parseInts(line, 2)[1];
+                } else if (line.startsWith(BattleProtocol.ROUND + " ")) {
+                    recordLatency(now);
+                    int[] round = BattleProtocol.parseInts(line, 6);
+                    int move = computer.chooseMove(costs, round[2], round[3]);
+                    int item = move == costs.length + 3 ? computer.chooseItem(round[3]) : 0;
+                    pendingMove = BattleProtocol.move(move, item);
+                    if (thinkNanos > 0) {
+                        moveDueAt = now + thinkNanos;
+                        thinking.add(this);
+                    } else {
+                        sendMove(now);
+                    }
+                } else if (line.startsWith(BattleProtocol.END + " ")) {
+                    recordLatency(now);
+                    inMatch = false;
+                    lastEndAt = now;
+                    // Both players of a match are ours, so count each match once
+                    if (side == 1) {
+                        matchesFinished.incrementAndGet();
+                    }
+                    if (now < deadline) {
+                        send(BattleProtocol.join(build));
+                    }
+                } else if (line.startsWith(BattleProtocol.ERR) || line.equals(BattleProtocol.ILLEGAL)) {
+                    errors.incrementAndGet();
+                }
+            }
+            readBuffer.position(lineStart);
+            readBuffer.compact();
+            return true;
+        }
+
+        private void recordLatency(long now) {
+            if (submittedAt != 0) {
+                latency.record(now - submittedAt);
+                submittedAt = 0;
+            }
+        }
+
+        void sendMove(long now) {
+            if (pendingMove == null || !channel.isOpen()) {
+                return;
+            }
+            submittedAt = now;
+            send(pendingMove);
+            pendingMove = null;
+        }
+
+        void send(String line) {
+            outbox.add(ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.US_ASCII)));
+            try {
+                flush();
+            } catch (IOException e) {
+                errors.incrementAndGet();
+                close();
+            }
+        }
+
+        void flush() throws IOException {
+            ByteBuffer buffer;
+            while ((buffer = outbox.peek()) != null) {
+                channel.write(buffer);
+                if (buffer.hasRemaining()) {
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+                outbox.poll();
+            }
+            key.interestOps(SelectionKey.OP_READ);
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Done with it either way
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String target = args.length > 0 ? args[0] : "pooled";
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int thinkMillis = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+
+        System.out.println("[Load test: " + target + ", " + players + " players, " + seconds + " s, "
+                + thinkMillis + " ms thinking per move]");
+        LoadGenerator generator = new LoadGenerator(players, seconds, thinkMillis);
+        BattleServer server = null;
+        if (target.equals("local")) {
+            generator.runLocal();
+        } else {
+            int port;
+            if (target.equals("pooled") || target.equals("threads")) {
+                server = new BattleServer(0, Runtime.getRuntime().availableProcessors(),
+                        target.equals("threads") ? BattleServer.Mode.THREAD_PER_MATCH : BattleServer.Mode.POOLED);
+                server.start();
+                port = server.getPort();
+            } else {
+                port = Integer.parseInt(target);
+            }
+            generator.runSockets(port);
+        }
+
+        System.out.printf("[Matches: %d (%.0f per second), errors: %d]%n",
+                generator.getMatchesFinished(), generator.getMatchesPerSecond(), generator.getErrors());
+        System.out.println("[Move latency: " + generator.getLatency().summary() + "]");
+        if (server != null) {
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package controller;
+
+import model.BattleSimulator;
+import model.BuildId;
+import model.CharacterBuild;
+import model.LoadoutOptimizer;
+import model.MatchupCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * The LoadoutSearch class runs a LoadoutOptimizer against a meta of random
+ * builds and prints the best build of every generation, then the best builds
+ * found and whether the best one's lead over the second is more than luck
+ * (see LoadoutOptimizer.compare()).
+ *
+ * Given a cache file, matchup results are loaded from it before the search
+ * and saved back afterwards, so later runs skip the matchups already played.
+ * Given a margin, such as 0.03, each matchup stops once its win rate is known
+ * to within it, and battlesPerOpponent is only the most battles to play.
+ *
+ * Run it with "java controller.LoadoutSearch [population] [generations] [metaSize] [battlesPerOpponent] [threads] [seed] [cacheFile] [margin]",
+ * giving "-" as the cache file to use a margin without one.
+ */
+public class LoadoutSearch {
+    // Battles per opponent when the best two builds are compared
+    private static final int COMPARE_BATTLES = 400;
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        int population = args.length > 0 ? Integer.parseInt(args[0]) : 40;
+        int generations = args.length > 1 ? Integer.parseInt(args[1]) : 25;
+        int metaSize = args.length > 2 ? Integer.parseInt(args[2]) : 12;
+        int battles = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : 1;
+        File cacheFile = args.length > 6 && !args[6].equals("-") ? new File(args[6]) : null;
+        double margin = args.length > 7 ? Double.parseDouble(args[7]) : 0;
+
+        MatchupCache cache = new MatchupCache(MatchupCache.DEFAULT_CAPACITY, margin);
+        if (cacheFile != null && cacheFile.exists()) {
+            try {
+                System.out.println("[Loaded " + cache.load(cacheFile) + " matchups from " + cacheFile + "]");
+            } catch (IOException e) {
+                System.out.println("[Could not load matchup cache: " + e.getMessage() + "]");
+            }
+        }
+
+        Random random = new Random(seed);
+        List<CharacterBuild> meta = new ArrayList<>();
+        System.out.println("[Meta]");
+        for (int i = 0; i < metaSize; i++) {
+            CharacterBuild build = BattleSimulator.randomBuild(random, "Meta" + (i + 1));
+            meta.add(build);
+            System.out.println("  " + BuildId.describe(BuildId.of(build)));
+        }
+
+        LoadoutOptimizer optimizer = new LoadoutOptimizer(meta, battles, threads, seed, cache);
+        long start = System.nanoTime();
+        int[] ranked = optimizer.evolve(population, generations, (generation, bestId, bestFitness) ->
+                System.out.printf("[Generation %3d] best %.3f  %s  (%d builds simulated)%n",
+                        generation, bestFitness, BuildId.describe(bestId), optimizer.getCachedBuildCount()));
+        double seconds = (System.nanoTime() - start) / 1e9;
+        optimizer.shutdown();
+
+        System.out.println("\n[Best builds]");
+        Set<Integer> shown = new LinkedHashSet<>();
+        for (int id : ranked) {
+            if (shown.size() < 5 && shown.add(id)) {
+                System.out.printf("  %.3f  %s%n", optimizer.fitness(id), BuildId.describe(id));
+            }
+        }
+        if (shown.size() > 1) {
+            Iterator<Integer> top = shown.iterator();
+            double[] gap = optimizer.compare(top.next(), top.next(), COMPARE_BATTLES, seed);
+            System.out.printf("[Best minus second: %+.3f, standard error %.3f over %d battles per opponent]%n",
+                    gap[0], gap[1], COMPARE_BATTLES);
+        }
+        System.out.printf("[%d different builds, %d battles in %.1f s]%n",
+                optimizer.getCachedBuildCount(), optimizer.getBattlesSimulated(), seconds);
+        System.out.printf("[Matchup cache: %d hits, %d simulated, %d waits, %d held]%n",
+                cache.getHits(), cache.getMisses(), cache.getWaits(), cache.size());
+        if (cacheFile != null) {
+            cache.save(cacheFile);
+            System.out.println("[Saved " + cache.size() + " matchups to " + cacheFile + "]");
+        }
+    }
+}
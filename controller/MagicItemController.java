@@ -8,7 +8,7 @@ import java.awt.event.*;
 import java.util.List;
 
 public class MagicItemController {
-    public MagicItemController(GameModel model, model.Character character, boolean isPlayer1) {
+    public MagicItemController(GameModel model, model.Character character, boolean isPlayer1, MainMenuView mainView) {
         MagicItemManagementView view = new MagicItemManagementView();
 
         view.setViewInventoryListener(new ActionListener() {
@@ -28,8 +28,7 @@ public class MagicItemController {
         view.setEquipItemListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                view.dispose();
-                new EquipItemView(character.getInventory());  // You need to implement this view
+                new EquipItemController(model, character, isPlayer1, view);
             }
         });
 
@@ -47,7 +46,7 @@ public class MagicItemController {
                     "Confirm Unequip", JOptionPane.YES_NO_OPTION);
 
                 if (res == JOptionPane.YES_OPTION) {
-                    character.unequipItem();
+                    model.equipItem(isPlayer1 ? 1 : 2, character, null);
                 }
             }
         });
@@ -55,12 +54,10 @@ public class MagicItemController {
         view.setBackListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                view.dispose();
-                new ActualEditCharacterView();
-                new ActualEditCharacterController(model, character, isPlayer1);
+                new ActualEditCharacterController(model, character, isPlayer1, mainView);
             }
         });
 
-        view.setVisible(true);
+        mainView.getRouter().showTemporary(view);
     }
 }
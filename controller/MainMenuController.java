@@ -8,39 +8,45 @@ public class MainMenuController {
     
     private MainMenuView view;
     private GameModel model;
+    private AppController app;
     private int currentPlayer;   
 
-    public MainMenuController (MainMenuView view, GameModel model, int currentPlayer) {
+    public MainMenuController (MainMenuView view, GameModel model, AppController app) {
         this.view = view;
         this.model = model; 
-        this.currentPlayer = currentPlayer;
-        this.view.setCurrentPlayer(currentPlayer);
+        this.app = app;
         setUpListeners();
     }  
 
+    /**
+     * Shows the main menu for a player.
+     */
+    public void open(int player) {
+        this.currentPlayer = player;
+        view.setCurrentPlayer(player);
+        view.showScreen();
+    }
+
     private void setUpListeners() {
         view.addViewListener(new ViewListener());
         view.addCreateListener(new CreateListener());
         view.addEditListener(new EditListener());
         view.addDeleteListener(new DeleteListener());
         view.addChooseListener(new ChooseListener());
+        view.addLeaderboardListener(e -> app.getLeaderboardController().open());
+        view.addReplaysListener(e -> app.getReplayController().open());
     }
  
     class ViewListener implements ActionListener {
         @Override
         public void actionPerformed(ActionEvent e) {
-            view.setVisible(false);
-            CharacterListView listView = new CharacterListView();
-            new CharacterListController(listView,model,view, currentPlayer == 1);
-            listView.setVisible(true);
+            app.getCharacterListController().open(currentPlayer == 1);
         }
     }
 
     class CreateListener implements ActionListener {
         @Override
         public void actionPerformed(ActionEvent e) {
-            view.setVisible(false);
-            new CharacterNameInputView();
             new CharacterCreationController(model, view, currentPlayer == 1);
 
         }
@@ -49,30 +55,21 @@ public class MainMenuController {
     class EditListener implements ActionListener {
         @Override
         public void actionPerformed(ActionEvent e) {
-            view.setVisible(false);
-            EditCharacterView editView = new EditCharacterView();
-            new EditCharacterController(editView, model, view, currentPlayer == 1);
-            editView.setVisible(true);
+            app.getEditCharacterController().open(currentPlayer == 1);
         }
     }
 
     class DeleteListener implements ActionListener {
         @Override
         public void actionPerformed(ActionEvent e) {
-            view.setVisible(false);
-            DeleteCharacterView deleteView = new DeleteCharacterView();
-            new CharacterDeletionController(deleteView, model, view, currentPlayer == 1);
-            deleteView.setVisible(true);
+            app.getCharacterDeletionController().open(currentPlayer == 1);
         }
     }
 
     class ChooseListener implements ActionListener {
         @Override
         public void actionPerformed(ActionEvent e) {
-            view.setVisible(false);
-            CharacterSelectionView chooseView = new CharacterSelectionView();
-            new CharacterSelectionController(chooseView, model, view, currentPlayer == 1);
-            chooseView.setVisible(true);
+            app.getCharacterSelectionController().open(currentPlayer == 1);
         }
     }
 }
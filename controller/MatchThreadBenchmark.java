@@ -0,0 +1,128 @@
+package controller;
+
+import model.Ability;
+import model.AllAbilities;
+import model.Battle;
+import model.Character;
+import model.ComputerPlayer;
+import model.Race;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * The MatchThreadBenchmark class compares two ways of hosting many BlockingMatch
+ * games at once, with simulated players that take a while to pick each move:
+ *
+ *   - one thread per match (virtual if available, see MatchThreads)
+ *   - a fixed pool of platform threads, where a waiting match holds a pool thread
+ *
+ * It prints, for each, how long all matches took, matches per second, the most
+ * matches in progress at once and the most live threads.
+ *
+ * Run it with "java controller.MatchThreadBenchmark [matches] [thinkMillis] [poolSize]".
+ */
+public class MatchThreadBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int matches = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int thinkMillis = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int poolSize = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        System.out.println("[" + matches + " matches, " + thinkMillis + " ms per move, "
+                + (MatchThreads.isVirtualAvailable() ? "virtual" : "no virtual") + " threads on Java "
+                + System.getProperty("java.version") + "]");
+
+        ThreadFactory perMatch = MatchThreads.newFactory("bench-match-");
+        run("Thread per match", matches, thinkMillis, match -> perMatch.newThread(match).start());
+
+        ExecutorService pool = Executors.newFixedThreadPool(poolSize, MatchThreads.newPlatformFactory("bench-pool-"));
+        run("Pool of " + poolSize + " platform threads", matches, thinkMillis, pool::execute);
+        pool.shutdown();
+    }
+
+    private static void run(String label, int matches, int thinkMillis, Consumer<Runnable> host)
+            throws InterruptedException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        ScheduledExecutorService players = Executors.newScheduledThreadPool(4, MatchThreads.newPlatformFactory("bench-player-"));
+        CountDownLatch done = new CountDownLatch(matches);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger mostRunning = new AtomicInteger();
+        Random random = new Random(1);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < matches; i++) {
+            Battle battle = new Battle(randomCharacter(random, "A"), randomCharacter(random, "B"), random.nextLong());
+            BotPlayer[] bots = new BotPlayer[2];
+            BlockingMatch match = new BlockingMatch(i + 1, battle, line -> bots[0].receive(line),
+                    line -> bots[1].receive(line), (m, winner) -> {
+                        running.decrementAndGet();
+                        done.countDown();
+                    });
+            bots[0] = new BotPlayer(match, 0, battle.getPlayer1(), players, thinkMillis, random.nextLong());
+            bots[1] = new BotPlayer(match, 1, battle.getPlayer2(), players, thinkMillis, random.nextLong());
+            host.accept(() -> {
+                mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                match.run();
+            });
+        }
+        done.await();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        players.shutdown();
+
+        System.out.printf("%-32s %8.2f s %10.0f matches/s   most in progress: %6d   peak threads: %6d%n",
+                label, seconds, matches / seconds, mostRunning.get(), threads.getPeakThreadCount());
+    }
+
+    private static Character randomCharacter(Random random, String name) {
+        Race[] races = Race.show_race_array();
+        String characterClass = AllAbilities.CLASS_NAMES[random.nextInt(AllAbilities.CLASS_NAMES.length)];
+        List<Ability> abilities = AllAbilities.getAbilitiesByClass(characterClass);
+        return new Character(name, races[random.nextInt(races.length)], characterClass,
+                abilities.subList(0, 3).toArray(new Ability[0]));
+    }
+
+    /**
+     * A simulated player that answers each ROUND with a random legal move after
+     * a thinking delay, without holding a thread while it thinks.
+     */
+    private static class BotPlayer {
+        private final BlockingMatch match;
+        private final int side;
+        private final int[] costs;
+        private final ScheduledExecutorService scheduler;
+        private final int thinkMillis;
+        private final ComputerPlayer player;
+
+        BotPlayer(BlockingMatch match, int side, Character character, ScheduledExecutorService scheduler,
+                int thinkMillis, long seed) {
+            this.match = match;
+            this.side = side;
+            this.costs = ComputerPlayer.abilityCosts(character);
+            this.scheduler = scheduler;
+            this.thinkMillis = thinkMillis;
+            this.player = new ComputerPlayer(new Random(seed));
+        }
+
+        void receive(String line) {
+            if (!line.startsWith(BattleProtocol.ROUND + " ")) {
+                return;
+            }
+            int[] round = BattleProtocol.parseInts(line, 6);
+            int move = player.chooseMove(costs, round[2], round[3]);
+            int item = move == costs.length + 3 ? player.chooseItem(round[3]) : 0;
+            scheduler.schedule(() -> match.submitMove(side, move, item), thinkMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+}
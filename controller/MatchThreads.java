@@ -0,0 +1,77 @@
+package controller;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The MatchThreads class makes the threads that run one match each.
+ *
+ * On a Java version with virtual threads (Java 21 and later), every match gets
+ * a virtual thread, so tens of thousands of matches that mostly wait for moves
+ * cost little memory. Older versions, such as the Java 17 this game is built
+ * with, get platform daemon threads with a small stack instead. Virtual
+ * threads are looked up by reflection so the code still compiles on Java 17.
+ */
+public class MatchThreads {
+    // Stack size for platform match threads; a match needs very little
+    private static final long PLATFORM_STACK_SIZE = 256 * 1024;
+
+    private static final boolean VIRTUAL_AVAILABLE = findVirtualFactory("probe-") != null;
+
+    private MatchThreads() {
+    }
+
+    /**
+     * Checks if this Java version can make virtual threads.
+     */
+    public static boolean isVirtualAvailable() {
+        return VIRTUAL_AVAILABLE;
+    }
+
+    /**
+     * Returns a factory for match threads: virtual threads when available,
+     * platform threads otherwise.
+     *
+     * @param prefix the start of every thread name; a number is added to it
+     * @return the thread factory
+     */
+    public static ThreadFactory newFactory(String prefix) {
+        ThreadFactory virtual = findVirtualFactory(prefix);
+        return virtual != null ? virtual : newPlatformFactory(prefix);
+    }
+
+    /**
+     * Returns a factory for platform daemon threads with a small stack.
+     *
+     * @param prefix the start of every thread name; a number is added to it
+     * @return the thread factory
+     */
+    public static ThreadFactory newPlatformFactory(String prefix) {
+        AtomicLong number = new AtomicLong();
+        return r -> {
+            Thread thread = new Thread(null, r, prefix + number.incrementAndGet(), PLATFORM_STACK_SIZE);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Calls Thread.ofVirtual().name(prefix, 1).factory() if this Java version
+     * has it.
+     *
+     * @return the virtual thread factory, or null if virtual threads are not available
+     */
+    private static ThreadFactory findVirtualFactory(String prefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Method name = builderClass.getMethod("name", String.class, long.class);
+            builder = name.invoke(builder, prefix, 1L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Not available (before Java 21, or a preview that is not enabled)
+            return null;
+        }
+    }
+}
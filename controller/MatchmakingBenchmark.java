@@ -0,0 +1,129 @@
+package controller;
+
+import model.Ability;
+import model.AllAbilities;
+import model.Character;
+import model.MatchmakingQueue;
+import model.Race;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * The MatchmakingBenchmark class measures how fast many threads can join a
+ * MatchmakingQueue at once. For 1, 2, 4, ... up to the given number of
+ * threads, every thread joins its share of characters with random ratings as
+ * fast as it can, first straight into the queue and then with one lock
+ * around join(), as a queue guarded by a single lock would behave.
+ *
+ * It prints joins per second and pairs made for each run, and how many
+ * characters were left waiting next to a compatible opponent. That should
+ * always be 0: two characters that could be paired never both stay waiting.
+ *
+ * Run it with "java controller.MatchmakingBenchmark [threads] [joins] [ratings] [seed]".
+ */
+public class MatchmakingBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int joins = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+        int ratings = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 1;
+
+        System.out.println("[" + joins + " joins with ratings 0 to " + (ratings - 1) + ", up to "
+                + maxThreads + " threads]");
+        Character[] characters = new Character[joins];
+        int[] rated = new int[joins];
+        Random random = new Random(seed);
+        for (int i = 0; i < joins; i++) {
+            characters[i] = randomCharacter(random, "Player" + i);
+            rated[i] = random.nextInt(ratings);
+        }
+
+        // Once unmeasured, so the JIT has compiled join() before the first run
+        run(null, 1, characters, rated, false);
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            run("Lock-free queue", threads, characters, rated, false);
+            run("One lock around join()", threads, characters, rated, true);
+        }
+    }
+
+    private static void run(String label, int threads, Character[] characters, int[] rated, boolean locked)
+            throws InterruptedException {
+        MatchmakingQueue queue = new MatchmakingQueue();
+        MatchmakingQueue.Ticket[] tickets = new MatchmakingQueue.Ticket[characters.length];
+        Object lock = new Object();
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++) {
+            int first = (int) ((long) characters.length * t / threads);
+            int last = (int) ((long) characters.length * (t + 1) / threads);
+            Thread thread = new Thread(() -> {
+                ready.countDown();
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = first; i < last; i++) {
+                    if (locked) {
+                        synchronized (lock) {
+                            tickets[i] = queue.join(i, characters[i], rated[i]);
+                        }
+                    } else {
+                        tickets[i] = queue.join(i, characters[i], rated[i]);
+                    }
+                }
+                done.countDown();
+            }, "bench-join-" + t);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        ready.await();
+        long start = System.nanoTime();
+        go.countDown();
+        done.await();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        if (label != null) {
+            System.out.printf("%-24s %2d threads %12.0f joins/s %8d pairs %6d waiting, %d next to an opponent%n",
+                    label, threads, characters.length / seconds, queue.getPairCount(), queue.getWaitingCount(),
+                    missedPairs(tickets));
+        }
+    }
+
+    /**
+     * Counts waiting tickets whose nearest waiting neighbour by rating is close
+     * enough to have been paired with them straight away.
+     */
+    private static int missedPairs(MatchmakingQueue.Ticket[] tickets) {
+        List<Integer> waiting = new ArrayList<>();
+        for (MatchmakingQueue.Ticket ticket : tickets) {
+            if (ticket.isWaiting()) {
+                waiting.add(ticket.getRating());
+            }
+        }
+        int[] sorted = waiting.stream().mapToInt(Integer::intValue).toArray();
+        Arrays.sort(sorted);
+        int missed = 0;
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i] - sorted[i - 1] <= MatchmakingQueue.DEFAULT_INITIAL_WINDOW) {
+                missed++;
+            }
+        }
+        return missed;
+    }
+
+    private static Character randomCharacter(Random random, String name) {
+        Race[] races = Race.show_race_array();
+        String characterClass = AllAbilities.CLASS_NAMES[random.nextInt(AllAbilities.CLASS_NAMES.length)];
+        List<Ability> abilities = AllAbilities.getAbilitiesByClass(characterClass);
+        return new Character(name, races[random.nextInt(races.length)], characterClass,
+                abilities.subList(0, 3).toArray(new Ability[0]));
+    }
+}
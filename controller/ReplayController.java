@@ -0,0 +1,191 @@
+package controller;
+
+import model.BattleReplay;
+import model.GameModel;
+import model.ReplayArchive;
+import model.ReplayTimeline;
+import view.MainMenuView;
+import view.ReplayView;
+
+import javax.swing.*;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * The ReplayController class lets a player pick one of the battles saved in
+ * the model's ReplayArchive and watch it round by round.
+ *
+ * Only the newest battles are listed, from the archive's index, and only the
+ * chosen one is read and replayed; both happen on a background thread. A
+ * replay that no longer matches the battle rules is reported, not shown.
+ */
+public class ReplayController {
+    // How many of the newest replays are offered
+    public static final int LISTED_REPLAYS = 200;
+
+    private ReplayView view;
+    private GameModel model;
+    private ReplayTimeline timeline;
+    private String name1;
+    private String name2;
+
+    public ReplayController(ReplayView view, GameModel model, MainMenuView mainMenuView) {
+        this.view = view;
+        this.model = model;
+
+        view.addRoundChangeListener(e -> {
+            if (timeline != null) {
+                showRound(view.getSelectedRound());
+            }
+        });
+        view.addPreviousListener(e -> view.setSelectedRound(Math.max(0, view.getSelectedRound() - 1)));
+        view.addNextListener(e -> view.setSelectedRound(Math.min(timeline.getRoundCount(), view.getSelectedRound() + 1)));
+        view.addCloseListener(e -> mainMenuView.showScreen());
+        view.addExportLogListener(e -> BattleController.exportLog(view));
+    }
+
+    /**
+     * Reads the saved replays and asks which one to watch.
+     */
+    public void open() {
+        ReplayArchive archive = model.getReplayArchive();
+        if (archive == null) {
+            JOptionPane.showMessageDialog(view, "Battle replays are not being saved.");
+            return;
+        }
+
+        new SwingWorker<List<ReplayArchive.Entry>, Void>() {
+            @Override
+            protected List<ReplayArchive.Entry> doInBackground() throws IOException {
+                return archive.newest(LISTED_REPLAYS);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    choose(archive, get());
+                } catch (InterruptedException | ExecutionException ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    JOptionPane.showMessageDialog(view,
+                            "Could not read the battle replays: " + cause.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    private void choose(ReplayArchive archive, List<ReplayArchive.Entry> entries) {
+        if (entries.isEmpty()) {
+            JOptionPane.showMessageDialog(view, "No battles have been saved yet.");
+            return;
+        }
+
+        String[] labels = new String[entries.size()];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = describe(entries.get(i));
+        }
+
+        Object choice = JOptionPane.showInputDialog(view,
+                "Choose a battle to watch:", "Battle Replays",
+                JOptionPane.PLAIN_MESSAGE, null, labels, labels[0]);
+        for (int i = 0; i < labels.length; i++) {
+            if (labels[i].equals(choice)) {
+                load(archive, entries.get(i));
+                return;
+            }
+        }
+    }
+
+    private static String describe(ReplayArchive.Entry entry) {
+        String first = entry.getBuild(1).getName();
+        String second = entry.getBuild(2).getName();
+        int winner = entry.getWinner();
+        String result = winner == 1 ? first + " won" : winner == 2 ? second + " won" : "draw";
+        return "#" + entry.getNumber() + "  " + first + " vs " + second
+                + "  (" + entry.getRoundCount() + " rounds, " + result + ")";
+    }
+
+    /**
+     * Reads the chosen replay and replays it into a timeline off the event thread.
+     */
+    private void load(ReplayArchive archive, ReplayArchive.Entry entry) {
+        new SwingWorker<ReplayTimeline, Void>() {
+            @Override
+            protected ReplayTimeline doInBackground() throws IOException {
+                return new ReplayTimeline(archive.load(entry));
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    show(get());
+                } catch (InterruptedException | ExecutionException ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    reportUnreadable(cause);
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Shows a replay from its first round.
+     *
+     * @param replay the battle to watch
+     */
+    public void show(BattleReplay replay) {
+        ReplayTimeline built;
+        try {
+            built = new ReplayTimeline(replay);
+        } catch (IllegalStateException ex) {
+            reportUnreadable(ex);
+            return;
+        }
+        show(built);
+    }
+
+    private void reportUnreadable(Throwable cause) {
+        if (cause instanceof IllegalStateException) {
+            // Thrown by BattleReplayer when the recorded HP and EP differ from the rules' results
+            JOptionPane.showMessageDialog(view, "This battle cannot be replayed with the current rules. "
+                    + cause.getMessage() + ".");
+        } else {
+            JOptionPane.showMessageDialog(view, "Could not read the battle replay: " + cause.getMessage());
+        }
+    }
+
+    private void show(ReplayTimeline timeline) {
+        this.timeline = timeline;
+        BattleReplay replay = timeline.getReplay();
+        name1 = replay.getBuild(1).getName();
+        name2 = replay.getBuild(2).getName();
+
+        view.setRoundCount(timeline.getRoundCount());
+        view.setSelectedRound(0);
+        showRound(0);
+        view.showScreen();
+    }
+
+    private void showRound(int round) {
+        ReplayTimeline.Frame frame = timeline.seek(round);
+
+        view.setRoundLabel("Round " + round + " / " + timeline.getRoundCount());
+        view.setPlayer1Stats(name1 + " - HP: " + frame.getHP(1) + " | EP: " + frame.getEP(1)
+                + " | Items: " + frame.getItemsLeft(1));
+        view.setPlayer2Stats(name2 + " - HP: " + frame.getHP(2) + " | EP: " + frame.getEP(2)
+                + " | Items: " + frame.getItemsLeft(2));
+
+        StringBuilder log = new StringBuilder();
+        if (round == 0) {
+            log.append("Battle start. Seed: ").append(timeline.getReplay().getSeed()).append("\n");
+        } else {
+            log.append("Round ").append(round).append(":\n");
+            log.append(name1).append(" chose ").append(frame.getMove(1)).append(" while ")
+               .append(name2).append(" chose ").append(frame.getMove(2)).append(".\n");
+        }
+        if (round == timeline.getRoundCount()) {
+            int winner = timeline.getReplay().getWinner();
+            log.append("\n").append(winner == 1 ? name1 + " wins!" : winner == 2 ? name2 + " wins!" : "It's a draw!");
+        }
+        view.setBattleLog(log.toString());
+    }
+}
@@ -0,0 +1,254 @@
+package controller;
+
+import model.Ability;
+import model.AllAbilities;
+import model.Character;
+import model.GameModel;
+import model.Leaderboard;
+import model.MappedRoster;
+import model.Race;
+import model.RosterBackend;
+import model.RosterListener;
+import model.RosterStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The RosterStress class checks that GameModel's per-roster locking loses no
+ * changes. Many threads create, rename, delete and give wins to characters of
+ * a few shared players, using a small pool of names in random case so that
+ * most creates and renames collide, while the roster store compacts now and
+ * then.
+ *
+ * Afterwards it checks that:
+ *   - no roster has two characters with the same name, ignoring case
+ *   - every roster holds exactly its successful creates minus its deletes
+ *   - every successful recordWin() is counted on its character
+ *   - the search index and leaderboard, built lazily by a roster listener
+ *     while changes are running, list exactly the characters in the rosters
+ *   - the store, reopened from disk, holds the same rosters
+ *
+ * The store is a RosterStore, or with "mapped" as the last argument a
+ * MappedRoster, whose compactions then reclaim deleted characters' records.
+ *
+ * Run it with "java controller.RosterStress [threads] [seconds] [players] [journal|mapped]".
+ * It prints OK, or each failed check, and exits with status 1 on failure.
+ */
+public class RosterStress {
+    private static final int NAME_POOL = 40;
+    // How long the workers may take to stop before the run counts as deadlocked
+    private static final long STOP_MILLIS = 30000;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int threadCount = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int playerCount = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        boolean mapped = args.length > 3 && args[3].equals("mapped");
+
+        File directory = Files.createTempDirectory("roster-stress").toFile();
+        RosterBackend store = openStore(directory, mapped);
+        GameModel model = new GameModel(store);
+        int[] players = new int[playerCount];
+        for (int p = 0; p < playerCount; p++) {
+            players[p] = p < 2 ? p + 1 : model.registerPlayer();
+        }
+
+        // Builds the leaderboard from inside a listener call, which deadlocks
+        // if listeners run while a roster is locked
+        model.addRosterListener(new RosterListener() {
+            @Override
+            public void characterAdded(int player, Character character) {
+                model.getLeaderboard();
+            }
+
+            @Override
+            public void characterRemoved(int player, Character character) {
+            }
+
+            @Override
+            public void characterChanged(int player, Character character, String oldName) {
+            }
+        });
+
+        Map<Integer, AtomicInteger> expectedSizes = new ConcurrentHashMap<>();
+        for (int player : players) {
+            expectedSizes.put(player, new AtomicInteger());
+        }
+        Map<Character, AtomicInteger> expectedWins = new ConcurrentHashMap<>();
+        AtomicLong operations = new AtomicLong();
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        Thread[] workers = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            Random random = new Random(t);
+            workers[t] = new Thread(() -> {
+                while (System.nanoTime() < end) {
+                    int player = players[random.nextInt(players.length)];
+                    List<Character> roster = model.getCharactersForPlayer(player);
+                    Character target = roster.isEmpty() ? null : roster.get(random.nextInt(roster.size()));
+                    int op = random.nextInt(10);
+                    if (op < 4 || target == null) {
+                        Character character = randomCharacter(random, randomName(random));
+                        if (model.createCharacterForPlayer(player, character)) {
+                            expectedSizes.get(player).incrementAndGet();
+                            expectedWins.computeIfAbsent(character, c -> new AtomicInteger());
+                        }
+                    } else if (op < 6) {
+                        model.renameCharacter(player, target, randomName(random));
+                    } else if (op < 8) {
+                        if (model.deleteCharacter(player, target)) {
+                            expectedSizes.get(player).decrementAndGet();
+                        }
+                    } else {
+                        model.recordWin(player, target);
+                        expectedWins.computeIfAbsent(target, c -> new AtomicInteger()).incrementAndGet();
+                    }
+                    operations.incrementAndGet();
+                }
+            }, "roster-stress-" + t);
+            workers[t].start();
+        }
+
+        Thread compactor = new Thread(() -> {
+            while (System.nanoTime() < end) {
+                try {
+                    store.compact();
+                    Thread.sleep(200);
+                } catch (IOException e) {
+                    System.out.println("[Could not compact roster: " + e.getMessage() + "]");
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "roster-stress-compactor");
+        compactor.start();
+
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(seconds) + STOP_MILLIS;
+        for (Thread worker : workers) {
+            worker.join(Math.max(1, deadline - System.currentTimeMillis()));
+        }
+        compactor.join(Math.max(1, deadline - System.currentTimeMillis()));
+        for (Thread worker : workers) {
+            if (worker.isAlive()) {
+                System.out.println("[FAILED: " + worker.getName() + " did not finish, the model is deadlocked]");
+                System.exit(1);
+            }
+        }
+
+        List<String> failures = new ArrayList<>();
+        int characters = 0;
+        for (int player : players) {
+            List<Character> roster = model.getCharactersForPlayer(player);
+            characters += roster.size();
+            Set<String> names = new HashSet<>();
+            for (Character character : roster) {
+                if (!names.add(GameModel.normalizeName(character.getName()))) {
+                    failures.add("player " + player + " has two characters named " + character.getName());
+                }
+                if (model.getCharacterByName(character.getName(), player) != character) {
+                    failures.add("player " + player + "'s name index misses " + character.getName());
+                }
+            }
+            for (int i = 0; i < NAME_POOL; i++) {
+                Character named = model.getCharacterByName("Hero" + i, player);
+                if (named != null && !roster.contains(named)) {
+                    failures.add("player " + player + "'s name index has " + named.getName() + ", who is not in the roster");
+                }
+            }
+            if (roster.size() != expectedSizes.get(player).get()) {
+                failures.add("player " + player + " has " + roster.size() + " characters, expected "
+                        + expectedSizes.get(player).get());
+            }
+
+            Set<Character> indexed = Collections.newSetFromMap(new IdentityHashMap<>());
+            indexed.addAll(model.getSearchIndex().search(player, "", null, null, Integer.MAX_VALUE));
+            Set<Character> listed = Collections.newSetFromMap(new IdentityHashMap<>());
+            listed.addAll(roster);
+            if (!indexed.equals(listed)) {
+                failures.add("player " + player + "'s search index has " + indexed.size()
+                        + " characters, the roster " + listed.size());
+            }
+        }
+        for (Map.Entry<Character, AtomicInteger> entry : expectedWins.entrySet()) {
+            if (entry.getKey().getWinCount() != entry.getValue().get()) {
+                failures.add(entry.getKey().getName() + " has " + entry.getKey().getWinCount()
+                        + " wins, expected " + entry.getValue().get());
+            }
+        }
+        Leaderboard.Snapshot ranking = model.getLeaderboard().snapshot();
+        if (ranking.size() != characters) {
+            failures.add("the leaderboard ranks " + ranking.size() + " characters, the rosters hold " + characters);
+        }
+
+        model.close();
+        GameModel reopened = new GameModel(openStore(directory, mapped));
+        for (int player : players) {
+            Map<String, Integer> saved = new HashMap<>();
+            for (Character character : reopened.getCharactersForPlayer(player)) {
+                saved.put(character.getName(), character.getWinCount());
+            }
+            Map<String, Integer> live = new HashMap<>();
+            for (Character character : model.getCharactersForPlayer(player)) {
+                live.put(character.getName(), character.getWinCount());
+            }
+            if (!saved.equals(live)) {
+                failures.add("player " + player + "'s reopened roster differs from the live one");
+            }
+        }
+        reopened.close();
+        deleteAll(directory);
+
+        System.out.println("[" + operations.get() + " changes by " + threadCount + " threads to "
+                + playerCount + " players in " + seconds + " s, " + characters + " characters left]");
+        if (failures.isEmpty()) {
+            System.out.println("[OK]");
+        } else {
+            for (String failure : failures) {
+                System.out.println("[FAILED: " + failure + "]");
+            }
+            System.exit(1);
+        }
+    }
+
+    private static RosterBackend openStore(File directory, boolean mapped) throws IOException {
+        return mapped ? new MappedRoster(new File(directory, "roster.mapped")) : new RosterStore(directory);
+    }
+
+    private static String randomName(Random random) {
+        String name = "Hero" + random.nextInt(NAME_POOL);
+        return random.nextBoolean() ? name : name.toUpperCase();
+    }
+
+    private static Character randomCharacter(Random random, String name) {
+        Race[] races = Race.show_race_array();
+        String characterClass = AllAbilities.CLASS_NAMES[random.nextInt(AllAbilities.CLASS_NAMES.length)];
+        List<Ability> abilities = AllAbilities.getAbilitiesByClass(characterClass);
+        return new Character(name, races[random.nextInt(races.length)], characterClass,
+                abilities.subList(0, 3).toArray(new Ability[0]));
+    }
+
+    private static void deleteAll(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+}
@@ -0,0 +1,62 @@
+package controller;
+
+import model.Character;
+import model.RosterListener;
+import view.CharacterListPanel;
+
+import javax.swing.*;
+import java.util.function.IntSupplier;
+
+/**
+ * The RosterViewUpdater class keeps a character list on screen in step with
+ * the GameModel. Each roster change updates just the affected row, and only
+ * when it is for the player whose characters the list shows. While the list
+ * shows search results, the search is run again instead, so the results stay
+ * correct.
+ */
+public class RosterViewUpdater implements RosterListener {
+    private CharacterListPanel list;
+    private IntSupplier shownPlayer;
+
+    /**
+     * @param list the list to update
+     * @param shownPlayer returns the player whose characters the list shows
+     */
+    public RosterViewUpdater(CharacterListPanel list, IntSupplier shownPlayer) {
+        this.list = list;
+        this.shownPlayer = shownPlayer;
+    }
+
+    @Override
+    public void characterAdded(int player, Character character) {
+        onEventThread(player, () -> list.addCharacter(character));
+    }
+
+    @Override
+    public void characterRemoved(int player, Character character) {
+        onEventThread(player, () -> list.removeCharacter(character));
+    }
+
+    @Override
+    public void characterChanged(int player, Character character, String oldName) {
+        onEventThread(player, () -> list.updateCharacter(character));
+    }
+
+    private void onEventThread(int player, Runnable update) {
+        Runnable guarded = () -> {
+            if (player != shownPlayer.getAsInt()) {
+                return;
+            }
+            if (list.isFiltering()) {
+                list.fireSearch();
+            } else {
+                update.run();
+            }
+        };
+        if (SwingUtilities.isEventDispatchThread()) {
+            guarded.run();
+        } else {
+            SwingUtilities.invokeLater(guarded);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package controller;
+
+import model.BattleSimulator;
+import model.BuildId;
+import model.CharacterBuild;
+import model.WinRateEstimate;
+
+import java.util.Random;
+
+/**
+ * The SequentialStoppingBenchmark class measures how many battles sequential
+ * stopping saves over playing every matchup for a fixed count. For random
+ * matchups it plays:
+ *
+ *   - the full budget with BattleSimulator.winRate(), from its own seed,
+ *     taken as the true rate
+ *   - estimateWinRate() until the 95% interval is within the margin
+ *   - testWinRate() until an SPRT of 45% against 55% decides
+ *
+ * It prints each matchup, then the battles each method played, split into
+ * lopsided matchups (true rate below 30% or above 70%), even ones (40% to
+ * 60%) and the rest, and how often the stopped estimates were wrong.
+ *
+ * Run it with "java controller.SequentialStoppingBenchmark [matchups] [margin] [maxBattles] [seed]".
+ */
+public class SequentialStoppingBenchmark {
+    private static final double LOWER = 0.45;
+    private static final double UPPER = 0.55;
+    private static final double ERROR_RATE = 0.05;
+
+    private static final int LOPSIDED = 0;
+    private static final int MIDDLE = 1;
+    private static final int EVEN = 2;
+    private static final String[] GROUP_NAMES = {"Lopsided", "Middle", "Even"};
+
+    public static void main(String[] args) {
+        int matchups = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        double margin = args.length > 1 ? Double.parseDouble(args[1]) : 0.03;
+        int maxBattles = args.length > 2 ? Integer.parseInt(args[2]) : 5000;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 1;
+        int policy = BattleSimulator.POLICY_RANDOM;
+
+        int[] counts = new int[GROUP_NAMES.length];
+        long[] estimateBattles = new long[GROUP_NAMES.length];
+        long[] testBattles = new long[GROUP_NAMES.length];
+        int[] fewestBattles = new int[GROUP_NAMES.length];
+        int[] mostBattles = new int[GROUP_NAMES.length];
+        int outsideMargin = 0;
+        int wrongDecisions = 0;
+        int undecided = 0;
+
+        System.out.printf("[%d matchups, margin %.3f, at most %d battles each]%n", matchups, margin, maxBattles);
+        Random random = new Random(seed);
+        for (int m = 0; m < matchups; m++) {
+            CharacterBuild first = BattleSimulator.randomBuild(random, "A");
+            CharacterBuild second = BattleSimulator.randomBuild(random, "B");
+            if (BuildId.of(first) == BuildId.of(second)) {
+                m--;
+                continue;
+            }
+            long battleSeed = random.nextLong();
+            // Battles of their own, so the estimates' errors are not shared with the truth
+            long truthSeed = random.nextLong();
+
+            double truth = BattleSimulator.winRate(first, second, policy, maxBattles, truthSeed);
+            WinRateEstimate estimate = BattleSimulator.estimateWinRate(first, second, policy,
+                    margin, maxBattles, battleSeed);
+            WinRateEstimate test = BattleSimulator.testWinRate(first, second, policy,
+                    LOWER, UPPER, ERROR_RATE, ERROR_RATE, maxBattles, battleSeed);
+
+            int group = truth < 0.3 || truth > 0.7 ? LOPSIDED : truth >= 0.4 && truth <= 0.6 ? EVEN : MIDDLE;
+            if (counts[group] == 0 || estimate.getBattles() < fewestBattles[group]) {
+                fewestBattles[group] = estimate.getBattles();
+            }
+            mostBattles[group] = Math.max(mostBattles[group], estimate.getBattles());
+            counts[group]++;
+            estimateBattles[group] += estimate.getBattles();
+            testBattles[group] += test.getBattles();
+
+            if (Math.abs(estimate.getWinRate() - truth) > margin) {
+                outsideMargin++;
+            }
+            int decision = test.getDecision();
+            if (decision == WinRateEstimate.UNDECIDED) {
+                undecided++;
+            } else if (decision == WinRateEstimate.AT_LEAST_UPPER ? truth <= LOWER : truth >= UPPER) {
+                wrongDecisions++;
+            }
+
+            System.out.printf("  %.3f  estimate %.3f in %4d  SPRT %-9s in %4d  %s vs %s%n",
+                    truth, estimate.getWinRate(), estimate.getBattles(), describe(decision), test.getBattles(),
+                    BuildId.describe(BuildId.of(first)), BuildId.describe(BuildId.of(second)));
+        }
+
+        System.out.println("\n[Battles per matchup; fixed count " + maxBattles + "]");
+        long estimateTotal = 0;
+        long testTotal = 0;
+        for (int g = 0; g < GROUP_NAMES.length; g++) {
+            estimateTotal += estimateBattles[g];
+            testTotal += testBattles[g];
+            if (counts[g] > 0) {
+                System.out.printf("  %-8s %3d matchups  estimate %6.0f avg (%d to %d)  SPRT %6.0f avg%n",
+                        GROUP_NAMES[g], counts[g], (double) estimateBattles[g] / counts[g],
+                        fewestBattles[g], mostBattles[g], (double) testBattles[g] / counts[g]);
+            }
+        }
+        System.out.printf("[Estimate: %.1f%% of the fixed battles, %d of %d off by more than the margin]%n",
+                100.0 * estimateTotal / ((long) matchups * maxBattles), outsideMargin, matchups);
+        System.out.printf("[SPRT: %.1f%% of the fixed battles, %d wrong decisions, %d undecided]%n",
+                100.0 * testTotal / ((long) matchups * maxBattles), wrongDecisions, undecided);
+    }
+
+    private static String describe(int decision) {
+        switch (decision) {
+            case WinRateEstimate.AT_MOST_LOWER:
+                return "<= " + LOWER;
+            case WinRateEstimate.AT_LEAST_UPPER:
+                return ">= " + UPPER;
+            default:
+                return "undecided";
+        }
+    }
+}
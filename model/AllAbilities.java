@@ -14,6 +14,12 @@ import java.util.ArrayList;
  */
 
 public class AllAbilities {
+        /**
+         * The names of all character classes, in the order used by saved replays
+         * and rosters.
+         */
+        public static final String[] CLASS_NAMES = {"Mage", "Rogue", "Warrior"};
+
         /**
          * This method gets the list of abilities based on the character class chosen by
          * the player.
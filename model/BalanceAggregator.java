@@ -0,0 +1,267 @@
+package model;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The BalanceAggregator class summarises a stream of BattleResults for
+ * balance work, without keeping the results themselves.
+ *
+ * Every side of every battle counts towards one group for its race, one for
+ * its class, one for its equipped item ("None" if nothing), one for each of
+ * its abilities and one for its whole build. A group keeps its battle count,
+ * wins and draws, a QuantileSketch of battle lengths and, for abilities, uses,
+ * damage and EP spent.
+ *
+ * Groups are kept in flat arrays indexed by id (race, class, item + 1,
+ * ability, or BuildId), so adding a result does no hashing or name lookups.
+ * The number of groups is fixed by the game's catalogue, so memory stays the
+ * same however many results go in.
+ *
+ * Not thread-safe: feed it from one thread (see controller.BalanceReport).
+ */
+public class BalanceAggregator {
+    public static final String RACE = "race";
+    public static final String CLASS = "class";
+    public static final String ITEM = "item";
+    public static final String ABILITY = "ability";
+    public static final String BUILD = "build";
+
+    // Looked up once, since AllAbilities builds a new list on every call
+    private static final List<Ability> ALL_ABILITIES = AllAbilities.getAllAbilities();
+    private static final List<MagicItem> ALL_ITEMS = AllMagicItems.getAllItems();
+    private static final Race[] RACES = Race.show_race_array();
+
+    /**
+     * The Group class is the running summary of one race, class, item or ability.
+     */
+    public static class Group {
+        private long battles;
+        private long wins;
+        private long draws;
+        private long uses;
+        private long damage;
+        private long epSpent;
+        private final QuantileSketch rounds = new QuantileSketch();
+
+        void record(int outcome, int roundCount) {
+            battles++;
+            if (outcome > 0) {
+                wins++;
+            } else if (outcome == 0) {
+                draws++;
+            }
+            rounds.record(roundCount);
+        }
+
+        public long getBattles() {
+            return battles;
+        }
+
+        public long getWins() {
+            return wins;
+        }
+
+        public long getDraws() {
+            return draws;
+        }
+
+        /**
+         * Returns the share of battles won, with a draw counting as half a win.
+         */
+        public double getWinRate() {
+            return battles == 0 ? 0 : (wins + 0.5 * draws) / battles;
+        }
+
+        /**
+         * Returns the 95% Wilson score interval around the win rate.
+         *
+         * @return {low, high}
+         */
+        public double[] getWinRateInterval() {
+            return WinRateEstimate.interval(getWinRate(), battles);
+        }
+
+        public QuantileSketch getRounds() {
+            return rounds;
+        }
+
+        public long getUses() {
+            return uses;
+        }
+
+        public long getDamage() {
+            return damage;
+        }
+
+        public long getEpSpent() {
+            return epSpent;
+        }
+
+        /**
+         * Returns the HP taken from opponents per EP spent, or 0 for free abilities.
+         */
+        public double getDamagePerEp() {
+            return epSpent == 0 ? 0 : (double) damage / epSpent;
+        }
+    }
+
+    // In the order they are written to the CSV
+    private static final String[] DIMENSIONS = {ABILITY, BUILD, CLASS, ITEM, RACE};
+
+    private final Group[] races = new Group[RACES.length];
+    private final Group[] classes = new Group[AllAbilities.CLASS_NAMES.length];
+    // Indexed by item id + 1, so "None" is 0
+    private final Group[] items = new Group[ALL_ITEMS.size() + 1];
+    private final Group[] abilities = new Group[ALL_ABILITIES.size()];
+    private final Group[] builds = new Group[BuildId.LIMIT];
+    private long resultCount;
+
+    /**
+     * Adds one battle to the summaries.
+     *
+     * @param result the battle's result
+     */
+    public void accept(BattleResult result) {
+        resultCount++;
+        for (int side = 1; side <= 2; side++) {
+            CharacterBuild build = result.getBuild(side);
+            // 1 for a win, 0 for a draw, -1 for a loss
+            int outcome = result.getWinner() == 0 ? 0 : result.getWinner() == side ? 1 : -1;
+            int rounds = result.getRounds();
+
+            group(races, build.getRaceId()).record(outcome, rounds);
+            group(classes, build.getClassId()).record(outcome, rounds);
+            group(items, build.getEquippedItemId() + 1).record(outcome, rounds);
+            group(builds, BuildId.of(build)).record(outcome, rounds);
+
+            int[] abilityIds = build.getAbilityIds();
+            for (int slot = 0; slot < abilityIds.length; slot++) {
+                Group ability = group(abilities, abilityIds[slot]);
+                ability.record(outcome, rounds);
+                ability.uses += result.getAbilityUses(side, slot);
+                ability.damage += result.getAbilityDamage(side, slot);
+                ability.epSpent += result.getAbilityEp(side, slot);
+            }
+        }
+    }
+
+    private static Group group(Group[] table, int index) {
+        Group group = table[index];
+        if (group == null) {
+            group = new Group();
+            table[index] = group;
+        }
+        return group;
+    }
+
+    private Group[] table(String dimension) {
+        switch (dimension) {
+            case RACE:
+                return races;
+            case CLASS:
+                return classes;
+            case ITEM:
+                return items;
+            case ABILITY:
+                return abilities;
+            case BUILD:
+                return builds;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns the name of the group at an index of a dimension's table.
+     */
+    private static String name(String dimension, int index) {
+        switch (dimension) {
+            case RACE:
+                return RACES[index].getName();
+            case CLASS:
+                return AllAbilities.CLASS_NAMES[index];
+            case ITEM:
+                return index == 0 ? "None" : ALL_ITEMS.get(index - 1).getName();
+            case ABILITY:
+                return ALL_ABILITIES.get(index).getName();
+            default:
+                return BuildId.describe(index);
+        }
+    }
+
+    /**
+     * Returns the number of results added so far.
+     */
+    public long getResultCount() {
+        return resultCount;
+    }
+
+    /**
+     * Returns the summary of one group.
+     *
+     * @param dimension RACE, CLASS, ITEM, ABILITY or BUILD
+     * @param value the race, class, item or ability name, or the build as
+     *              written by BuildId.describe()
+     * @return the group, or null if no battle has counted towards it
+     */
+    public Group getGroup(String dimension, String value) {
+        Group[] table = table(dimension);
+        if (table == null) {
+            return null;
+        }
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] != null && name(dimension, i).equals(value)) {
+                return table[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the summary of one build.
+     *
+     * @param buildId the build's BuildId
+     * @return the group, or null if no battle has counted towards it
+     */
+    public Group getBuildGroup(int buildId) {
+        return builds[buildId];
+    }
+
+    /**
+     * Writes every group as CSV, one row per group and one column per
+     * statistic, with a header row.
+     *
+     * @param out where to write
+     * @throws IOException if writing fails
+     */
+    public void writeCsv(Appendable out) throws IOException {
+        out.append("dimension,value,battles,wins,draws,losses,win_rate,win_rate_low,win_rate_high,"
+                + "rounds_mean,rounds_p50,rounds_p90,rounds_p99,rounds_max,uses,damage,ep_spent,damage_per_ep\n");
+        for (String dimension : DIMENSIONS) {
+            Group[] table = table(dimension);
+            for (int i = 0; i < table.length; i++) {
+                Group g = table[i];
+                if (g == null) {
+                    continue;
+                }
+                double[] interval = g.getWinRateInterval();
+                QuantileSketch rounds = g.getRounds();
+                out.append(String.format(Locale.ROOT, "%s,%s,%d,%d,%d,%d,%.4f,%.4f,%.4f,%.2f,%d,%d,%d,%d,%d,%d,%d,%.4f\n",
+                        dimension, quote(name(dimension, i)), g.battles, g.wins, g.draws,
+                        g.battles - g.wins - g.draws, g.getWinRate(), interval[0], interval[1],
+                        rounds.getMean(), rounds.getValueAtQuantile(0.5), rounds.getValueAtQuantile(0.9),
+                        rounds.getValueAtQuantile(0.99), rounds.getMax(), g.uses, g.damage, g.epSpent,
+                        g.getDamagePerEp()));
+            }
+        }
+    }
+
+    private static String quote(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
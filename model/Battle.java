@@ -1,4 +1,5 @@
 package model;
+import java.io.IOException;
 import java.util.*;
 
 /**
@@ -40,6 +41,17 @@ public class Battle {
     private Character player1;
     private Character player2;
     private Scanner scanner;
+    private long seed;
+    private Random random;
+    private boolean verbose = true;
+    private int round = 0;
+    private BattleReplay replay;
+    private ReplayArchive replayArchive;
+    private RandomStreams streams;
+    private boolean resultRecorded = false;
+    // Set between beginRound() and the end of that round
+    private boolean roundInProgress = false;
+    private boolean endedAsDraw = false;
 
     /**
      * Constructs a new Battle object with the specified characters.
@@ -52,6 +64,7 @@ public class Battle {
         this.player1 = p1;
         this.player2 = p2;
         this.scanner = sc;
+        setSeed(new Random().nextLong());
     }
 
     /**
@@ -64,44 +77,242 @@ public class Battle {
     public Battle(Character player1, Character player2) {
         this.player1 = player1;
         this.player2 = player2;
-    
+        setSeed(new Random().nextLong());
+    }
+
+    /**
+     * Constructs a headless Battle driven by beginRound() and resolveRound()
+     * instead of a Scanner. Nothing is printed, and every evade roll comes from
+     * the given seed, so the same seed and moves always give the same fight.
+     *
+     * @param player1 the first character participating in the battle
+     * @param player2 the second character participating in the battle
+     * @param seed the seed for the battle's random rolls
+     */
+    public Battle(Character player1, Character player2, long seed) {
+        this.player1 = player1;
+        this.player2 = player2;
+        this.verbose = false;
+        setSeed(seed);
+    }
+
+    /**
+     * Constructs a headless Battle like Battle(Character, Character, long),
+     * except that each character's evade rolls come from its own stream of
+     * the given RandomStreams instead of one shared source, and every stream
+     * starts again at each round. Such a battle cannot be replayed from
+     * getSeed(), so it should not be recorded.
+     *
+     * @param player1 the first character participating in the battle
+     * @param player2 the second character participating in the battle
+     * @param streams the random streams for the battle's rolls
+     */
+    public Battle(Character player1, Character player2, RandomStreams streams) {
+        this.player1 = player1;
+        this.player2 = player2;
+        this.verbose = false;
+        this.seed = streams.getSeed();
+        this.streams = streams;
+        player1.setRandom(streams.stream(RandomStreams.EVADE, 1));
+        player2.setRandom(streams.stream(RandomStreams.EVADE, 2));
+        player1.setMessagesEnabled(false);
+        player2.setMessagesEnabled(false);
+    }
+
+    /**
+     * Reseeds the battle's random source and shares it with both characters.
+     *
+     * @param seed the seed for the battle's random rolls
+     */
+    private void setSeed(long seed) {
+        this.seed = seed;
+        this.random = new Random(seed);
+        player1.setRandom(random);
+        player2.setRandom(random);
+        player1.setMessagesEnabled(verbose);
+        player2.setMessagesEnabled(verbose);
+    }
+
+    /**
+     * Returns the seed of the battle's random source.
+     *
+     * @return the battle seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Starts recording every round of this battle into the given replay.
+     * Must be called before the first round.
+     *
+     * @param replay the replay to record into
+     */
+    public void setReplay(BattleReplay replay) {
+        this.replay = replay;
+    }
+
+    /**
+     * Returns the replay this battle records into.
+     *
+     * @return the replay, or null if the battle is not recorded
+     */
+    public BattleReplay getReplay() {
+        return replay;
+    }
+
+    /**
+     * Saves the battle's replay to an archive when the battle ends. Console
+     * battles always record a replay; headless battles need setReplay() too.
+     *
+     * @param replayArchive the archive to save to, or null to keep the replay in memory only
+     */
+    public void setReplayArchive(ReplayArchive replayArchive) {
+        this.replayArchive = replayArchive;
+    }
+
+    public Character getPlayer1() {
+        return player1;
+    }
+
+    public Character getPlayer2() {
+        return player2;
+    }
+
+    /**
+     * Returns the current round number, or 0 before the first round.
+     *
+     * @return the current round
+     */
+    public int getRound() {
+        return round;
+    }
+
+    /**
+     * Starts the next round: resets the round flags, regenerates EP and applies
+     * passive item effects. On the first round both characters are reset to full
+     * HP and EP. Moves should be checked with isLegalMove() after this call,
+     * since the EP regenerated here counts toward them.
+     */
+    public void beginRound() {
+        if (round == 0) {
+            player1.resetStats();
+            player2.resetStats();
+            if (replay != null) {
+                replay.start(seed, player1, player2);
+            }
+        }
+        round++;
+        roundInProgress = true;
+        if (streams != null) {
+            streams.startRound(round);
+        }
+        log("\n======================== ROUND " + round + " ========================");
+
+        player1.setDefending(false);
+        player2.setDefending(false);
+        player1.setEvading(false);
+        player2.setEvading(false);
+        player1.setShielded(false);
+        player2.setShielded(false);
+
+        player1.recharge();
+        player2.recharge();
+
+        player1.applyPassiveEffects();
+        player2.applyPassiveEffects();
+    }
+
+    /**
+     * Resolves the current round with both players' moves already chosen.
+     * Moves use the same numbering as the console menu: abilities first, then
+     * Defend, Recharge and Use Magic Item.
+     *
+     * @param moveP1 Player 1's move
+     * @param itemP1 Player 1's single-use item (1-based) when the move is Use Magic Item, 0 for none
+     * @param moveP2 Player 2's move
+     * @param itemP2 Player 2's single-use item (1-based) when the move is Use Magic Item, 0 for none
+     * @return true if the battle is over after this round
+     * @throws IllegalArgumentException if either move is not legal this round
+     */
+    public boolean resolveRound(int moveP1, int itemP1, int moveP2, int itemP2) {
+        if (!isLegalMove(player1, moveP1, itemP1) || !isLegalMove(player2, moveP2, itemP2)) {
+            throw new IllegalArgumentException("Illegal move in round " + round + ": " + moveP1 + ", " + moveP2);
+        }
+        if (moveP1 == player1.getAbilities().length + 3 && itemP1 > 0) {
+            useSingleUseItem(player1, itemP1);
+        }
+        if (moveP2 == player2.getAbilities().length + 3 && itemP2 > 0) {
+            useSingleUseItem(player2, itemP2);
+        }
+        finishRound(moveP1, itemP1, moveP2, itemP2);
+        if (isBattleOver()) {
+            recordResult();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a move can be played by the character right now.
+     *
+     * @param player the character making the move
+     * @param move the move number, as used by the console menu
+     * @param item the chosen single-use item (1-based) for Use Magic Item, otherwise ignored
+     * @return true if the move is legal
+     */
+    public boolean isLegalMove(Character player, int move, int item) {
+        Ability[] abilities = player.getAbilities();
+        if (move >= 1 && move <= abilities.length) {
+            return player.getEP() >= abilities[move - 1].getEpCost();
+        }
+        if (move == abilities.length + 1) {
+            return player.getEP() >= 5;
+        }
+        if (move == abilities.length + 2) {
+            return true;
+        }
+        if (move == abilities.length + 3) {
+            // Item 0 means the player opened their items but cancelled
+            int itemCount = getSingleUseItems(player).size();
+            return itemCount > 0 && item >= 0 && item <= itemCount;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the winner once the battle is over.
+     *
+     * @return the winning character, or null for a draw or an ongoing battle
+     */
+    public Character getWinner() {
+        if (player1.getHP() <= 0 && player2.getHP() > 0) {
+            return player2;
+        }
+        if (player2.getHP() <= 0 && player1.getHP() > 0) {
+            return player1;
+        }
+        return null;
     }
 
     /**
      * Starts the round-by-round battle between the two characters.
      * Handles move selection, ability execution, EP regeneration, and displays round summaries.
+     * Every round is recorded into the battle's replay (see getReplay()).
      */
     public void startBattle() {
-        int round = 1;
         boolean battleOngoing = true;
-        int epSpentP1;
-        int epSpentP2;
-        String moveNameP1;
-        String moveNameP2;
         int moveP1, moveP2;
+        int itemP1, itemP2;
 
-        // Characters begin each fight at max HP and EP
-        player1.resetStats();
-        player2.resetStats();
+        // Console battles are always recorded so they can be saved afterwards
+        if (replay == null && round == 0) {
+            replay = new BattleReplay();
+        }
 
         while (battleOngoing) {
-            System.out.println("\n======================== ROUND " + round + " ========================");
-
-            // At the start of each round
-            player1.setDefending(false);
-            player2.setDefending(false);
-            player1.setEvading(false);
-            player2.setEvading(false);
-            player1.setShielded(false);
-            player2.setShielded(false);
-
             // 1. At the start of each round, both characters regenerate +5 EP (capped at max)
-            player1.recharge();
-            player2.recharge();
-            
-            // Apply passive effects from equipped magic items
-            player1.applyPassiveEffects();
-            player2.applyPassiveEffects();
+            beginRound();
 
             // 2. Display the round number, current HP, and current EP of both characters
             displayStats(round);
@@ -113,6 +324,7 @@ public class Battle {
              * 5. Repeat steps 3-4 for Player 2
              */
             while (true) {
+                itemP1 = 0;
                 moveP1 = displayAndPromptMove(player1);
                 Ability[] abilities1 = player1.getAbilities();
                 ArrayList<MagicItem> singleUseItems1 = getSingleUseItems(player1);
@@ -132,11 +344,12 @@ public class Battle {
                 }
                 if (moveP1 == abilities1.length + 3) {
                     // Handle magic item selection immediately
-                    handleMagicItemSelection(player1);
+                    itemP1 = handleMagicItemSelection(player1);
                 }
                 break;
             }
             while (true) {
+                itemP2 = 0;
                 moveP2 = displayAndPromptMove(player2);
                 Ability[] abilities2 = player2.getAbilities();
                 ArrayList<MagicItem> singleUseItems2 = getSingleUseItems(player2);
@@ -156,58 +369,76 @@ public class Battle {
                 }
                 if (moveP2 == abilities2.length + 3) {
                     // Handle magic item selection immediately
-                    handleMagicItemSelection(player2);
+                    itemP2 = handleMagicItemSelection(player2);
                 }
                 break;
             }
 
-            boolean p1Defending = (moveP1 == player1.getAbilities().length + 1);
-            boolean p2Defending = (moveP2 == player2.getAbilities().length + 1);
+            // 6-7. Execute moves and display the round's outcome
+            finishRound(moveP1, itemP1, moveP2, itemP2);
 
-            player1.setDefending(p1Defending);
-            player2.setDefending(p2Defending);
+            // 8. Check for battle end
+            if (isBattleOver()) {
+                declareWinner();
+                recordResult();
+                battleOngoing = false;
+            }
+        }
+    }
 
-            // Store EP before moves
-            int player1EPBefore = player1.getEP();
-            int player2EPBefore = player2.getEP();
+    /**
+     * Executes both moves of the current round after any magic items were used,
+     * displays the outcome and records the round into the replay.
+     */
+    private void finishRound(int moveP1, int itemP1, int moveP2, int itemP2) {
+        boolean p1Defending = (moveP1 == player1.getAbilities().length + 1);
+        boolean p2Defending = (moveP2 == player2.getAbilities().length + 1);
 
-            setFlagsBeforeAttacks(player1, moveP1);
-            setFlagsBeforeAttacks(player2, moveP2);
-            // 6. Execute moves
-            executeMove(player1, player2, moveP1);
-            executeMove(player2, player1, moveP2);
+        player1.setDefending(p1Defending);
+        player2.setDefending(p2Defending);
 
-            // Compute EP spent
-            epSpentP1 = player1EPBefore - player1.getEP();
-            epSpentP2 = player2EPBefore - player2.getEP();
+        // Store EP before moves
+        int player1EPBefore = player1.getEP();
+        int player2EPBefore = player2.getEP();
 
-            // 7. Display the round’s outcome (e.g., damage dealt, health changes, EP spent)
+        setFlagsBeforeAttacks(player1, moveP1);
+        setFlagsBeforeAttacks(player2, moveP2);
+        executeMove(player1, player2, moveP1);
+        executeMove(player2, player1, moveP2);
 
-            if (moveP1 == player1.getAbilities().length + 1) {
-                moveNameP1 = "Defend";
-            } else if (moveP1 == player1.getAbilities().length + 2) {
-                moveNameP1 = "Recharge";
-            } else {
-                moveNameP1 = player1.getAbilities()[moveP1 - 1].getName();
-            }
+        // Compute EP spent
+        int epSpentP1 = player1EPBefore - player1.getEP();
+        int epSpentP2 = player2EPBefore - player2.getEP();
 
-            if (moveP2 == player2.getAbilities().length + 1) {
-                moveNameP2 = "Defend";
-            } else if (moveP2 == player2.getAbilities().length + 2) {
-                moveNameP2 = "Recharge";
-            } else {
-                moveNameP2 = player2.getAbilities()[moveP2 - 1].getName();
-            }
+        if (verbose) {
+            displayRoundOutcome(player1, player2, getMoveName(player1, moveP1), getMoveName(player2, moveP2),
+                    epSpentP1, epSpentP2, round);
+        }
 
-            displayRoundOutcome(player1, player2, moveNameP1, moveNameP2, epSpentP1, epSpentP2, round);
+        if (replay != null) {
+            replay.recordRound(moveP1, itemP1, moveP2, itemP2,
+                    player1.getHP(), player1.getEP(), player2.getHP(), player2.getEP());
+        }
+        roundInProgress = false;
+    }
 
-            // 8. Check for battle end
-            if (isBattleOver()) {
-                declareWinner();
-                battleOngoing = false;
-            } else {
-                round++;
-            }
+    /**
+     * Returns the display name of a move.
+     *
+     * @param player the character making the move
+     * @param move the move number, as used by the console menu
+     * @return the ability name, or Defend, Recharge or Use Magic Item
+     */
+    public static String getMoveName(Character player, int move) {
+        int numAbilities = player.getAbilities().length;
+        if (move == numAbilities + 1) {
+            return "Defend";
+        } else if (move == numAbilities + 2) {
+            return "Recharge";
+        } else if (move == numAbilities + 3) {
+            return "Use Magic Item";
+        } else {
+            return player.getAbilities()[move - 1].getName();
         }
     }
 
@@ -259,11 +490,11 @@ public class Battle {
     /**
      * Handles magic item selection immediately when a player chooses to use one.
      */
-    private void handleMagicItemSelection(Character player) {
+    private int handleMagicItemSelection(Character player) {
         ArrayList<MagicItem> singleUseItems = getSingleUseItems(player);
         
         if (singleUseItems.isEmpty()) {
-            return;
+            return 0;
         }
         
         System.out.println("\n[" + player.getName() + "'s Single-Use Magic Items]");
@@ -278,15 +509,12 @@ public class Battle {
         while (true) {
             if (itemChoice == 0) {
                 System.out.println("[" + player.getName() + " decided not to use any magic item.]");
-                return;
+                return 0;
             }
 
             if (itemChoice >= 1 && itemChoice <= singleUseItems.size()) {
-                MagicItem selectedItem = singleUseItems.get(itemChoice - 1);
-                player.useMagicItem(selectedItem);
-                player.getInventory().remove(selectedItem);
-                System.out.println("[" + player.getName() + " used " + selectedItem.getName() + "!]");
-                break;
+                useSingleUseItem(player, itemChoice);
+                return itemChoice;
             } else {
                 System.out.println("[Invalid choice! Please try again.]");
                 System.out.print("\nChoose an item to use (0 to cancel): ");
@@ -295,6 +523,26 @@ public class Battle {
         }
     }
 
+    /**
+     * Uses one of the character's single-use items, chosen by its 1-based
+     * position among the single-use items in the inventory.
+     */
+    private void useSingleUseItem(Character player, int itemChoice) {
+        MagicItem selectedItem = getSingleUseItems(player).get(itemChoice - 1);
+        player.useMagicItem(selectedItem);
+        player.getStats().recordItemConsumed();
+        log("[" + player.getName() + " used " + selectedItem.getName() + "!]");
+    }
+
+    /**
+     * Prints a battle message unless the battle is headless.
+     */
+    private void log(String message) {
+        if (verbose) {
+            System.out.println(message);
+        }
+    }
+
     private void displayRoundOutcome(Character player1, Character player2, String moveP1, String moveP2, int epSpentP1,
             int epSpentP2, int round) {
         System.out.println("\n-------------------- Round " + round + " Results --------------------\n");
@@ -314,8 +562,21 @@ public class Battle {
      * @return true if the battle has ended; false otherwise
      */
 
-    private boolean isBattleOver() {
-        return player1.getHP() <= 0 || player2.getHP() <= 0;
+    public boolean isBattleOver() {
+        return endedAsDraw || player1.getHP() <= 0 || player2.getHP() <= 0;
+    }
+
+    /**
+     * Ends an unfinished battle as a draw, e.g. when neither side can win
+     * anymore. It is recorded and its replay saved like any other finished
+     * battle; a round begun but not resolved does not count.
+     */
+    public void endAsDraw() {
+        if (isBattleOver()) {
+            return;
+        }
+        endedAsDraw = true;
+        recordResult();
     }
 
     /**
@@ -365,39 +626,41 @@ public class Battle {
                 Ability userInput = abilities[moveChoice - 1];
                 if (currentPlayer.getEP() >= userInput.getEpCost()) {
                     currentPlayer.useEP(userInput.getEpCost());
+                    currentPlayer.getStats().recordEpSpent(userInput.getEpCost());
+                    currentPlayer.getStats().recordAbilityUse(userInput);
 
                     if (userInput.isSpecialAbility()) {
                         switch (userInput.getName()) {
                             case "Arcane Shield":
                             case "Ironclad Defense":
-                                System.out.println(
+                                log(
                                         currentPlayer.getName() + " is shielded and will take no damage this round!");
                                 break;
                             case "Smoke Bomb":
-                                System.out.println(currentPlayer.getName()
+                                log(currentPlayer.getName()
                                         + " used Smoke Bomb and may evade attacks this round! (50% chance)");
                                 break;
                             case "Sneak Attack":
-                                target.takeDamage(userInput.getDamage());
-                                System.out.println(currentPlayer.getName() + " used Sneak Attack, can evade and deal "
+                                dealDamage(currentPlayer, target, userInput.getDamage());
+                                log(currentPlayer.getName() + " used Sneak Attack, can evade and deal "
                                         + userInput.getDamage() + " damage!");
                                 break;
                         }
                     } else {
                         // ALL THE NORMAL ABILITIES
                         if (userInput.getDamage() > 0) {
-                            target.takeDamage(userInput.getDamage());
-                            System.out.println(currentPlayer.getName() + " used " + userInput.getName() +
+                            dealDamage(currentPlayer, target, userInput.getDamage());
+                            log(currentPlayer.getName() + " used " + userInput.getName() +
                                     " and can give " + userInput.getDamage() + " damage to " + target.getName() + "!");
                         }
                         if (userInput.getRestore() > 0) {
                             if ("HP".equals(userInput.getRestoreType())) {
                                 currentPlayer.heal(userInput.getRestore());
-                                System.out.println(
+                                log(
                                         currentPlayer.getName() + " healed for " + userInput.getRestore() + " HP!");
                             } else {
                                 currentPlayer.restore("EP", userInput.getRestore());
-                                System.out.println(
+                                log(
                                         currentPlayer.getName() + " restored " + userInput.getRestore() + " EP!");
                             }
                         }
@@ -411,8 +674,9 @@ public class Battle {
                 // DEFEND
                 if (currentPlayer.getEP() >= 5) {
                     currentPlayer.useEP(5);
+                    currentPlayer.getStats().recordEpSpent(5);
                     currentPlayer.setDefending(true);
-                    System.out.println(currentPlayer.getName() + " is defending and will take half damage this round!");
+                    log(currentPlayer.getName() + " is defending and will take half damage this round!");
                     moveExecuted = true;
                 } else {
                     System.out.println("[Sorry, you do not have enough EP to use Defend]");
@@ -421,7 +685,7 @@ public class Battle {
             } else if (moveChoice == numAbilities + 2) {
                 // RECHARGE
                 currentPlayer.recharge();
-                System.out.println("[" + currentPlayer.getName() + " recharged and regained 5 EP!]");
+                log("[" + currentPlayer.getName() + " recharged and regained 5 EP!]");
                 moveExecuted = true;
             } else if (moveChoice == numAbilities + 3) {
                 // USE MAGIC ITEM - already handled in move selection phase
@@ -436,6 +700,40 @@ public class Battle {
     }
 
 
+    /**
+     * Applies an attack's damage to the target and records the HP actually lost
+     * in both characters' statistics.
+     */
+    private void dealDamage(Character attacker, Character target, int damage) {
+        int hpBefore = target.getHP();
+        target.takeDamage(damage);
+        int lost = hpBefore - target.getHP();
+        attacker.getStats().recordDamageDealt(lost);
+        target.getStats().recordDamageTaken(lost);
+    }
+
+    /**
+     * Records the outcome of the finished battle in both characters'
+     * statistics and saves its replay to the archive, once.
+     */
+    private void recordResult() {
+        if (resultRecorded) {
+            return;
+        }
+        resultRecorded = true;
+        Character winner = getWinner();
+        int rounds = roundInProgress ? round - 1 : round;
+        player1.getStats().recordBattle(winner == player1, winner == null, rounds);
+        player2.getStats().recordBattle(winner == player2, winner == null, rounds);
+        if (replay != null && replayArchive != null) {
+            try {
+                replayArchive.save(replay);
+            } catch (IOException e) {
+                System.out.println("[Could not save the battle replay: " + e.getMessage() + "]");
+            }
+        }
+    }
+
     /**
      * Executes the selected move for the given character and returns a log of the action.
      * 
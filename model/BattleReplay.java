@@ -0,0 +1,270 @@
+package model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The BattleReplay class records a battle so that it can be saved and replayed later.
+ * It keeps the battle seed, both characters' builds, and each round's moves together
+ * with the HP and EP of both characters after the round.
+ *
+ * Binary format (all numbers are varints unless noted):
+ *   - "FFR" and a version byte
+ *   - the seed (8 bytes)
+ *   - both builds (see CharacterBuild.writeTo())
+ *   - starting HP and EP of both characters
+ *   - the number of rounds, then for each round and each player:
+ *     (move * 2 + 1 if an item was chosen), the item number if any,
+ *     and the change in HP and EP since the previous round (zig-zag)
+ *
+ * Moves and HP/EP changes are small numbers, so most rounds take 6 to 8 bytes.
+ */
+public class BattleReplay {
+    private static final byte[] MAGIC = {'F', 'F', 'R'};
+    private static final int VERSION = 1;
+
+    // Each round is stored as: move1, item1, move2, item2, hp1, ep1, hp2, ep2
+    private static final int ROUND_SIZE = 8;
+
+    private long seed;
+    private CharacterBuild build1;
+    private CharacterBuild build2;
+    private int[] rounds = new int[ROUND_SIZE * 16];
+    private int roundCount = 0;
+
+    /**
+     * Starts the replay. Round 0 holds the characters' starting HP and EP.
+     *
+     * @param seed the battle seed
+     * @param player1 the first character, already reset to full HP and EP
+     * @param player2 the second character, already reset to full HP and EP
+     */
+    public void start(long seed, Character player1, Character player2) {
+        this.seed = seed;
+        this.build1 = CharacterBuild.of(player1);
+        this.build2 = CharacterBuild.of(player2);
+        this.roundCount = 0;
+        recordRound(0, 0, 0, 0, player1.getHP(), player1.getEP(), player2.getHP(), player2.getEP());
+    }
+
+    /**
+     * Records the moves of a round and the HP and EP of both characters after it.
+     */
+    public void recordRound(int move1, int item1, int move2, int item2, int hp1, int ep1, int hp2, int ep2) {
+        int offset = roundCount * ROUND_SIZE;
+        if (offset + ROUND_SIZE > rounds.length) {
+            rounds = Arrays.copyOf(rounds, rounds.length * 2);
+        }
+        rounds[offset] = move1;
+        rounds[offset + 1] = item1;
+        rounds[offset + 2] = move2;
+        rounds[offset + 3] = item2;
+        rounds[offset + 4] = hp1;
+        rounds[offset + 5] = ep1;
+        rounds[offset + 6] = hp2;
+        rounds[offset + 7] = ep2;
+        roundCount++;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns a player's build at the start of the battle.
+     *
+     * @param player 1 or 2
+     * @return the player's build
+     */
+    public CharacterBuild getBuild(int player) {
+        return player == 1 ? build1 : build2;
+    }
+
+    /**
+     * Returns the number of rounds played.
+     *
+     * @return the number of rounds
+     */
+    public int getRoundCount() {
+        return roundCount - 1;
+    }
+
+    /**
+     * Returns a player's move in a round (rounds start at 1).
+     */
+    public int getMove(int round, int player) {
+        return rounds[round * ROUND_SIZE + (player == 1 ? 0 : 2)];
+    }
+
+    /**
+     * Returns a player's chosen single-use item in a round, or 0 for none.
+     */
+    public int getItem(int round, int player) {
+        return rounds[round * ROUND_SIZE + (player == 1 ? 1 : 3)];
+    }
+
+    /**
+     * Returns a player's HP after a round. Round 0 is the starting HP.
+     */
+    public int getHP(int round, int player) {
+        return rounds[round * ROUND_SIZE + (player == 1 ? 4 : 6)];
+    }
+
+    /**
+     * Returns a player's EP after a round. Round 0 is the starting EP.
+     */
+    public int getEP(int round, int player) {
+        return rounds[round * ROUND_SIZE + (player == 1 ? 5 : 7)];
+    }
+
+    /**
+     * Returns the winner at the end of the replay.
+     *
+     * @return 1 or 2 for the winning player, 0 for a draw or an unfinished battle
+     */
+    public int getWinner() {
+        int last = getRoundCount();
+        boolean p1Down = getHP(last, 1) <= 0;
+        boolean p2Down = getHP(last, 2) <= 0;
+        if (p1Down && !p2Down) {
+            return 2;
+        }
+        if (p2Down && !p1Down) {
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Writes the replay in its binary format.
+     *
+     * @param out the output to write to
+     * @throws IOException if the output cannot be written
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        out.writeLong(seed);
+        build1.writeTo(out);
+        build2.writeTo(out);
+        for (int i = 4; i < ROUND_SIZE; i++) {
+            VarInt.writeUnsigned(out, rounds[i]);
+        }
+        VarInt.writeUnsigned(out, getRoundCount());
+        for (int round = 1; round < roundCount; round++) {
+            int offset = round * ROUND_SIZE;
+            int previous = offset - ROUND_SIZE;
+            writeMove(out, rounds[offset], rounds[offset + 1]);
+            writeMove(out, rounds[offset + 2], rounds[offset + 3]);
+            for (int i = 4; i < ROUND_SIZE; i++) {
+                VarInt.writeSigned(out, rounds[offset + i] - rounds[previous + i]);
+            }
+        }
+    }
+
+    private static void writeMove(DataOutput out, int move, int item) throws IOException {
+        if (item > 0) {
+            VarInt.writeUnsigned(out, ((long) move << 1) | 1);
+            VarInt.writeUnsigned(out, item);
+        } else {
+            VarInt.writeUnsigned(out, (long) move << 1);
+        }
+    }
+
+    /**
+     * Reads a replay written by writeTo().
+     *
+     * @param in the input to read from
+     * @return the replay read
+     * @throws IOException if the input is not a valid replay
+     */
+    public static BattleReplay readFrom(DataInput in) throws IOException {
+        readMagic(in);
+        BattleReplay replay = new BattleReplay();
+        replay.seed = in.readLong();
+        replay.build1 = CharacterBuild.readFrom(in);
+        replay.build2 = CharacterBuild.readFrom(in);
+
+        int[] stats = new int[4];
+        for (int i = 0; i < stats.length; i++) {
+            stats[i] = VarInt.readInt(in);
+        }
+        replay.recordRound(0, 0, 0, 0, stats[0], stats[1], stats[2], stats[3]);
+
+        int count = VarInt.readInt(in);
+        int[] moves = new int[4];
+        for (int round = 1; round <= count; round++) {
+            readMove(in, moves, 0);
+            readMove(in, moves, 2);
+            for (int i = 0; i < stats.length; i++) {
+                stats[i] += (int) VarInt.readSigned(in);
+            }
+            replay.recordRound(moves[0], moves[1], moves[2], moves[3], stats[0], stats[1], stats[2], stats[3]);
+        }
+        return replay;
+    }
+
+    /**
+     * Reads only the two builds at the start of a replay written by writeTo(),
+     * without decoding its rounds.
+     *
+     * @param in the input to read from
+     * @return both builds, player 1's first
+     * @throws IOException if the input is not a valid replay
+     */
+    static CharacterBuild[] readBuilds(DataInput in) throws IOException {
+        readMagic(in);
+        in.readLong();
+        return new CharacterBuild[] {CharacterBuild.readFrom(in), CharacterBuild.readFrom(in)};
+    }
+
+    private static void readMagic(DataInput in) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a battle replay");
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported replay version: " + version);
+        }
+    }
+
+    private static void readMove(DataInput in, int[] moves, int index) throws IOException {
+        int packed = VarInt.readInt(in);
+        moves[index] = packed >>> 1;
+        moves[index + 1] = (packed & 1) != 0 ? VarInt.readInt(in) : 0;
+    }
+
+    /**
+     * Encodes the replay into a byte array.
+     *
+     * @return the encoded replay
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try {
+            writeTo(new DataOutputStream(bytes));
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // cannot happen for a byte array
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a replay from a byte array.
+     *
+     * @param data the encoded replay
+     * @return the decoded replay
+     * @throws IOException if the data is not a valid replay
+     */
+    public static BattleReplay fromBytes(byte[] data) throws IOException {
+        return readFrom(new DataInputStream(new ByteArrayInputStream(data)));
+    }
+}
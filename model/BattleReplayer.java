@@ -0,0 +1,91 @@
+package model;
+
+/**
+ * The BattleReplayer class plays a recorded battle again through the Battle rules.
+ * Fresh characters are built from the replay's builds, the battle is reseeded with
+ * the recorded seed, and each recorded round is resolved in order. After every
+ * round the HP and EP are checked against the recording, so a replay that no
+ * longer matches the rules is reported instead of silently showing a different fight.
+ */
+public class BattleReplayer {
+    private final BattleReplay replay;
+    private final Battle battle;
+    private int round = 0;
+
+    /**
+     * Prepares a replay for playback.
+     *
+     * @param replay the replay to play
+     */
+    public BattleReplayer(BattleReplay replay) {
+        this.replay = replay;
+        Character player1 = replay.getBuild(1).toCharacter();
+        Character player2 = replay.getBuild(2).toCharacter();
+        this.battle = new Battle(player1, player2, replay.getSeed());
+    }
+
+    /**
+     * Returns the battle being replayed, whose characters hold the current state.
+     *
+     * @return the replayed battle
+     */
+    public Battle getBattle() {
+        return battle;
+    }
+
+    /**
+     * Returns the last round that was replayed, or 0 before the first round.
+     *
+     * @return the current round
+     */
+    public int getRound() {
+        return round;
+    }
+
+    /**
+     * Checks if there are rounds left to replay.
+     *
+     * @return true if another round can be replayed
+     */
+    public boolean hasNextRound() {
+        return round < replay.getRoundCount();
+    }
+
+    /**
+     * Replays the next round.
+     *
+     * @throws IllegalStateException if there are no rounds left, or the result
+     *         does not match the recording
+     */
+    public void nextRound() {
+        if (!hasNextRound()) {
+            throw new IllegalStateException("No rounds left to replay");
+        }
+        round++;
+        battle.beginRound();
+        battle.resolveRound(replay.getMove(round, 1), replay.getItem(round, 1),
+                replay.getMove(round, 2), replay.getItem(round, 2));
+        checkRound();
+    }
+
+    /**
+     * Replays every remaining round.
+     *
+     * @return the winning character, or null for a draw or an unfinished battle
+     */
+    public Character replayAll() {
+        while (hasNextRound()) {
+            nextRound();
+        }
+        return battle.isBattleOver() ? battle.getWinner() : null;
+    }
+
+    private void checkRound() {
+        Character player1 = battle.getPlayer1();
+        Character player2 = battle.getPlayer2();
+        if (player1.getHP() != replay.getHP(round, 1) || player1.getEP() != replay.getEP(round, 1)
+                || player2.getHP() != replay.getHP(round, 2) || player2.getEP() != replay.getEP(round, 2)) {
+            throw new IllegalStateException("Replay does not match the battle rules at round " + round);
+        }
+    }
+}
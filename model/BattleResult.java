@@ -0,0 +1,69 @@
+package model;
+
+/**
+ * The BattleResult class is the outcome of one simulated battle: the two
+ * builds, who won, how many rounds it took, and for each side how often each
+ * of its abilities was used and what it achieved.
+ *
+ * Sides are numbered 1 and 2, and ability slots follow the build's ability
+ * order.
+ */
+public class BattleResult {
+    private final CharacterBuild[] builds;
+    private final int winner;
+    private final int rounds;
+    private final int[][] abilityUses;
+    private final int[][] abilityDamage;
+    private final int[][] abilityEp;
+
+    /**
+     * @param first side 1's build
+     * @param second side 2's build
+     * @param winner 1 or 2, or 0 for a draw (including a battle stopped at the round limit)
+     * @param rounds the number of rounds fought
+     * @param abilityUses uses per ability slot, one row per side
+     * @param abilityDamage HP taken from the opponent per ability slot, one row per side
+     * @param abilityEp EP spent per ability slot, one row per side
+     */
+    public BattleResult(CharacterBuild first, CharacterBuild second, int winner, int rounds,
+            int[][] abilityUses, int[][] abilityDamage, int[][] abilityEp) {
+        this.builds = new CharacterBuild[] {first, second};
+        this.winner = winner;
+        this.rounds = rounds;
+        this.abilityUses = abilityUses;
+        this.abilityDamage = abilityDamage;
+        this.abilityEp = abilityEp;
+    }
+
+    /**
+     * Returns a side's build.
+     *
+     * @param side 1 or 2
+     */
+    public CharacterBuild getBuild(int side) {
+        return builds[side - 1];
+    }
+
+    /**
+     * Returns the winning side, 1 or 2, or 0 for a draw.
+     */
+    public int getWinner() {
+        return winner;
+    }
+
+    public int getRounds() {
+        return rounds;
+    }
+
+    public int getAbilityUses(int side, int slot) {
+        return abilityUses[side - 1][slot];
+    }
+
+    public int getAbilityDamage(int side, int slot) {
+        return abilityDamage[side - 1][slot];
+    }
+
+    public int getAbilityEp(int side, int slot) {
+        return abilityEp[side - 1][slot];
+    }
+}
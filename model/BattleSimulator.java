@@ -0,0 +1,341 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The BattleSimulator class plays whole battles between two builds with no
+ * one at the keyboard, using a headless Battle and ComputerPlayer moves, and
+ * reports each as a BattleResult.
+ *
+ * A simulation is fully decided by its seed: the same builds and seed always
+ * give the same result. Each call builds fresh characters, so any number of
+ * threads may simulate at once.
+ */
+public class BattleSimulator {
+    // Random play can circle for a long time; such battles count as draws
+    public static final int MAX_ROUNDS = 1000;
+
+    // How the ComputerPlayer picks moves for both sides
+    public static final int POLICY_RANDOM = 0;
+    public static final int POLICY_DAMAGE_FIRST = 1;
+    public static final int POLICY_COUNT = 2;
+
+    // Sequential estimates never stop before this many battles, however sure they look
+    public static final int MIN_SEQUENTIAL_BATTLES = 20;
+
+    /**
+     * Plays one battle with random legal moves.
+     *
+     * @param first side 1's build
+     * @param second side 2's build
+     * @param seed decides every evade roll and every move
+     * @return the result
+     */
+    public static BattleResult simulate(CharacterBuild first, CharacterBuild second, long seed) {
+        return simulate(first, second, seed, POLICY_RANDOM);
+    }
+
+    /**
+     * Plays one battle.
+     *
+     * @param first side 1's build
+     * @param second side 2's build
+     * @param seed decides every evade roll and every move
+     * @param policy POLICY_RANDOM for any legal move at random, or
+     *               POLICY_DAMAGE_FIRST for ComputerPlayer.chooseAbility(), recharging when nothing is affordable
+     * @return the result
+     */
+    public static BattleResult simulate(CharacterBuild first, CharacterBuild second, long seed, int policy) {
+        if (policy < 0 || policy >= POLICY_COUNT) {
+            throw new IllegalArgumentException("Unknown policy: " + policy);
+        }
+        Character player1 = first.toCharacter();
+        Character player2 = second.toCharacter();
+        ComputerPlayer computer = new ComputerPlayer(new Random(~seed));
+        return play(first, second, player1, player2, new Battle(player1, player2, seed), computer, computer, policy);
+    }
+
+    /**
+     * Plays one battle in which every source of luck has its own stream (see
+     * RandomStreams), so that battles against the same opponent with the same
+     * streams can be compared with common random numbers.
+     *
+     * @param first side 1's build
+     * @param second side 2's build
+     * @param streams decide every evade roll and every move
+     * @param policy one of the POLICY_ constants
+     * @return the result
+     */
+    public static BattleResult simulate(CharacterBuild first, CharacterBuild second, RandomStreams streams,
+            int policy) {
+        if (policy < 0 || policy >= POLICY_COUNT) {
+            throw new IllegalArgumentException("Unknown policy: " + policy);
+        }
+        Character player1 = first.toCharacter();
+        Character player2 = second.toCharacter();
+        return play(first, second, player1, player2, new Battle(player1, player2, streams),
+                new ComputerPlayer(streams.stream(RandomStreams.MOVES, 1)),
+                new ComputerPlayer(streams.stream(RandomStreams.MOVES, 2)), policy);
+    }
+
+    private static BattleResult play(CharacterBuild first, CharacterBuild second, Character player1,
+            Character player2, Battle battle, ComputerPlayer computer1, ComputerPlayer computer2, int policy) {
+        int[] costs1 = ComputerPlayer.abilityCosts(player1);
+        int[] costs2 = ComputerPlayer.abilityCosts(player2);
+        int[][] uses = {new int[costs1.length], new int[costs2.length]};
+        int[][] damage = {new int[costs1.length], new int[costs2.length]};
+        int[][] ep = {new int[costs1.length], new int[costs2.length]};
+
+        boolean over = false;
+        while (!over && battle.getRound() < MAX_ROUNDS) {
+            battle.beginRound();
+            int items1 = countSingleUseItems(player1);
+            int items2 = countSingleUseItems(player2);
+            int move1 = chooseMove(computer1, policy, player1, player2, costs1, items1);
+            int item1 = move1 == costs1.length + 3 ? computer1.chooseItem(items1) : 0;
+            int move2 = chooseMove(computer2, policy, player2, player1, costs2, items2);
+            int item2 = move2 == costs2.length + 3 ? computer2.chooseItem(items2) : 0;
+
+            long dealt1 = player1.getStats().getDamageDealt();
+            long dealt2 = player2.getStats().getDamageDealt();
+            over = battle.resolveRound(move1, item1, move2, item2);
+            record(move1, costs1, player1.getStats().getDamageDealt() - dealt1, uses[0], damage[0], ep[0]);
+            record(move2, costs2, player2.getStats().getDamageDealt() - dealt2, uses[1], damage[1], ep[1]);
+        }
+
+        if (!over) {
+            battle.endAsDraw();
+        }
+        Character winner = over ? battle.getWinner() : null;
+        int winningSide = winner == player1 ? 1 : winner == player2 ? 2 : 0;
+        return new BattleResult(first, second, winningSide, battle.getRound(), uses, damage, ep);
+    }
+
+    private static int chooseMove(ComputerPlayer computer, int policy, Character self, Character opponent,
+            int[] costs, int items) {
+        if (policy == POLICY_RANDOM) {
+            return computer.chooseMove(costs, self.getEP(), items);
+        }
+        return computer.chooseAbilityMove(self, opponent);
+    }
+
+    /**
+     * Plays a matchup several times from RandomStreams derived from one seed,
+     * each build on side 1 for half of the battles. Two builds given the same
+     * opponent and seed meet the same streams.
+     *
+     * @param first the build whose win rate is wanted
+     * @param second its opponent
+     * @param policy the move policy for both sides
+     * @param samples how many battles to play
+     * @param seed the seed the battle seeds are derived from
+     * @return the first build's win rate, with a draw counting as half a win
+     */
+    public static double winRate(CharacterBuild first, CharacterBuild second, int policy, int samples, long seed) {
+        double score = 0;
+        for (int k = 0; k < samples; k++) {
+            score += playSample(first, second, policy, seed, k);
+        }
+        return score / samples;
+    }
+
+    /**
+     * Plays a matchup until its win rate is known to within a margin: until
+     * the 95% confidence interval is no wider than halfWidth on each side of
+     * the estimate, or the budget runs out. Lopsided matchups vary less, so
+     * they stop much sooner than even ones. Battles are played in the same
+     * order as winRate() with the same seed, two at a time so that each build
+     * has been side 1 equally often when it stops.
+     *
+     * @param first the build whose win rate is wanted
+     * @param second its opponent
+     * @param policy the move policy for both sides
+     * @param halfWidth the margin wanted, e.g. 0.02 for plus or minus two points
+     * @param maxBattles the most battles to play
+     * @param seed the seed the battle seeds are derived from
+     * @return the estimate, with how many battles it took
+     */
+    public static WinRateEstimate estimateWinRate(CharacterBuild first, CharacterBuild second, int policy,
+            double halfWidth, int maxBattles, long seed) {
+        WinRateEstimate estimate = new WinRateEstimate();
+        for (int k = 0; k < maxBattles; k++) {
+            estimate.record(playSample(first, second, policy, seed, k));
+            if (k % 2 == 1 && k + 1 >= MIN_SEQUENTIAL_BATTLES && estimate.getHalfWidth() <= halfWidth) {
+                break;
+            }
+        }
+        return estimate;
+    }
+
+    /**
+     * Plays a matchup until a sequential probability ratio test decides
+     * whether the first build's win rate is at most lower or at least upper,
+     * or the budget runs out. A matchup far from both finishes in a few dozen
+     * battles; one between them takes longest. Battles are played in the
+     * same order as winRate() with the same seed, two at a time.
+     *
+     * @param first the build whose win rate is tested
+     * @param second its opponent
+     * @param policy the move policy for both sides
+     * @param lower the win rate of the first hypothesis, e.g. 0.45
+     * @param upper the win rate of the second hypothesis, e.g. 0.55
+     * @param alpha the chance of deciding AT_LEAST_UPPER when the rate is lower
+     * @param beta the chance of deciding AT_MOST_LOWER when the rate is upper
+     * @param maxBattles the most battles to play
+     * @param seed the seed the battle seeds are derived from
+     * @return the estimate; its getDecision() is UNDECIDED if the budget ran out
+     */
+    public static WinRateEstimate testWinRate(CharacterBuild first, CharacterBuild second, int policy,
+            double lower, double upper, double alpha, double beta, int maxBattles, long seed) {
+        if (!(0 < lower && lower < upper && upper < 1)) {
+            throw new IllegalArgumentException("Need 0 < lower < upper < 1: " + lower + ", " + upper);
+        }
+        WinRateEstimate estimate = new WinRateEstimate();
+        for (int k = 0; k < maxBattles; k++) {
+            int decision = estimate.record(playSample(first, second, policy, seed, k), lower, upper, alpha, beta);
+            if (k % 2 == 1 && k + 1 >= MIN_SEQUENTIAL_BATTLES && decision != WinRateEstimate.UNDECIDED) {
+                break;
+            }
+        }
+        return estimate;
+    }
+
+    /**
+     * Plays battle k of a matchup, each build on side 1 every other battle.
+     *
+     * @return the first build's score: 1 for a win, 0.5 for a draw, 0 for a loss
+     */
+    private static double playSample(CharacterBuild first, CharacterBuild second, int policy, long seed, int k) {
+        // Alternate sides so the first mover's edge cancels out
+        return play(first, second, policy, new RandomStreams(mix(seed + k * 0x9E3779B97F4A7C15L)), k % 2 == 0 ? 1 : 2);
+    }
+
+    /**
+     * Plays one battle with the first build on the given side.
+     *
+     * @return the first build's score: 1 for a win, 0.5 for a draw, 0 for a loss
+     */
+    private static double play(CharacterBuild first, CharacterBuild second, int policy, RandomStreams streams,
+            int side) {
+        BattleResult result = side == 1
+                ? simulate(first, second, streams, policy)
+                : simulate(second, first, streams, policy);
+        return result.getWinner() == side ? 1 : result.getWinner() == 0 ? 0.5 : 0;
+    }
+
+    /**
+     * Compares two builds by playing both against the same opponent with
+     * common random numbers: battle k of each build uses the same streams, so
+     * the opponent dodges and chooses alike in both, round by round. With
+     * antithetic pairing, battles also come in pairs whose streams mirror each
+     * other. Between two different builds this removes little of the spread
+     * (see RandomStreams), so the standard error returned is close to that of
+     * two independent win rates.
+     *
+     * @param first the first build
+     * @param second the build to compare it with
+     * @param opponent the opponent both builds face
+     * @param policy the move policy for every side
+     * @param samples how many battles each build plays, each on side 1 for half of them
+     * @param seed the seed the streams are derived from
+     * @param antithetic true to pair each battle with its mirror image
+     * @return the first build's win rate minus the second's, and the standard error of that difference
+     */
+    public static double[] compareWinRates(CharacterBuild first, CharacterBuild second, CharacterBuild opponent,
+            int policy, int samples, long seed, boolean antithetic) {
+        // A unit is one battle, or an antithetic pair averaged, per build
+        int units = antithetic ? samples / 2 : samples;
+        if (units < 2) {
+            throw new IllegalArgumentException("Too few samples to compare: " + samples);
+        }
+        double sum = 0;
+        double sumOfSquares = 0;
+        for (int j = 0; j < units; j++) {
+            RandomStreams streams = new RandomStreams(mix(seed + j * 0x9E3779B97F4A7C15L));
+            int side = j % 2 == 0 ? 1 : 2;
+            double difference = play(first, opponent, policy, streams, side)
+                    - play(second, opponent, policy, streams, side);
+            if (antithetic) {
+                RandomStreams mirror = streams.antithetic();
+                difference = (difference + play(first, opponent, policy, mirror, side)
+                        - play(second, opponent, policy, mirror, side)) / 2;
+            }
+            sum += difference;
+            sumOfSquares += difference * difference;
+        }
+        double mean = sum / units;
+        double variance = Math.max(0, (sumOfSquares - units * mean * mean) / (units - 1));
+        return new double[] {mean, Math.sqrt(variance / units)};
+    }
+
+    /**
+     * Scrambles a seed so that nearby seeds give unrelated battles.
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+
+    private static void record(int move, int[] costs, long dealt, int[] uses, int[] damage, int[] ep) {
+        if (move >= 1 && move <= costs.length) {
+            uses[move - 1]++;
+            damage[move - 1] += (int) dealt;
+            ep[move - 1] += costs[move - 1];
+        }
+    }
+
+    private static int countSingleUseItems(Character character) {
+        int count = 0;
+        for (MagicItem item : character.getInventory()) {
+            if (item.isSingleUse()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Makes a random legal build: any race and class, three different
+     * abilities of the class (plus one of any class for races with an extra
+     * slot), and a passive item equipped or nothing.
+     *
+     * @param random the random source
+     * @param name the character name
+     * @return the build
+     */
+    public static CharacterBuild randomBuild(Random random, String name) {
+        Race[] races = Race.show_race_array();
+        int raceId = random.nextInt(races.length);
+        int classId = random.nextInt(AllAbilities.CLASS_NAMES.length);
+
+        List<Integer> classAbilities = new ArrayList<>();
+        for (Ability ability : AllAbilities.getAbilitiesByClass(AllAbilities.CLASS_NAMES[classId])) {
+            classAbilities.add(CharacterBuild.abilityId(ability));
+        }
+        List<Integer> chosen = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            chosen.add(classAbilities.remove(random.nextInt(classAbilities.size())));
+        }
+        if (races[raceId].hasExtraAbilitySlot()) {
+            int abilityCount = AllAbilities.getAllAbilities().size();
+            int extra;
+            do {
+                extra = random.nextInt(abilityCount);
+            } while (chosen.contains(extra));
+            chosen.add(extra);
+        }
+        int[] abilityIds = new int[chosen.size()];
+        for (int i = 0; i < abilityIds.length; i++) {
+            abilityIds[i] = chosen.get(i);
+        }
+
+        List<MagicItem> passives = AllMagicItems.getPassiveItems();
+        int pick = random.nextInt(passives.size() + 1);
+        int equippedItemId = pick == passives.size() ? -1 : CharacterBuild.itemId(passives.get(pick));
+        int[] inventoryIds = equippedItemId < 0 ? new int[0] : new int[] {equippedItemId};
+        return new CharacterBuild(name, raceId, classId, abilityIds, equippedItemId, inventoryIds);
+    }
+}
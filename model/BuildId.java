@@ -0,0 +1,216 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The BuildId class packs the parts of a build that matter in battle into one
+ * int: race, class, which of the class's five abilities are chosen, the
+ * ability from another class that a race with an extra slot may take, and the
+ * equipped item. Two builds with the same id fight the same way, whatever
+ * their names.
+ *
+ * Layout, from the lowest bit:
+ *   bits 0-1    race id
+ *   bits 2-3    class id
+ *   bits 4-8    one bit per ability of the class, in AllAbilities order
+ *   bits 9-12   id + 1 of an ability from another class, or 0 for none
+ *   bits 13-15  equipped item id + 1, or 0 for none
+ *
+ * Every id is below LIMIT, so ids can index a flat array.
+ */
+public class BuildId {
+    public static final int LIMIT = 1 << 16;
+
+    private static final int CLASS_SHIFT = 2;
+    private static final int MASK_SHIFT = 4;
+    private static final int EXTRA_SHIFT = 9;
+    private static final int ITEM_SHIFT = 13;
+    private static final int ABILITIES_PER_CLASS = 5;
+
+    private static final List<Ability> ALL_ABILITIES = AllAbilities.getAllAbilities();
+    private static final List<MagicItem> ALL_ITEMS = AllMagicItems.getAllItems();
+    private static final Race[] RACES = Race.show_race_array();
+    // The ability ids of each class's abilities, in the order of the mask bits
+    private static final int[][] CLASS_ABILITY_IDS = new int[AllAbilities.CLASS_NAMES.length][];
+
+    static {
+        for (int c = 0; c < CLASS_ABILITY_IDS.length; c++) {
+            List<Ability> abilities = AllAbilities.getAbilitiesByClass(AllAbilities.CLASS_NAMES[c]);
+            CLASS_ABILITY_IDS[c] = new int[abilities.size()];
+            for (int i = 0; i < abilities.size(); i++) {
+                CLASS_ABILITY_IDS[c][i] = CharacterBuild.abilityId(abilities.get(i));
+            }
+        }
+    }
+
+    private BuildId() {
+    }
+
+    /**
+     * Packs a build from its parts.
+     *
+     * @param raceId the race id
+     * @param classId the class id
+     * @param abilityMask one bit per chosen ability of the class
+     * @param extraAbilityId the id of an ability from another class, or -1 for none
+     * @param itemId the equipped item's id, or -1 for none
+     * @return the build id
+     */
+    public static int of(int raceId, int classId, int abilityMask, int extraAbilityId, int itemId) {
+        return raceId | classId << CLASS_SHIFT | abilityMask << MASK_SHIFT
+                | (extraAbilityId + 1) << EXTRA_SHIFT | (itemId + 1) << ITEM_SHIFT;
+    }
+
+    /**
+     * Packs a build. Its name and unequipped inventory are left out, and so is
+     * the order of its abilities: abilities of its class always go in the
+     * mask, so each build has exactly one id.
+     *
+     * @param build the build
+     * @return the build id
+     * @throws IllegalArgumentException if the build has more than one ability from outside its class
+     */
+    public static int of(CharacterBuild build) {
+        return of(build.getRaceId(), build.getClassId(), build.getAbilityIds(), build.getEquippedItemId());
+    }
+
+    private static int of(int raceId, int classId, int[] abilityIds, int itemId) {
+        int mask = 0;
+        int extra = -1;
+        for (int abilityId : abilityIds) {
+            int slot = classSlot(classId, abilityId);
+            if (slot >= 0 && (mask & 1 << slot) == 0) {
+                mask |= 1 << slot;
+            } else if (extra < 0) {
+                extra = abilityId;
+            } else {
+                throw new IllegalArgumentException("Build has more than one extra ability");
+            }
+        }
+        return of(raceId, classId, mask, extra, itemId);
+    }
+
+    /**
+     * Unpacks a build id into a build with the equipped item as its only
+     * inventory. Abilities come in mask order, then the extra ability.
+     *
+     * @param id the build id
+     * @param name the name to give the build
+     * @return the build
+     */
+    public static CharacterBuild toBuild(int id, String name) {
+        int classId = classId(id);
+        int mask = abilityMask(id);
+        int[] abilityIds = new int[Integer.bitCount(mask) + (extraAbilityId(id) >= 0 ? 1 : 0)];
+        int next = 0;
+        for (int slot = 0; slot < ABILITIES_PER_CLASS; slot++) {
+            if ((mask & 1 << slot) != 0) {
+                abilityIds[next++] = CLASS_ABILITY_IDS[classId][slot];
+            }
+        }
+        if (extraAbilityId(id) >= 0) {
+            abilityIds[next] = extraAbilityId(id);
+        }
+        int itemId = itemId(id);
+        return new CharacterBuild(name, raceId(id), classId, abilityIds, itemId,
+                itemId < 0 ? new int[0] : new int[] {itemId});
+    }
+
+    /**
+     * Packs two build ids into one matchup key. The order matters: the
+     * matchup of a against b is not the matchup of b against a.
+     *
+     * @param first the first build id
+     * @param second the second build id
+     * @return the matchup key
+     */
+    public static int matchup(int first, int second) {
+        return first << 16 | second;
+    }
+
+    public static int matchupFirst(int matchup) {
+        return matchup >>> 16;
+    }
+
+    public static int matchupSecond(int matchup) {
+        return matchup & (LIMIT - 1);
+    }
+
+    public static int raceId(int id) {
+        return id & 0x3;
+    }
+
+    public static int classId(int id) {
+        return id >>> CLASS_SHIFT & 0x3;
+    }
+
+    public static int abilityMask(int id) {
+        return id >>> MASK_SHIFT & 0x1F;
+    }
+
+    /**
+     * Returns the id of the ability from another class, or -1 for none.
+     */
+    public static int extraAbilityId(int id) {
+        return (id >>> EXTRA_SHIFT & 0xF) - 1;
+    }
+
+    /**
+     * Returns the equipped item's id, or -1 for none.
+     */
+    public static int itemId(int id) {
+        return (id >>> ITEM_SHIFT & 0x7) - 1;
+    }
+
+    /**
+     * Checks that an id is a build a player could make: a known race and
+     * class, three class abilities (four for a race with the extra slot, whose
+     * fourth may instead come from another class), and a passive item or
+     * none.
+     *
+     * @param id the build id
+     * @return true if the build is legal
+     */
+    public static boolean isValid(int id) {
+        if (id < 0 || id >= LIMIT || raceId(id) >= RACES.length || classId(id) >= CLASS_ABILITY_IDS.length) {
+            return false;
+        }
+        int classAbilities = Integer.bitCount(abilityMask(id));
+        int extra = extraAbilityId(id);
+        if (extra >= 0 && (extra >= ALL_ABILITIES.size() || classSlot(classId(id), extra) >= 0)) {
+            return false;
+        }
+        int abilityCount = classAbilities + (extra >= 0 ? 1 : 0);
+        if (classAbilities < 3 || abilityCount != (RACES[raceId(id)].hasExtraAbilitySlot() ? 4 : 3)) {
+            return false;
+        }
+        int item = itemId(id);
+        return item < 0 || (item < ALL_ITEMS.size() && ALL_ITEMS.get(item).isPassive());
+    }
+
+    /**
+     * Returns a readable description, e.g. "Human Mage [Arcane Bolt, Arcane
+     * Blast, Lesser Heal] + Ring of Focus".
+     */
+    public static String describe(int id) {
+        CharacterBuild build = toBuild(id, "");
+        List<String> abilities = new ArrayList<>();
+        for (int abilityId : build.getAbilityIds()) {
+            abilities.add(ALL_ABILITIES.get(abilityId).getName());
+        }
+        int item = itemId(id);
+        return RACES[raceId(id)].getName() + " " + AllAbilities.CLASS_NAMES[classId(id)] + " " + abilities
+                + (item < 0 ? "" : " + " + ALL_ITEMS.get(item).getName());
+    }
+
+    private static int classSlot(int classId, int abilityId) {
+        int[] ids = CLASS_ABILITY_IDS[classId];
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == abilityId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
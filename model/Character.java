@@ -32,6 +32,9 @@ public class Character {
     private ArrayList<MagicItem> inventory;
     private MagicItem equippedItem;
     private int winCount;
+    private final CombatStats stats = new CombatStats();
+    private Random random;
+    private boolean messagesEnabled = true;
 
     public static final int BASE_MAX_HP = 100;
     public static final int BASE_MAX_EP = 50;
@@ -155,6 +158,26 @@ public class Character {
         this.equippedItem = item;
     }
 
+    /**
+     * Sets the random source used for evade rolls. A battle shares one seeded
+     * source between both fighters so that the whole fight can be replayed.
+     * 
+     * @param random the random source, or null to fall back to Math.random()
+     */
+    public void setRandom(Random random) {
+        this.random = random;
+    }
+
+    /**
+     * Turns the console messages printed by item effects on or off.
+     * Headless battles switch them off so simulations do not flood the console.
+     * 
+     * @param messagesEnabled true to print item messages, false otherwise
+     */
+    public void setMessagesEnabled(boolean messagesEnabled) {
+        this.messagesEnabled = messagesEnabled;
+    }
+
     /**
      * Sets the character's class.
      * 
@@ -191,6 +214,46 @@ public class Character {
         return winCount;
     }
 
+    /**
+     * Sets the character's win count, e.g. when loading a saved roster.
+     * 
+     * @param winCount the number of wins
+     */
+    public void setWinCount(int winCount) {
+        this.winCount = winCount;
+    }
+
+    /**
+     * Returns the character's packed build id: race, class, abilities and
+     * equipped item in one int (see BuildId).
+     * 
+     * @return the build id
+     */
+    public int getBuildId() {
+        return BuildId.of(CharacterBuild.of(this));
+    }
+
+    /**
+     * Creates a character from a packed build id, with its equipped item as
+     * its only item.
+     * 
+     * @param buildId the build id
+     * @param name the character's name
+     * @return the new character
+     */
+    public static Character fromBuildId(int buildId, String name) {
+        return BuildId.toBuild(buildId, name).toCharacter();
+    }
+
+    /**
+     * Returns the character's battle statistics.
+     * 
+     * @return the statistics, updated by every Battle the character fights
+     */
+    public CombatStats getStats() {
+        return stats;
+    }
+
     /**
      * Increments the character's win count and awards magic item if applicable.
      */
@@ -269,15 +332,15 @@ public class Character {
         // Apply the item's effects
         if (item.getHpRestore() > 0) {
             heal(item.getHpRestore());
-            System.out.println(name + " restored " + item.getHpRestore() + " HP!");
+            printMessage(name + " restored " + item.getHpRestore() + " HP!");
         }
         if (item.getEpRestore() > 0) {
             restoreEP(item.getEpRestore());
-            System.out.println(name + " restored " + item.getEpRestore() + " EP!");
+            printMessage(name + " restored " + item.getEpRestore() + " EP!");
         }
         if (item.shieldAll()) {
             this.isShielded = true;
-            System.out.println(name + " is protected by a magical barrier!");
+            printMessage(name + " is protected by a magical barrier!");
         }
 
         // Remove the item from inventory after use
@@ -312,15 +375,26 @@ public class Character {
         if (equippedItem != null && equippedItem.isPassive()) {
             if (equippedItem.isHealPerTurn()) {
                 heal(equippedItem.getHealAmount());
-                System.out.println(name + " regenerated " + equippedItem.getHealAmount() + " HP from " + equippedItem.getName());
+                printMessage(name + " regenerated " + equippedItem.getHealAmount() + " HP from " + equippedItem.getName());
             }
             if (equippedItem.getEpPerTurn() > 0) {
                 restoreEP(equippedItem.getEpPerTurn());
-                System.out.println(name + " gained " + equippedItem.getEpPerTurn() + " EP from " + equippedItem.getName());
+                printMessage(name + " gained " + equippedItem.getEpPerTurn() + " EP from " + equippedItem.getName());
             }
         }
     }
 
+    /**
+     * Prints a message to the console unless messages are turned off.
+     * 
+     * @param message the message to print
+     */
+    private void printMessage(String message) {
+        if (messagesEnabled) {
+            System.out.println(message);
+        }
+    }
+
     // HELPER METHODS
 
     /*
@@ -388,7 +462,8 @@ public class Character {
         return name + " is shielded and takes no damage!";
     }
     if (isEvading) {
-        if (Math.random() < 0.5) {
+        double roll = (random != null) ? random.nextDouble() : Math.random();
+        if (roll < 0.5) {
             return name + " evaded the attack!";
         } else {
             // continue to damage
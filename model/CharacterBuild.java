@@ -0,0 +1,236 @@
+package model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The CharacterBuild class is a compact, id-based copy of a character's loadout:
+ * name, race, class, chosen abilities, equipped item and inventory.
+ *
+ * Races, classes, abilities and items are stored as their position in the
+ * game's fixed lists (Race.show_race_array(), AllAbilities.CLASS_NAMES,
+ * AllAbilities.getAllAbilities() and AllMagicItems.getAllItems()), so a build
+ * can be written in a few bytes and turned back into a Character later.
+ */
+public class CharacterBuild {
+    private final String name;
+    private final int raceId;
+    private final int classId;
+    private final int[] abilityIds;
+    private final int equippedItemId;
+    private final int[] inventoryIds;
+
+    /**
+     * Constructs a build from ids.
+     *
+     * @param name the character name
+     * @param raceId the race id
+     * @param classId the class id
+     * @param abilityIds the ability ids
+     * @param equippedItemId the equipped item id, or -1 if nothing is equipped
+     * @param inventoryIds the item ids in the inventory
+     */
+    public CharacterBuild(String name, int raceId, int classId, int[] abilityIds, int equippedItemId, int[] inventoryIds) {
+        this.name = name;
+        this.raceId = raceId;
+        this.classId = classId;
+        this.abilityIds = abilityIds;
+        this.equippedItemId = equippedItemId;
+        this.inventoryIds = inventoryIds;
+    }
+
+    /**
+     * Captures the current loadout of a character.
+     *
+     * @param character the character to capture
+     * @return the character's build
+     */
+    public static CharacterBuild of(Character character) {
+        Ability[] abilities = character.getAbilities();
+        int[] abilityIds = new int[abilities.length];
+        for (int i = 0; i < abilities.length; i++) {
+            abilityIds[i] = abilityId(abilities[i]);
+        }
+        List<MagicItem> inventory = character.getInventory();
+        int[] inventoryIds = new int[inventory.size()];
+        for (int i = 0; i < inventoryIds.length; i++) {
+            inventoryIds[i] = itemId(inventory.get(i));
+        }
+        return new CharacterBuild(character.getName(), raceId(character.getRace()),
+                classId(character.getCharacterClass()), abilityIds, itemId(character.getEquippedItem()), inventoryIds);
+    }
+
+    /**
+     * Creates a new character with this build.
+     *
+     * @return a new Character with the build's race, class, abilities and items
+     */
+    public Character toCharacter() {
+        List<Ability> allAbilities = AllAbilities.getAllAbilities();
+        Ability[] abilities = new Ability[abilityIds.length];
+        for (int i = 0; i < abilityIds.length; i++) {
+            abilities[i] = allAbilities.get(abilityIds[i]);
+        }
+        Character character = new Character(name, Race.show_race_array()[raceId], AllAbilities.CLASS_NAMES[classId], abilities);
+        List<MagicItem> allItems = AllMagicItems.getAllItems();
+        for (int id : inventoryIds) {
+            character.addItemToInventory(allItems.get(id));
+        }
+        if (equippedItemId >= 0) {
+            character.setEquippedItem(allItems.get(equippedItemId));
+        }
+        return character;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getRaceId() {
+        return raceId;
+    }
+
+    public int getClassId() {
+        return classId;
+    }
+
+    public int[] getAbilityIds() {
+        return abilityIds;
+    }
+
+    public int getEquippedItemId() {
+        return equippedItemId;
+    }
+
+    public int[] getInventoryIds() {
+        return inventoryIds;
+    }
+
+    /**
+     * Writes the build using varints.
+     *
+     * @param out the output to write to
+     * @throws IOException if the output cannot be written
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        VarInt.writeString(out, name);
+        VarInt.writeUnsigned(out, raceId);
+        VarInt.writeUnsigned(out, classId);
+        VarInt.writeUnsigned(out, abilityIds.length);
+        for (int id : abilityIds) {
+            VarInt.writeUnsigned(out, id);
+        }
+        VarInt.writeUnsigned(out, equippedItemId + 1);
+        VarInt.writeUnsigned(out, inventoryIds.length);
+        for (int id : inventoryIds) {
+            VarInt.writeUnsigned(out, id);
+        }
+    }
+
+    /**
+     * Reads a build written by writeTo().
+     *
+     * @param in the input to read from
+     * @return the build read
+     * @throws IOException if the input is malformed
+     */
+    public static CharacterBuild readFrom(DataInput in) throws IOException {
+        String name = VarInt.readString(in);
+        int raceId = checkId(VarInt.readInt(in), Race.show_race_array().length, "race");
+        int classId = checkId(VarInt.readInt(in), AllAbilities.CLASS_NAMES.length, "class");
+        int abilityCount = AllAbilities.getAllAbilities().size();
+        int[] abilityIds = new int[checkId(VarInt.readInt(in), abilityCount + 1, "ability count")];
+        for (int i = 0; i < abilityIds.length; i++) {
+            abilityIds[i] = checkId(VarInt.readInt(in), abilityCount, "ability");
+        }
+        int itemCount = AllMagicItems.getAllItems().size();
+        int equippedItemId = checkId(VarInt.readInt(in), itemCount + 1, "item") - 1;
+        List<Integer> inventory = new ArrayList<>();
+        int inventorySize = VarInt.readInt(in);
+        for (int i = 0; i < inventorySize; i++) {
+            inventory.add(checkId(VarInt.readInt(in), itemCount, "item"));
+        }
+        int[] inventoryIds = new int[inventory.size()];
+        for (int i = 0; i < inventoryIds.length; i++) {
+            inventoryIds[i] = inventory.get(i);
+        }
+        return new CharacterBuild(name, raceId, classId, abilityIds, equippedItemId, inventoryIds);
+    }
+
+    private static int checkId(int id, int limit, String what) throws IOException {
+        if (id >= limit) {
+            throw new IOException("Invalid " + what + " id: " + id);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the id of a race.
+     *
+     * @param race the race
+     * @return the race's position in Race.show_race_array()
+     */
+    public static int raceId(Race race) {
+        Race[] races = Race.show_race_array();
+        for (int i = 0; i < races.length; i++) {
+            if (races[i] == race) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown race: " + race);
+    }
+
+    /**
+     * Returns the id of a class name.
+     *
+     * @param characterClass the class name (e.g., Mage)
+     * @return the class's position in AllAbilities.CLASS_NAMES
+     */
+    public static int classId(String characterClass) {
+        for (int i = 0; i < AllAbilities.CLASS_NAMES.length; i++) {
+            if (AllAbilities.CLASS_NAMES[i].equalsIgnoreCase(characterClass)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown class: " + characterClass);
+    }
+
+    /**
+     * Returns the id of an ability. Abilities are matched by name, since a new
+     * Ability object is created every time a class's abilities are listed.
+     *
+     * @param ability the ability
+     * @return the ability's position in AllAbilities.getAllAbilities()
+     */
+    public static int abilityId(Ability ability) {
+        List<Ability> allAbilities = AllAbilities.getAllAbilities();
+        for (int i = 0; i < allAbilities.size(); i++) {
+            if (allAbilities.get(i).getName().equals(ability.getName())) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown ability: " + ability.getName());
+    }
+
+    /**
+     * Returns the id of a magic item.
+     *
+     * @param item the item, or null
+     * @return the item's position in AllMagicItems.getAllItems(), or -1 for null
+     */
+    public static int itemId(MagicItem item) {
+        if (item == null) {
+            return -1;
+        }
+        List<MagicItem> allItems = AllMagicItems.getAllItems();
+        for (int i = 0; i < allItems.size(); i++) {
+            if (allItems.get(i).getName().equals(item.getName())) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown item: " + item.getName());
+    }
+}
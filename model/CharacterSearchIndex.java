@@ -0,0 +1,351 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * The CharacterSearchIndex class finds characters by name as the user types.
+ *
+ * Each player's names are kept in two indexes, both built from normalized names:
+ * a sorted map for prefix matches, and a map from every three-letter piece of a
+ * name (trigram) to the characters whose names contain it, for names that contain
+ * the query or are close to it (typos). The indexes listen to the GameModel and
+ * are updated one character at a time when characters are created, renamed or
+ * deleted, so a search never scans the whole roster.
+ *
+ * Results are ranked: an exact name first, then names starting with the query,
+ * then names containing it, then names sharing most of its trigrams.
+ */
+public class CharacterSearchIndex implements RosterListener {
+    public static final int DEFAULT_LIMIT = 50;
+
+    private final HashMap<Integer, PlayerIndex> playerIndexes = new HashMap<>();
+
+    /**
+     * Builds the index from a model's current rosters and keeps it up to date.
+     *
+     * @param model the model to index
+     */
+    public CharacterSearchIndex(GameModel model) {
+        // No roster may change between reading it and starting to listen
+        model.lockAll();
+        try {
+            for (int player : model.getPlayerIds()) {
+                for (Character character : model.getCharactersForPlayer(player)) {
+                    indexFor(player).add(character);
+                }
+            }
+            model.addRosterListener(this);
+        } finally {
+            model.unlockAll();
+        }
+    }
+
+    private PlayerIndex indexFor(int player) {
+        return playerIndexes.computeIfAbsent(player, p -> new PlayerIndex());
+    }
+
+    @Override
+    public synchronized void characterAdded(int player, Character character) {
+        indexFor(player).add(character);
+    }
+
+    @Override
+    public synchronized void characterRemoved(int player, Character character) {
+        indexFor(player).remove(character);
+    }
+
+    @Override
+    public synchronized void characterChanged(int player, Character character, String oldName) {
+        // Compare with the name the character is indexed under rather than
+        // oldName: the character may have been renamed again since this change
+        PlayerIndex index = indexFor(player);
+        String key = GameModel.normalizeName(character.getName());
+        if (!key.equals(index.keyOf(character)) || index.byName.get(key) != character) {
+            index.remove(character);
+            index.add(character);
+        }
+    }
+
+    /**
+     * Searches one player's characters.
+     *
+     * @param player the player whose characters to search
+     * @param query the text typed so far; empty matches every name
+     * @param race only return characters of this race, or null for any race
+     * @param characterClass only return characters of this class, or null for any class
+     * @param limit the most results to return
+     * @return the matching characters, best match first
+     */
+    public synchronized List<Character> search(int player, String query, Race race, String characterClass, int limit) {
+        PlayerIndex index = indexFor(player);
+        String key = GameModel.normalizeName(query.trim());
+        List<Character> results = new ArrayList<>();
+        HashSet<Character> found = new HashSet<>();
+
+        // Exact name, then every name that starts with the query, in name order
+        Character exact = index.byName.get(key);
+        if (exact != null && matches(exact, race, characterClass)) {
+            results.add(exact);
+            found.add(exact);
+        }
+        for (Character character : index.byName.subMap(key, true, key + '\uffff', false).values()) {
+            if (results.size() >= limit) {
+                return results;
+            }
+            if (!found.contains(character) && matches(character, race, characterClass)) {
+                results.add(character);
+                found.add(character);
+            }
+        }
+
+        // Names containing the query, then names sharing most of its trigrams
+        long[] queryTrigrams = trigrams(key);
+        int wanted = limit - results.size();
+        if (wanted <= 0 || queryTrigrams.length == 0) {
+            return results;
+        }
+
+        // Count, for every character, how many of the query's trigrams its name
+        // has, by walking the posting list of each query trigram once
+        int[] counts = index.counts();
+        IntList touched = index.touched;
+        touched.clear();
+        for (long trigram : queryTrigrams) {
+            IntList posting = index.byTrigram.get(trigram);
+            if (posting == null) {
+                continue;
+            }
+            for (int i = 0; i < posting.size; i++) {
+                int slot = posting.values[i];
+                if (counts[slot]++ == 0) {
+                    touched.add(slot);
+                }
+            }
+        }
+
+        // Keep only the best "wanted" matches, worst on top of the heap
+        int needed = (queryTrigrams.length + 1) / 2;
+        PriorityQueue<Match> best = new PriorityQueue<>(Math.min(wanted, touched.size) + 1, (a, b) -> b.compareTo(a));
+        for (int i = 0; i < touched.size; i++) {
+            int slot = touched.values[i];
+            int shared = counts[slot];
+            counts[slot] = 0;
+            if (shared < needed) {
+                continue;
+            }
+            String name = index.slotKeys.get(slot);
+            // Only a name with every trigram of the query can contain it
+            if (shared == queryTrigrams.length && name.contains(key)) {
+                shared = Integer.MAX_VALUE;
+            }
+            if (best.size() == wanted && shared < best.peek().shared) {
+                continue;
+            }
+            Character character = index.slots.get(slot);
+            if (found.contains(character) || !matches(character, race, characterClass)) {
+                continue;
+            }
+            Match match = new Match(character, name, shared);
+            if (best.size() < wanted) {
+                best.add(match);
+            } else if (match.compareTo(best.peek()) < 0) {
+                best.poll();
+                best.add(match);
+            }
+        }
+
+        Match[] ranked = best.toArray(new Match[0]);
+        Arrays.sort(ranked);
+        for (Match match : ranked) {
+            results.add(match.character);
+        }
+        return results;
+    }
+
+    /**
+     * Searches one player's characters. Text in the query returns at most
+     * DEFAULT_LIMIT results, best first; an empty query only filters, so every
+     * character that passes the filters is returned.
+     */
+    public List<Character> search(int player, String query, Race race, String characterClass) {
+        int limit = query.trim().isEmpty() ? Integer.MAX_VALUE : DEFAULT_LIMIT;
+        return search(player, query, race, characterClass, limit);
+    }
+
+    private static boolean matches(Character character, Race race, String characterClass) {
+        if (race != null && !race.getName().equals(character.getRace().getName())) {
+            return false;
+        }
+        return characterClass == null || characterClass.equalsIgnoreCase(character.getCharacterClass());
+    }
+
+    /**
+     * Returns the distinct three-letter pieces of a normalized name, each packed
+     * into a long (16 bits per letter) so they can be compared without strings.
+     */
+    private static long[] trigrams(String key) {
+        if (key.length() < 3) {
+            return new long[0];
+        }
+        long[] result = new long[key.length() - 2];
+        int count = 0;
+        for (int i = 0; i + 3 <= key.length(); i++) {
+            long trigram = trigramAt(key, i);
+            boolean duplicate = false;
+            for (int j = 0; j < count; j++) {
+                if (result[j] == trigram) {
+                    duplicate = true;
+                    break;
+                }
+            }
+            if (!duplicate) {
+                result[count++] = trigram;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static long trigramAt(String key, int i) {
+        return ((long) key.charAt(i) << 32) | ((long) key.charAt(i + 1) << 16) | key.charAt(i + 2);
+    }
+
+    /**
+     * A name that matched the query. Names containing the query rank first,
+     * then names sharing more trigrams, then by name.
+     */
+    private static class Match implements Comparable<Match> {
+        private final Character character;
+        private final String name;
+        private final int shared;
+
+        Match(Character character, String name, int shared) {
+            this.character = character;
+            this.name = name;
+            this.shared = shared;
+        }
+
+        @Override
+        public int compareTo(Match other) {
+            if (shared != other.shared) {
+                return Integer.compare(other.shared, shared);
+            }
+            return name.compareTo(other.name);
+        }
+    }
+
+    /**
+     * The indexes for one player's characters. Each character gets a slot
+     * number, and the trigram postings hold slot numbers, so counting matches
+     * during a search only touches int arrays.
+     */
+    private static class PlayerIndex {
+        private final TreeMap<String, Character> byName = new TreeMap<>();
+        private final HashMap<Long, IntList> byTrigram = new HashMap<>();
+        private final ArrayList<Character> slots = new ArrayList<>();
+        private final ArrayList<String> slotKeys = new ArrayList<>();
+        private final IdentityHashMap<Character, Integer> slotOf = new IdentityHashMap<>();
+        private final IntList freeSlots = new IntList();
+        private final IntList touched = new IntList();
+        private int[] counts = new int[0];
+
+        void add(Character character) {
+            String key = GameModel.normalizeName(character.getName());
+            byName.put(key, character);
+
+            int slot;
+            if (freeSlots.size > 0) {
+                slot = freeSlots.values[--freeSlots.size];
+                slots.set(slot, character);
+                slotKeys.set(slot, key);
+            } else {
+                slot = slots.size();
+                slots.add(character);
+                slotKeys.add(key);
+            }
+            slotOf.put(character, slot);
+
+            for (long trigram : trigrams(key)) {
+                byTrigram.computeIfAbsent(trigram, t -> new IntList()).add(slot);
+            }
+        }
+
+        /**
+         * Returns the normalized name a character is indexed under, or null.
+         */
+        String keyOf(Character character) {
+            Integer slot = slotOf.get(character);
+            return slot == null ? null : slotKeys.get(slot);
+        }
+
+        void remove(Character character) {
+            Integer slot = slotOf.remove(character);
+            if (slot == null) {
+                return;
+            }
+            String key = slotKeys.get(slot);
+            if (byName.get(key) == character) {
+                byName.remove(key);
+            }
+            for (long trigram : trigrams(key)) {
+                IntList posting = byTrigram.get(trigram);
+                if (posting != null) {
+                    posting.remove(slot);
+                    if (posting.size == 0) {
+                        byTrigram.remove(trigram);
+                    }
+                }
+            }
+            slots.set(slot, null);
+            slotKeys.set(slot, null);
+            freeSlots.add(slot);
+        }
+
+        /**
+         * Returns a zeroed count per slot, reused between searches.
+         */
+        int[] counts() {
+            if (counts.length < slots.size()) {
+                counts = new int[Math.max(slots.size(), counts.length * 2)];
+            }
+            return counts;
+        }
+    }
+
+    /**
+     * A growable list of ints.
+     */
+    private static class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        /**
+         * Removes one occurrence of a value; the order of the rest may change.
+         */
+        void remove(int value) {
+            for (int i = 0; i < size; i++) {
+                if (values[i] == value) {
+                    values[i] = values[--size];
+                    return;
+                }
+            }
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
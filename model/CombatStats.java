@@ -0,0 +1,123 @@
+package model;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The CombatStats class counts what one character has done in battle: battles
+ * fought and how they ended, damage dealt and taken, EP spent, how often each
+ * ability was used and how many items were consumed.
+ *
+ * Every counter is a LongAdder, which spreads updates over several cells when
+ * threads collide, so many simulations can record into the same character at
+ * once without contending on one value. Counters are only added up when read,
+ * which is rare next to the updates. The stats are kept in memory only.
+ */
+public class CombatStats {
+    private final LongAdder battles = new LongAdder();
+    private final LongAdder wins = new LongAdder();
+    private final LongAdder losses = new LongAdder();
+    private final LongAdder draws = new LongAdder();
+    private final LongAdder rounds = new LongAdder();
+    private final LongAdder damageDealt = new LongAdder();
+    private final LongAdder damageTaken = new LongAdder();
+    private final LongAdder epSpent = new LongAdder();
+    private final LongAdder itemsConsumed = new LongAdder();
+    private final Map<String, LongAdder> abilityUses = new ConcurrentHashMap<>();
+
+    /**
+     * Records a finished battle.
+     *
+     * @param won true if the character won
+     * @param drawn true if the battle was a draw
+     * @param roundCount how many rounds the battle lasted
+     */
+    public void recordBattle(boolean won, boolean drawn, int roundCount) {
+        battles.increment();
+        if (drawn) {
+            draws.increment();
+        } else if (won) {
+            wins.increment();
+        } else {
+            losses.increment();
+        }
+        rounds.add(roundCount);
+    }
+
+    public void recordDamageDealt(int amount) {
+        damageDealt.add(amount);
+    }
+
+    public void recordDamageTaken(int amount) {
+        damageTaken.add(amount);
+    }
+
+    public void recordEpSpent(int amount) {
+        epSpent.add(amount);
+    }
+
+    public void recordAbilityUse(Ability ability) {
+        abilityUses.computeIfAbsent(ability.getName(), name -> new LongAdder()).increment();
+    }
+
+    public void recordItemConsumed() {
+        itemsConsumed.increment();
+    }
+
+    public long getBattles() {
+        return battles.sum();
+    }
+
+    public long getWins() {
+        return wins.sum();
+    }
+
+    public long getLosses() {
+        return losses.sum();
+    }
+
+    public long getDraws() {
+        return draws.sum();
+    }
+
+    public long getDamageDealt() {
+        return damageDealt.sum();
+    }
+
+    public long getDamageTaken() {
+        return damageTaken.sum();
+    }
+
+    public long getEpSpent() {
+        return epSpent.sum();
+    }
+
+    public long getItemsConsumed() {
+        return itemsConsumed.sum();
+    }
+
+    /**
+     * Returns the average number of rounds per battle.
+     *
+     * @return the average, or 0 before the first battle
+     */
+    public double getAverageRounds() {
+        long count = battles.sum();
+        return count == 0 ? 0 : (double) rounds.sum() / count;
+    }
+
+    /**
+     * Returns how many times each ability was used, by ability name.
+     *
+     * @return a sorted copy of the counts
+     */
+    public Map<String, Long> getAbilityUses() {
+        Map<String, Long> uses = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : abilityUses.entrySet()) {
+            uses.put(entry.getKey(), entry.getValue().sum());
+        }
+        return uses;
+    }
+}
@@ -0,0 +1,134 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * The ComputerPlayer class picks abilities for a character that is not
+ * controlled by a person, e.g. in auto-play battles.
+ *
+ * It picks at random among the abilities the character can afford, and prefers
+ * abilities that deal damage so the battle keeps moving. For battles under the
+ * full Battle rules it can also pick any random legal move, which is what the
+ * synthetic players of the battle server tools use.
+ */
+public class ComputerPlayer {
+    private final Random random;
+
+    /**
+     * Creates a computer player with its own random source.
+     */
+    public ComputerPlayer() {
+        this(new Random());
+    }
+
+    /**
+     * Creates a computer player that uses the given random source, so its
+     * choices can be repeated.
+     *
+     * @param random the random source for choices
+     */
+    public ComputerPlayer(Random random) {
+        this.random = random;
+    }
+
+    /**
+     * Chooses an ability for a character.
+     *
+     * @param self the character choosing
+     * @param opponent the character being fought
+     * @return the chosen ability, or null if the character cannot afford any ability
+     */
+    public Ability chooseAbility(Character self, Character opponent) {
+        ArrayList<Ability> affordable = new ArrayList<>();
+        ArrayList<Ability> damaging = new ArrayList<>();
+        for (Ability ability : self.getAbilities()) {
+            if (ability.getEpCost() <= self.getEP()) {
+                affordable.add(ability);
+                if (ability.getDamage() > 0) {
+                    damaging.add(ability);
+                }
+            }
+        }
+
+        if (!damaging.isEmpty()) {
+            return damaging.get(random.nextInt(damaging.size()));
+        }
+        if (!affordable.isEmpty()) {
+            return affordable.get(random.nextInt(affordable.size()));
+        }
+        return null;
+    }
+
+    /**
+     * Chooses a move under the Battle rules the way chooseAbility() chooses an
+     * ability, recharging when no ability is affordable.
+     *
+     * @param self the character choosing
+     * @param opponent the character being fought
+     * @return the move, numbered as in Battle.resolveRound()
+     */
+    public int chooseAbilityMove(Character self, Character opponent) {
+        Ability ability = chooseAbility(self, opponent);
+        Ability[] abilities = self.getAbilities();
+        for (int i = 0; i < abilities.length; i++) {
+            if (abilities[i] == ability) {
+                return i + 1;
+            }
+        }
+        // Recharge
+        return abilities.length + 2;
+    }
+
+    /**
+     * Chooses a random legal move under the Battle rules, from what a player
+     * is told at the start of a round.
+     *
+     * @param abilityCosts the EP cost of each of the character's abilities
+     * @param ep the character's EP this round
+     * @param singleUseItems the number of single-use items the character has left
+     * @return the move, numbered as in Battle.resolveRound()
+     */
+    public int chooseMove(int[] abilityCosts, int ep, int singleUseItems) {
+        int[] legal = new int[abilityCosts.length + 3];
+        int count = 0;
+        for (int i = 0; i < abilityCosts.length; i++) {
+            if (abilityCosts[i] <= ep) {
+                legal[count++] = i + 1;
+            }
+        }
+        if (ep >= 5) {
+            legal[count++] = abilityCosts.length + 1;
+        }
+        legal[count++] = abilityCosts.length + 2;
+        if (singleUseItems > 0) {
+            legal[count++] = abilityCosts.length + 3;
+        }
+        return legal[random.nextInt(count)];
+    }
+
+    /**
+     * Chooses which single-use item to use with the Use Magic Item move.
+     *
+     * @param singleUseItems the number of single-use items the character has left
+     * @return the item number (1-based), or 0 if there are none
+     */
+    public int chooseItem(int singleUseItems) {
+        return singleUseItems > 0 ? 1 + random.nextInt(singleUseItems) : 0;
+    }
+
+    /**
+     * Returns the EP cost of each of a character's abilities, in move order.
+     *
+     * @param character the character
+     * @return the costs
+     */
+    public static int[] abilityCosts(Character character) {
+        Ability[] abilities = character.getAbilities();
+        int[] costs = new int[abilities.length];
+        for (int i = 0; i < abilities.length; i++) {
+            costs[i] = abilities[i].getEpCost();
+        }
+        return costs;
+    }
+}
@@ -1,69 +1,545 @@
 package model;
 
+import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * GameModel handles the business logic and data management for the game.
  * This class manages character storage, validation, and game state.
+ *
+ * When built with a RosterBackend (a RosterStore or a MappedRoster), every
+ * change to the rosters is saved to disk.
+ * Changes to a character (renaming, abilities, items, wins) must then go through
+ * the GameModel methods below rather than the Character setters, so they are saved.
+ *
+ * Character names are unique per player, ignoring case. Each roster has a hash
+ * index from normalized name to character, so name lookups do not scan the list.
+ *
+ * Players are kept in a registry keyed by player id, each with their own roster
+ * and selected character, so one model can hold any number of players. Players
+ * 1 and 2 always exist, for the two-player screens; the methods for "player 1"
+ * and "player 2" are shortcuts for those ids.
+ *
+ * The model is safe to use from many threads. Each player's roster has its own
+ * lock, so sessions for different players create, edit and select characters
+ * in parallel; two changes to the same roster take turns, which is what keeps
+ * names unique. Reads (name lookups, character lists, selected characters) do
+ * not lock at all. A change is saved to the store and its roster listeners are
+ * called after the roster is unlocked, so neither disk writes nor listeners
+ * hold up other changes to the roster.
  */
 public class GameModel {
 
-    private List<model.Character> player1Characters;
-    private List<model.Character> player2Characters;
+    private Map<Integer, PlayerRoster> players;
+    private AtomicInteger nextPlayerId;
+
+    // Held while adding a player, and by lockAll() so no player is added while it holds every roster
+    private final ReentrantLock registryLock = new ReentrantLock();
 
 
     private AllAbilities allAbilities;
     private AllMagicItems allMagicItems;
-    private Character player1Character;
-    private Character player2Character;
+    private RosterBackend store;
+    private List<RosterListener> rosterListeners = new CopyOnWriteArrayList<>();
+    private final CharacterSearchIndex searchIndex;
+    private volatile Leaderboard leaderboard;
+    private volatile ReplayArchive replayArchive;
     
     public GameModel() {
-        this.player1Characters = new ArrayList<>();
-        this.player2Characters = new ArrayList<>();
+        initRosters();
+        this.searchIndex = new CharacterSearchIndex(this);
+    }
+
+    /**
+     * Creates a model whose rosters are loaded from, and saved to, a roster backend.
+     *
+     * @param store the backend to load from and save to
+     * @throws IOException if the saved roster cannot be read
+     */
+    public GameModel(RosterBackend store) throws IOException {
+        initRosters();
+        this.store = store;
+        store.open(this);
+        this.searchIndex = new CharacterSearchIndex(this);
+    }
+
+    private void initRosters() {
+        this.players = new ConcurrentHashMap<>();
+        this.players.put(1, new PlayerRoster(1));
+        this.players.put(2, new PlayerRoster(2));
+        this.nextPlayerId = new AtomicInteger(3);
         this.allAbilities = new AllAbilities();
         this.allMagicItems = new AllMagicItems();
     }
 
+    /**
+     * Adds a saved character without journaling it. Used by the RosterBackend while loading.
+     */
+    void loadCharacter(int player, Character character) {
+        PlayerRoster roster = lockRoster(player);
+        try {
+            roster.getCharacters().add(character);
+            roster.getNames().put(normalizeName(character.getName()), character);
+        } finally {
+            unlockRoster(roster);
+        }
+    }
+
+    /**
+     * Removes a saved character without journaling it. Used by the RosterBackend while loading.
+     */
+    void unloadCharacter(int player, Character character) {
+        PlayerRoster roster = lockRoster(player);
+        try {
+            roster.getCharacters().remove(character);
+            roster.getNames().remove(normalizeName(character.getName()));
+        } finally {
+            unlockRoster(roster);
+        }
+    }
+
+    /**
+     * Applies a saved edit without journaling it. Used by the RosterBackend while loading.
+     */
+    void loadEdit(int player, Character character, CharacterBuild build) {
+        Character edited = build.toCharacter();
+        PlayerRoster roster = lockRoster(player);
+        try {
+            Map<String, Character> names = roster.getNames();
+            names.remove(normalizeName(character.getName()));
+            character.setName(edited.getName());
+            names.put(normalizeName(character.getName()), character);
+            character.setAbilities(edited.getAbilities());
+            character.getInventory().clear();
+            character.getInventory().addAll(edited.getInventory());
+            character.setEquippedItem(edited.getEquippedItem());
+        } finally {
+            unlockRoster(roster);
+        }
+    }
+
+    /**
+     * Checks that a character is still in a roster, e.g. was not deleted by
+     * another thread since it was read. Call while holding the roster's lock.
+     * A change to a character that is no longer in the roster is not saved, so
+     * it cannot be replayed onto a newer character with the same name.
+     */
+    private static boolean isInRoster(PlayerRoster roster, Character character) {
+        return roster.getNames().get(normalizeName(character.getName())) == character;
+    }
+
+    /**
+     * Publishes every roster's character list once the store has loaded them.
+     * Used by the RosterBackend, so loading does not copy the list for every character.
+     */
+    void loadFinished() {
+        for (PlayerRoster roster : players.values()) {
+            roster.getLock().lock();
+            try {
+                roster.charactersChanged();
+            } finally {
+                roster.getLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Locks one player's roster for a change, adding the player if needed.
+     * Must be paired with unlockRoster() in a finally block.
+     */
+    private PlayerRoster lockRoster(int player) {
+        PlayerRoster roster = playerFor(player);
+        roster.getLock().lock();
+        return roster;
+    }
+
+    /**
+     * Unlocks a roster, then saves its change to the store and calls the
+     * roster listeners, in the order the changes were made.
+     */
+    private void unlockRoster(PlayerRoster roster) {
+        roster.getLock().unlock();
+        if (roster.getLock().isHeldByCurrentThread()) {
+            return;
+        }
+        if (store != null) {
+            store.writePending();
+        }
+        roster.deliverEvents();
+    }
+
+    /**
+     * Waits for every roster change in progress and blocks new ones (and new
+     * players) until unlockAll(), e.g. to save a consistent copy of every
+     * roster. Rosters are locked in player id order, so two callers cannot
+     * deadlock.
+     */
+    void lockAll() {
+        registryLock.lock();
+        for (int player : getPlayerIds()) {
+            players.get(player).getLock().lock();
+        }
+    }
+
+    void unlockAll() {
+        for (PlayerRoster roster : players.values()) {
+            roster.getLock().unlock();
+        }
+        registryLock.unlock();
+    }
+
+    /**
+     * Registers a listener to be told about roster changes. To add a listener
+     * that starts from a copy of the rosters, copy them and add it while
+     * holding lockAll(): it is then told about exactly the changes made after
+     * the copy.
+     *
+     * @param listener the listener to add
+     */
+    public void addRosterListener(RosterListener listener) {
+        rosterListeners.add(listener);
+    }
+
+    public void removeRosterListener(RosterListener listener) {
+        rosterListeners.remove(listener);
+    }
+
+    /**
+     * Returns the name search index over every roster. It is built when the
+     * model is, so it is the first roster listener and is already up to date
+     * when any other listener, e.g. a list re-running its search, is called.
+     *
+     * @return the search index
+     */
+    public CharacterSearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    /**
+     * Sets where finished battles' replays are saved. Battles created by the
+     * model, and the battle screen, save to it when they end.
+     *
+     * @param replayArchive the archive, or null not to save replays
+     */
+    public void setReplayArchive(ReplayArchive replayArchive) {
+        this.replayArchive = replayArchive;
+    }
+
+    /**
+     * Returns where finished battles' replays are saved.
+     *
+     * @return the archive, or null if replays are not saved
+     */
+    public ReplayArchive getReplayArchive() {
+        return replayArchive;
+    }
+
+    /**
+     * Returns the win leaderboard over every roster, building it on first use.
+     *
+     * @return the leaderboard
+     */
+    public Leaderboard getLeaderboard() {
+        Leaderboard board = leaderboard;
+        if (board == null) {
+            synchronized (this) {
+                if (leaderboard == null) {
+                    leaderboard = new Leaderboard(this);
+                }
+                board = leaderboard;
+            }
+        }
+        return board;
+    }
+
+    // The fire methods are called while the roster is locked. They queue the
+    // calls for the listeners registered at the time of the change, and
+    // unlockRoster() runs them.
+
+    private void fireCharacterAdded(PlayerRoster roster, Character character) {
+        int player = roster.getPlayerId();
+        RosterListener[] listeners = rosterListeners.toArray(new RosterListener[0]);
+        roster.queueEvent(() -> {
+            for (RosterListener listener : listeners) {
+                listener.characterAdded(player, character);
+            }
+        });
+    }
+
+    private void fireCharacterRemoved(PlayerRoster roster, Character character) {
+        int player = roster.getPlayerId();
+        RosterListener[] listeners = rosterListeners.toArray(new RosterListener[0]);
+        roster.queueEvent(() -> {
+            for (RosterListener listener : listeners) {
+                listener.characterRemoved(player, character);
+            }
+        });
+    }
+
+    private void fireCharacterChanged(PlayerRoster roster, Character character, String oldName) {
+        int player = roster.getPlayerId();
+        RosterListener[] listeners = rosterListeners.toArray(new RosterListener[0]);
+        roster.queueEvent(() -> {
+            for (RosterListener listener : listeners) {
+                listener.characterChanged(player, character, oldName);
+            }
+        });
+    }
+
+    /**
+     * Closes the roster backend, if any.
+     */
+    public void close() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    /**
+     * Adds a new player with an empty roster.
+     *
+     * @return the new player's id
+     */
+    public int registerPlayer() {
+        registryLock.lock();
+        try {
+            while (true) {
+                int id = nextPlayerId.getAndIncrement();
+                if (players.putIfAbsent(id, new PlayerRoster(id)) == null) {
+                    return id;
+                }
+            }
+        } finally {
+            registryLock.unlock();
+        }
+    }
+
+    /**
+     * Checks if a player id is in the registry.
+     */
+    public boolean hasPlayer(int player) {
+        return players.containsKey(player);
+    }
+
+    /**
+     * Returns the ids of every registered player, in increasing order.
+     */
+    public List<Integer> getPlayerIds() {
+        List<Integer> ids = new ArrayList<>(players.keySet());
+        Collections.sort(ids);
+        return ids;
+    }
+
+    public int getPlayerCount() {
+        return players.size();
+    }
+
     // getter to retrieve characters for a specific player
+    // (a read-only snapshot, so it can be read while other threads change the roster)
     public List<model.Character> getCharactersForPlayer(int player) {
-        if (player == 1) {
-            return player1Characters;
-        } else {
-            return player2Characters;
+        PlayerRoster roster = players.get(player);
+        return roster == null ? Collections.emptyList() : roster.getSnapshot();
+    }
+
+    /**
+     * Returns a player's roster, adding the player if it is not registered yet.
+     */
+    private PlayerRoster playerFor(int player) {
+        PlayerRoster roster = players.get(player);
+        if (roster != null) {
+            return roster;
+        }
+        registryLock.lock();
+        try {
+            return players.computeIfAbsent(player, PlayerRoster::new);
+        } finally {
+            registryLock.unlock();
         }
     }
 
-    public boolean createCharacterForPlayer(int player, Character character) {
-        List<model.Character> targetList = (player == 1) ? player1Characters : player2Characters;
+    /**
+     * Returns the form of a name used to compare names, so that "Aria" and
+     * "aria" count as the same name.
+     *
+     * @param name the name
+     * @return the normalized name
+     */
+    public static String normalizeName(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
 
-        for (Character c : targetList) {
-            if (c.getName().equals(character.getName())) {
+    public boolean createCharacterForPlayer(int player, Character character) {
+        String key = normalizeName(character.getName());
+        if (store != null && !store.canStoreName(character.getName())) {
+            return false;
+        }
+        PlayerRoster roster = lockRoster(player);
+        try {
+            if (roster.getNames().containsKey(key)) {
                 return false; // Duplicate name
             }
-        }
 
-        targetList.add(character);
-        return true;
-        
+            roster.getCharacters().add(character);
+            roster.charactersChanged();
+            roster.getNames().put(key, character);
+            if (store != null) {
+                store.logCreate(player, character);
+            }
+            fireCharacterAdded(roster, character);
+            return true;
+        } finally {
+            unlockRoster(roster);
+        }
     }   
 
+    /**
+     * Renames a character.
+     *
+     * @param player the player who owns the character
+     * @param character the character to rename
+     * @param newName the new name
+     * @return true if renamed, false if the name is already taken or cannot be
+     *         saved, or the character is no longer in the roster
+     */
+    public boolean renameCharacter(int player, Character character, String newName) {
+        if (store != null && !store.canStoreName(newName)) {
+            return false;
+        }
+        PlayerRoster roster = lockRoster(player);
+        try {
+            Map<String, Character> names = roster.getNames();
+            Character existing = names.get(normalizeName(newName));
+            if (!isInRoster(roster, character) || existing != null && existing != character) {
+                return false;
+            }
+            String oldName = character.getName();
+            names.remove(normalizeName(oldName));
+            character.setName(newName);
+            names.put(normalizeName(newName), character);
+            if (store != null) {
+                store.logEdit(player, oldName, character);
+            }
+            fireCharacterChanged(roster, character, oldName);
+            return true;
+        } finally {
+            unlockRoster(roster);
+        }
+    }
+
+    /**
+     * Replaces a character's abilities.
+     *
+     * @param player the player who owns the character
+     * @param character the character to edit
+     * @param abilities the new abilities
+     */
+    public void setCharacterAbilities(int player, Character character, Ability[] abilities) {
+        PlayerRoster roster = lockRoster(player);
+        try {
+            character.setAbilities(abilities);
+            if (!isInRoster(roster, character)) {
+                return;
+            }
+            if (store != null) {
+                store.logEdit(player, character.getName(), character);
+            }
+            fireCharacterChanged(roster, character, character.getName());
+        } finally {
+            unlockRoster(roster);
+        }
+    }
+
+    /**
+     * Equips an item from the character's inventory, or unequips with null.
+     *
+     * @param player the player who owns the character
+     * @param character the character to edit
+     * @param item the item to equip, or null to unequip
+     */
+    public void equipItem(int player, Character character, MagicItem item) {
+        PlayerRoster roster = lockRoster(player);
+        try {
+            if (item == null) {
+                character.unequipItem();
+            } else {
+                character.setEquippedItem(item);
+            }
+            if (!isInRoster(roster, character)) {
+                return;
+            }
+            if (store != null) {
+                store.logItemEquipped(player, character.getName(), item);
+            }
+            fireCharacterChanged(roster, character, character.getName());
+        } finally {
+            unlockRoster(roster);
+        }
+    }
+
+    /**
+     * Gives a character a win, along with any magic item it earns.
+     *
+     * @param player the player who owns the character
+     * @param character the winning character
+     */
+    public void recordWin(int player, Character character) {
+        PlayerRoster roster = lockRoster(player);
+        try {
+            int itemsBefore = character.getInventory().size();
+            character.incrementWinCount();
+            if (!isInRoster(roster, character)) {
+                return;
+            }
+            if (store != null) {
+                store.logWin(player, character.getName());
+                List<MagicItem> inventory = character.getInventory();
+                for (int i = itemsBefore; i < inventory.size(); i++) {
+                    store.logItemAwarded(player, character.getName(), inventory.get(i));
+                }
+            }
+            fireCharacterChanged(roster, character, character.getName());
+        } finally {
+            unlockRoster(roster);
+        }
+    }
+
     // Added methods to manage selected characters for battles
 
+    /**
+     * Sets the character a player will use in the next battle.
+     */
+    public void setSelectedCharacter(int player, Character character) {
+        playerFor(player).setSelectedCharacter(character);
+    }
+
+    public Character getSelectedCharacter(int player) {
+        PlayerRoster roster = players.get(player);
+        return roster == null ? null : roster.getSelectedCharacter();
+    }
+
     public void setPlayer1Character(Character character) {
-    this.player1Character = character;
+    setSelectedCharacter(1, character);
     }
 
     public void setPlayer2Character(Character character) {
-        this.player2Character = character;
+        setSelectedCharacter(2, character);
     }
 
     public Character getPlayer1Character() {
-        return player1Character;
+        return getSelectedCharacter(1);
     }
 
     public Character getPlayer2Character() {
-        return player2Character;
+        return getSelectedCharacter(2);
     }
 
     // overload method for creating a battle with two characters
@@ -81,21 +557,34 @@ public class GameModel {
      * @return true if character was created successfully
      */
     public boolean createCharacter(int player, String name, Race race, String characterClass, List<Ability> selectedAbilities) {
-        List<model.Character> characters = (player == 1) ? player1Characters : player2Characters;
-
-        if (isNameTaken(name, characters)) {
+        if (store != null && !store.canStoreName(name)) {
             return false;
         }
+        PlayerRoster roster = lockRoster(player);
+        try {
+            List<model.Character> characters = roster.getCharacters();
 
-        if (characters.size() >= 6) {
-            return false;
-        }
+            if (isNameTaken(name, player)) {
+                return false;
+            }
 
-        Ability[] abilitiesArray = selectedAbilities.toArray(new Ability[0]);
-        model.Character newCharacter = new model.Character(name, race, characterClass, abilitiesArray);
-        characters.add(newCharacter);
-        return true;
+            if (characters.size() >= 6) {
+                return false;
+            }
 
+            Ability[] abilitiesArray = selectedAbilities.toArray(new Ability[0]);
+            model.Character newCharacter = new model.Character(name, race, characterClass, abilitiesArray);
+            characters.add(newCharacter);
+            roster.charactersChanged();
+            roster.getNames().put(normalizeName(name), newCharacter);
+            if (store != null) {
+                store.logCreate(player, newCharacter);
+            }
+            fireCharacterAdded(roster, newCharacter);
+            return true;
+        } finally {
+            unlockRoster(roster);
+        }
     }
     
     /**
@@ -104,22 +593,39 @@ public class GameModel {
      * @return true if name is taken
      */
     public boolean isNameTaken(String name, List<model.Character> characters) {
+        for (PlayerRoster roster : players.values()) {
+            if (characters == roster.getCharacters() || characters == roster.getSnapshot()) {
+                return isNameTaken(name, roster.getPlayerId());
+            }
+        }
         for (model.Character character : characters) {
-            if (character.getName().equalsIgnoreCase(name)) {
+            if (normalizeName(character.getName()).equals(normalizeName(name))) {
                 return true;
             }
         }
         return false;
     }
 
-        public Character getCharacterByName(String name, int player) {
-        List<Character> characters = (player == 1) ? player1Characters : player2Characters;
-        for (Character c : characters) {
-            if (c.getName().equals(name)) {
-                return c;
-            }
-        }
-        return null; // not found
+    /**
+     * Checks if one of a player's characters already has a name (ignoring case)
+     * @param name the name to check
+     * @param player the player
+     * @return true if name is taken
+     */
+    public boolean isNameTaken(String name, int player) {
+        PlayerRoster roster = players.get(player);
+        return roster != null && roster.getNames().containsKey(normalizeName(name));
+    }
+
+    /**
+     * Finds one of a player's characters by name (ignoring case)
+     * @param name the name to look for
+     * @param player the player
+     * @return the character, or null if not found
+     */
+    public Character getCharacterByName(String name, int player) {
+        PlayerRoster roster = players.get(player);
+        return roster == null ? null : roster.getNames().get(normalizeName(name));
     }
 
     
@@ -145,7 +651,7 @@ public class GameModel {
      * @return the character at the index, or null if invalid
      */
     public model.Character getCharacter(int player, int index) {
-        List<model.Character> target = player == 1 ? player1Characters : player2Characters;
+        List<model.Character> target = getCharactersForPlayer(player);
         if (index >= 0 && index < target.size()) {
             return target.get(index);
         }
@@ -158,18 +664,44 @@ public class GameModel {
      * @return true if deletion was successful
      */
     public boolean deleteCharacter(int player, int index) {
-        List<model.Character> target = player == 1 ? player1Characters : player2Characters;
-        if (index >= 0 && index < target.size()) {
-            target.remove(index);
-            return true;
+        PlayerRoster roster = lockRoster(player);
+        try {
+            List<model.Character> target = roster.getCharacters();
+            if (index >= 0 && index < target.size()) {
+                Character removed = target.remove(index);
+                roster.charactersChanged();
+                roster.getNames().remove(normalizeName(removed.getName()));
+                if (store != null) {
+                    store.logDelete(player, removed.getName());
+                }
+                fireCharacterRemoved(roster, removed);
+                return true;
+            }
+            return false;
+        } finally {
+            unlockRoster(roster);
         }
-        return false;
     }
 
     //an overloaded method to delete a character by reference
     public boolean deleteCharacter(int player, Character character) {
-        List<Character> target = (player == 1) ? player1Characters : player2Characters;
-        return target.remove(character);
+        PlayerRoster roster = lockRoster(player);
+        try {
+            boolean removed = roster.getCharacters().remove(character);
+            if (removed) {
+                roster.charactersChanged();
+                roster.getNames().remove(normalizeName(character.getName()));
+            }
+            if (removed && store != null) {
+                store.logDelete(player, character.getName());
+            }
+            if (removed) {
+                fireCharacterRemoved(roster, character);
+            }
+            return removed;
+        } finally {
+            unlockRoster(roster);
+        }
 }
     
     /**
@@ -236,7 +768,9 @@ public class GameModel {
         model.Character char2 = getCharacter(2, char2Index);
         
         if (char1 != null && char2 != null && char1 != char2) {
-            return new Battle(char1, char2, null); // Scanner will be provided by controller
+            Battle battle = new Battle(char1, char2, (Scanner) null); // Scanner will be provided by controller
+            battle.setReplayArchive(replayArchive);
+            return battle;
         }
         
         return null;
@@ -247,7 +781,7 @@ public class GameModel {
      * @return true if at least 2 characters exist
      */
     public boolean canStartBattle(int player) {
-        List<model.Character> target = (player == 1) ? player1Characters : player2Characters;
+        List<model.Character> target = getCharactersForPlayer(player);
         return target.size() >= 2;
     }
     
@@ -256,7 +790,7 @@ public class GameModel {
      * @return number of characters
      */
     public int getCharacterCount(int player) {
-    List<model.Character> target = (player == 1) ? player1Characters : player2Characters;
+    List<model.Character> target = getCharactersForPlayer(player);
     return target.size();
     }
 }
@@ -0,0 +1,113 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * The IntDoubleMap class maps int keys (e.g. BuildId matchups) to double
+ * values without boxing either. Keys and values sit in two flat arrays, found
+ * by open addressing with linear probing, so a lookup touches one or two
+ * cache lines and creates no objects. Not thread-safe.
+ */
+public class IntDoubleMap {
+    private static final int EMPTY = 0;
+    private static final int FULL = 1;
+
+    private int[] keys;
+    private double[] values;
+    private byte[] states;
+    private int size;
+    private int mask;
+
+    public IntDoubleMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize how many keys the map should hold before it grows
+     */
+    public IntDoubleMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new double[capacity];
+        states = new byte[capacity];
+        mask = capacity - 1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean containsKey(int key) {
+        return states[slotOf(key)] == FULL;
+    }
+
+    /**
+     * Returns the value for a key.
+     *
+     * @param key the key
+     * @param missing the value to return if the key is not in the map
+     * @return the value, or missing
+     */
+    public double get(int key, double missing) {
+        int slot = slotOf(key);
+        return states[slot] == FULL ? values[slot] : missing;
+    }
+
+    /**
+     * Sets the value for a key, replacing any value it had.
+     */
+    public void put(int key, double value) {
+        int slot = slotOf(key);
+        if (states[slot] != FULL) {
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+                slot = slotOf(key);
+            }
+            states[slot] = FULL;
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+    }
+
+    public void clear() {
+        Arrays.fill(states, (byte) EMPTY);
+        size = 0;
+    }
+
+    /**
+     * Returns the slot holding a key, or the empty slot where it would go.
+     */
+    private int slotOf(int key) {
+        int slot = hash(key) & mask;
+        while (states[slot] == FULL && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        double[] oldValues = values;
+        byte[] oldStates = states;
+        allocate(keys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldStates[i] == FULL) {
+                int slot = slotOf(oldKeys[i]);
+                states[slot] = FULL;
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int hash(int key) {
+        // Spread the bits, since build ids differ mostly in their low bits
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
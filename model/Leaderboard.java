@@ -0,0 +1,385 @@
+package model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.ToIntFunction;
+
+/**
+ * The Leaderboard class ranks every character in a GameModel by a score (wins
+ * by default), highest first; ties are broken by name.
+ *
+ * The ranking is an order-statistic tree: a treap whose nodes know the size of
+ * their subtree, so adding, removing or re-scoring a character, finding the
+ * top K and finding a character's rank all take O(log n) steps (plus K).
+ *
+ * The tree is persistent: an update copies only the O(log n) nodes on its path
+ * and publishes a new root, and old roots are never changed. A Snapshot is just
+ * a root, so readers (e.g. Swing views) get a consistent ranking without any
+ * lock, however many results are being recorded at the same time.
+ */
+public class Leaderboard implements RosterListener {
+
+    /**
+     * The Entry class is one character's place in a ranking.
+     */
+    public static class Entry {
+        private final Character character;
+        private final int player;
+        private final String name;
+        private final int score;
+        private final long sequence;
+        private final int priority;
+
+        Entry(Character character, int player, int score, long sequence, int priority) {
+            this.character = character;
+            this.player = player;
+            this.name = character.getName();
+            this.score = score;
+            this.sequence = sequence;
+            this.priority = priority;
+        }
+
+        public Character getCharacter() {
+            return character;
+        }
+
+        public int getPlayer() {
+            return player;
+        }
+
+        /**
+         * Returns the character's name when it was ranked.
+         */
+        public String getName() {
+            return name;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        /**
+         * Orders entries: higher score first, then by name, then by age.
+         */
+        int compareTo(Entry other) {
+            if (score != other.score) {
+                return Integer.compare(other.score, score);
+            }
+            int byName = name.compareToIgnoreCase(other.name);
+            if (byName != 0) {
+                return byName;
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * A node of the persistent treap. Never changed after it is made.
+     */
+    private static class Node {
+        private final Entry entry;
+        private final Node left;
+        private final Node right;
+        private final int size;
+
+        Node(Entry entry, Node left, Node right) {
+            this.entry = entry;
+            this.left = left;
+            this.right = right;
+            this.size = 1 + sizeOf(left) + sizeOf(right);
+        }
+    }
+
+    /**
+     * The Snapshot class is a ranking at one moment. It never changes, so it
+     * can be read from any thread.
+     */
+    public static class Snapshot {
+        private final Node root;
+
+        Snapshot(Node root) {
+            this.root = root;
+        }
+
+        /**
+         * Returns the number of ranked characters.
+         */
+        public int size() {
+            return sizeOf(root);
+        }
+
+        /**
+         * Returns the best entries, best first.
+         *
+         * @param k the most entries to return
+         * @return up to k entries
+         */
+        public List<Entry> top(int k) {
+            List<Entry> result = new ArrayList<>(Math.min(k, size()));
+            ArrayDeque<Node> path = new ArrayDeque<>();
+            Node node = root;
+            while ((node != null || !path.isEmpty()) && result.size() < k) {
+                while (node != null) {
+                    path.push(node);
+                    node = node.left;
+                }
+                node = path.pop();
+                result.add(node.entry);
+                node = node.right;
+            }
+            return result;
+        }
+
+        /**
+         * Returns the entry at a rank.
+         *
+         * @param rank the rank, starting at 1
+         * @return the entry, or null if the rank is out of range
+         */
+        public Entry get(int rank) {
+            int index = rank - 1;
+            Node node = root;
+            while (node != null) {
+                int leftSize = sizeOf(node.left);
+                if (index < leftSize) {
+                    node = node.left;
+                } else if (index == leftSize) {
+                    return node.entry;
+                } else {
+                    index -= leftSize + 1;
+                    node = node.right;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Returns the rank of an entry, starting at 1.
+         *
+         * @param entry the entry
+         * @return the rank, or 0 if the entry is not in this snapshot
+         */
+        public int rankOf(Entry entry) {
+            int before = 0;
+            Node node = root;
+            while (node != null) {
+                int order = entry.compareTo(node.entry);
+                if (order < 0) {
+                    node = node.left;
+                } else if (order > 0) {
+                    before += sizeOf(node.left) + 1;
+                    node = node.right;
+                } else {
+                    return node.entry == entry ? before + sizeOf(node.left) + 1 : 0;
+                }
+            }
+            return 0;
+        }
+    }
+
+    private final ToIntFunction<Character> score;
+    private final Map<Character, Entry> entries = new ConcurrentHashMap<>();
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+    private final Random priorities = new Random();
+    private long nextSequence;
+    private volatile Snapshot snapshot = new Snapshot(null);
+
+    /**
+     * Ranks a model's characters by wins and keeps the ranking up to date.
+     *
+     * @param model the model whose characters to rank
+     */
+    public Leaderboard(GameModel model) {
+        this(model, Character::getWinCount);
+    }
+
+    /**
+     * Ranks a model's characters by a score and keeps the ranking up to date.
+     * The score is read again whenever a character changes.
+     *
+     * @param model the model whose characters to rank
+     * @param score gives each character's score; higher ranks first
+     */
+    public Leaderboard(GameModel model, ToIntFunction<Character> score) {
+        this.score = score;
+        // No roster may change between reading it and starting to listen
+        model.lockAll();
+        try {
+            for (int player : model.getPlayerIds()) {
+                for (Character character : model.getCharactersForPlayer(player)) {
+                    put(player, character);
+                }
+            }
+            model.addRosterListener(this);
+        } finally {
+            model.unlockAll();
+        }
+    }
+
+    /**
+     * Registers a listener run after every change to the ranking, on the
+     * thread that made it. It should only schedule work, e.g. with
+     * SwingUtilities.invokeLater().
+     */
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(Runnable listener) {
+        changeListeners.remove(listener);
+    }
+
+    /**
+     * Returns the latest ranking. Never blocks.
+     */
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Returns the best entries in the latest ranking, best first.
+     */
+    public List<Entry> top(int k) {
+        return snapshot.top(k);
+    }
+
+    /**
+     * Returns a character's rank in the latest ranking, starting at 1.
+     *
+     * @param character the character
+     * @return the rank, or 0 if the character is not ranked
+     */
+    public int rankOf(Character character) {
+        Entry entry = entries.get(character);
+        while (entry != null) {
+            int rank = snapshot.rankOf(entry);
+            if (rank > 0) {
+                return rank;
+            }
+            // The entry is published just before the snapshot holding it, so
+            // a miss means that snapshot (or a newer entry) is on its way
+            Entry latest = entries.get(character);
+            if (latest == entry) {
+                Thread.onSpinWait();
+            }
+            entry = latest;
+        }
+        return 0;
+    }
+
+    @Override
+    public void characterAdded(int player, Character character) {
+        put(player, character);
+        fireChanged();
+    }
+
+    @Override
+    public void characterRemoved(int player, Character character) {
+        remove(character);
+        fireChanged();
+    }
+
+    @Override
+    public void characterChanged(int player, Character character, String oldName) {
+        Entry old = entries.get(character);
+        if (old != null && old.score == score.applyAsInt(character) && old.name.equals(character.getName())) {
+            return;
+        }
+        put(player, character);
+        fireChanged();
+    }
+
+    private synchronized void put(int player, Character character) {
+        Node root = snapshot.root;
+        Entry old = entries.get(character);
+        if (old != null) {
+            root = delete(root, old);
+        }
+        Entry entry = new Entry(character, player, score.applyAsInt(character), nextSequence++, priorities.nextInt());
+        root = insert(root, entry);
+        // Publish the entry before the root, so rankOf() never sees a root without its entry
+        entries.put(character, entry);
+        snapshot = new Snapshot(root);
+    }
+
+    private synchronized void remove(Character character) {
+        Entry old = entries.remove(character);
+        if (old != null) {
+            snapshot = new Snapshot(delete(snapshot.root, old));
+        }
+    }
+
+    private void fireChanged() {
+        for (Runnable listener : changeListeners) {
+            listener.run();
+        }
+    }
+
+    private static int sizeOf(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static Node insert(Node node, Entry entry) {
+        if (node == null) {
+            return new Node(entry, null, null);
+        }
+        if (entry.priority > node.entry.priority) {
+            Node[] parts = split(node, entry);
+            return new Node(entry, parts[0], parts[1]);
+        }
+        if (entry.compareTo(node.entry) < 0) {
+            return new Node(node.entry, insert(node.left, entry), node.right);
+        }
+        return new Node(node.entry, node.left, insert(node.right, entry));
+    }
+
+    /**
+     * Splits a tree into the entries before a key and the entries after it.
+     */
+    private static Node[] split(Node node, Entry key) {
+        if (node == null) {
+            return new Node[2];
+        }
+        if (key.compareTo(node.entry) < 0) {
+            Node[] parts = split(node.left, key);
+            return new Node[] {parts[0], new Node(node.entry, parts[1], node.right)};
+        }
+        Node[] parts = split(node.right, key);
+        return new Node[] {new Node(node.entry, node.left, parts[0]), parts[1]};
+    }
+
+    private static Node delete(Node node, Entry entry) {
+        if (node == null) {
+            return null;
+        }
+        int order = entry.compareTo(node.entry);
+        if (order < 0) {
+            return new Node(node.entry, delete(node.left, entry), node.right);
+        }
+        if (order > 0) {
+            return new Node(node.entry, node.left, delete(node.right, entry));
+        }
+        return merge(node.left, node.right);
+    }
+
+    /**
+     * Joins two trees where every entry of the first comes before the second.
+     */
+    private static Node merge(Node first, Node second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        if (first.entry.priority > second.entry.priority) {
+            return new Node(first.entry, first.left, merge(first.right, second));
+        }
+        return new Node(second.entry, merge(first, second.left), second.right);
+    }
+}
@@ -0,0 +1,421 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The LoadoutOptimizer class searches for builds (race, class, abilities and
+ * equipped item) that win most often against a target meta: a list of
+ * opponent builds that are expected to be common.
+ *
+ * The search is a genetic algorithm over BuildIds. Each generation keeps the
+ * best few builds unchanged and breeds the rest from parents picked by
+ * tournament, mixing their parts and then mutating one part at random. A
+ * build's fitness is its win rate (a draw counts as half) in headless battles
+ * against every meta build, played on both sides: a fixed number of them, or
+ * if the MatchupCache has a margin, just enough to know the win rate to it.
+ *
+ * Matchups are answered by a MatchupCache, which may be shared with other
+ * tools and other runs. Its battle seeds depend only on the opponent, so a
+ * build's fitness never changes, and every candidate meets the same dodges
+ * and move choices from a given opponent (common random numbers). That
+ * removes only a little of the luck between two different builds (see
+ * RandomStreams), so compare() measures how sure a ranking is.
+ *
+ * Fitness is also kept in a flat array indexed by build id, with each
+ * matchup's score in an IntDoubleMap, so no build is looked up twice, and a
+ * build listed twice in the meta is only played once. The new builds of a
+ * generation are simulated in parallel.
+ */
+public class LoadoutOptimizer {
+    public static final int DEFAULT_ELITE_COUNT = 2;
+    public static final int DEFAULT_TOURNAMENT_SIZE = 3;
+
+    private static final int ABILITY_COUNT = AllAbilities.getAllAbilities().size();
+    // The ability ids of each class, in BuildId mask order
+    private static final List<List<Integer>> CLASS_ABILITY_IDS = new ArrayList<>();
+
+    static {
+        for (String className : AllAbilities.CLASS_NAMES) {
+            List<Integer> ids = new ArrayList<>();
+            for (Ability ability : AllAbilities.getAbilitiesByClass(className)) {
+                ids.add(CharacterBuild.abilityId(ability));
+            }
+            CLASS_ABILITY_IDS.add(ids);
+        }
+    }
+
+    /**
+     * The ProgressListener interface is told about every finished generation.
+     */
+    public interface ProgressListener {
+        void generationDone(int generation, int bestId, double bestFitness);
+    }
+
+    private final int[] opponentIds;
+    private final int[] opponentWeights;
+    private final int battlesPerOpponent;
+    private final MatchupCache matchupCache;
+    private final Random random;
+    private final ExecutorService simulators;
+    // Indexed by build id; NaN until the build is simulated
+    private final double[] fitnessById = new double[BuildId.LIMIT];
+    private int cachedBuildCount;
+    // Keyed by BuildId.matchup(build, opponent)
+    private final IntDoubleMap matchupScores = new IntDoubleMap(1024);
+    // The cache's battle count when the search started
+    private final long battlesBefore;
+    private final int[] passiveItemIds;
+
+    /**
+     * @param meta the opponent builds to win against; a build listed twice counts twice
+     * @param battlesPerOpponent how many battles to play against each opponent (half on each side)
+     * @param threads how many threads simulate battles
+     * @param seed decides every choice of the search
+     */
+    public LoadoutOptimizer(List<CharacterBuild> meta, int battlesPerOpponent, int threads, long seed) {
+        this(meta, battlesPerOpponent, threads, seed, new MatchupCache());
+    }
+
+    /**
+     * @param meta the opponent builds to win against; a build listed twice counts twice
+     * @param battlesPerOpponent how many battles to play against each opponent (half on each side)
+     * @param threads how many threads simulate battles
+     * @param seed decides every choice of the search
+     * @param matchupCache answers and remembers the matchups
+     */
+    public LoadoutOptimizer(List<CharacterBuild> meta, int battlesPerOpponent, int threads, long seed,
+            MatchupCache matchupCache) {
+        if (meta.isEmpty()) {
+            throw new IllegalArgumentException("The meta needs at least one build");
+        }
+        int[] metaIds = new int[meta.size()];
+        for (int i = 0; i < metaIds.length; i++) {
+            metaIds[i] = BuildId.of(meta.get(i));
+        }
+        Arrays.sort(metaIds);
+        int distinct = 0;
+        int[] ids = new int[metaIds.length];
+        int[] weights = new int[metaIds.length];
+        for (int i = 0; i < metaIds.length; i++) {
+            if (distinct == 0 || ids[distinct - 1] != metaIds[i]) {
+                ids[distinct++] = metaIds[i];
+            }
+            weights[distinct - 1]++;
+        }
+        this.opponentIds = Arrays.copyOf(ids, distinct);
+        this.opponentWeights = Arrays.copyOf(weights, distinct);
+        this.battlesPerOpponent = battlesPerOpponent;
+        this.matchupCache = matchupCache;
+        this.battlesBefore = matchupCache.getBattlesPlayed();
+        this.random = new Random(seed);
+        this.simulators = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "loadout-simulator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Arrays.fill(fitnessById, Double.NaN);
+        List<MagicItem> passives = AllMagicItems.getPassiveItems();
+        this.passiveItemIds = new int[passives.size()];
+        for (int i = 0; i < passiveItemIds.length; i++) {
+            passiveItemIds[i] = CharacterBuild.itemId(passives.get(i));
+        }
+    }
+
+    /**
+     * Runs the search.
+     *
+     * @param populationSize how many builds each generation holds
+     * @param generations how many generations to breed
+     * @param listener told about each generation, or null
+     * @return the last generation's build ids, best first
+     * @throws InterruptedException if interrupted while waiting for simulations
+     */
+    public int[] evolve(int populationSize, int generations, ProgressListener listener) throws InterruptedException {
+        int[] population = new int[populationSize];
+        for (int i = 0; i < populationSize; i++) {
+            population[i] = randomBuildId();
+        }
+        population = rank(population);
+        if (listener != null) {
+            listener.generationDone(0, population[0], fitness(population[0]));
+        }
+
+        for (int generation = 1; generation <= generations; generation++) {
+            int[] next = new int[populationSize];
+            int elites = Math.min(DEFAULT_ELITE_COUNT, populationSize);
+            System.arraycopy(population, 0, next, 0, elites);
+            for (int i = elites; i < populationSize; i++) {
+                int child = crossover(select(population), select(population));
+                next[i] = mutate(child);
+            }
+            population = rank(next);
+            if (listener != null) {
+                listener.generationDone(generation, population[0], fitness(population[0]));
+            }
+        }
+        return population;
+    }
+
+    /**
+     * Simulates every build not yet in the cache, in parallel, and sorts the
+     * builds by fitness, best first.
+     */
+    private int[] rank(int[] population) throws InterruptedException {
+        int[] sorted = population.clone();
+        Arrays.sort(sorted);
+        List<Integer> unknown = new ArrayList<>();
+        List<Future<double[]>> pending = new ArrayList<>();
+        for (int i = 0; i < sorted.length; i++) {
+            int id = sorted[i];
+            if (Double.isNaN(fitnessById[id]) && (i == 0 || sorted[i - 1] != id)) {
+                unknown.add(id);
+                pending.add(simulators.submit(() -> simulateMatchups(id)));
+            }
+        }
+        // Results are stored on this thread, so the caches need no locking
+        for (int i = 0; i < pending.size(); i++) {
+            try {
+                store(unknown.get(i), pending.get(i).get());
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Simulation failed", e.getCause());
+            }
+        }
+
+        int[] ranked = population.clone();
+        for (int i = 1; i < ranked.length; i++) {
+            int id = ranked[i];
+            int j = i - 1;
+            while (j >= 0 && fitnessById[ranked[j]] < fitnessById[id]) {
+                ranked[j + 1] = ranked[j];
+                j--;
+            }
+            ranked[j + 1] = id;
+        }
+        return ranked;
+    }
+
+    /**
+     * Returns a build's fitness, simulating it first if it is not cached.
+     * Call it from the thread that runs evolve().
+     *
+     * @param id the build id
+     * @return the build's win rate against the meta, from 0 to 1
+     */
+    public double fitness(int id) {
+        if (Double.isNaN(fitnessById[id])) {
+            store(id, simulateMatchups(id));
+        }
+        return fitnessById[id];
+    }
+
+    /**
+     * Returns a build's win rate against one opponent, or NaN if that matchup
+     * has not been simulated.
+     *
+     * @param id the build id
+     * @param opponentId the opponent's build id
+     */
+    public double matchupScore(int id, int opponentId) {
+        return matchupScores.get(BuildId.matchup(id, opponentId), Double.NaN);
+    }
+
+    /**
+     * Compares two builds against the meta with common random numbers (see
+     * BattleSimulator.compareWinRates()), weighting each opponent as fitness()
+     * does. A difference of more than about two standard errors means the
+     * first build really is better, or worse, and not just luckier. The
+     * battles are played on the calling thread and not cached.
+     *
+     * @param firstId the first build
+     * @param secondId the build to compare it with
+     * @param samples how many battles each build plays against each opponent
+     * @param seed the seed the battle streams are derived from
+     * @return the first build's fitness minus the second's, and the standard error of that difference
+     */
+    public double[] compare(int firstId, int secondId, int samples, long seed) {
+        CharacterBuild first = BuildId.toBuild(firstId, "A");
+        CharacterBuild second = BuildId.toBuild(secondId, "B");
+        double difference = 0;
+        double variance = 0;
+        int weight = 0;
+        for (int o = 0; o < opponentIds.length; o++) {
+            double[] result = BattleSimulator.compareWinRates(first, second, BuildId.toBuild(opponentIds[o], "C"),
+                    BattleSimulator.POLICY_RANDOM, samples, seed + opponentIds[o], false);
+            difference += result[0] * opponentWeights[o];
+            variance += result[1] * result[1] * opponentWeights[o] * opponentWeights[o];
+            weight += opponentWeights[o];
+        }
+        return new double[] {difference / weight, Math.sqrt(variance) / weight};
+    }
+
+    private void store(int id, double[] scores) {
+        double total = 0;
+        int weight = 0;
+        for (int o = 0; o < opponentIds.length; o++) {
+            matchupScores.put(BuildId.matchup(id, opponentIds[o]), scores[o]);
+            total += scores[o] * opponentWeights[o];
+            weight += opponentWeights[o];
+        }
+        fitnessById[id] = total / weight;
+        cachedBuildCount++;
+    }
+
+    /**
+     * Plays a build against every distinct meta build.
+     *
+     * @return the build's win rate against each opponent, in opponentIds order
+     */
+    private double[] simulateMatchups(int id) {
+        double[] scores = new double[opponentIds.length];
+        for (int o = 0; o < opponentIds.length; o++) {
+            scores[o] = matchupCache.winRate(id, opponentIds[o], BattleSimulator.POLICY_RANDOM,
+                    battlesPerOpponent);
+        }
+        return scores;
+    }
+
+    private int select(int[] ranked) {
+        // The population is sorted, so the best of k random positions is the smallest index
+        int best = random.nextInt(ranked.length);
+        for (int i = 1; i < DEFAULT_TOURNAMENT_SIZE; i++) {
+            best = Math.min(best, random.nextInt(ranked.length));
+        }
+        return ranked[best];
+    }
+
+    /**
+     * Mixes two builds: race, class with its abilities, extra ability and
+     * item are each taken from one parent or the other.
+     */
+    private int crossover(int a, int b) {
+        int race = BuildId.raceId(random.nextBoolean() ? a : b);
+        int classParent = random.nextBoolean() ? a : b;
+        int extra = BuildId.extraAbilityId(random.nextBoolean() ? a : b);
+        int item = BuildId.itemId(random.nextBoolean() ? a : b);
+        return repair(BuildId.of(race, BuildId.classId(classParent), BuildId.abilityMask(classParent), extra, item));
+    }
+
+    /**
+     * Changes one part of a build at random.
+     */
+    private int mutate(int id) {
+        int race = BuildId.raceId(id);
+        int classId = BuildId.classId(id);
+        int mask = BuildId.abilityMask(id);
+        int extra = BuildId.extraAbilityId(id);
+        int item = BuildId.itemId(id);
+        switch (random.nextInt(5)) {
+            case 0:
+                race = random.nextInt(Race.show_race_array().length);
+                break;
+            case 1:
+                classId = random.nextInt(AllAbilities.CLASS_NAMES.length);
+                mask = randomMask();
+                break;
+            case 2:
+                // Swap one chosen class ability for one not chosen
+                int[] chosen = bits(mask, true);
+                int[] unchosen = bits(mask, false);
+                mask ^= 1 << chosen[random.nextInt(chosen.length)] | 1 << unchosen[random.nextInt(unchosen.length)];
+                break;
+            case 3:
+                // repair() picks a new extra ability, if the race has the slot
+                extra = -1;
+                break;
+            default:
+                item = random.nextInt(passiveItemIds.length + 1) == 0 ? -1
+                        : passiveItemIds[random.nextInt(passiveItemIds.length)];
+                break;
+        }
+        return repair(BuildId.of(race, classId, mask, extra, item));
+    }
+
+    /**
+     * Makes a build legal. A race with the extra slot gets a random fourth
+     * ability if it has none, and any other race loses its fourth ability.
+     */
+    private int repair(int id) {
+        int race = BuildId.raceId(id);
+        int classId = BuildId.classId(id);
+        int mask = BuildId.abilityMask(id);
+        int extra = BuildId.extraAbilityId(id);
+        int item = BuildId.itemId(id);
+        int wanted = Race.show_race_array()[race].hasExtraAbilitySlot() ? 4 : 3;
+        if (Integer.bitCount(mask) >= wanted) {
+            extra = -1;
+        }
+        while (Integer.bitCount(mask) > wanted) {
+            int[] chosen = bits(mask, true);
+            mask &= ~(1 << chosen[random.nextInt(chosen.length)]);
+        }
+        while (!BuildId.isValid(BuildId.of(race, classId, mask, extra, item))) {
+            // Any ability not chosen yet; one of the class's own goes in the mask
+            int candidate = random.nextInt(ABILITY_COUNT);
+            int slot = CLASS_ABILITY_IDS.get(classId).indexOf(candidate);
+            if (slot < 0) {
+                extra = candidate;
+            } else if ((mask & 1 << slot) == 0) {
+                mask |= 1 << slot;
+                extra = -1;
+            }
+        }
+        return BuildId.of(race, classId, mask, extra, item);
+    }
+
+    private int randomBuildId() {
+        return BuildId.of(BattleSimulator.randomBuild(random, "Candidate"));
+    }
+
+    private int randomMask() {
+        int[] slots = {0, 1, 2, 3, 4};
+        int mask = 0;
+        for (int i = 0; i < 3; i++) {
+            int pick = i + random.nextInt(slots.length - i);
+            int slot = slots[pick];
+            slots[pick] = slots[i];
+            mask |= 1 << slot;
+        }
+        return mask;
+    }
+
+    private static int[] bits(int mask, boolean set) {
+        int[] result = new int[set ? Integer.bitCount(mask) : 5 - Integer.bitCount(mask)];
+        int next = 0;
+        for (int slot = 0; slot < 5; slot++) {
+            if (((mask & 1 << slot) != 0) == set) {
+                result[next++] = slot;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns how many different builds have been simulated.
+     */
+    public int getCachedBuildCount() {
+        return cachedBuildCount;
+    }
+
+    /**
+     * Returns how many battles the MatchupCache has played since the search
+     * started, not counting matchups it already knew. With a margin this is
+     * usually well below the battles per opponent times the matchups asked.
+     */
+    public long getBattlesSimulated() {
+        return matchupCache.getBattlesPlayed() - battlesBefore;
+    }
+
+    /**
+     * Stops the simulator threads.
+     */
+    public void shutdown() {
+        simulators.shutdown();
+    }
+}
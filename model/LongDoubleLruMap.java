@@ -0,0 +1,192 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * The LongDoubleLruMap class maps long keys (e.g. MatchupCache keys) to double
+ * values without boxing either, and holds at most a fixed number of them:
+ * adding one more forgets the least recently used.
+ *
+ * Entries sit in flat arrays and are chained in use order by the index of the
+ * previous and next entry, so moving an entry to the front is four array
+ * writes. A hash table of entry indexes, searched by linear probing, finds
+ * the entry for a key. Nothing is allocated after the constructor. Not
+ * thread-safe.
+ */
+public class LongDoubleLruMap {
+    private static final int NONE = -1;
+
+    private final int capacity;
+    private final long[] keys;
+    private final double[] values;
+    private final int[] older;
+    private final int[] newer;
+    // Entry index + 1 for each slot, or 0 for an empty slot
+    private final int[] table;
+    private final int mask;
+    private int size;
+    private int oldest = NONE;
+    private int newest = NONE;
+
+    /**
+     * @param capacity the most entries to hold
+     */
+    public LongDoubleLruMap(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        keys = new long[capacity];
+        values = new double[capacity];
+        older = new int[capacity];
+        newer = new int[capacity];
+        // At most half full, so probes stay short
+        int tableSize = Integer.highestOneBit(Math.max(4, capacity * 2 - 1)) << 1;
+        table = new int[tableSize];
+        mask = tableSize - 1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the value for a key and marks the key as the most recently used.
+     *
+     * @param key the key
+     * @param missing the value to return if the key is not in the map
+     * @return the value, or missing
+     */
+    public double get(long key, double missing) {
+        int entry = table[slotOf(key)] - 1;
+        if (entry < 0) {
+            return missing;
+        }
+        moveToNewest(entry);
+        return values[entry];
+    }
+
+    /**
+     * Sets the value for a key and marks the key as the most recently used.
+     * If the key is new and the map is full, the least recently used key is
+     * removed first.
+     */
+    public void put(long key, double value) {
+        int slot = slotOf(key);
+        int entry = table[slot] - 1;
+        if (entry >= 0) {
+            values[entry] = value;
+            moveToNewest(entry);
+            return;
+        }
+
+        if (size < capacity) {
+            entry = size++;
+        } else {
+            // Reuse the least recently used entry
+            entry = oldest;
+            unlink(entry);
+            removeSlot(slotOf(keys[entry]));
+            slot = slotOf(key);
+        }
+        keys[entry] = key;
+        values[entry] = value;
+        table[slot] = entry + 1;
+        linkNewest(entry);
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0);
+        size = 0;
+        oldest = NONE;
+        newest = NONE;
+    }
+
+    /**
+     * Copies every entry into two arrays, least recently used first, without
+     * changing the use order.
+     *
+     * @param keyOut receives the keys; at least size() long
+     * @param valueOut receives the values; at least size() long
+     */
+    public void copyTo(long[] keyOut, double[] valueOut) {
+        int i = 0;
+        for (int entry = oldest; entry != NONE; entry = newer[entry]) {
+            keyOut[i] = keys[entry];
+            valueOut[i] = values[entry];
+            i++;
+        }
+    }
+
+    private void moveToNewest(int entry) {
+        if (entry != newest) {
+            unlink(entry);
+            linkNewest(entry);
+        }
+    }
+
+    private void unlink(int entry) {
+        int before = older[entry];
+        int after = newer[entry];
+        if (before == NONE) {
+            oldest = after;
+        } else {
+            newer[before] = after;
+        }
+        if (after == NONE) {
+            newest = before;
+        } else {
+            older[after] = before;
+        }
+    }
+
+    private void linkNewest(int entry) {
+        older[entry] = newest;
+        newer[entry] = NONE;
+        if (newest == NONE) {
+            oldest = entry;
+        } else {
+            newer[newest] = entry;
+        }
+        newest = entry;
+    }
+
+    /**
+     * Returns the slot holding a key, or the empty slot where it would go.
+     */
+    private int slotOf(long key) {
+        int slot = hash(key) & mask;
+        while (table[slot] != 0 && keys[table[slot] - 1] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Empties a slot, moving back any later key of the same probe run that
+     * could no longer be found past the gap.
+     */
+    private void removeSlot(int slot) {
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (table[next] != 0) {
+            int home = hash(keys[table[next] - 1]) & mask;
+            // The key may move into the gap if the gap lies between its home slot and where it is
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                table[gap] = table[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        table[gap] = 0;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,522 @@
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The MappedRoster class is a roster backend (see RosterBackend) for very
+ * large ladders. Characters are stored as fixed-size 64-byte records in a
+ * memory-mapped file, with a hash index of their names in the same file, and
+ * every change is written in place: a win is one int, a new character one
+ * record. There is no journal to replay or compact, so opening a roster is one
+ * pass over its records, and saving a change never allocates.
+ *
+ * A deleted character's record goes on a free list and is reused by the next
+ * character created, so players coming and going do not grow the file.
+ * compact() moves the last records into any holes left, rebuilds the index and
+ * shrinks the file once it is mostly empty.
+ *
+ * Changes go to the mapping, which the operating system writes back on its
+ * own, so they survive the game crashing; compact() and close() force them
+ * to disk. Names must fit in MAX_NAME_BYTES bytes of UTF-8; GameModel refuses
+ * longer ones (see canStoreName()).
+ *
+ * Record layout (64 bytes):
+ *   - 0: status (0 = never used, 1 = in use, 2 = free)
+ *   - 1: race id, 2: class id, 3: equipped item id + 1 (0 for none)
+ *   - 4: player, or for a free record the next free record + 1 (0 for none)
+ *   - 8: name hash, 12: win count
+ *   - 16: ability bitmask (bit i = ability i of AllAbilities.getAllAbilities())
+ *   - 20: count of each magic item in the inventory, one byte per item
+ *   - 28: name length, 29: name as UTF-8 (up to 35 bytes)
+ *
+ * Because abilities are stored as a bitmask, they come back in the order of
+ * AllAbilities.getAllAbilities() rather than the order they were chosen in.
+ */
+public class MappedRoster extends RosterBackend {
+    private static final int MAGIC = 0x46465252; // "FFRR"
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 64;
+    public static final int MAX_NAME_BYTES = 35;
+    private static final int MAX_ITEM_TYPES = 8;
+    private static final int MIN_CAPACITY = 1024;
+
+    private static final byte IN_USE = 1;
+    private static final byte FREE = 2;
+
+    // Header fields
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 4;
+    private static final int H_CAPACITY = 8;
+    private static final int H_USED = 12;
+    private static final int H_FREE = 16;
+    private static final int H_LIVE = 20;
+
+    // Record fields
+    private static final int R_STATUS = 0;
+    private static final int R_RACE = 1;
+    private static final int R_CLASS = 2;
+    private static final int R_EQUIPPED = 3;
+    private static final int R_PLAYER = 4;
+    private static final int R_NEXT_FREE = 4;
+    private static final int R_HASH = 8;
+    private static final int R_WINS = 12;
+    private static final int R_ABILITIES = 16;
+    private static final int R_INVENTORY = 20;
+    private static final int R_NAME_LENGTH = 28;
+    private static final int R_NAME = 29;
+
+    private final File path;
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    // Records handed out so far, in use or free; records past this were never used
+    private int used;
+    // First free record + 1, or 0 if none is free
+    private int freeHead;
+    private int live;
+    private int indexStart;
+    private int indexMask;
+
+    /**
+     * Opens a roster file, creating it if it does not exist. The characters
+     * are loaded when a GameModel is built with it.
+     *
+     * @param path the roster file
+     * @throws IOException if the file cannot be opened or is not a roster file
+     */
+    public MappedRoster(File path) throws IOException {
+        if (AllMagicItems.getAllItems().size() > MAX_ITEM_TYPES || AllAbilities.getAllAbilities().size() > 32) {
+            throw new IllegalStateException("Too many items or abilities for the mapped roster's records");
+        }
+        boolean isNew = !path.exists() || path.length() == 0;
+        this.path = path;
+        this.file = new RandomAccessFile(path, "rw");
+        this.channel = file.getChannel();
+        if (isNew) {
+            map(MIN_CAPACITY);
+            buffer.putInt(H_MAGIC, MAGIC);
+            buffer.putInt(H_VERSION, VERSION);
+            buffer.putInt(H_CAPACITY, capacity);
+            writeCounts();
+        } else {
+            if (path.length() < HEADER_SIZE) {
+                close();
+                throw new IOException("Not a roster file: " + path);
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt(H_MAGIC) != MAGIC || header.getInt(H_VERSION) != VERSION
+                    || path.length() != fileSize(header.getInt(H_CAPACITY))) {
+                close();
+                throw new IOException("Not a roster file: " + path);
+            }
+            map(header.getInt(H_CAPACITY));
+            used = buffer.getInt(H_USED);
+            freeHead = buffer.getInt(H_FREE);
+            live = buffer.getInt(H_LIVE);
+        }
+    }
+
+    private static long fileSize(int capacity) {
+        return HEADER_SIZE + (long) capacity * RECORD_SIZE + (long) indexSize(capacity) * 4;
+    }
+
+    private static int indexSize(int capacity) {
+        // Keep the index at most half full
+        return Integer.highestOneBit(capacity) * 4;
+    }
+
+    private void map(int capacity) throws IOException {
+        if (fileSize(capacity) > Integer.MAX_VALUE) {
+            throw new IOException("Roster file cannot hold more than " + this.capacity + " characters");
+        }
+        this.capacity = capacity;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(capacity));
+        this.indexStart = HEADER_SIZE + capacity * RECORD_SIZE;
+        this.indexMask = indexSize(capacity) - 1;
+    }
+
+    private void writeCounts() {
+        buffer.putInt(H_USED, used);
+        buffer.putInt(H_FREE, freeHead);
+        buffer.putInt(H_LIVE, live);
+    }
+
+    private static int recordOffset(int record) {
+        return HEADER_SIZE + record * RECORD_SIZE;
+    }
+
+    private static int hashName(int player, String name) {
+        int h = GameModel.normalizeName(name).hashCode() * 31 + player;
+        // Spread the bits so nearby hashes land in different slots
+        h ^= (h >>> 16);
+        h *= 0x85ebca6b;
+        h ^= (h >>> 13);
+        return h;
+    }
+
+    // LOADING
+
+    @Override
+    void open(GameModel model) throws IOException {
+        for (int record = 0; record < used; record++) {
+            int offset = recordOffset(record);
+            if (buffer.get(offset + R_STATUS) == IN_USE) {
+                model.loadCharacter(buffer.getInt(offset + R_PLAYER), readCharacter(offset));
+            }
+        }
+        model.loadFinished();
+    }
+
+    private Character readCharacter(int offset) {
+        int abilities = buffer.getInt(offset + R_ABILITIES);
+        int[] abilityIds = new int[Integer.bitCount(abilities)];
+        for (int i = 0, id = 0; i < abilityIds.length; id++) {
+            if ((abilities & (1 << id)) != 0) {
+                abilityIds[i++] = id;
+            }
+        }
+        List<Integer> inventory = new ArrayList<>();
+        for (int id = 0; id < MAX_ITEM_TYPES; id++) {
+            int count = buffer.get(offset + R_INVENTORY + id) & 0xFF;
+            for (int i = 0; i < count; i++) {
+                inventory.add(id);
+            }
+        }
+        int[] inventoryIds = new int[inventory.size()];
+        for (int i = 0; i < inventoryIds.length; i++) {
+            inventoryIds[i] = inventory.get(i);
+        }
+
+        CharacterBuild build = new CharacterBuild(readName(offset), buffer.get(offset + R_RACE),
+                buffer.get(offset + R_CLASS), abilityIds, buffer.get(offset + R_EQUIPPED) - 1, inventoryIds);
+        Character character = build.toCharacter();
+        character.setWinCount(buffer.getInt(offset + R_WINS));
+        return character;
+    }
+
+    private String readName(int offset) {
+        byte[] bytes = new byte[buffer.get(offset + R_NAME_LENGTH)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(offset + R_NAME + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // CHANGES (made by GameModel while it holds the changed roster's lock)
+
+    @Override
+    boolean canStoreName(String name) {
+        return name.getBytes(StandardCharsets.UTF_8).length <= MAX_NAME_BYTES;
+    }
+
+    @Override
+    synchronized void logCreate(int player, Character character) {
+        if (!canStoreName(character.getName())) {
+            System.out.println("[Could not save roster change: name is too long: " + character.getName() + "]");
+            return;
+        }
+        int slot = findSlot(player, character.getName());
+        int record;
+        if (slot >= 0) {
+            // Already saved under this name; overwrite it
+            record = buffer.getInt(indexStart + slot * 4) - 1;
+            removeSlot(slot);
+        } else {
+            try {
+                record = allocate();
+            } catch (IOException e) {
+                System.out.println("[Could not save roster change: " + e.getMessage() + "]");
+                return;
+            }
+        }
+        writeRecord(record, player, character);
+        insertIndex(record);
+    }
+
+    @Override
+    synchronized void logEdit(int player, String oldName, Character character) {
+        int slot = findSlot(player, oldName);
+        if (slot < 0) {
+            return;
+        }
+        if (!canStoreName(character.getName())) {
+            System.out.println("[Could not save roster change: name is too long: " + character.getName() + "]");
+            return;
+        }
+        int record = buffer.getInt(indexStart + slot * 4) - 1;
+        removeSlot(slot);
+        writeRecord(record, player, character);
+        insertIndex(record);
+    }
+
+    @Override
+    synchronized void logDelete(int player, String name) {
+        int slot = findSlot(player, name);
+        if (slot < 0) {
+            return;
+        }
+        int record = buffer.getInt(indexStart + slot * 4) - 1;
+        removeSlot(slot);
+        int offset = recordOffset(record);
+        buffer.put(offset + R_STATUS, FREE);
+        buffer.putInt(offset + R_NEXT_FREE, freeHead);
+        freeHead = record + 1;
+        live--;
+        writeCounts();
+    }
+
+    @Override
+    synchronized void logWin(int player, String name) {
+        int offset = findRecord(player, name);
+        if (offset >= 0) {
+            buffer.putInt(offset + R_WINS, buffer.getInt(offset + R_WINS) + 1);
+        }
+    }
+
+    @Override
+    synchronized void logItemAwarded(int player, String name, MagicItem item) {
+        int offset = findRecord(player, name);
+        if (offset >= 0) {
+            int at = offset + R_INVENTORY + CharacterBuild.itemId(item);
+            int count = buffer.get(at) & 0xFF;
+            if (count < 255) {
+                buffer.put(at, (byte) (count + 1));
+            }
+        }
+    }
+
+    @Override
+    synchronized void logItemEquipped(int player, String name, MagicItem item) {
+        int offset = findRecord(player, name);
+        if (offset >= 0) {
+            buffer.put(offset + R_EQUIPPED, (byte) (CharacterBuild.itemId(item) + 1));
+        }
+    }
+
+    /**
+     * Changes are written straight to the mapping, so there is nothing left to write.
+     */
+    @Override
+    void writePending() {
+    }
+
+    /**
+     * Returns a record to write a new character to: the most recently freed
+     * one, or the next never-used one, growing the file if it is full.
+     */
+    private int allocate() throws IOException {
+        int record;
+        if (freeHead != 0) {
+            record = freeHead - 1;
+            freeHead = buffer.getInt(recordOffset(record) + R_NEXT_FREE);
+        } else {
+            if (used == capacity) {
+                resize(capacity * 2);
+            }
+            record = used++;
+        }
+        live++;
+        writeCounts();
+        return record;
+    }
+
+    private void writeRecord(int record, int player, Character character) {
+        CharacterBuild build = CharacterBuild.of(character);
+        byte[] name = character.getName().getBytes(StandardCharsets.UTF_8);
+        int offset = recordOffset(record);
+        int abilities = 0;
+        for (int id : build.getAbilityIds()) {
+            abilities |= 1 << id;
+        }
+        buffer.put(offset + R_STATUS, IN_USE);
+        buffer.put(offset + R_RACE, (byte) build.getRaceId());
+        buffer.put(offset + R_CLASS, (byte) build.getClassId());
+        buffer.put(offset + R_EQUIPPED, (byte) (build.getEquippedItemId() + 1));
+        buffer.putInt(offset + R_PLAYER, player);
+        buffer.putInt(offset + R_HASH, hashName(player, character.getName()));
+        buffer.putInt(offset + R_WINS, character.getWinCount());
+        buffer.putInt(offset + R_ABILITIES, abilities);
+        for (int i = 0; i < MAX_ITEM_TYPES; i++) {
+            buffer.put(offset + R_INVENTORY + i, (byte) 0);
+        }
+        for (int id : build.getInventoryIds()) {
+            int count = buffer.get(offset + R_INVENTORY + id) & 0xFF;
+            if (count < 255) {
+                buffer.put(offset + R_INVENTORY + id, (byte) (count + 1));
+            }
+        }
+        buffer.put(offset + R_NAME_LENGTH, (byte) name.length);
+        for (int i = 0; i < name.length; i++) {
+            buffer.put(offset + R_NAME + i, name[i]);
+        }
+    }
+
+    // NAME INDEX
+
+    private void insertIndex(int record) {
+        int slot = buffer.getInt(recordOffset(record) + R_HASH) & indexMask;
+        while (buffer.getInt(indexStart + slot * 4) != 0) {
+            slot = (slot + 1) & indexMask;
+        }
+        buffer.putInt(indexStart + slot * 4, record + 1);
+    }
+
+    /**
+     * Finds the index slot of a character.
+     *
+     * @return the slot, or -1 if the character is not saved
+     */
+    private int findSlot(int player, String name) {
+        int hash = hashName(player, name);
+        String key = GameModel.normalizeName(name);
+        int slot = hash & indexMask;
+        while (true) {
+            int entry = buffer.getInt(indexStart + slot * 4);
+            if (entry == 0) {
+                return -1;
+            }
+            int offset = recordOffset(entry - 1);
+            if (buffer.getInt(offset + R_HASH) == hash && buffer.getInt(offset + R_PLAYER) == player
+                    && GameModel.normalizeName(readName(offset)).equals(key)) {
+                return slot;
+            }
+            slot = (slot + 1) & indexMask;
+        }
+    }
+
+    /**
+     * Returns the offset of a character's record, or -1 if it is not saved.
+     */
+    private int findRecord(int player, String name) {
+        int slot = findSlot(player, name);
+        return slot < 0 ? -1 : recordOffset(buffer.getInt(indexStart + slot * 4) - 1);
+    }
+
+    /**
+     * Empties an index slot, moving back any later entry of the same probe
+     * run that could no longer be found past the gap.
+     */
+    private void removeSlot(int slot) {
+        int gap = slot;
+        int next = (gap + 1) & indexMask;
+        int entry;
+        while ((entry = buffer.getInt(indexStart + next * 4)) != 0) {
+            int home = buffer.getInt(recordOffset(entry - 1) + R_HASH) & indexMask;
+            // The entry may move into the gap if the gap lies between its home slot and where it is
+            if (((next - home) & indexMask) >= ((next - gap) & indexMask)) {
+                buffer.putInt(indexStart + gap * 4, entry);
+                gap = next;
+            }
+            next = (next + 1) & indexMask;
+        }
+        buffer.putInt(indexStart + gap * 4, 0);
+    }
+
+    private void rebuildIndex() {
+        for (int slot = 0; slot <= indexMask; slot++) {
+            buffer.putInt(indexStart + slot * 4, 0);
+        }
+        for (int record = 0; record < used; record++) {
+            if (buffer.get(recordOffset(record) + R_STATUS) == IN_USE) {
+                insertIndex(record);
+            }
+        }
+    }
+
+    /**
+     * Maps the file with room for a new number of records and rebuilds the
+     * index, which moves with the end of the records. The records stay where
+     * they are, so at least used records must fit.
+     */
+    private void resize(int newCapacity) throws IOException {
+        long oldSize = fileSize(capacity);
+        map(newCapacity);
+        buffer.putInt(H_CAPACITY, capacity);
+        rebuildIndex();
+        if (fileSize(capacity) < oldSize) {
+            channel.truncate(fileSize(capacity));
+        }
+    }
+
+    // COMPACTION
+
+    /**
+     * Moves the last records into the records freed by deletes, so the
+     * records in use are contiguous, and shrinks the file if fewer than a
+     * quarter of its records are in use.
+     *
+     * @throws IOException if the file cannot be resized
+     */
+    @Override
+    public synchronized void compact() throws IOException {
+        byte[] moved = new byte[RECORD_SIZE];
+        int low = 0;
+        int high = used - 1;
+        while (true) {
+            while (low < used && buffer.get(recordOffset(low) + R_STATUS) == IN_USE) {
+                low++;
+            }
+            while (high >= 0 && buffer.get(recordOffset(high) + R_STATUS) != IN_USE) {
+                high--;
+            }
+            if (low >= high) {
+                break;
+            }
+            buffer.position(recordOffset(high));
+            buffer.get(moved);
+            buffer.position(recordOffset(low));
+            buffer.put(moved);
+            buffer.put(recordOffset(high) + R_STATUS, (byte) 0);
+        }
+        used = live;
+        freeHead = 0;
+        writeCounts();
+
+        if (live < capacity / 4 && capacity > MIN_CAPACITY) {
+            resize(Math.max(MIN_CAPACITY, live * 2));
+        } else {
+            rebuildIndex();
+        }
+        buffer.force();
+    }
+
+    /**
+     * Returns how many bytes the roster file takes.
+     */
+    public synchronized long getFileSize() {
+        return fileSize(capacity);
+    }
+
+    public File getPath() {
+        return path;
+    }
+
+    /**
+     * Writes every change to disk and closes the roster file.
+     */
+    @Override
+    public synchronized void close() {
+        if (!channel.isOpen()) {
+            return;
+        }
+        try {
+            if (buffer != null) {
+                buffer.force();
+            }
+            channel.close();
+            file.close();
+        } catch (IOException e) {
+            System.out.println("[Could not close roster file: " + e.getMessage() + "]");
+        }
+    }
+}
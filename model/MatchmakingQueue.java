@@ -0,0 +1,382 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The MatchmakingQueue class pairs characters that want a battle with
+ * opponents of a similar rating. A character's rating is its win count.
+ *
+ * Waiting characters are kept in buckets by rating, each bucket a lock-free
+ * queue, so many threads can join at once without waiting for each other. A
+ * character that joins is put in its bucket and then paired straight away
+ * with the longest-waiting character in the closest bucket within the
+ * starting window. If there is none it waits, and its window widens the
+ * longer it waits, so it is paired with a less even opponent rather than not
+ * at all. Waiting characters are checked again by match(), which start() runs
+ * a few times a second.
+ *
+ * While a ticket looks for an opponent it is claimed, so nobody else pairs it
+ * at the same time. When two close tickets look at once, each would skip the
+ * other as claimed; instead the one that joined later waits for the other to
+ * finish looking, so two compatible characters joining together are always
+ * paired, with each other or with someone else.
+ *
+ * Pairings are reported to PairListeners, on the thread that made the pair.
+ */
+public class MatchmakingQueue {
+    public static final int DEFAULT_BUCKET_WIDTH = 1;
+    public static final int DEFAULT_INITIAL_WINDOW = 2;
+    public static final int DEFAULT_WIDEN_PER_SECOND = 2;
+    public static final int DEFAULT_MAX_WINDOW = 50;
+
+    // Ratings above the last bucket all share it
+    private static final int BUCKET_COUNT = 1024;
+    private static final long SWEEP_INTERVAL_MS = 100;
+    // How long take() busy-waits for a ticket that is looking before yielding;
+    // on one processor the other thread cannot finish while this one spins
+    private static final int MAX_SPINS = Runtime.getRuntime().availableProcessors() > 1 ? 100 : 0;
+
+    /**
+     * The PairListener interface is told about every pair made.
+     */
+    public interface PairListener {
+        void paired(Ticket first, Ticket second);
+    }
+
+    private static final int WAITING = 0;
+    private static final int CLAIMED = 1;
+    private static final int PAIRED = 2;
+    private static final int CANCELLED = 3;
+
+    /**
+     * The Ticket class is one character's place in the queue.
+     */
+    public static class Ticket {
+        private final int player;
+        private final Character character;
+        private final int rating;
+        private final long joinedAt;
+        // Order of joining, set once the ticket is in its bucket
+        private volatile long number = Long.MAX_VALUE;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        private volatile Ticket opponent;
+
+        Ticket(int player, Character character, int rating, long joinedAt) {
+            this.player = player;
+            this.character = character;
+            this.rating = rating;
+            this.joinedAt = joinedAt;
+        }
+
+        public int getPlayer() {
+            return player;
+        }
+
+        public Character getCharacter() {
+            return character;
+        }
+
+        public int getRating() {
+            return rating;
+        }
+
+        /**
+         * Returns the ticket this one was paired with, or null while waiting.
+         */
+        public Ticket getOpponent() {
+            return opponent;
+        }
+
+        public boolean isWaiting() {
+            return state.get() == WAITING || state.get() == CLAIMED;
+        }
+
+        boolean claim() {
+            return state.compareAndSet(WAITING, CLAIMED);
+        }
+    }
+
+    private final int bucketWidth;
+    private final int initialWindow;
+    private final int widenPerSecond;
+    private final int maxWindow;
+    private final List<Queue<Ticket>> buckets;
+    private final List<PairListener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicInteger waitingCount = new AtomicInteger();
+    private final AtomicLong pairCount = new AtomicLong();
+    private final AtomicLong nextTicket = new AtomicLong();
+    private ScheduledExecutorService sweeper;
+
+    public MatchmakingQueue() {
+        this(DEFAULT_BUCKET_WIDTH, DEFAULT_INITIAL_WINDOW, DEFAULT_WIDEN_PER_SECOND, DEFAULT_MAX_WINDOW);
+    }
+
+    /**
+     * @param bucketWidth how many ratings share a bucket
+     * @param initialWindow the largest rating difference allowed straight away
+     * @param widenPerSecond how much the allowed difference grows per second of waiting
+     * @param maxWindow the largest rating difference ever allowed
+     */
+    public MatchmakingQueue(int bucketWidth, int initialWindow, int widenPerSecond, int maxWindow) {
+        if (bucketWidth <= 0) {
+            throw new IllegalArgumentException("Bucket width must be positive");
+        }
+        this.bucketWidth = bucketWidth;
+        this.initialWindow = initialWindow;
+        this.widenPerSecond = widenPerSecond;
+        this.maxWindow = maxWindow;
+        this.buckets = new ArrayList<>(BUCKET_COUNT);
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.add(new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    public void addPairListener(PairListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removePairListener(PairListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Puts a character in the queue, rated by its win count, pairing it at
+     * once if an opponent is close enough in rating.
+     *
+     * @param player the player the character belongs to
+     * @param character the character looking for a battle
+     * @return the character's ticket; check getOpponent() or wait for a PairListener
+     */
+    public Ticket join(int player, Character character) {
+        return join(player, character, character.getWinCount());
+    }
+
+    /**
+     * Puts a character in the queue with a given rating, pairing it at once
+     * if an opponent is close enough in rating.
+     *
+     * @param player the player the character belongs to
+     * @param character the character looking for a battle
+     * @param rating the character's rating
+     * @return the character's ticket; check getOpponent() or wait for a PairListener
+     */
+    public Ticket join(int player, Character character, int rating) {
+        Ticket ticket = new Ticket(player, character, rating, System.nanoTime());
+        // Added before looking, so a character joining now finds this one if
+        // this one does not find it. Numbered after being added, so a ticket
+        // with a higher number looks only once this one is in its bucket.
+        waitingCount.incrementAndGet();
+        buckets.get(bucketOf(rating)).add(ticket);
+        ticket.number = nextTicket.getAndIncrement();
+        if (!ticket.claim()) {
+            // Already paired by a character that joined meanwhile, or being matched by match()
+            return ticket;
+        }
+        if (findOpponent(ticket, initialWindow)) {
+            waitingCount.decrementAndGet();
+        } else {
+            ticket.state.set(WAITING);
+        }
+        return ticket;
+    }
+
+    /**
+     * Takes a ticket out of the queue, unless it was already paired.
+     *
+     * @param ticket the ticket returned by join()
+     * @return true if the ticket left the queue
+     */
+    public boolean cancel(Ticket ticket) {
+        while (true) {
+            if (ticket.state.compareAndSet(WAITING, CANCELLED)) {
+                waitingCount.decrementAndGet();
+                return true;
+            }
+            if (ticket.state.get() != CLAIMED) {
+                return false;
+            }
+            // Being looked at by a pairing attempt, which either pairs it or lets go soon
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Tries again to pair every waiting character, using windows widened by
+     * how long each has waited. Also drops paired and cancelled tickets.
+     *
+     * @return the number of pairs made
+     */
+    public int match() {
+        long now = System.nanoTime();
+        int made = 0;
+        for (Queue<Ticket> bucket : buckets) {
+            Iterator<Ticket> tickets = bucket.iterator();
+            while (tickets.hasNext()) {
+                Ticket ticket = tickets.next();
+                if (ticket.state.get() == PAIRED || ticket.state.get() == CANCELLED) {
+                    tickets.remove();
+                    continue;
+                }
+                if (!ticket.claim()) {
+                    continue;
+                }
+                if (findOpponent(ticket, windowFor(ticket, now))) {
+                    waitingCount.decrementAndGet();
+                    tickets.remove();
+                    made++;
+                } else {
+                    ticket.state.set(WAITING);
+                }
+            }
+        }
+        return made;
+    }
+
+    /**
+     * Returns the largest rating difference a ticket accepts after waiting
+     * until now.
+     */
+    private int windowFor(Ticket ticket, long now) {
+        long waitedSeconds = TimeUnit.NANOSECONDS.toSeconds(now - ticket.joinedAt);
+        return (int) Math.min(maxWindow, initialWindow + waitedSeconds * widenPerSecond);
+    }
+
+    /**
+     * Looks for the closest waiting opponent within a window, nearest bucket
+     * first, and pairs the two. The ticket must be claimed by the caller.
+     *
+     * @return true if the ticket was paired
+     */
+    private boolean findOpponent(Ticket ticket, int window) {
+        int home = bucketOf(ticket.rating);
+        int reach = (window + bucketWidth - 1) / bucketWidth;
+        for (int distance = 0; distance <= reach; distance++) {
+            if (tryBucket(ticket, home - distance, window)) {
+                return true;
+            }
+            if (distance > 0 && tryBucket(ticket, home + distance, window)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean tryBucket(Ticket ticket, int index, int window) {
+        if (index < 0 || index >= BUCKET_COUNT) {
+            return false;
+        }
+        Iterator<Ticket> candidates = buckets.get(index).iterator();
+        while (candidates.hasNext()) {
+            Ticket candidate = candidates.next();
+            int state = candidate.state.get();
+            if (state == PAIRED || state == CANCELLED) {
+                candidates.remove();
+                continue;
+            }
+            if (candidate.player == ticket.player || candidate.character == ticket.character
+                    || Math.abs(candidate.rating - ticket.rating) > window) {
+                continue;
+            }
+            if (take(candidate, ticket)) {
+                candidates.remove();
+                waitingCount.decrementAndGet();
+                ticket.state.set(PAIRED);
+                if (candidate.number < ticket.number) {
+                    pair(candidate, ticket);
+                } else {
+                    pair(ticket, candidate);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Marks a candidate as paired with a ticket. If the candidate joined first
+     * and is looking for an opponent itself, waits until it is paired or
+     * waiting again, so two tickets looking at once never both skip each other.
+     *
+     * @return true if the candidate was taken
+     */
+    private static boolean take(Ticket candidate, Ticket ticket) {
+        int spins = 0;
+        while (!candidate.state.compareAndSet(WAITING, PAIRED)) {
+            if (candidate.state.get() != CLAIMED || candidate.number > ticket.number) {
+                return false;
+            }
+            if (++spins < MAX_SPINS) {
+                Thread.onSpinWait();
+            } else {
+                // The thread looking may not be running, e.g. with more threads than processors
+                Thread.yield();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reports a pair. The ticket that joined first comes first.
+     */
+    private void pair(Ticket first, Ticket second) {
+        first.opponent = second;
+        second.opponent = first;
+        pairCount.incrementAndGet();
+        for (PairListener listener : listeners) {
+            listener.paired(first, second);
+        }
+    }
+
+    private int bucketOf(int rating) {
+        return Math.min(Math.max(rating, 0) / bucketWidth, BUCKET_COUNT - 1);
+    }
+
+    /**
+     * Returns about how many characters are waiting.
+     */
+    public int getWaitingCount() {
+        return waitingCount.get();
+    }
+
+    /**
+     * Returns the number of pairs made so far.
+     */
+    public long getPairCount() {
+        return pairCount.get();
+    }
+
+    /**
+     * Starts calling match() in the background a few times a second.
+     */
+    public synchronized void start() {
+        if (sweeper != null) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "matchmaking");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::match, SWEEP_INTERVAL_MS, SWEEP_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the background matching started by start().
+     */
+    public synchronized void stop() {
+        if (sweeper != null) {
+            sweeper.shutdown();
+            sweeper = null;
+        }
+    }
+}
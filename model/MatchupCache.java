@@ -0,0 +1,363 @@
+package model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The MatchupCache class remembers the answer to "how often does build A beat
+ * build B?", keyed by the two BuildIds, the move policy and the number of
+ * battles played, so that tools asking the same question do not simulate it
+ * again.
+ *
+ * Battle seeds are derived from the key alone, so a matchup always has the
+ * same answer and answers can be saved to a file and loaded in a later run.
+ * The seed leaves out the first build, so every build facing the same
+ * opponent meets the same random streams (see RandomStreams) and their win
+ * rates differ by less luck than independent runs would.
+ *
+ * A cache may instead stop each matchup once its win rate is known to within
+ * a margin (see BattleSimulator.estimateWinRate()), treating the sample count
+ * as the most battles to play. Lopsided matchups then cost a few hundred
+ * battles instead of the whole budget. The margin is saved with the answers,
+ * and a file is only loaded by a cache with the same margin.
+ *
+ * The cache holds at most a fixed number of answers and forgets the least
+ * recently used one first. When several threads ask for the same missing
+ * answer at once, only one simulates it and the others wait for its result.
+ * All methods are thread-safe.
+ */
+public class MatchupCache {
+    public static final int DEFAULT_CAPACITY = 100000;
+    // The sample count must fit in the 24 bits it has in a key
+    public static final int MAX_SAMPLES = (1 << 24) - 1;
+
+    private static final byte[] MAGIC = {'F', 'F', 'M'};
+    private static final int VERSION = 1;
+
+    /**
+     * The Simulator interface plays a matchup; BattleSimulator.winRate() by default.
+     * The seed it is given is the same for every first build.
+     */
+    public interface Simulator {
+        double winRate(int firstId, int secondId, int policy, int samples, long seed);
+    }
+
+    private final int capacity;
+    private final double halfWidth;
+    private final Simulator simulator;
+    // Win rates by key, forgetting the least recently used; guarded by itself
+    private final LongDoubleLruMap results;
+    private final ConcurrentHashMap<Long, CompletableFuture<Double>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong waits = new AtomicLong();
+    private final AtomicLong battles = new AtomicLong();
+
+    public MatchupCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a cache that plays every matchup for the full sample count.
+     *
+     * @param capacity how many answers to keep
+     */
+    public MatchupCache(int capacity) {
+        this(capacity, 0);
+    }
+
+    /**
+     * @param capacity how many answers to keep
+     * @param halfWidth stop a matchup once the 95% interval around its win rate
+     *                  is no wider than this on each side, e.g. 0.03; or 0 to
+     *                  always play the full sample count
+     */
+    public MatchupCache(int capacity, double halfWidth) {
+        this(capacity, halfWidth, null);
+    }
+
+    /**
+     * @param capacity how many answers to keep
+     * @param simulator plays the matchups that are not cached
+     */
+    public MatchupCache(int capacity, Simulator simulator) {
+        this(capacity, 0, simulator);
+    }
+
+    private MatchupCache(int capacity, double halfWidth, Simulator simulator) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        if (!(halfWidth >= 0 && halfWidth < 0.5)) {
+            throw new IllegalArgumentException("Margin must be from 0 to 0.5: " + halfWidth);
+        }
+        this.capacity = capacity;
+        this.halfWidth = halfWidth;
+        this.results = new LongDoubleLruMap(capacity);
+        if (simulator != null) {
+            this.simulator = (firstId, secondId, policy, samples, seed) -> {
+                battles.addAndGet(samples);
+                return simulator.winRate(firstId, secondId, policy, samples, seed);
+            };
+        } else if (halfWidth > 0) {
+            this.simulator = this::estimate;
+        } else {
+            this.simulator = (firstId, secondId, policy, samples, seed) -> {
+                battles.addAndGet(samples);
+                return BattleSimulator.winRate(BuildId.toBuild(firstId, "A"), BuildId.toBuild(secondId, "B"),
+                        policy, samples, seed);
+            };
+        }
+    }
+
+    /**
+     * Plays a matchup until its win rate is known to within the margin.
+     */
+    private double estimate(int firstId, int secondId, int policy, int samples, long seed) {
+        WinRateEstimate estimate = BattleSimulator.estimateWinRate(BuildId.toBuild(firstId, "A"),
+                BuildId.toBuild(secondId, "B"), policy, halfWidth, samples, seed);
+        battles.addAndGet(estimate.getBattles());
+        return estimate.getWinRate();
+    }
+
+    /**
+     * Packs a question into a cache key.
+     *
+     * @param firstId the build whose win rate is wanted
+     * @param secondId its opponent
+     * @param policy one of the BattleSimulator POLICY_ constants
+     * @param samples how many battles to play
+     * @return the key
+     */
+    public static long key(int firstId, int secondId, int policy, int samples) {
+        if (firstId < 0 || firstId >= BuildId.LIMIT || secondId < 0 || secondId >= BuildId.LIMIT) {
+            throw new IllegalArgumentException("Not a build id: " + firstId + ", " + secondId);
+        }
+        if (policy < 0 || policy >= BattleSimulator.POLICY_COUNT) {
+            throw new IllegalArgumentException("Unknown policy: " + policy);
+        }
+        if (samples < 1 || samples > MAX_SAMPLES) {
+            throw new IllegalArgumentException("Sample count out of range: " + samples);
+        }
+        return (long) BuildId.matchup(firstId, secondId) & 0xFFFFFFFFL
+                | (long) policy << 32 | (long) samples << 40;
+    }
+
+    /**
+     * Returns the first build's win rate against the second, with a draw
+     * counting as half a win, simulating it if it is not cached.
+     *
+     * @param firstId the build whose win rate is wanted
+     * @param secondId its opponent
+     * @param policy one of the BattleSimulator POLICY_ constants
+     * @param samples how many battles to play, each build on side 1 for half of
+     *                them; with a margin, the most battles to play
+     * @return the win rate, from 0 to 1
+     */
+    public double winRate(int firstId, int secondId, int policy, int samples) {
+        long key = key(firstId, secondId, policy, samples);
+        double cached = lookup(key);
+        if (!Double.isNaN(cached)) {
+            hits.incrementAndGet();
+            return cached;
+        }
+
+        CompletableFuture<Double> mine = new CompletableFuture<>();
+        CompletableFuture<Double> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            waits.incrementAndGet();
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+
+        try {
+            // Another thread may have finished this key between the lookup and putIfAbsent
+            double result = lookup(key);
+            if (Double.isNaN(result)) {
+                misses.incrementAndGet();
+                result = simulator.winRate(firstId, secondId, policy, samples, commonSeed(key));
+                synchronized (results) {
+                    results.put(key, result);
+                }
+            } else {
+                hits.incrementAndGet();
+            }
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Returns a key with the first build left out.
+     */
+    private static long commonSeed(long key) {
+        return key & ~((long) (BuildId.LIMIT - 1) << 16);
+    }
+
+    /**
+     * Returns a cached win rate without simulating, or NaN if it is not cached.
+     */
+    public double peek(int firstId, int secondId, int policy, int samples) {
+        return lookup(key(firstId, secondId, policy, samples));
+    }
+
+    /**
+     * Returns a cached win rate, or NaN if it is not cached. A win rate is
+     * never NaN, so NaN can stand for "missing".
+     */
+    private double lookup(long key) {
+        synchronized (results) {
+            return results.get(key, Double.NaN);
+        }
+    }
+
+    public int size() {
+        synchronized (results) {
+            return results.size();
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the margin matchups are played to, or 0 if they are played for
+     * the full sample count.
+     */
+    public double getHalfWidth() {
+        return halfWidth;
+    }
+
+    /**
+     * Returns how many battles have been played to answer questions.
+     */
+    public long getBattlesPlayed() {
+        return battles.get();
+    }
+
+    /**
+     * Returns how many questions were answered from the cache.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns how many questions had to be simulated.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns how many questions waited for another thread simulating the same matchup.
+     */
+    public long getWaits() {
+        return waits.get();
+    }
+
+    public void clear() {
+        synchronized (results) {
+            results.clear();
+        }
+    }
+
+    // PERSISTENCE
+
+    /**
+     * Writes every cached answer to a file, least recently used first. The
+     * file is replaced only once the new one is completely written.
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void save(File file) throws IOException {
+        long[] keys;
+        double[] values;
+        synchronized (results) {
+            keys = new long[results.size()];
+            values = new double[results.size()];
+            results.copyTo(keys, values);
+        }
+
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(tempFile);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            out.writeDouble(halfWidth);
+            out.writeInt(keys.length);
+            for (int i = 0; i < keys.length; i++) {
+                out.writeLong(keys[i]);
+                out.writeDouble(values[i]);
+            }
+            out.flush();
+            stream.getFD().sync();
+        }
+        Files.move(tempFile.toPath(), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Adds the answers saved in a file to the cache. If the file holds more
+     * than the capacity, the most recently used ones are kept.
+     *
+     * @param file the file to read
+     * @return how many answers were read
+     * @throws IOException if the file cannot be read, is not a matchup cache, or
+     *         was saved by a cache with a different margin
+     */
+    public int load(File file) throws IOException {
+        List<long[]> entries = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a matchup cache");
+            }
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported matchup cache version: " + version);
+            }
+            double savedHalfWidth = in.readDouble();
+            if (savedHalfWidth != halfWidth) {
+                throw new IOException("Matchup cache was played to a margin of " + savedHalfWidth
+                        + ", not " + halfWidth);
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                entries.add(new long[] {in.readLong(), Double.doubleToRawLongBits(in.readDouble())});
+            }
+        }
+        synchronized (results) {
+            for (long[] entry : entries) {
+                results.put(entry[0], Double.longBitsToDouble(entry[1]));
+            }
+        }
+        return entries.size();
+    }
+}
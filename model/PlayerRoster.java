@@ -0,0 +1,108 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The PlayerRoster class holds one player's data in a GameModel: the player's
+ * characters, the name index over them, and the character the player picked
+ * for the next battle.
+ *
+ * Each roster has its own lock, so changes to different players' rosters do
+ * not wait for each other. Reads never lock: names are looked up in a
+ * concurrent map, and the character list is read from an immutable snapshot
+ * that each change publishes before it unlocks.
+ *
+ * Listener calls for a change are queued while the roster is locked and run
+ * after it is unlocked, one at a time and in the order the changes were made.
+ */
+class PlayerRoster {
+    private final int playerId;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<Character> characters = new ArrayList<>();
+    private final Map<String, Character> names = new ConcurrentHashMap<>();
+    private volatile List<Character> snapshot = Collections.emptyList();
+    private volatile Character selectedCharacter;
+    private final Queue<Runnable> events = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean delivering = new AtomicBoolean();
+
+    PlayerRoster(int playerId) {
+        this.playerId = playerId;
+    }
+
+    int getPlayerId() {
+        return playerId;
+    }
+
+    ReentrantLock getLock() {
+        return lock;
+    }
+
+    /**
+     * Returns the live list of characters. Only use while holding the lock.
+     */
+    List<Character> getCharacters() {
+        return characters;
+    }
+
+    /**
+     * Returns a read-only copy of the characters, as of the last change.
+     */
+    List<Character> getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Publishes a new snapshot of the list. Call while holding the lock, after
+     * changing the list.
+     */
+    void charactersChanged() {
+        snapshot = Collections.unmodifiableList(new ArrayList<>(characters));
+    }
+
+    Map<String, Character> getNames() {
+        return names;
+    }
+
+    Character getSelectedCharacter() {
+        return selectedCharacter;
+    }
+
+    void setSelectedCharacter(Character selectedCharacter) {
+        this.selectedCharacter = selectedCharacter;
+    }
+
+    /**
+     * Queues listener calls for a change. Call while holding the lock, so the
+     * queue is in the order the changes were made.
+     */
+    void queueEvent(Runnable event) {
+        events.add(event);
+    }
+
+    /**
+     * Runs the queued listener calls. Call after unlocking. If another thread
+     * is already running them, it also runs the ones queued here.
+     */
+    void deliverEvents() {
+        // Check the queue again after letting go, in case an event was queued
+        // just as the other thread finished
+        while (!events.isEmpty() && delivering.compareAndSet(false, true)) {
+            try {
+                Runnable event;
+                while ((event = events.poll()) != null) {
+                    event.run();
+                }
+            } finally {
+                delivering.set(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package model;
+
+/**
+ * The QuantileSketch class estimates quantiles (median, p90, ...) of a stream
+ * of non-negative whole numbers in a fixed amount of memory.
+ *
+ * Values below 64 are counted exactly. Above that, every power of two is split
+ * into 32 buckets, so an estimate is never more than about 3% above the true
+ * value, however many values are recorded. Not thread-safe.
+ */
+public class QuantileSketch {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKET_COUNT = SUB_BUCKET_COUNT / 2;
+
+    private final long[] counts = new long[SUB_BUCKET_COUNT + (32 - SUB_BUCKET_BITS) * HALF_SUB_BUCKET_COUNT];
+    private long totalCount;
+    private long totalValue;
+    private int maxValue;
+
+    /**
+     * Records a value.
+     *
+     * @param value the value; negative values count as 0
+     */
+    public void record(int value) {
+        int v = Math.max(value, 0);
+        counts[bucketOf(v)]++;
+        totalCount++;
+        totalValue += v;
+        maxValue = Math.max(maxValue, v);
+    }
+
+    /**
+     * Adds every value recorded in another sketch to this one.
+     */
+    public void add(QuantileSketch other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        totalValue += other.totalValue;
+        maxValue = Math.max(maxValue, other.maxValue);
+    }
+
+    public long getCount() {
+        return totalCount;
+    }
+
+    public int getMax() {
+        return maxValue;
+    }
+
+    public double getMean() {
+        return totalCount == 0 ? 0 : (double) totalValue / totalCount;
+    }
+
+    /**
+     * Returns the value that the given fraction of recorded values do not
+     * exceed.
+     *
+     * @param quantile the fraction, from 0 to 1 (e.g. 0.9 for p90)
+     * @return the estimate (the top of its bucket), or 0 if nothing was recorded
+     */
+    public int getValueAtQuantile(double quantile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long wanted = Math.max(1, (long) Math.ceil(quantile * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= wanted) {
+                return (int) Math.min(highestValueIn(i), maxValue);
+            }
+        }
+        return maxValue;
+    }
+
+    private static int bucketOf(int value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return value;
+        }
+        // Keep the top SUB_BUCKET_BITS bits of the value
+        int shift = 32 - Integer.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = value >>> shift;
+        return SUB_BUCKET_COUNT + (shift - 1) * HALF_SUB_BUCKET_COUNT + (subBucket - HALF_SUB_BUCKET_COUNT);
+    }
+
+    private static long highestValueIn(int bucket) {
+        if (bucket < SUB_BUCKET_COUNT) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKET_COUNT) / HALF_SUB_BUCKET_COUNT + 1;
+        long subBucket = (bucket - SUB_BUCKET_COUNT) % HALF_SUB_BUCKET_COUNT + HALF_SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,311 @@
+package model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The ReplayArchive class keeps every finished battle's replay in one replay
+ * file, so battles can be looked up later for disputes and analytics or
+ * watched again in the replay viewer.
+ *
+ * The replay file holds each replay as its length (a varint) followed by its
+ * bytes (see BattleReplay.writeTo()). Next to it, an index file holds one
+ * fixed-size entry per replay: where its bytes start, how long they are, how
+ * many rounds it has and who won. Listing the newest replays reads only the
+ * end of the index and the builds at the start of each listed replay, and a
+ * replay is decoded only when it is loaded, so the cost does not grow with the
+ * number of battles saved.
+ *
+ * A save appends the replay and then its index entry. If the two disagree
+ * when the archive is first used, e.g. after a crash between the writes, the
+ * index is rebuilt from the replay file, and a replay cut off at the end of
+ * the file is dropped. Saves from different battles are written one at a
+ * time, so replays never interleave in the file.
+ */
+public class ReplayArchive {
+    private static final byte[] INDEX_MAGIC = {'F', 'F', 'X'};
+    private static final int INDEX_VERSION = 1;
+    private static final int INDEX_HEADER_SIZE = INDEX_MAGIC.length + 1;
+    // Offset (8 bytes), length (4), rounds (4), winner (1)
+    private static final int ENTRY_SIZE = 17;
+
+    private final File file;
+    private final File indexFile;
+    private boolean indexChecked;
+
+    /**
+     * The Entry class describes one saved replay without decoding its rounds.
+     */
+    public static class Entry {
+        private final int number;
+        private final long offset;
+        private final int length;
+        private final int roundCount;
+        private final int winner;
+        private final CharacterBuild build1;
+        private final CharacterBuild build2;
+
+        Entry(int number, long offset, int length, int roundCount, int winner,
+                CharacterBuild build1, CharacterBuild build2) {
+            this.number = number;
+            this.offset = offset;
+            this.length = length;
+            this.roundCount = roundCount;
+            this.winner = winner;
+            this.build1 = build1;
+            this.build2 = build2;
+        }
+
+        /**
+         * Returns the replay's position in the archive, counting from 1 for
+         * the oldest.
+         */
+        public int getNumber() {
+            return number;
+        }
+
+        public int getRoundCount() {
+            return roundCount;
+        }
+
+        /**
+         * Returns the winner, as BattleReplay.getWinner() does.
+         *
+         * @return 1 or 2 for the winning player, 0 for a draw or an unfinished battle
+         */
+        public int getWinner() {
+            return winner;
+        }
+
+        /**
+         * Returns a player's build at the start of the battle.
+         *
+         * @param player 1 or 2
+         */
+        public CharacterBuild getBuild(int player) {
+            return player == 1 ? build1 : build2;
+        }
+    }
+
+    /**
+     * @param file the replay file, created on the first save; the index is
+     *             kept next to it, with ".idx" added to the name
+     */
+    public ReplayArchive(File file) {
+        this.file = file;
+        this.indexFile = new File(file.getPath() + ".idx");
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Appends a finished battle's replay to the file, then its index entry.
+     *
+     * @param replay the replay
+     * @throws IOException if the files cannot be written
+     */
+    public synchronized void save(BattleReplay replay) throws IOException {
+        checkIndex();
+        byte[] data = replay.toBytes();
+        ByteArrayOutputStream record = new ByteArrayOutputStream(data.length + 5);
+        DataOutputStream recordOut = new DataOutputStream(record);
+        VarInt.writeUnsigned(recordOut, data.length);
+        recordOut.write(data);
+
+        long offset = file.length() + record.size() - data.length;
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            record.writeTo(out);
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(indexFile, true)))) {
+            writeEntry(out, offset, data.length, replay.getRoundCount(), replay.getWinner());
+        }
+    }
+
+    /**
+     * Returns how many replays have been saved.
+     *
+     * @throws IOException if the files cannot be read or are corrupt
+     */
+    public synchronized int size() throws IOException {
+        checkIndex();
+        return entryCount();
+    }
+
+    /**
+     * Describes the newest saved replays.
+     *
+     * @param max the most replays to describe
+     * @return the replays, newest first, or none if nothing was saved yet
+     * @throws IOException if the files cannot be read or are corrupt
+     */
+    public synchronized List<Entry> newest(int max) throws IOException {
+        checkIndex();
+        int count = entryCount();
+        int shown = Math.min(max, count);
+        List<Entry> entries = new ArrayList<>(shown);
+        if (shown == 0) {
+            return entries;
+        }
+
+        byte[] raw = new byte[shown * ENTRY_SIZE];
+        try (RandomAccessFile index = new RandomAccessFile(indexFile, "r");
+                RandomAccessFile replays = new RandomAccessFile(file, "r")) {
+            index.seek(INDEX_HEADER_SIZE + (long) (count - shown) * ENTRY_SIZE);
+            index.readFully(raw);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw));
+            Entry[] oldestFirst = new Entry[shown];
+            for (int i = 0; i < shown; i++) {
+                long offset = in.readLong();
+                int length = in.readInt();
+                int roundCount = in.readInt();
+                int winner = in.readUnsignedByte();
+                replays.seek(offset);
+                CharacterBuild[] builds = BattleReplay.readBuilds(new DataInputStream(
+                        new BufferedInputStream(Channels.newInputStream(replays.getChannel()), 512)));
+                oldestFirst[i] = new Entry(count - shown + i + 1, offset, length, roundCount, winner,
+                        builds[0], builds[1]);
+            }
+            for (int i = shown - 1; i >= 0; i--) {
+                entries.add(oldestFirst[i]);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Reads and decodes one saved replay.
+     *
+     * @param entry the replay, as described by newest()
+     * @return the replay
+     * @throws IOException if the file cannot be read or the replay is corrupt
+     */
+    public synchronized BattleReplay load(Entry entry) throws IOException {
+        byte[] data = new byte[entry.length];
+        try (RandomAccessFile replays = new RandomAccessFile(file, "r")) {
+            replays.seek(entry.offset);
+            replays.readFully(data);
+        }
+        return BattleReplay.fromBytes(data);
+    }
+
+    private int entryCount() {
+        return indexFile.exists() ? (int) ((indexFile.length() - INDEX_HEADER_SIZE) / ENTRY_SIZE) : 0;
+    }
+
+    /**
+     * Rebuilds the index the first time the archive is used if it does not
+     * cover exactly the replays in the file.
+     */
+    private void checkIndex() throws IOException {
+        if (indexChecked) {
+            return;
+        }
+        if (!indexMatches()) {
+            rebuildIndex();
+        }
+        indexChecked = true;
+    }
+
+    private boolean indexMatches() throws IOException {
+        long fileLength = file.exists() ? file.length() : 0;
+        if (!indexFile.exists()) {
+            return false;
+        }
+        long indexLength = indexFile.length();
+        if (indexLength < INDEX_HEADER_SIZE || (indexLength - INDEX_HEADER_SIZE) % ENTRY_SIZE != 0) {
+            return false;
+        }
+        try (RandomAccessFile index = new RandomAccessFile(indexFile, "r")) {
+            byte[] magic = new byte[INDEX_MAGIC.length];
+            index.readFully(magic);
+            if (!Arrays.equals(magic, INDEX_MAGIC) || index.readUnsignedByte() != INDEX_VERSION) {
+                return false;
+            }
+            if (indexLength == INDEX_HEADER_SIZE) {
+                return fileLength == 0;
+            }
+            index.seek(indexLength - ENTRY_SIZE);
+            long offset = index.readLong();
+            int length = index.readInt();
+            return offset + length == fileLength;
+        }
+    }
+
+    /**
+     * Writes a new index by reading every replay in the file, and cuts off a
+     * replay left half-written at its end.
+     */
+    private void rebuildIndex() throws IOException {
+        File temp = new File(indexFile.getPath() + ".tmp");
+        long end = 0;
+        try (FileOutputStream stream = new FileOutputStream(temp);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+            out.write(INDEX_MAGIC);
+            out.writeByte(INDEX_VERSION);
+            if (file.exists()) {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                    while (true) {
+                        byte[] data;
+                        try {
+                            int length = VarInt.readInt(in);
+                            data = new byte[length];
+                            in.readFully(data);
+                        } catch (EOFException e) {
+                            break;
+                        }
+                        BattleReplay replay = BattleReplay.fromBytes(data);
+                        long offset = end + varIntSize(data.length);
+                        writeEntry(out, offset, data.length, replay.getRoundCount(), replay.getWinner());
+                        end = offset + data.length;
+                    }
+                }
+            }
+            out.flush();
+            stream.getFD().sync();
+        }
+        if (file.exists() && file.length() > end) {
+            System.out.println("[Dropped a replay cut off at the end of " + file + "]");
+            try (RandomAccessFile replays = new RandomAccessFile(file, "rw")) {
+                replays.setLength(end);
+            }
+        }
+        Files.move(temp.toPath(), indexFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeEntry(DataOutputStream out, long offset, int length, int roundCount, int winner)
+            throws IOException {
+        out.writeLong(offset);
+        out.writeInt(length);
+        out.writeInt(roundCount);
+        out.writeByte(winner);
+    }
+
+    private static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+}
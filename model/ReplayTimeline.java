@@ -0,0 +1,185 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * The ReplayTimeline class lets a replay viewer jump to any round without
+ * simulating the battle again from round 1.
+ *
+ * The battle is simulated once when the timeline is built. Every
+ * KEYFRAME_INTERVAL rounds a full snapshot of both characters is stored
+ * (a keyframe), and every other round only stores what changed since the
+ * round before it (a delta). Seeking to a round copies the nearest earlier
+ * keyframe and applies at most KEYFRAME_INTERVAL - 1 deltas, so the cost of a
+ * seek does not depend on how long the battle is.
+ */
+public class ReplayTimeline {
+    public static final int KEYFRAME_INTERVAL = 16;
+
+    // A state holds, for each player: HP, EP, single-use items left
+    private static final int STATE_SIZE = 6;
+
+    private final BattleReplay replay;
+    private final String[] moveNames1;
+    private final String[] moveNames2;
+    private final int[] keyframes;
+    private final int[] deltas;
+    private final int roundCount;
+
+    /**
+     * Builds the timeline by replaying the battle once.
+     *
+     * @param replay the replay to index
+     * @throws IllegalStateException if the replay does not match the battle rules
+     */
+    public ReplayTimeline(BattleReplay replay) {
+        this.replay = replay;
+        this.roundCount = replay.getRoundCount();
+        this.keyframes = new int[(roundCount / KEYFRAME_INTERVAL + 1) * STATE_SIZE];
+        this.deltas = new int[(roundCount + 1) * STATE_SIZE];
+
+        BattleReplayer replayer = new BattleReplayer(replay);
+        Character player1 = replayer.getBattle().getPlayer1();
+        Character player2 = replayer.getBattle().getPlayer2();
+        this.moveNames1 = moveNames(player1);
+        this.moveNames2 = moveNames(player2);
+
+        int[] previous = new int[STATE_SIZE];
+        int[] current = new int[STATE_SIZE];
+        capture(player1, player2, previous);
+        System.arraycopy(previous, 0, keyframes, 0, STATE_SIZE);
+
+        while (replayer.hasNextRound()) {
+            replayer.nextRound();
+            int round = replayer.getRound();
+            capture(player1, player2, current);
+            if (round % KEYFRAME_INTERVAL == 0) {
+                System.arraycopy(current, 0, keyframes, (round / KEYFRAME_INTERVAL) * STATE_SIZE, STATE_SIZE);
+            } else {
+                for (int i = 0; i < STATE_SIZE; i++) {
+                    deltas[round * STATE_SIZE + i] = current[i] - previous[i];
+                }
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+    }
+
+    private static String[] moveNames(Character player) {
+        int numAbilities = player.getAbilities().length;
+        String[] names = new String[numAbilities + 4];
+        for (int move = 1; move <= numAbilities + 3; move++) {
+            names[move] = Battle.getMoveName(player, move);
+        }
+        return names;
+    }
+
+    private static void capture(Character player1, Character player2, int[] state) {
+        state[0] = player1.getHP();
+        state[1] = player1.getEP();
+        state[2] = countSingleUseItems(player1);
+        state[3] = player2.getHP();
+        state[4] = player2.getEP();
+        state[5] = countSingleUseItems(player2);
+    }
+
+    private static int countSingleUseItems(Character player) {
+        int count = 0;
+        for (MagicItem item : player.getInventory()) {
+            if (item.isSingleUse()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the replay behind this timeline.
+     *
+     * @return the replay
+     */
+    public BattleReplay getReplay() {
+        return replay;
+    }
+
+    /**
+     * Returns the number of rounds in the battle.
+     *
+     * @return the number of rounds
+     */
+    public int getRoundCount() {
+        return roundCount;
+    }
+
+    /**
+     * Returns the state of both characters after a round.
+     *
+     * @param round the round to seek to, from 0 (before the first round) to getRoundCount()
+     * @return the state after the round
+     */
+    public Frame seek(int round) {
+        if (round < 0 || round > roundCount) {
+            throw new IndexOutOfBoundsException("Round " + round + " is not in this replay");
+        }
+        int keyframe = round / KEYFRAME_INTERVAL;
+        int[] state = Arrays.copyOfRange(keyframes, keyframe * STATE_SIZE, (keyframe + 1) * STATE_SIZE);
+        for (int r = keyframe * KEYFRAME_INTERVAL + 1; r <= round; r++) {
+            for (int i = 0; i < STATE_SIZE; i++) {
+                state[i] += deltas[r * STATE_SIZE + i];
+            }
+        }
+        String move1 = round == 0 ? null : moveNames1[replay.getMove(round, 1)];
+        String move2 = round == 0 ? null : moveNames2[replay.getMove(round, 2)];
+        return new Frame(round, state, move1, move2);
+    }
+
+    /**
+     * The Frame class is the state of a replayed battle after one round.
+     */
+    public static class Frame {
+        private final int round;
+        private final int[] state;
+        private final String move1;
+        private final String move2;
+
+        private Frame(int round, int[] state, String move1, String move2) {
+            this.round = round;
+            this.state = state;
+            this.move1 = move1;
+            this.move2 = move2;
+        }
+
+        public int getRound() {
+            return round;
+        }
+
+        /**
+         * Returns a player's HP after the round.
+         */
+        public int getHP(int player) {
+            return state[player == 1 ? 0 : 3];
+        }
+
+        /**
+         * Returns a player's EP after the round.
+         */
+        public int getEP(int player) {
+            return state[player == 1 ? 1 : 4];
+        }
+
+        /**
+         * Returns how many single-use items a player has left after the round.
+         */
+        public int getItemsLeft(int player) {
+            return state[player == 1 ? 2 : 5];
+        }
+
+        /**
+         * Returns the name of the move a player chose this round, or null for round 0.
+         */
+        public String getMove(int player) {
+            return player == 1 ? move1 : move2;
+        }
+    }
+}
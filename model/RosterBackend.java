@@ -0,0 +1,68 @@
+package model;
+
+import java.io.IOException;
+
+/**
+ * The RosterBackend class is what a GameModel saves its rosters through, so
+ * that characters survive a restart. There are two:
+ *   - RosterStore: a snapshot plus an append-only journal of changes
+ *   - MappedRoster: fixed-size records in a memory-mapped file, changed in place
+ *
+ * GameModel calls the log methods while it holds the changed roster's lock,
+ * in the order the changes were made, and writePending() once the lock is
+ * released. It is an abstract class rather than an interface so that these
+ * hooks stay package-private.
+ */
+public abstract class RosterBackend {
+
+    /**
+     * Loads the saved characters into the model, calls model.loadFinished()
+     * and starts saving its changes. Called once by the GameModel that owns
+     * this backend.
+     *
+     * @param model the model to load into
+     * @throws IOException if the saved characters cannot be read
+     */
+    abstract void open(GameModel model) throws IOException;
+
+    /**
+     * Checks that a character name can be saved. GameModel refuses to create
+     * or rename a character to a name that cannot.
+     *
+     * @param name the name
+     * @return true if the name can be saved
+     */
+    boolean canStoreName(String name) {
+        return true;
+    }
+
+    abstract void logCreate(int player, Character character);
+
+    abstract void logEdit(int player, String oldName, Character character);
+
+    abstract void logDelete(int player, String name);
+
+    abstract void logWin(int player, String name);
+
+    abstract void logItemAwarded(int player, String name, MagicItem item);
+
+    abstract void logItemEquipped(int player, String name, MagicItem item);
+
+    /**
+     * Finishes saving the changes logged so far. Once it returns, they are
+     * saved, by this thread or another one.
+     */
+    abstract void writePending();
+
+    /**
+     * Reclaims the space taken by deleted characters and old changes.
+     *
+     * @throws IOException if the files cannot be written
+     */
+    public abstract void compact() throws IOException;
+
+    /**
+     * Stops any background work and closes the files.
+     */
+    public abstract void close();
+}
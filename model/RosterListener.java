@@ -0,0 +1,33 @@
+package model;
+
+/**
+ * The RosterListener interface is told about changes to the players' rosters
+ * in a GameModel, so screens and indexes can update only what changed instead
+ * of rebuilding from the whole roster.
+ *
+ * Listeners are called after the roster is unlocked, on the thread that made
+ * the change or another thread changing the same roster, and should return
+ * quickly. Changes to one roster are reported one at a time, in the order they
+ * were made. The character may have changed again by the time a listener is
+ * called, so listeners should read its current state.
+ */
+public interface RosterListener {
+
+    /**
+     * Called after a character is added to a player's roster.
+     */
+    void characterAdded(int player, Character character);
+
+    /**
+     * Called after a character is removed from a player's roster.
+     */
+    void characterRemoved(int player, Character character);
+
+    /**
+     * Called after a character is edited (renamed, new abilities, items or wins).
+     *
+     * @param oldName the name before the change, which differs from the current
+     *                name only when the character was renamed
+     */
+    void characterChanged(int player, Character character, String oldName);
+}
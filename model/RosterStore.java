@@ -0,0 +1,473 @@
+package model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The RosterStore class saves every player's characters to disk so they survive
+ * a restart, as a snapshot and a journal (see RosterBackend).
+ *
+ * The store keeps two kinds of files in its directory:
+ *   - roster.snapshot: every character at some point in time, written in one go
+ *   - journal-N: every change made after snapshot N, appended one record at a time
+ *
+ * On startup the snapshot is loaded and the journals are replayed on top of it.
+ * Every change is one small record (create, edit, delete, win, item awarded,
+ * item equipped), so saving never rewrites the whole roster. A background thread
+ * compacts the store once the journal grows long: it writes a new snapshot,
+ * starts journal N+1 and deletes journal N, so restart time stays bounded.
+ * A half-written record at the end of a journal (e.g. after a crash) is dropped.
+ *
+ * Records are encoded while the GameModel holds the changed roster's lock, so
+ * they are queued in the order the changes were made, and written to disk by
+ * writePending() after the lock is released.
+ */
+public class RosterStore extends RosterBackend {
+    private static final byte[] SNAPSHOT_MAGIC = {'F', 'F', 'S'};
+    private static final byte[] JOURNAL_MAGIC = {'F', 'F', 'J'};
+    private static final int VERSION = 1;
+
+    public static final byte CREATE = 1;
+    public static final byte EDIT = 2;
+    public static final byte DELETE = 3;
+    public static final byte WIN = 4;
+    public static final byte ITEM_AWARDED = 5;
+    public static final byte ITEM_EQUIPPED = 6;
+
+    private static final int COMPACT_THRESHOLD = 1000;
+    private static final long COMPACT_CHECK_SECONDS = 30;
+
+    private final File directory;
+    private final File snapshotFile;
+    private GameModel model;
+    private long generation;
+    private DataOutputStream journal;
+    private int journalRecords;
+    // Encoded records waiting to be written, oldest first
+    private final Queue<byte[]> pending = new ConcurrentLinkedQueue<>();
+    private ScheduledExecutorService compactor;
+
+    /**
+     * Opens (or creates) a roster store in a directory.
+     *
+     * @param directory the directory holding the snapshot and journal files
+     * @throws IOException if the directory cannot be created
+     */
+    public RosterStore(File directory) throws IOException {
+        this.directory = directory;
+        this.snapshotFile = new File(directory, "roster.snapshot");
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create roster directory: " + directory);
+        }
+    }
+
+    /**
+     * Loads the saved characters into the model and starts journaling its changes.
+     * Called once by the GameModel that owns this store.
+     *
+     * @param model the model to load into
+     * @throws IOException if the files cannot be read
+     */
+    @Override
+    void open(GameModel model) throws IOException {
+        this.model = model;
+        generation = 0;
+        if (snapshotFile.exists()) {
+            readSnapshot();
+        }
+        // Journals older than the snapshot are leftovers from an interrupted compaction
+        deleteOldJournals();
+        long last = generation;
+        while (journalFile(last).exists()) {
+            journalRecords += replayJournal(journalFile(last));
+            last++;
+        }
+        // Keep appending to the newest journal
+        generation = Math.max(generation, last - 1);
+        journal = openJournal(journalFile(generation));
+        model.loadFinished();
+
+        compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "roster-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(this::compactIfNeeded,
+                COMPACT_CHECK_SECONDS, COMPACT_CHECK_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private File journalFile(long generation) {
+        return new File(directory, "journal-" + generation);
+    }
+
+    private void deleteOldJournals() {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith("journal-"));
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            try {
+                if (Long.parseLong(file.getName().substring("journal-".length())) < generation) {
+                    file.delete();
+                }
+            } catch (NumberFormatException e) {
+                // not one of ours
+            }
+        }
+    }
+
+    // JOURNAL RECORDS (queued by GameModel while it holds the roster's lock)
+
+    @Override
+    void logCreate(int player, Character character) {
+        append(CREATE, player, out -> CharacterBuild.of(character).writeTo(out));
+    }
+
+    @Override
+    void logEdit(int player, String oldName, Character character) {
+        append(EDIT, player, out -> {
+            VarInt.writeString(out, oldName);
+            CharacterBuild.of(character).writeTo(out);
+        });
+    }
+
+    @Override
+    void logDelete(int player, String name) {
+        append(DELETE, player, out -> VarInt.writeString(out, name));
+    }
+
+    @Override
+    void logWin(int player, String name) {
+        append(WIN, player, out -> VarInt.writeString(out, name));
+    }
+
+    @Override
+    void logItemAwarded(int player, String name, MagicItem item) {
+        append(ITEM_AWARDED, player, out -> {
+            VarInt.writeString(out, name);
+            VarInt.writeUnsigned(out, CharacterBuild.itemId(item));
+        });
+    }
+
+    @Override
+    void logItemEquipped(int player, String name, MagicItem item) {
+        append(ITEM_EQUIPPED, player, out -> {
+            VarInt.writeString(out, name);
+            VarInt.writeUnsigned(out, CharacterBuild.itemId(item) + 1);
+        });
+    }
+
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Encodes one record (the operation, player and payload) and queues it
+     * for writePending(). Nothing is written to disk here.
+     */
+    private void append(byte op, int player, RecordWriter payload) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+            DataOutputStream record = new DataOutputStream(bytes);
+            record.writeByte(op);
+            VarInt.writeUnsigned(record, player);
+            payload.write(record);
+            pending.add(bytes.toByteArray());
+        } catch (IOException e) {
+            System.out.println("[Could not save roster change: " + e.getMessage() + "]");
+        }
+    }
+
+    /**
+     * Writes the queued records to the journal, each as its length followed by
+     * the record. Called by GameModel after a change releases its roster lock;
+     * once it returns, that change is written, by this thread or another one.
+     * A failed write is reported but does not stop the game.
+     */
+    @Override
+    synchronized void writePending() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        if (journal == null) {
+            pending.clear();
+            return;
+        }
+        try {
+            byte[] record;
+            while ((record = pending.poll()) != null) {
+                VarInt.writeUnsigned(journal, record.length);
+                journal.write(record);
+                journalRecords++;
+            }
+            journal.flush();
+        } catch (IOException e) {
+            System.out.println("[Could not save roster change: " + e.getMessage() + "]");
+        }
+    }
+
+    // LOADING
+
+    private void readSnapshot() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)))) {
+            checkMagic(in, SNAPSHOT_MAGIC, "roster snapshot");
+            generation = VarInt.readUnsigned(in);
+            int players = VarInt.readInt(in);
+            for (int p = 0; p < players; p++) {
+                int player = VarInt.readInt(in);
+                int count = VarInt.readInt(in);
+                for (int i = 0; i < count; i++) {
+                    Character character = CharacterBuild.readFrom(in).toCharacter();
+                    character.setWinCount(VarInt.readInt(in));
+                    model.loadCharacter(player, character);
+                }
+            }
+        }
+    }
+
+    /**
+     * Replays one journal file into the model.
+     *
+     * @return the number of records replayed
+     */
+    private int replayJournal(File file) throws IOException {
+        int records = 0;
+        long goodLength;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            checkMagic(in, JOURNAL_MAGIC, "roster journal");
+            goodLength = JOURNAL_MAGIC.length + 1;
+            while (true) {
+                byte[] record;
+                int lengthBytes;
+                try {
+                    int length = VarInt.readInt(in);
+                    lengthBytes = varIntSize(length);
+                    record = new byte[length];
+                    in.readFully(record);
+                } catch (EOFException e) {
+                    break; // end of journal, or a record cut short by a crash
+                }
+                applyRecord(new DataInputStream(new ByteArrayInputStream(record)));
+                goodLength += lengthBytes + record.length;
+                records++;
+            }
+        }
+        // Drop a half-written record so new records are not appended after garbage
+        if (goodLength < file.length()) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(goodLength);
+            }
+        }
+        return records;
+    }
+
+    private static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private void applyRecord(DataInputStream in) throws IOException {
+        byte op = in.readByte();
+        int player = VarInt.readInt(in);
+        switch (op) {
+            case CREATE:
+                model.loadCharacter(player, CharacterBuild.readFrom(in).toCharacter());
+                break;
+            case EDIT: {
+                Character character = model.getCharacterByName(VarInt.readString(in), player);
+                CharacterBuild build = CharacterBuild.readFrom(in);
+                if (character != null) {
+                    model.loadEdit(player, character, build);
+                }
+                break;
+            }
+            case DELETE: {
+                Character character = model.getCharacterByName(VarInt.readString(in), player);
+                if (character != null) {
+                    model.unloadCharacter(player, character);
+                }
+                break;
+            }
+            case WIN: {
+                Character character = model.getCharacterByName(VarInt.readString(in), player);
+                if (character != null) {
+                    character.setWinCount(character.getWinCount() + 1);
+                }
+                break;
+            }
+            case ITEM_AWARDED: {
+                Character character = model.getCharacterByName(VarInt.readString(in), player);
+                MagicItem item = AllMagicItems.getAllItems().get(VarInt.readInt(in));
+                if (character != null) {
+                    character.addItemToInventory(item);
+                }
+                break;
+            }
+            case ITEM_EQUIPPED: {
+                Character character = model.getCharacterByName(VarInt.readString(in), player);
+                int id = VarInt.readInt(in) - 1;
+                if (character != null) {
+                    if (id < 0) {
+                        character.unequipItem();
+                    } else {
+                        character.setEquippedItem(AllMagicItems.getAllItems().get(id));
+                    }
+                }
+                break;
+            }
+            default:
+                throw new IOException("Unknown roster journal record: " + op);
+        }
+    }
+
+    /**
+     * Checks a file's magic bytes and version.
+     */
+    private static void checkMagic(DataInputStream in, byte[] expected, String what) throws IOException {
+        byte[] magic = new byte[expected.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, expected)) {
+            throw new IOException("Not a " + what);
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported " + what + " version: " + version);
+        }
+    }
+
+    private static DataOutputStream openJournal(File file) throws IOException {
+        boolean isNew = !file.exists() || file.length() == 0;
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+        if (isNew) {
+            out.write(JOURNAL_MAGIC);
+            out.writeByte(VERSION);
+            out.flush();
+        }
+        return out;
+    }
+
+    // COMPACTION
+
+    private void compactIfNeeded() {
+        if (journalRecords >= COMPACT_THRESHOLD) {
+            try {
+                compact();
+            } catch (IOException e) {
+                System.out.println("[Could not compact roster: " + e.getMessage() + "]");
+            }
+        }
+    }
+
+    /**
+     * Writes a new snapshot of every character and starts a new, empty journal.
+     *
+     * @throws IOException if the snapshot cannot be written
+     */
+    @Override
+    public void compact() throws IOException {
+        int[] playerIds;
+        CharacterBuild[][] builds;
+        int[][] wins;
+        long newGeneration;
+
+        // Capture the roster and switch journals together, so every change ends
+        // up either in the new snapshot or in the new journal, never both
+        model.lockAll();
+        try {
+            List<Integer> ids = model.getPlayerIds();
+            playerIds = new int[ids.size()];
+            builds = new CharacterBuild[ids.size()][];
+            wins = new int[ids.size()][];
+            for (int p = 0; p < ids.size(); p++) {
+                playerIds[p] = ids.get(p);
+                List<Character> characters = model.getCharactersForPlayer(playerIds[p]);
+                builds[p] = new CharacterBuild[characters.size()];
+                wins[p] = new int[characters.size()];
+                for (int i = 0; i < characters.size(); i++) {
+                    builds[p][i] = CharacterBuild.of(characters.get(i));
+                    wins[p][i] = characters.get(i).getWinCount();
+                }
+            }
+            synchronized (this) {
+                // Changes captured above that are still queued belong to the old journal
+                writePending();
+                newGeneration = generation + 1;
+                DataOutputStream next = openJournal(journalFile(newGeneration));
+                journal.close();
+                journal = next;
+                journalRecords = 0;
+            }
+        } finally {
+            model.unlockAll();
+        }
+
+        File tempFile = new File(directory, "roster.snapshot.tmp");
+        try (FileOutputStream file = new FileOutputStream(tempFile);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            out.write(SNAPSHOT_MAGIC);
+            out.writeByte(VERSION);
+            VarInt.writeUnsigned(out, newGeneration);
+            VarInt.writeUnsigned(out, builds.length);
+            for (int p = 0; p < builds.length; p++) {
+                VarInt.writeUnsigned(out, playerIds[p]);
+                VarInt.writeUnsigned(out, builds[p].length);
+                for (int i = 0; i < builds[p].length; i++) {
+                    builds[p][i].writeTo(out);
+                    VarInt.writeUnsigned(out, wins[p][i]);
+                }
+            }
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(tempFile.toPath(), snapshotFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        synchronized (this) {
+            long oldGeneration = generation;
+            generation = newGeneration;
+            journalFile(oldGeneration).delete();
+        }
+    }
+
+    /**
+     * Stops background compaction and closes the journal.
+     */
+    @Override
+    public synchronized void close() {
+        if (compactor != null) {
+            compactor.shutdown();
+        }
+        writePending();
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.out.println("[Could not close roster journal: " + e.getMessage() + "]");
+            }
+            journal = null;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The VarInt class reads and writes integers using a variable number of bytes.
+ * Each byte stores 7 bits of the value and uses its top bit to say whether
+ * another byte follows, so small numbers such as move choices take a single byte.
+ *
+ * Signed values (for example HP or EP changes) are first "zig-zag" encoded so that
+ * small negative numbers are also small: 0, -1, 1, -2, 2 become 0, 1, 2, 3, 4.
+ */
+public class VarInt {
+
+    private VarInt() {
+    }
+
+    /**
+     * Writes a non-negative value as a varint.
+     *
+     * @param out the output to write to
+     * @param value the value to write
+     * @throws IOException if the output cannot be written
+     */
+    public static void writeUnsigned(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**
+     * Reads a non-negative varint.
+     *
+     * @param in the input to read from
+     * @return the value read
+     * @throws IOException if the input ends early or the varint is too long
+     */
+    public static long readUnsigned(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Writes a signed value as a zig-zag varint.
+     *
+     * @param out the output to write to
+     * @param value the value to write
+     * @throws IOException if the output cannot be written
+     */
+    public static void writeSigned(DataOutput out, long value) throws IOException {
+        writeUnsigned(out, (value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Reads a signed zig-zag varint.
+     *
+     * @param in the input to read from
+     * @return the value read
+     * @throws IOException if the input ends early or the varint is too long
+     */
+    public static long readSigned(DataInput in) throws IOException {
+        long raw = readUnsigned(in);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    /**
+     * Reads a non-negative varint that must fit in an int.
+     *
+     * @param in the input to read from
+     * @return the value read
+     * @throws IOException if the value is too large or malformed
+     */
+    public static int readInt(DataInput in) throws IOException {
+        long value = readUnsigned(in);
+        if (value > Integer.MAX_VALUE) {
+            throw new IOException("Varint out of range: " + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Writes a string as a varint byte length followed by its UTF-8 bytes.
+     *
+     * @param out the output to write to
+     * @param text the string to write
+     * @throws IOException if the output cannot be written
+     */
+    public static void writeString(DataOutput out, String text) throws IOException {
+        byte[] bytes = text.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        writeUnsigned(out, bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a string written by writeString().
+     *
+     * @param in the input to read from
+     * @return the string read
+     * @throws IOException if the input ends early
+     */
+    public static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[readInt(in)];
+        in.readFully(bytes);
+        return new String(bytes, java.nio.charset.StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,133 @@
+package model;
+
+/**
+ * The WinRateEstimate class counts the results of a matchup as battles come
+ * in and says how well its win rate is known: a Wilson score interval, and
+ * the log likelihood ratio of a sequential probability ratio test (SPRT)
+ * between two candidate win rates. A draw counts as half a win.
+ */
+public class WinRateEstimate {
+    // z for a two-sided 95% confidence interval
+    private static final double Z_95 = 1.959964;
+
+    // SPRT outcomes
+    public static final int UNDECIDED = 0;
+    public static final int AT_MOST_LOWER = 1;
+    public static final int AT_LEAST_UPPER = 2;
+
+    private int battles;
+    private int wins;
+    private int draws;
+    private double logLikelihoodRatio;
+    private int decision = UNDECIDED;
+
+    /**
+     * Counts one battle.
+     *
+     * @param score 1 for a win, 0.5 for a draw, 0 for a loss
+     */
+    public void record(double score) {
+        battles++;
+        if (score == 1) {
+            wins++;
+        } else if (score == 0.5) {
+            draws++;
+        }
+    }
+
+    /**
+     * Counts one battle towards an SPRT of "the win rate is at most lower"
+     * against "the win rate is at least upper", and returns the decision
+     * once the ratio crosses a boundary. A draw moves the ratio halfway
+     * between a win and a loss.
+     *
+     * @param score 1 for a win, 0.5 for a draw, 0 for a loss
+     * @param lower the win rate of the first hypothesis
+     * @param upper the win rate of the second hypothesis, above lower
+     * @param alpha the chance of deciding AT_LEAST_UPPER when the rate is lower
+     * @param beta the chance of deciding AT_MOST_LOWER when the rate is upper
+     * @return UNDECIDED, AT_MOST_LOWER or AT_LEAST_UPPER
+     */
+    public int record(double score, double lower, double upper, double alpha, double beta) {
+        record(score);
+        logLikelihoodRatio += score * Math.log(upper / lower) + (1 - score) * Math.log((1 - upper) / (1 - lower));
+        if (decision == UNDECIDED) {
+            if (logLikelihoodRatio >= Math.log((1 - beta) / alpha)) {
+                decision = AT_LEAST_UPPER;
+            } else if (logLikelihoodRatio <= Math.log(beta / (1 - alpha))) {
+                decision = AT_MOST_LOWER;
+            }
+        }
+        return decision;
+    }
+
+    public int getBattles() {
+        return battles;
+    }
+
+    public int getWins() {
+        return wins;
+    }
+
+    public int getDraws() {
+        return draws;
+    }
+
+    public int getLosses() {
+        return battles - wins - draws;
+    }
+
+    public double getWinRate() {
+        return battles == 0 ? 0 : (wins + draws * 0.5) / battles;
+    }
+
+    /**
+     * Returns the 95% Wilson score interval around the win rate.
+     */
+    public double[] getInterval() {
+        return interval(getWinRate(), battles);
+    }
+
+    /**
+     * Returns half the width of the 95% Wilson score interval.
+     */
+    public double getHalfWidth() {
+        double[] interval = getInterval();
+        return (interval[1] - interval[0]) / 2;
+    }
+
+    /**
+     * Returns the SPRT decision, or UNDECIDED if no test was run or it has not finished.
+     */
+    public int getDecision() {
+        return decision;
+    }
+
+    public double getLogLikelihoodRatio() {
+        return logLikelihoodRatio;
+    }
+
+    /**
+     * Returns the 95% Wilson score interval around a win rate.
+     *
+     * @param p the observed win rate
+     * @param battles how many battles it was observed over
+     * @return the lower and upper bound
+     */
+    public static double[] interval(double p, long battles) {
+        if (battles == 0) {
+            return new double[] {0, 1};
+        }
+        double n = battles;
+        double z2 = Z_95 * Z_95;
+        double centre = (p + z2 / (2 * n)) / (1 + z2 / n);
+        double margin = Z_95 * Math.sqrt(p * (1 - p) / n + z2 / (4 * n * n)) / (1 + z2 / n);
+        return new double[] {Math.max(0, centre - margin), Math.min(1, centre + margin)};
+    }
+
+    @Override
+    public String toString() {
+        double[] interval = getInterval();
+        return String.format("%.3f [%.3f, %.3f] over %d battles", getWinRate(), interval[0], interval[1], battles);
+    }
+}
@@ -7,7 +7,7 @@ import java.awt.event.ActionListener;
 import java.util.ArrayList;
 import java.util.List;
 
-public class AbilitySelectionView extends JFrame {
+public class AbilitySelectionView extends Screen {
     private JPanel mainPanel;
     private JPanel abilityPanel;
     private List<JCheckBox> abilityCheckboxes;
@@ -19,7 +19,6 @@ public class AbilitySelectionView extends JFrame {
         super("Select Abilities - " + characterClass);
         this.abilityCheckboxes = new ArrayList<>();
         initComponents();
-        setFrame();
     }
 
     private void initComponents() {
@@ -56,12 +55,6 @@ public class AbilitySelectionView extends JFrame {
         add(mainPanel);
     }
 
-    private void setFrame() {
-        setSize(400, 500);
-        setLocationRelativeTo(null);
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-    }
-
     public void setCurrentAbilities(List<Ability> abilities) {
         this.currentAbilities = abilities;
         updateAbilityCheckboxes();
@@ -4,7 +4,7 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 
-public class ActualEditCharacterView extends JFrame {
+public class ActualEditCharacterView extends Screen {
 
     private JLabel title;
     
@@ -12,6 +12,7 @@ public class ActualEditCharacterView extends JFrame {
     private JButton detailsButton;
     private JButton ManageButton;
     private JButton EditAbilitiesButton;
+    private JButton renameButton;
 
     public ActualEditCharacterView() {
         super("Edit Character");
@@ -27,6 +28,7 @@ public class ActualEditCharacterView extends JFrame {
         detailsButton = new JButton("View Details");
         ManageButton = new JButton("Manage Equipment");
         EditAbilitiesButton = new JButton("Edit Abilities");
+        renameButton = new JButton("Rename");
 
         finishButton.setBackground(new Color(138, 3, 3));
         finishButton.setForeground(Color.WHITE);
@@ -36,6 +38,10 @@ public class ActualEditCharacterView extends JFrame {
         EditAbilitiesButton.setMargin(new Insets(20, 20, 20, 20));
 
         detailsButton.setBackground(new Color(138, 3, 3));
+        renameButton.setBackground(new Color(138, 3, 3));
+        renameButton.setForeground(Color.WHITE);
+        renameButton.setFont(new Font("Serif", Font.BOLD, 16));
+        renameButton.setMargin(new Insets(20, 20, 20, 20));
         ManageButton.setBackground(new Color(138, 3, 3));
         EditAbilitiesButton.setBackground(new Color(138, 3, 3));
         detailsButton.setForeground(Color.WHITE);
@@ -61,16 +67,13 @@ public class ActualEditCharacterView extends JFrame {
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 20, 30));
         
         buttonPanel.add(EditAbilitiesButton);
+        buttonPanel.add(renameButton);
         buttonPanel.add(ManageButton);
         buttonPanel.add(detailsButton);
         buttonPanel.add(finishButton);
 
         add(buttonPanel, BorderLayout.CENTER);
         
-        setSize(600, 400);
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setLocationRelativeTo(null);
-        setResizable(false);
     }
 
     public void setEditAbilitiesListener(ActionListener listener) {
@@ -85,6 +88,10 @@ public class ActualEditCharacterView extends JFrame {
         detailsButton.addActionListener(listener);
     }
 
+    public void setRenameListener(ActionListener listener) {
+        renameButton.addActionListener(listener);
+    }
+
     public void setBackListener(ActionListener listener) {
         finishButton.addActionListener(listener);
     }
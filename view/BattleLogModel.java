@@ -0,0 +1,346 @@
+package view;
+
+import javax.swing.*;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The BattleLogModel class holds the lines of the battle log shown in BattleView.
+ *
+ * Only the newest lines (up to the capacity) are kept in memory, in a ring
+ * buffer, so a long battle does not make the log grow without limit. Lines that
+ * fall out of the buffer are written to a temporary file, which lets
+ * exportTo() still save the whole battle. The file is written on a background
+ * thread, so adding lines on the Event Dispatch Thread never waits for the disk.
+ *
+ * append() may be called from any thread. Lines are queued and added to the
+ * list together at most once per frame, so many appends in a row cause one
+ * repaint instead of one per line. At most a capacity's worth of lines are
+ * queued: a thread appending faster than the screen takes them waits.
+ */
+public class BattleLogModel extends AbstractListModel<BattleLogModel.Entry> {
+    private static final long serialVersionUID = 1L;
+
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    // About one frame at 60 frames per second
+    private static final int FLUSH_DELAY_MS = 16;
+
+    private final Entry[] entries;
+    private int head;
+    private int size;
+    private long nextNumber = 1;
+
+    // One thread writes old lines for every log, so each log's lines stay in order
+    private static final ExecutorService SPILL_WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "battle-log-spill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final List<String> pending = new ArrayList<>();
+    private boolean flushRequested;
+    private final Timer flushTimer;
+    private Runnable flushListener;
+
+    // Only used on the SPILL_WRITER thread
+    private File spillFile;
+    private Writer spillWriter;
+
+    public BattleLogModel() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public BattleLogModel(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.entries = new Entry[capacity];
+        this.flushTimer = new Timer(FLUSH_DELAY_MS, e -> flush());
+        this.flushTimer.setRepeats(false);
+        this.flushTimer.setCoalesce(true);
+    }
+
+    /**
+     * Queues text to be added to the log. Text with several lines becomes
+     * several entries; a newline at the end only ends the last one.
+     *
+     * @param text the text to add
+     */
+    public void append(String text) {
+        boolean onEventThread = SwingUtilities.isEventDispatchThread();
+        String[] lines = text.split("\n", -1);
+        int count = text.endsWith("\n") ? lines.length - 1 : lines.length;
+        for (int l = 0; l < count; l++) {
+            String line = lines[l];
+            if (onEventThread && isQueueFull()) {
+                // The queue cannot be emptied by waiting on the thread that empties it
+                flush();
+            }
+            boolean first;
+            synchronized (pending) {
+                while (pending.size() >= entries.length && !onEventThread) {
+                    if (!flushRequested) {
+                        // Don't wait for the timer: the lines are ready now
+                        flushRequested = true;
+                        SwingUtilities.invokeLater(this::flush);
+                    }
+                    try {
+                        pending.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                first = pending.isEmpty();
+                pending.add(line);
+            }
+            if (first) {
+                // Later lines join the flush this one schedules
+                if (onEventThread) {
+                    startFlushTimer();
+                } else {
+                    SwingUtilities.invokeLater(this::startFlushTimer);
+                }
+            }
+        }
+    }
+
+    private boolean isQueueFull() {
+        synchronized (pending) {
+            return pending.size() >= entries.length;
+        }
+    }
+
+    private void startFlushTimer() {
+        // Not restart(): a steady stream of appends would keep pushing the flush back
+        if (!flushTimer.isRunning()) {
+            flushTimer.start();
+        }
+    }
+
+    /**
+     * Sets a listener that is run on the Event Dispatch Thread after queued
+     * lines have been added, e.g. to scroll to the newest line.
+     */
+    public void setFlushListener(Runnable listener) {
+        this.flushListener = listener;
+    }
+
+    /**
+     * Adds every queued line to the list now. Must be called on the Event
+     * Dispatch Thread.
+     */
+    public void flush() {
+        String[] lines;
+        synchronized (pending) {
+            flushRequested = false;
+            if (pending.isEmpty()) {
+                return;
+            }
+            lines = pending.toArray(new String[0]);
+            pending.clear();
+            pending.notifyAll();
+        }
+
+        int capacity = entries.length;
+        int added = Math.min(lines.length, capacity);
+        int evicted = Math.max(0, size + added - capacity);
+        List<String> old = new ArrayList<>(evicted + lines.length - added);
+
+        for (int i = 0; i < evicted; i++) {
+            old.add(entries[head].getText());
+            entries[head] = null;
+            head = (head + 1) % capacity;
+        }
+        // Lines that would be pushed out straight away go to the file only
+        for (int i = 0; i < lines.length - added; i++) {
+            old.add(lines[i]);
+            nextNumber++;
+        }
+        if (!old.isEmpty()) {
+            SPILL_WRITER.execute(() -> spill(old));
+        }
+        size -= evicted;
+        if (evicted > 0) {
+            fireIntervalRemoved(this, 0, evicted - 1);
+        }
+
+        int first = size;
+        for (int i = lines.length - added; i < lines.length; i++) {
+            entries[(head + size) % capacity] = new Entry(nextNumber++, lines[i]);
+            size++;
+        }
+        fireIntervalAdded(this, first, size - 1);
+
+        if (flushListener != null) {
+            flushListener.run();
+        }
+    }
+
+    /**
+     * Removes every line, including lines that were saved to the temporary file.
+     */
+    public void clear() {
+        synchronized (pending) {
+            pending.clear();
+            pending.notifyAll();
+        }
+        flushTimer.stop();
+        int oldSize = size;
+        for (int i = 0; i < size; i++) {
+            entries[(head + i) % entries.length] = null;
+        }
+        head = 0;
+        size = 0;
+        nextNumber = 1;
+        SPILL_WRITER.execute(this::closeSpillFile);
+        if (oldSize > 0) {
+            fireIntervalRemoved(this, 0, oldSize - 1);
+        }
+    }
+
+    /**
+     * Prepares to write the whole log, including lines no longer kept in
+     * memory, to a file. Must be called on the Event Dispatch Thread, which it
+     * does not block: it copies the lines kept in memory, and the returned
+     * task writes the file. Run the task on another thread, e.g. a SwingWorker.
+     *
+     * @param file the file to write
+     * @return the task, which throws an IOException if the file cannot be written
+     */
+    public Callable<Void> exportTo(File file) {
+        flush();
+        String[] kept = new String[size];
+        for (int i = 0; i < size; i++) {
+            kept[i] = getElementAt(i).getText();
+        }
+
+        return () -> writeExport(file, kept);
+    }
+
+    private Void writeExport(File file, String[] kept) throws IOException {
+        // Written by the spill thread, after the old lines it is still writing
+        Future<?> export = SPILL_WRITER.submit(() -> {
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+                if (spillFile != null) {
+                    spillWriter.flush();
+                    try (Reader in = new InputStreamReader(new FileInputStream(spillFile), StandardCharsets.UTF_8)) {
+                        char[] buffer = new char[8192];
+                        int read;
+                        while ((read = in.read(buffer)) != -1) {
+                            out.write(buffer, 0, read);
+                        }
+                    }
+                }
+                for (String line : kept) {
+                    out.write(line);
+                    out.write(System.lineSeparator());
+                }
+            }
+            return null;
+        });
+        try {
+            export.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Export interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+        return null;
+    }
+
+    private void spill(List<String> lines) {
+        try {
+            if (spillWriter == null) {
+                spillFile = File.createTempFile("battle-log", ".txt");
+                spillFile.deleteOnExit();
+                spillWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(spillFile), StandardCharsets.UTF_8));
+            }
+            for (String line : lines) {
+                spillWriter.write(line);
+                spillWriter.write(System.lineSeparator());
+            }
+        } catch (IOException e) {
+            System.out.println("[Could not save old battle log lines: " + e.getMessage() + "]");
+        }
+    }
+
+    private void closeSpillFile() {
+        if (spillWriter != null) {
+            try {
+                spillWriter.close();
+            } catch (IOException e) {
+                // The file is deleted below anyway
+            }
+            spillFile.delete();
+            spillWriter = null;
+            spillFile = null;
+        }
+    }
+
+    /**
+     * Returns the number of lines kept in memory.
+     */
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public Entry getElementAt(int index) {
+        return entries[(head + index) % entries.length];
+    }
+
+    /**
+     * Returns the number of lines added since the log was last cleared,
+     * including lines no longer kept in memory.
+     */
+    public long getTotalLines() {
+        return nextNumber - 1;
+    }
+
+    public int getCapacity() {
+        return entries.length;
+    }
+
+    /**
+     * The Entry class is one line of the battle log.
+     */
+    public static class Entry {
+        private final long number;
+        private final String text;
+
+        public Entry(long number, String text) {
+            this.number = number;
+            this.text = text;
+        }
+
+        /**
+         * Returns the line number in the whole battle, starting at 1.
+         */
+        public long getNumber() {
+            return number;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+}
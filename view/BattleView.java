@@ -3,29 +3,42 @@ package view;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionListener;
+import java.io.File;
+import java.util.concurrent.Callable;
 
-public class BattleView extends JFrame {
+public class BattleView extends Screen {
 
-    private JTextArea battleLog;
+    private BattleLogModel battleLogModel;
+    private JList<BattleLogModel.Entry> battleLog;
+    private JButton exportLogButton;
+    private JComboBox<String> speedCombo;
+    private JButton autoPlayButton;
     private JButton confirmButton;
     private JComboBox<String> player1MoveCombo;
     private JComboBox<String> player2MoveCombo;
     private JLabel player1Stats;
     private JLabel player2Stats;
+    private JLabel player1MoveLabel;
+    private JLabel player2MoveLabel;
 
     public BattleView() {
         setTitle("Battle Phase");
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setSize(700, 500);
-        setLocationRelativeTo(null);
         setLayout(new BorderLayout());
 
-        // Battle Log
-        battleLog = new JTextArea();
-        battleLog.setEditable(false);
-        JScrollPane logScrollPane = new JScrollPane(battleLog);
-        logScrollPane.setBorder(BorderFactory.createTitledBorder("Battle Log"));
-        add(logScrollPane, BorderLayout.CENTER);
+        // Battle Log: a list only lays out the lines that are on screen
+        battleLogModel = new BattleLogModel();
+        battleLog = new JList<>(battleLogModel);
+        battleLog.setPrototypeCellValue(new BattleLogModel.Entry(0, "Prototype line"));
+        battleLog.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        battleLogModel.setFlushListener(() -> battleLog.ensureIndexIsVisible(battleLogModel.getSize() - 1));
+        exportLogButton = new JButton("Export Log");
+        JPanel exportPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        exportPanel.add(exportLogButton);
+        JPanel logPanel = new JPanel(new BorderLayout());
+        logPanel.setBorder(BorderFactory.createTitledBorder("Battle Log"));
+        logPanel.add(new JScrollPane(battleLog), BorderLayout.CENTER);
+        logPanel.add(exportPanel, BorderLayout.SOUTH);
+        add(logPanel, BorderLayout.CENTER);
 
         // Player panels
         JPanel playersPanel = new JPanel(new GridLayout(1, 2, 10, 10));
@@ -36,7 +49,8 @@ public class BattleView extends JFrame {
         player1Stats = new JLabel("Player 1 - HP: -- | EP: --");
         player1MoveCombo = new JComboBox<>();
         p1Panel.add(player1Stats, BorderLayout.NORTH);
-        p1Panel.add(new JLabel("Select Move:"), BorderLayout.CENTER);
+        player1MoveLabel = new JLabel("Select Move:");
+        p1Panel.add(player1MoveLabel, BorderLayout.CENTER);
         p1Panel.add(player1MoveCombo, BorderLayout.SOUTH);
         playersPanel.add(p1Panel);
 
@@ -45,15 +59,25 @@ public class BattleView extends JFrame {
         player2Stats = new JLabel("Player 2 - HP: -- | EP: --");
         player2MoveCombo = new JComboBox<>();
         p2Panel.add(player2Stats, BorderLayout.NORTH);
-        p2Panel.add(new JLabel("Select Move:"), BorderLayout.CENTER);
+        player2MoveLabel = new JLabel("Select Move:");
+        p2Panel.add(player2MoveLabel, BorderLayout.CENTER);
         p2Panel.add(player2MoveCombo, BorderLayout.SOUTH);
         playersPanel.add(p2Panel);
 
         add(playersPanel, BorderLayout.NORTH);
 
-        // Confirm button
+        // Confirm button and auto-play controls
         confirmButton = new JButton("Confirm Turn");
-        add(confirmButton, BorderLayout.SOUTH);
+        speedCombo = new JComboBox<>(new String[] {"1x", "10x", "Max"});
+        autoPlayButton = new JButton("Auto-Play");
+        JPanel autoPlayPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        autoPlayPanel.add(new JLabel("Speed:"));
+        autoPlayPanel.add(speedCombo);
+        autoPlayPanel.add(autoPlayButton);
+        JPanel controlPanel = new JPanel(new BorderLayout());
+        controlPanel.add(confirmButton, BorderLayout.CENTER);
+        controlPanel.add(autoPlayPanel, BorderLayout.EAST);
+        add(controlPanel, BorderLayout.SOUTH);
     }
 
     public void setPlayer1Stats(String statsText) {
@@ -80,8 +104,100 @@ public class BattleView extends JFrame {
         return (String) player2MoveCombo.getSelectedItem();
     }
 
+    /**
+     * Adds text to the battle log. Safe to call from any thread; the lines
+     * appear on the next frame.
+     */
     public void appendBattleLog(String text) {
-        battleLog.append(text + "\n");
+        battleLogModel.append(text + "\n");
+    }
+
+    /**
+     * Replaces the battle log with text and scrolls to the top.
+     */
+    public void setBattleLog(String text) {
+        battleLogModel.clear();
+        if (!text.isEmpty()) {
+            battleLogModel.append(text);
+            battleLogModel.flush();
+        }
+        battleLog.ensureIndexIsVisible(0);
+    }
+
+    /**
+     * Prepares to write the whole battle log, including lines that have
+     * scrolled out of memory, to a file. The returned task writes the file
+     * and must be run off the Event Dispatch Thread (see BattleLogModel.exportTo()).
+     */
+    public Callable<Void> exportBattleLog(File file) {
+        return battleLogModel.exportTo(file);
+    }
+
+    /**
+     * Asks the user where to save the battle log.
+     *
+     * @return the chosen file, or null if the user cancelled
+     */
+    public File chooseExportFile() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File("battle-log.txt"));
+        if (chooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+            return chooser.getSelectedFile();
+        }
+        return null;
+    }
+
+    public void addExportLogListener(ActionListener listener) {
+        exportLogButton.addActionListener(listener);
+    }
+
+    /**
+     * Shows or hides the move dropdowns and the Confirm Turn button,
+     * e.g. for screens that only watch a battle.
+     */
+    public void setMoveControlsVisible(boolean visible) {
+        player1MoveLabel.setVisible(visible);
+        player2MoveLabel.setVisible(visible);
+        player1MoveCombo.setVisible(visible);
+        player2MoveCombo.setVisible(visible);
+        confirmButton.setVisible(visible);
+        speedCombo.setVisible(visible);
+        autoPlayButton.setVisible(visible);
+    }
+
+    /**
+     * Switches the controls between a normal battle and an auto-play battle.
+     * While auto-playing, the moves cannot be picked by hand.
+     */
+    public void setAutoPlaying(boolean autoPlaying) {
+        autoPlayButton.setText(autoPlaying ? "Stop" : "Auto-Play");
+        player1MoveCombo.setEnabled(!autoPlaying);
+        player2MoveCombo.setEnabled(!autoPlaying);
+        confirmButton.setEnabled(!autoPlaying);
+    }
+
+    /**
+     * Returns the selected auto-play speed: "1x", "10x" or "Max".
+     */
+    public String getSelectedSpeed() {
+        return (String) speedCombo.getSelectedItem();
+    }
+
+    public void addAutoPlayListener(ActionListener listener) {
+        autoPlayButton.addActionListener(listener);
+    }
+
+    public void addSpeedListener(ActionListener listener) {
+        speedCombo.addActionListener(listener);
+    }
+
+    /**
+     * Enables or disables the Confirm Turn and Auto-Play buttons, e.g. while a
+     * turn is resolved.
+     */
+    public void setConfirmEnabled(boolean enabled) {
+        confirmButton.setEnabled(enabled);
+        autoPlayButton.setEnabled(enabled);
     }
 
     public void clearMoveSelection() {
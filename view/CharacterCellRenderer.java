@@ -0,0 +1,36 @@
+package view;
+
+import model.Character;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Draws one row of a character list in the same style as the old character
+ * buttons. One renderer component is reused for every row, and it only reads
+ * the name and class, so drawing a row never loads the character's details.
+ */
+public class CharacterCellRenderer extends JLabel implements ListCellRenderer<Character> {
+    private static final long serialVersionUID = 1L;
+
+    private static final Color ROW_COLOR = new Color(138, 3, 3);
+    private static final Color SELECTED_COLOR = new Color(178, 34, 34);
+
+    public CharacterCellRenderer() {
+        setOpaque(true);
+        setHorizontalAlignment(SwingConstants.CENTER);
+        setFont(new Font("Serif", Font.PLAIN, 14));
+        setForeground(Color.WHITE);
+        setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createMatteBorder(0, 0, 5, 0, Color.WHITE),
+                BorderFactory.createEmptyBorder(8, 8, 8, 8)));
+    }
+
+    @Override
+    public Component getListCellRendererComponent(JList<? extends Character> list, Character character,
+                                                  int index, boolean isSelected, boolean cellHasFocus) {
+        setText(character.getName() + " (" + character.getCharacterClass() + ")");
+        setBackground(isSelected ? SELECTED_COLOR : ROW_COLOR);
+        return this;
+    }
+}
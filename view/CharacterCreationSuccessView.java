@@ -4,7 +4,7 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 
-public class CharacterCreationSuccessView extends JFrame {
+public class CharacterCreationSuccessView extends Screen {
     private JLabel successLabel;
     private JButton doneButton;
 
@@ -37,10 +37,6 @@ public class CharacterCreationSuccessView extends JFrame {
         mainPanel.add(buttonPanel, BorderLayout.SOUTH);
 
         add(mainPanel);
-        setSize(600, 400);
-        setLocationRelativeTo(null);
-        setDefaultCloseOperation(EXIT_ON_CLOSE);
-        setResizable(false);
     }
 
     // button getter
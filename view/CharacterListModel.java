@@ -0,0 +1,78 @@
+package view;
+
+import model.Character;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The CharacterListModel class is the list model behind the character lists.
+ * It keeps its own copy of the roster and tells the list exactly which rows
+ * were added, removed or changed, so the list never rebuilds every row.
+ */
+public class CharacterListModel extends AbstractListModel<Character> {
+    private static final long serialVersionUID = 1L;
+
+    private final ArrayList<Character> characters = new ArrayList<>();
+
+    /**
+     * Replaces every character in the list.
+     */
+    public void setCharacters(List<Character> newCharacters) {
+        int oldSize = characters.size();
+        characters.clear();
+        if (oldSize > 0) {
+            fireIntervalRemoved(this, 0, oldSize - 1);
+        }
+        characters.addAll(newCharacters);
+        if (!characters.isEmpty()) {
+            fireIntervalAdded(this, 0, characters.size() - 1);
+        }
+    }
+
+    public void addCharacter(Character character) {
+        characters.add(character);
+        fireIntervalAdded(this, characters.size() - 1, characters.size() - 1);
+    }
+
+    public void removeCharacter(Character character) {
+        int index = indexOf(character);
+        if (index >= 0) {
+            characters.remove(index);
+            fireIntervalRemoved(this, index, index);
+        }
+    }
+
+    /**
+     * Redraws the row of a character whose details changed.
+     */
+    public void updateCharacter(Character character) {
+        int index = indexOf(character);
+        if (index >= 0) {
+            fireContentsChanged(this, index, index);
+        }
+    }
+
+    /**
+     * Returns the row of a character, comparing by identity, or -1.
+     */
+    public int indexOf(Character character) {
+        for (int i = 0; i < characters.size(); i++) {
+            if (characters.get(i) == character) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int getSize() {
+        return characters.size();
+    }
+
+    @Override
+    public Character getElementAt(int index) {
+        return characters.get(index);
+    }
+}
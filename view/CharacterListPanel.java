@@ -0,0 +1,236 @@
+package view;
+
+import model.AllAbilities;
+import model.Character;
+import model.Race;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.*;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The CharacterListPanel class is the scrolling character list shared by the
+ * view, edit, delete and selection screens. It is a JList over a
+ * CharacterListModel, so only the rows on screen are drawn, and rows are added
+ * or removed one at a time instead of rebuilding a button for every character.
+ *
+ * When there are no characters, a message is shown in place of the list.
+ *
+ * An optional search bar (a name box plus race and class filters) sits above
+ * the list. Each keystroke or filter change is passed to a SearchListener,
+ * which decides which characters to show.
+ */
+public class CharacterListPanel extends JPanel {
+    private static final long serialVersionUID = 1L;
+
+    private static final String LIST_CARD = "list";
+    private static final String EMPTY_CARD = "empty";
+
+    private CardLayout cards;
+    private JPanel cardPanel;
+    private JPanel searchPanel;
+    private JTextField searchField;
+    private JComboBox<String> raceFilter;
+    private JComboBox<String> classFilter;
+    private SearchListener searchListener;
+    private CharacterListModel listModel;
+    private JList<Character> list;
+    private JLabel emptyLabel;
+    private CharacterActivationListener activationListener;
+
+    public CharacterListPanel() {
+        super(new BorderLayout());
+        cards = new CardLayout();
+        cardPanel = new JPanel(cards);
+
+        listModel = new CharacterListModel();
+        list = new JList<>(listModel);
+        CharacterCellRenderer renderer = new CharacterCellRenderer();
+        list.setCellRenderer(renderer);
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        // Every row has the same height, so the list never measures each row
+        renderer.setText("Prototype");
+        list.setFixedCellHeight(renderer.getPreferredSize().height);
+
+        // A click on a row (or Enter on the selected row) acts like the old buttons
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int index = list.locationToIndex(e.getPoint());
+                if (index >= 0 && list.getCellBounds(index, index).contains(e.getPoint())) {
+                    activate(index);
+                }
+            }
+        });
+        list.getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "activate");
+        list.getActionMap().put("activate", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                activate(list.getSelectedIndex());
+            }
+        });
+
+        emptyLabel = new JLabel("Please create your characters first!", SwingConstants.CENTER);
+        emptyLabel.setFont(new Font("Serif", Font.BOLD, 27));
+
+        cardPanel.add(new JScrollPane(list), LIST_CARD);
+        cardPanel.add(emptyLabel, EMPTY_CARD);
+        cards.show(cardPanel, EMPTY_CARD);
+        add(cardPanel, BorderLayout.CENTER);
+
+        // Search bar, hidden until a screen turns it on
+        searchField = new JTextField(15);
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                fireSearch();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                fireSearch();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                fireSearch();
+            }
+        });
+        raceFilter = new JComboBox<>();
+        raceFilter.addItem("All races");
+        for (Race race : Race.show_race_array()) {
+            raceFilter.addItem(race.getName());
+        }
+        raceFilter.addActionListener(e -> fireSearch());
+        classFilter = new JComboBox<>();
+        classFilter.addItem("All classes");
+        for (String className : AllAbilities.CLASS_NAMES) {
+            classFilter.addItem(className);
+        }
+        classFilter.addActionListener(e -> fireSearch());
+
+        searchPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        searchPanel.add(new JLabel("Search:"));
+        searchPanel.add(searchField);
+        searchPanel.add(raceFilter);
+        searchPanel.add(classFilter);
+        searchPanel.setVisible(false);
+        add(searchPanel, BorderLayout.NORTH);
+    }
+
+    /**
+     * Shows or hides the search bar.
+     */
+    public void setSearchVisible(boolean visible) {
+        searchPanel.setVisible(visible);
+    }
+
+    /**
+     * Returns true if the search bar currently narrows the list, so the list
+     * shows search results rather than the whole roster.
+     */
+    public boolean isFiltering() {
+        return !getSearchText().trim().isEmpty() || getRaceFilter() != null || getClassFilter() != null;
+    }
+
+    public String getSearchText() {
+        return searchField.getText();
+    }
+
+    /**
+     * Returns the race to filter by, or null for any race.
+     */
+    public Race getRaceFilter() {
+        int index = raceFilter.getSelectedIndex();
+        return index <= 0 ? null : Race.show_race_array()[index - 1];
+    }
+
+    /**
+     * Returns the class to filter by, or null for any class.
+     */
+    public String getClassFilter() {
+        int index = classFilter.getSelectedIndex();
+        return index <= 0 ? null : AllAbilities.CLASS_NAMES[index - 1];
+    }
+
+    /**
+     * Clears the search box and filters, e.g. when the screen is opened again.
+     */
+    public void clearSearch() {
+        SearchListener listener = searchListener;
+        searchListener = null;
+        searchField.setText("");
+        raceFilter.setSelectedIndex(0);
+        classFilter.setSelectedIndex(0);
+        searchListener = listener;
+    }
+
+    /**
+     * Tells the search listener to run the current search again.
+     */
+    public void fireSearch() {
+        if (searchListener != null) {
+            searchListener.onSearch(getSearchText(), getRaceFilter(), getClassFilter());
+        }
+    }
+
+    public void setSearchListener(SearchListener listener) {
+        this.searchListener = listener;
+    }
+
+    private void activate(int index) {
+        if (index >= 0 && activationListener != null) {
+            activationListener.onCharacterActivated(listModel.getElementAt(index));
+        }
+    }
+
+    private void showCurrentCard() {
+        emptyLabel.setText(isFiltering() ? "No matching characters." : "Please create your characters first!");
+        cards.show(cardPanel, listModel.getSize() == 0 ? EMPTY_CARD : LIST_CARD);
+    }
+
+    public void showNoCharacters() {
+        listModel.setCharacters(Collections.emptyList());
+        showCurrentCard();
+    }
+
+    public void showCharacters(List<Character> characters) {
+        listModel.setCharacters(characters);
+        list.clearSelection();
+        showCurrentCard();
+    }
+
+    public void addCharacter(Character character) {
+        listModel.addCharacter(character);
+        showCurrentCard();
+    }
+
+    public void removeCharacter(Character character) {
+        listModel.removeCharacter(character);
+        showCurrentCard();
+    }
+
+    public void updateCharacter(Character character) {
+        listModel.updateCharacter(character);
+    }
+
+    public CharacterListModel getListModel() {
+        return listModel;
+    }
+
+    public void setActivationListener(CharacterActivationListener listener) {
+        this.activationListener = listener;
+    }
+
+    public interface CharacterActivationListener {
+        void onCharacterActivated(Character character);
+    }
+
+    public interface SearchListener {
+        void onSearch(String query, Race race, String characterClass);
+    }
+}
@@ -2,34 +2,39 @@ package view;
 
 import model.Ability;
 import model.Character;
+import model.CombatStats;
 import model.MagicItem;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.util.List;
+import java.util.Map;
 
-public class CharacterListView extends JFrame {
+public class CharacterListView extends Screen {
     private JLabel title;
     private JButton back;
     private JPanel mainPanel;
-    private JPanel characterButtonPanel;
+    private CharacterListPanel characterList;
 
     private CharacterSelectListener characterSelectListener;
 
     public CharacterListView() {
         super("View Character");
         initComponents();
-        setFrame();
     }
 
     private void initComponents() {
         title = new JLabel("Character List", SwingConstants.CENTER);
         title.setFont(new Font("Serif", Font.BOLD, 24));
 
-        // Panel to hold character buttons
-        characterButtonPanel = new JPanel();
-        characterButtonPanel.setLayout(new GridLayout(0, 1, 10, 10));
+        // List of characters; clicking one shows its details
+        characterList = new CharacterListPanel();
+        characterList.setActivationListener(c -> {
+            if (characterSelectListener != null) {
+                characterSelectListener.onCharacterSelected(c);
+            }
+        });
 
         back = new JButton("Back");
         back.setBackground(new Color(138, 3, 3));
@@ -38,7 +43,7 @@ public class CharacterListView extends JFrame {
 
         mainPanel = new JPanel(new BorderLayout());
         mainPanel.add(title, BorderLayout.NORTH);
-        mainPanel.add(new JScrollPane(characterButtonPanel), BorderLayout.CENTER);
+        mainPanel.add(characterList, BorderLayout.CENTER);
 
         JPanel bottomPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         bottomPanel.add(back);
@@ -47,26 +52,8 @@ public class CharacterListView extends JFrame {
         add(mainPanel);
     }
 
-    private void setFrame() {
-        setSize(600, 400);
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setLocationRelativeTo(null);
-        setResizable(false);
-    }
-
     public void showNoCharacters() {
-        characterButtonPanel.removeAll();
-
-        JLabel label = new JLabel("Please create your characters first!", SwingConstants.CENTER);
-        label.setFont(new Font("Serif", Font.BOLD, 27)); 
-        label.setHorizontalAlignment(SwingConstants.CENTER); 
-        label.setVerticalAlignment(SwingConstants.CENTER);
-
-        characterButtonPanel.setLayout(new BorderLayout()); 
-        characterButtonPanel.add(label, BorderLayout.CENTER);
-
-        characterButtonPanel.revalidate();
-        characterButtonPanel.repaint();
+        characterList.showNoCharacters();
     }
 
     public void showCharacterDetails(Character character) {
@@ -91,33 +78,32 @@ public class CharacterListView extends JFrame {
             sb.append("  - ").append(ability.toString()).append("\n");
         }
 
+        CombatStats stats = character.getStats();
+        sb.append("\nBattle Record:\n");
+        sb.append("  Battles: ").append(stats.getBattles())
+                .append(" (").append(stats.getWins()).append(" W / ")
+                .append(stats.getLosses()).append(" L / ")
+                .append(stats.getDraws()).append(" D)\n");
+        if (stats.getBattles() > 0) {
+            sb.append(String.format("  Average rounds: %.1f%n", stats.getAverageRounds()));
+            sb.append("  Damage dealt: ").append(stats.getDamageDealt())
+                    .append(", taken: ").append(stats.getDamageTaken()).append("\n");
+            sb.append("  EP spent: ").append(stats.getEpSpent()).append("\n");
+            sb.append("  Items consumed: ").append(stats.getItemsConsumed()).append("\n");
+            for (Map.Entry<String, Long> use : stats.getAbilityUses().entrySet()) {
+                sb.append("  ").append(use.getKey()).append(" used ").append(use.getValue()).append(" times\n");
+            }
+        }
+
         JOptionPane.showMessageDialog(this, sb.toString(), "Character Details", JOptionPane.INFORMATION_MESSAGE);
     }
 
     public void showCharacterList(List<Character> characters) {
-        characterButtonPanel.removeAll();
-        
-        // Reset layout to GridLayout for buttons
-        characterButtonPanel.setLayout(new GridLayout(0, 1, 10, 10));
-
-        for (Character c : characters) {
-            JButton charButton = new JButton(c.getName() + " (" + c.getCharacterClass() + ")");
-            charButton.setFont(new Font("Serif", Font.PLAIN, 14));
-            charButton.setFocusPainted(false);
-            charButton.setBackground(new Color(138, 3, 3));
-            charButton.setForeground(Color.WHITE);
-
-            charButton.addActionListener(e -> {
-                if (characterSelectListener != null) {
-                    characterSelectListener.onCharacterSelected(c);
-                }
-            });
-
-            characterButtonPanel.add(charButton);
-        }
+        characterList.showCharacters(characters);
+    }
 
-        characterButtonPanel.revalidate();
-        characterButtonPanel.repaint();
+    public CharacterListPanel getCharacterList() {
+        return characterList;
     }
 
     public void addBackButtonListener(ActionListener listener) {
@@ -131,4 +117,4 @@ public class CharacterListView extends JFrame {
     public interface CharacterSelectListener {
         void onCharacterSelected(Character character);
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -4,7 +4,7 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 
-public class CharacterNameInputView extends JFrame {
+public class CharacterNameInputView extends Screen {
     private JLabel title;
     private JLabel prompt;
     private JTextField characterNameField;
@@ -61,10 +61,6 @@ public class CharacterNameInputView extends JFrame {
         add(mainPanel);
 
 
-        setSize(600, 400);
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setLocationRelativeTo(null);
-        setResizable(false);
     }
 
     public JButton getNextButton() {
@@ -7,8 +7,8 @@ import java.awt.*;
 import java.awt.event.*;
 import java.util.List;
 
-public class CharacterSelectionView extends JFrame {
-    private JPanel characterButtonPanel;
+public class CharacterSelectionView extends Screen {
+    private CharacterListPanel characterList;
     private JPanel mainPanel;
     private CharacterSelectionListener listener;
     private JLabel title;
@@ -17,16 +17,20 @@ public class CharacterSelectionView extends JFrame {
     public CharacterSelectionView() {
         super("Choose a Character for Battle");
         initComponents();
-        setFrame();
     }
 
     public void initComponents() {
         title = new JLabel("Character List", SwingConstants.CENTER);
         title.setFont(new Font("Serif", Font.BOLD, 24));
 
-        // New panel to hold buttons
-        characterButtonPanel = new JPanel();
-        characterButtonPanel.setLayout(new GridLayout(0, 1, 10, 10));
+        // List of characters; clicking one picks it for battle
+        characterList = new CharacterListPanel();
+        characterList.setSearchVisible(true);
+        characterList.setActivationListener(c -> {
+            if (listener != null) {
+                listener.onCharacterSelected(c);
+            }
+        });
 
         back = new JButton("Back");
         back.setBackground(new Color(138, 3, 3));
@@ -35,7 +39,7 @@ public class CharacterSelectionView extends JFrame {
 
         mainPanel = new JPanel(new BorderLayout());
         mainPanel.add(title, BorderLayout.NORTH);
-        mainPanel.add(new JScrollPane(characterButtonPanel), BorderLayout.CENTER);
+        mainPanel.add(characterList, BorderLayout.CENTER);
 
         JPanel bottomPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         bottomPanel.add(back);
@@ -44,49 +48,16 @@ public class CharacterSelectionView extends JFrame {
         add(mainPanel);
     }
 
-    public void setFrame() {
-        setSize(600, 400);
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setLocationRelativeTo(null);
-        setResizable(false);
-    }
-
     public void showNoCharacters() {
-        characterButtonPanel.removeAll();
-
-        JLabel label = new JLabel("Please create your characters first!", SwingConstants.CENTER);
-        label.setFont(new Font("Serif", Font.BOLD, 27)); 
-        label.setHorizontalAlignment(SwingConstants.CENTER); 
-        label.setVerticalAlignment(SwingConstants.CENTER);
-
-        characterButtonPanel.setLayout(new BorderLayout()); 
-        characterButtonPanel.add(label, BorderLayout.CENTER);
-
-        characterButtonPanel.revalidate();
-        characterButtonPanel.repaint();
+        characterList.showNoCharacters();
     }
     
     public void showCharacterList(List<Character> characters) {
-        characterButtonPanel.removeAll();
-
-        for (Character c : characters) {
-            JButton charButton = new JButton(c.getName() + " (" + c.getCharacterClass() + ")");
-            charButton.setFont(new Font("Serif", Font.PLAIN, 14));
-            charButton.setFocusPainted(false);
-            charButton.setBackground(new Color(138, 3, 3));
-            charButton.setForeground(Color.WHITE);
-
-            charButton.addActionListener(e -> {
-                    if (listener != null) {
-                        listener.onCharacterSelected(c);
-                    }
-                });
-
-            characterButtonPanel.add(charButton);
-        }
+        characterList.showCharacters(characters);
+    }
 
-        characterButtonPanel.revalidate();
-        characterButtonPanel.repaint();
+    public CharacterListPanel getCharacterList() {
+        return characterList;
     }
 
     public void addBackButtonListener(ActionListener listener) {
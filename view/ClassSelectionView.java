@@ -5,7 +5,7 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 
-public class ClassSelectionView extends JFrame {
+public class ClassSelectionView extends Screen {
     
     private JLabel title;
     private JButton warriorButton;
@@ -66,10 +66,6 @@ public class ClassSelectionView extends JFrame {
 
         add(mainPanel);
         
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setSize(600, 400);
-        setLocationRelativeTo(null);
-        setVisible(true);
     }
 
     // button getters
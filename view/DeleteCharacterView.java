@@ -7,9 +7,9 @@ import java.awt.*;
 import java.awt.event.ActionListener;
 import java.util.List;
 
-public class DeleteCharacterView extends JFrame {
+public class DeleteCharacterView extends Screen {
     private JLabel title;
-    private JPanel characterButtonPanel;
+    private CharacterListPanel characterList;
     private JButton back;
     private JPanel mainPanel;
 
@@ -18,17 +18,26 @@ public class DeleteCharacterView extends JFrame {
     public DeleteCharacterView() {
         super("Delete Character");
         initComponents();
-        setFrame();
     }
 
     private void initComponents() {
         title = new JLabel("Delete Character", SwingConstants.CENTER);
         title.setFont(new Font("Serif", Font.BOLD, 24));
 
-        characterButtonPanel = new JPanel();
-        characterButtonPanel.setLayout(new GridLayout(0, 1, 10, 10));
-
-        JScrollPane scrollPane = new JScrollPane(characterButtonPanel);
+        // List of characters; clicking one asks to delete it
+        characterList = new CharacterListPanel();
+        characterList.setSearchVisible(true);
+        characterList.setActivationListener(character -> {
+            int confirm = JOptionPane.showConfirmDialog(
+                    this,
+                    "Are you sure you want to delete " + character.getName() + "?",
+                    "Confirm Deletion",
+                    JOptionPane.YES_NO_OPTION
+            );
+            if (confirm == JOptionPane.YES_OPTION && deleteCharacterListener != null) {
+                deleteCharacterListener.onCharacterDelete(character);
+            }
+        });
 
         back = new JButton("Back");
         back.setBackground(new Color(138, 3, 3));
@@ -37,7 +46,7 @@ public class DeleteCharacterView extends JFrame {
 
         mainPanel = new JPanel(new BorderLayout());
         mainPanel.add(title, BorderLayout.NORTH);
-        mainPanel.add(scrollPane, BorderLayout.CENTER);
+        mainPanel.add(characterList, BorderLayout.CENTER);
 
         JPanel bottomPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         bottomPanel.add(back);
@@ -46,49 +55,16 @@ public class DeleteCharacterView extends JFrame {
         add(mainPanel);
     }
 
-    private void setFrame() {
-        setSize(600, 400);
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setLocationRelativeTo(null);
-        setResizable(false);
-    }
-
     public void showNoCharacters() {
-        characterButtonPanel.removeAll();
-        JLabel label = new JLabel("Please create your characters first!", SwingConstants.CENTER);
-        label.setFont(new Font("Serif", Font.BOLD, 27)); 
-        label.setHorizontalAlignment(SwingConstants.CENTER); 
-        label.setVerticalAlignment(SwingConstants.CENTER);
-        characterButtonPanel.setLayout(new BorderLayout()); 
-        characterButtonPanel.add(label, BorderLayout.CENTER);
-
-        characterButtonPanel.add(label);
-        characterButtonPanel.revalidate();
-        characterButtonPanel.repaint();
+        characterList.showNoCharacters();
     }
 
     public void showCharacterList(List<Character> characters) {
-        characterButtonPanel.removeAll();
-        for (Character character : characters) {
-            JButton characterButton = new JButton(character.getName() + " (" + character.getCharacterClass() + ")");
-            characterButton.setFont(new Font("Serif", Font.PLAIN, 14));
-            characterButton.setBackground(new Color(138, 3, 3));
-            characterButton.setForeground(Color.WHITE);
-            characterButton.addActionListener(e -> {
-                int confirm = JOptionPane.showConfirmDialog(
-                        this,
-                        "Are you sure you want to delete " + character.getName() + "?",
-                        "Confirm Deletion",
-                        JOptionPane.YES_NO_OPTION
-                );
-                if (confirm == JOptionPane.YES_OPTION && deleteCharacterListener != null) {
-                    deleteCharacterListener.onCharacterDelete(character);
-                }
-            });
-            characterButtonPanel.add(characterButton);
-        }
-        characterButtonPanel.revalidate();
-        characterButtonPanel.repaint();
+        characterList.showCharacters(characters);
+    }
+
+    public CharacterListPanel getCharacterList() {
+        return characterList;
     }
 
     public void addBackButtonListener(ActionListener listener) {
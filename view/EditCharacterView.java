@@ -4,12 +4,14 @@ import model.Character;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.List;
 
-public class EditCharacterView extends JFrame {
+public class EditCharacterView extends Screen {
     private JLabel title;
-    private JPanel characterButtonPanel;
+    private CharacterListPanel characterList;
+    private ActionListener selectListener;
     private JButton back;
     private JPanel mainPanel;
 
@@ -18,17 +20,20 @@ public class EditCharacterView extends JFrame {
     public EditCharacterView() {
         super("Edit Character");
         initComponents();
-        setFrame();
     }
 
     private void initComponents() {
         title = new JLabel("Edit Character", SwingConstants.CENTER);
         title.setFont(new Font("Serif", Font.BOLD, 24));
 
-        characterButtonPanel = new JPanel();
-        characterButtonPanel.setLayout(new GridLayout(0, 1, 10, 10));
-
-        JScrollPane scrollPane = new JScrollPane(characterButtonPanel);
+        // List of characters; clicking one sends its name as the action command
+        characterList = new CharacterListPanel();
+        characterList.setSearchVisible(true);
+        characterList.setActivationListener(character -> {
+            if (selectListener != null) {
+                selectListener.actionPerformed(new ActionEvent(this, ActionEvent.ACTION_PERFORMED, character.getName()));
+            }
+        });
 
         back = new JButton("Back");
         back.setBackground(new Color(138, 3, 3));
@@ -37,7 +42,7 @@ public class EditCharacterView extends JFrame {
 
         mainPanel = new JPanel(new BorderLayout());
         mainPanel.add(title, BorderLayout.NORTH);
-        mainPanel.add(scrollPane, BorderLayout.CENTER);
+        mainPanel.add(characterList, BorderLayout.CENTER);
 
         JPanel bottomPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         bottomPanel.add(back);
@@ -46,45 +51,18 @@ public class EditCharacterView extends JFrame {
         add(mainPanel);
     }
 
-    private void setFrame() {
-        setSize(600, 400);
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setLocationRelativeTo(null);
-        setResizable(false);
-    }
-
     public void showNoCharacters() {
-        characterButtonPanel.removeAll();
-        JLabel label = new JLabel("Please create your characters first!", SwingConstants.CENTER);
-        label.setFont(new Font("Serif", Font.BOLD, 27)); 
-        label.setHorizontalAlignment(SwingConstants.CENTER); 
-        label.setVerticalAlignment(SwingConstants.CENTER);
-        characterButtonPanel.setLayout(new BorderLayout()); 
-        characterButtonPanel.add(label, BorderLayout.CENTER);
-
-        characterButtonPanel.add(label);
-        characterButtonPanel.revalidate();
-        characterButtonPanel.repaint();
+        characterList.showNoCharacters();
     }
 
     public void showCharacterList(List<Character> characters, ActionListener listener) {
-        characterButtonPanel.removeAll();
-
-        for (Character character : characters) {
-            JButton characterButton = new JButton(character.getName());
-            characterButton.setFont(new Font("Serif", Font.PLAIN, 18));
-            characterButton.setBackground(new Color(138, 8, 8));
-            characterButton.setForeground(Color.WHITE);
-            characterButton.setActionCommand(character.getName());
-            characterButton.addActionListener(listener);
-
-            characterButtonPanel.add(characterButton);
-        }
-
-        characterButtonPanel.revalidate();
-        characterButtonPanel.repaint();
+        this.selectListener = listener;
+        characterList.showCharacters(characters);
     }
 
+    public CharacterListPanel getCharacterList() {
+        return characterList;
+    }
 
     public JButton getBackButton() {
         return back;
@@ -6,7 +6,7 @@ import javax.swing.*;
 import java.awt.*;
 import java.util.List;
 
-public class EquipItemView extends JFrame {
+public class EquipItemView extends Screen {
     private JCheckBox[] itemCheckBoxes;
     private JButton confirmButton;
     private JPanel itemPanel;
@@ -14,7 +14,6 @@ public class EquipItemView extends JFrame {
     public EquipItemView(List<MagicItem> items) {
         super("Equip Magic Item");
         initComponents(items);
-        setFrame();
     }
 
     private void initComponents(List<MagicItem> items) {
@@ -34,13 +33,6 @@ public class EquipItemView extends JFrame {
         this.add(confirmButton, BorderLayout.SOUTH);
     }
 
-    private void setFrame() {
-        setSize(400, 300);
-        setLocationRelativeTo(null);
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setVisible(true);
-    }
-
     public JButton getConfirmButton() {
         return confirmButton;
     }
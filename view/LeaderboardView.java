@@ -0,0 +1,77 @@
+package view;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+import java.util.List;
+
+/**
+ * The LeaderboardView class shows the best characters of every player, one
+ * line per rank.
+ */
+public class LeaderboardView extends Screen {
+    private static final long serialVersionUID = 1L;
+
+    private JLabel title;
+    private JLabel summary;
+    private JButton back;
+    private DefaultListModel<String> rows;
+    private JList<String> list;
+
+    public LeaderboardView() {
+        super("Leaderboard");
+        initComponents();
+    }
+
+    private void initComponents() {
+        title = new JLabel("Leaderboard", SwingConstants.CENTER);
+        title.setFont(new Font("Serif", Font.BOLD, 24));
+
+        summary = new JLabel("", SwingConstants.CENTER);
+        summary.setFont(new Font("Serif", Font.PLAIN, 14));
+
+        rows = new DefaultListModel<>();
+        list = new JList<>(rows);
+        list.setFont(new Font("Monospaced", Font.PLAIN, 13));
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+
+        back = new JButton("Back");
+        back.setBackground(new Color(138, 3, 3));
+        back.setForeground(Color.WHITE);
+        back.setFont(new Font("Serif", Font.PLAIN, 12));
+
+        JPanel topPanel = new JPanel(new GridLayout(2, 1));
+        topPanel.add(title);
+        topPanel.add(summary);
+
+        JPanel mainPanel = new JPanel(new BorderLayout());
+        mainPanel.add(topPanel, BorderLayout.NORTH);
+        mainPanel.add(new JScrollPane(list), BorderLayout.CENTER);
+
+        JPanel bottomPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        bottomPanel.add(back);
+        mainPanel.add(bottomPanel, BorderLayout.SOUTH);
+
+        add(mainPanel);
+    }
+
+    /**
+     * Replaces the shown ranking.
+     *
+     * @param lines one line per rank, best first
+     * @param total how many characters are ranked in all
+     */
+    public void showRanking(List<String> lines, int total) {
+        rows.clear();
+        if (lines.isEmpty()) {
+            rows.addElement("No characters yet.");
+        } else {
+            rows.addAll(lines);
+        }
+        summary.setText("Top " + lines.size() + " of " + total + " characters");
+    }
+
+    public void addBackListener(ActionListener listener) {
+        back.addActionListener(listener);
+    }
+}
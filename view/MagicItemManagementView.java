@@ -4,7 +4,7 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionListener;
 
-public class MagicItemManagementView extends JFrame {
+public class MagicItemManagementView extends Screen {
     private JButton viewInventoryButton;
     private JButton equipItemButton;
     private JButton unequipItemButton;
@@ -13,8 +13,6 @@ public class MagicItemManagementView extends JFrame {
     public MagicItemManagementView() {
         super("Magic Item Management");
         initComponents();
-        setFrame();
-
     }
 
     private void initComponents() {
@@ -41,15 +39,6 @@ public class MagicItemManagementView extends JFrame {
 
     }
 
-    private void setFrame() {
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setSize(600, 400);
-        setLayout(new BorderLayout());
-        setLocationRelativeTo(null); // Center on screen
-        setVisible(true);
-
-    }
-
     // Getters for buttons
     public JButton getViewInventoryButton() {
         return viewInventoryButton;
@@ -4,7 +4,7 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 
-public class MainMenuView extends JFrame {
+public class MainMenuView extends Screen {
     // Top labels
     private JLabel title;
     private JLabel subtitle;
@@ -16,6 +16,8 @@ public class MainMenuView extends JFrame {
     private JButton edit;
     private JButton delete;
     private JButton choose;
+    private JButton leaderboard;
+    private JButton replays;
 
     public MainMenuView(int player) {
         super("Fatal Fantasy");
@@ -44,6 +46,8 @@ public class MainMenuView extends JFrame {
         edit = new JButton("Edit Character");
         delete = new JButton("Delete Character");
         choose = new JButton("Choose Character");
+        leaderboard = new JButton("Leaderboard");
+        replays = new JButton("Battle Replays");
 
         // button margin
         view.setMargin(new Insets(20, 20, 20, 20));
@@ -51,6 +55,8 @@ public class MainMenuView extends JFrame {
         edit.setMargin(new Insets(20, 20, 20, 20));
         delete.setMargin(new Insets(20, 20, 20, 20));
         choose.setMargin(new Insets(20, 20, 20, 20));
+        leaderboard.setMargin(new Insets(20, 20, 20, 20));
+        replays.setMargin(new Insets(20, 20, 20, 20));
 
         //button color
         view.setBackground(new Color(138,3,3));
@@ -58,11 +64,15 @@ public class MainMenuView extends JFrame {
         edit.setBackground(new Color(138,3,3));
         delete.setBackground(new Color(138,3,3));
         choose.setBackground(new Color(138,3,3));
+        leaderboard.setBackground(new Color(138,3,3));
+        replays.setBackground(new Color(138,3,3));
         view.setForeground(Color.WHITE);
         create.setForeground(Color.WHITE);
         edit.setForeground(Color.WHITE);
         delete.setForeground(Color.WHITE);
         choose.setForeground(Color.WHITE);
+        leaderboard.setForeground(Color.WHITE);
+        replays.setForeground(Color.WHITE);
 
         //button font
         view.setFont(new Font("Serif", Font.BOLD, 14));
@@ -70,6 +80,8 @@ public class MainMenuView extends JFrame {
         edit.setFont(new Font("Serif", Font.BOLD, 14));
         delete.setFont(new Font("Serif", Font.BOLD, 14));
         choose.setFont(new Font("Serif", Font.BOLD, 14));
+        leaderboard.setFont(new Font("Serif", Font.BOLD, 14));
+        replays.setFont(new Font("Serif", Font.BOLD, 14));
     }
 
     private void setFrame() {
@@ -83,21 +95,17 @@ public class MainMenuView extends JFrame {
         titlePanel.add(prompt);
         add(titlePanel, BorderLayout.NORTH);
 
-        // Center: 5 menu buttons arranged in flow
+        // Center: 7 menu buttons arranged in flow
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 20, 30));
         buttonPanel.add(view);
         buttonPanel.add(create);
         buttonPanel.add(edit);
         buttonPanel.add(delete);
         buttonPanel.add(choose);
+        buttonPanel.add(leaderboard);
+        buttonPanel.add(replays);
         add(buttonPanel, BorderLayout.CENTER);
 
-        // Frame settings
-        setSize(600, 400);
-        setDefaultCloseOperation(EXIT_ON_CLOSE);
-        setLocationRelativeTo(null); // center
-        setResizable(false);
-        setVisible(true);
     }
 
     // Getters for buttons
@@ -116,6 +124,12 @@ public class MainMenuView extends JFrame {
     public JButton getChooseButton() {
         return choose;
     }   
+    public JButton getLeaderboardButton() {
+        return leaderboard;
+    }
+    public JButton getReplaysButton() {
+        return replays;
+    }
     
     // Button action listeners
     public void addViewListener(ActionListener listener) {
@@ -138,5 +152,13 @@ public class MainMenuView extends JFrame {
         choose.addActionListener(listener);
     }
 
+    public void addLeaderboardListener(ActionListener listener) {
+        leaderboard.addActionListener(listener);
+    }
+
+    public void addReplaysListener(ActionListener listener) {
+        replays.addActionListener(listener);
+    }
+
     
 }
\ No newline at end of file
@@ -4,7 +4,7 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 
-public class RaceSelectionView extends JFrame {
+public class RaceSelectionView extends Screen {
     
     private JLabel title;
     
@@ -107,10 +107,6 @@ public class RaceSelectionView extends JFrame {
 
         add(mainPanel);
 
-        setSize(600, 400);
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setLocationRelativeTo(null);
-        setResizable(false);
 
 
     }
@@ -0,0 +1,79 @@
+package view;
+
+import javax.swing.*;
+import javax.swing.event.ChangeListener;
+import java.awt.*;
+import java.awt.event.ActionListener;
+
+/**
+ * Battle screen for watching a recorded battle. It reuses BattleView's stats and
+ * log, hides the move controls, and adds a round slider with step buttons.
+ */
+public class ReplayView extends BattleView {
+    private static final long serialVersionUID = 1L;
+
+    private JSlider roundSlider;
+    private JLabel roundLabel;
+    private JButton previousButton;
+    private JButton nextButton;
+    private JButton closeButton;
+
+    public ReplayView() {
+        setTitle("Battle Replay");
+        setMoveControlsVisible(false);
+
+        roundSlider = new JSlider(0, 0, 0);
+        roundLabel = new JLabel("Round 0 / 0", SwingConstants.CENTER);
+        previousButton = new JButton("<");
+        nextButton = new JButton(">");
+        closeButton = new JButton("Close");
+
+        closeButton.setBackground(new Color(138, 3, 3));
+        closeButton.setForeground(Color.WHITE);
+        closeButton.setFont(new Font("Serif", Font.PLAIN, 12));
+
+        JPanel stepPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        stepPanel.add(previousButton);
+        stepPanel.add(roundLabel);
+        stepPanel.add(nextButton);
+        stepPanel.add(closeButton);
+
+        JPanel controlPanel = new JPanel(new BorderLayout());
+        controlPanel.setBorder(BorderFactory.createTitledBorder("Replay"));
+        controlPanel.add(roundSlider, BorderLayout.CENTER);
+        controlPanel.add(stepPanel, BorderLayout.SOUTH);
+        add(controlPanel, BorderLayout.SOUTH);
+    }
+
+    public void setRoundCount(int roundCount) {
+        roundSlider.setMaximum(roundCount);
+    }
+
+    public int getSelectedRound() {
+        return roundSlider.getValue();
+    }
+
+    public void setSelectedRound(int round) {
+        roundSlider.setValue(round);
+    }
+
+    public void setRoundLabel(String text) {
+        roundLabel.setText(text);
+    }
+
+    public void addRoundChangeListener(ChangeListener listener) {
+        roundSlider.addChangeListener(listener);
+    }
+
+    public void addPreviousListener(ActionListener listener) {
+        previousButton.addActionListener(listener);
+    }
+
+    public void addNextListener(ActionListener listener) {
+        nextButton.addActionListener(listener);
+    }
+
+    public void addCloseListener(ActionListener listener) {
+        closeButton.addActionListener(listener);
+    }
+}
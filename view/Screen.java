@@ -0,0 +1,68 @@
+package view;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Base class for the screens shown inside the single application window.
+ *
+ * A Screen is a panel with a title. Once it is added to a ScreenRouter,
+ * showScreen() switches the window to it and the window takes its title.
+ * Dialogs opened over a screen should use the screen as their parent, so
+ * they belong to the window the screen is shown in.
+ */
+public class Screen extends JPanel {
+    private static final long serialVersionUID = 1L;
+
+    private String title;
+    private ScreenRouter router;
+    private String screenName;
+
+    public Screen() {
+        this("");
+    }
+
+    public Screen(String title) {
+        super(new BorderLayout());
+        this.title = title;
+    }
+
+    /**
+     * Called by ScreenRouter.register() when the screen joins the window.
+     */
+    void attachTo(ScreenRouter router, String screenName) {
+        this.router = router;
+        this.screenName = screenName;
+    }
+
+    public ScreenRouter getRouter() {
+        return router;
+    }
+
+    public String getScreenName() {
+        return screenName;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+        if (router != null) {
+            router.updateTitle(this);
+        }
+    }
+
+    /**
+     * Switches the window to this screen.
+     *
+     * @throws IllegalStateException if the screen was never added to a router
+     */
+    public void showScreen() {
+        if (router == null) {
+            throw new IllegalStateException("Screen is not in a window: " + title);
+        }
+        router.show(screenName);
+    }
+}
@@ -0,0 +1,106 @@
+package view;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The one top-level window of the game. Each screen is built once, added as a
+ * card, and shown by switching cards, so moving between screens never creates
+ * or destroys a window.
+ *
+ * Screens that are built for a single visit, like the steps of the character
+ * creation wizard, share the TEMPORARY card: showing one replaces the last.
+ */
+public class ScreenRouter {
+    public static final String MAIN_MENU = "mainMenu";
+    public static final String CHARACTER_LIST = "characterList";
+    public static final String EDIT_CHARACTER = "editCharacter";
+    public static final String DELETE_CHARACTER = "deleteCharacter";
+    public static final String CHARACTER_SELECTION = "characterSelection";
+    public static final String BATTLE = "battle";
+    public static final String LEADERBOARD = "leaderboard";
+    public static final String REPLAY = "replay";
+    public static final String TEMPORARY = "temporary";
+
+    private JFrame window;
+    private CardLayout cards;
+    private JPanel cardPanel;
+    private Map<String, Screen> screens = new HashMap<>();
+    private String currentScreen;
+
+    public ScreenRouter() {
+        window = new JFrame("Fatal Fantasy");
+        cards = new CardLayout();
+        cardPanel = new JPanel(cards);
+        window.setContentPane(cardPanel);
+        window.setSize(700, 500);
+        window.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        window.setLocationRelativeTo(null);
+    }
+
+    /**
+     * Adds a screen to the window as a card. A screen already added under the
+     * same name is removed.
+     *
+     * @param name the name used to show the screen
+     * @param screen the screen to add
+     */
+    public void register(String name, Screen screen) {
+        Screen old = screens.put(name, screen);
+        if (old == screen) {
+            return;
+        }
+        if (old != null) {
+            cardPanel.remove(old);
+        }
+        cardPanel.add(screen, name);
+        screen.attachTo(this, name);
+    }
+
+    /**
+     * Switches the window to a screen.
+     *
+     * @param name the name the screen was registered with
+     */
+    public void show(String name) {
+        Screen screen = screens.get(name);
+        if (screen == null) {
+            throw new IllegalArgumentException("Unknown screen: " + name);
+        }
+        currentScreen = name;
+        window.setTitle(screen.getTitle());
+        cards.show(cardPanel, name);
+        if (!window.isVisible()) {
+            window.setVisible(true);
+        }
+    }
+
+    /**
+     * Shows a screen built for a single visit in the TEMPORARY card.
+     *
+     * @param screen the screen to show
+     */
+    public void showTemporary(Screen screen) {
+        register(TEMPORARY, screen);
+        show(TEMPORARY);
+    }
+
+    /**
+     * Called by Screen.setTitle() so the window title follows the screen shown.
+     */
+    void updateTitle(Screen screen) {
+        if (currentScreen != null && screens.get(currentScreen) == screen) {
+            window.setTitle(screen.getTitle());
+        }
+    }
+
+    public String getCurrentScreen() {
+        return currentScreen;
+    }
+
+    public JFrame getWindow() {
+        return window;
+    }
+}